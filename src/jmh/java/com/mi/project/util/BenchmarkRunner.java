@@ -0,0 +1,49 @@
+package com.mi.project.util;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 点云热点路径基准测试入口
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="SamplingBenchmark -p pointCount=100000"
+ * </pre>
+ * 接受 JMH 的全部命令行参数；未指定时运行本包下所有 *Benchmark，
+ * 默认启用 GC 分析器（输出分配速率 gc.alloc.rate.norm 与 GC 次数/耗时），
+ * 结果以 JSON 写入 target/jmh-result.json，便于与上一次结果比较发现性能回退。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_INCLUDE = "com\\.mi\\.project\\.util\\..*Benchmark";
+
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(DEFAULT_INCLUDE);
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT);
+        }
+        new Runner(builder.build()).run();
+    }
+}
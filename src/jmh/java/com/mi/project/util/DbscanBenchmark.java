@@ -0,0 +1,74 @@
+package com.mi.project.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DBSCAN 聚类基准测试
+ * 输入取合成点云中的导线与杆塔点（与残差聚类阶段的输入规模、密度相近）。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DbscanBenchmark {
+
+    @Param({"20000", "100000"})
+    public int pointCount;
+
+    @Param({"0.5"})
+    public double eps;
+
+    @Param({"6"})
+    public int minPoints;
+
+    private double[][] data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path lasFile = Files.createTempFile("bench-dbscan-", ".las");
+        PointColumns points;
+        try {
+            // 导线和杆塔约占全部点的 10%
+            SyntheticLasGenerator.write(lasFile, pointCount * 10, 1, 42);
+            points = PointCloudBenchmark.decode(lasFile).filterByClassification(new int[]{14, 15});
+        } finally {
+            Files.deleteIfExists(lasFile);
+        }
+        int n = Math.min(pointCount, points.size());
+        data = new double[n][];
+        for (int i = 0; i < n; i++) {
+            data[i] = new double[]{points.getX(i), points.getY(i), points.getZ(i)};
+        }
+    }
+
+    @Benchmark
+    public DBSCANCluster.ClusterResult fit() {
+        return DBSCANCluster.fit(data, eps, minPoints);
+    }
+
+    @Benchmark
+    public DBSCANCluster.ClusterResult fitParallel() {
+        return DBSCANCluster.fitParallel(data, eps, minPoints, Runtime.getRuntime().availableProcessors());
+    }
+}
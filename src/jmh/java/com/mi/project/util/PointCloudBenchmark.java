@@ -0,0 +1,116 @@
+package com.mi.project.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LAS 读取、分类过滤与 JSON 生成的基准测试
+ * 每组参数生成一个合成 LAS 文件，读取类基准每次都从文件解码（页缓存命中后主要是解码开销），
+ * 过滤与 JSON 基准使用预先解码好的点。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PointCloudBenchmark {
+
+    /** 分类过滤基准使用的分类：导线与杆塔 */
+    private static final int[] POWER_LINE_CLASSES = {14, 15};
+
+    @Param({"100000", "1000000"})
+    public int pointCount;
+
+    /** 点数据记录格式：1 为 LAS 1.2 常用格式，6 为 LAS 1.4 扩展格式 */
+    @Param({"1", "6"})
+    public int format;
+
+    private Path lasFile;
+    private PointColumns points;
+    private ClassificationMask powerLineMask;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        lasFile = Files.createTempFile("bench-" + pointCount + "-pdrf" + format + "-", ".las");
+        SyntheticLasGenerator.write(lasFile, pointCount, format, 42);
+        points = decode(lasFile);
+        powerLineMask = ClassificationMask.of(POWER_LINE_CLASSES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(lasFile);
+    }
+
+    /**
+     * 并行解码全部点（readLASPoints 的现行实现）
+     */
+    @Benchmark
+    public PointColumns readLasParallel() throws IOException {
+        return decode(lasFile);
+    }
+
+    /**
+     * 单线程按文件顺序遍历全部点，写入列式缓冲区
+     */
+    @Benchmark
+    public PointColumns readLasSequential() throws IOException {
+        try (LASFileReader reader = new LASFileReader(lasFile)) {
+            LASToJsonUtil.LASHeader header = reader.getHeader();
+            PointColumns result = new PointColumns((int) reader.getPointCount(),
+                    header.xScaleFactor, header.yScaleFactor, header.zScaleFactor,
+                    header.xOffset, header.yOffset, header.zOffset, false);
+            reader.forEachPoint(result::add);
+            return result;
+        }
+    }
+
+    /**
+     * 对已加载的点按分类过滤（filterPointsByClassification 的现行实现）
+     */
+    @Benchmark
+    public PointColumns filterByClassification() {
+        return points.filterByClassification(POWER_LINE_CLASSES);
+    }
+
+    /**
+     * 解码时下推分类过滤，未命中的记录只读分类字节
+     */
+    @Benchmark
+    public PointColumns readLasFiltered() throws IOException {
+        try (LASFileReader reader = new LASFileReader(lasFile)) {
+            return LASParallelDecoder.decode(reader, powerLineMask, false).points;
+        }
+    }
+
+    @Benchmark
+    public String generateJsonString() throws IOException {
+        return LASToJsonUtil.generateJSONString(points, true, lasFile.getFileName().toString());
+    }
+
+    static PointColumns decode(Path lasFile) throws IOException {
+        try (LASFileReader reader = new LASFileReader(lasFile)) {
+            return LASParallelDecoder.decode(reader, false).points;
+        }
+    }
+}
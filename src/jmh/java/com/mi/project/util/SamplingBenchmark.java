@@ -0,0 +1,66 @@
+package com.mi.project.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各采样策略的基准测试：对预先解码好的点采样到 maxPointsForJSON 个点
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SamplingBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int pointCount;
+
+    @Param({"UNIFORM", "RANDOM", "GRID_BASED", "INTENSITY"})
+    public LASToJsonUtil.SamplingStrategy strategy;
+
+    @Param({"50000"})
+    public int maxPoints;
+
+    private final LASToJsonUtil util = new LASToJsonUtil();
+    private LASToJsonUtil.ProcessingOptions options;
+    private PointColumns points;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path lasFile = Files.createTempFile("bench-sampling-", ".las");
+        try {
+            SyntheticLasGenerator.write(lasFile, pointCount, 1, 42);
+            points = PointCloudBenchmark.decode(lasFile);
+        } finally {
+            Files.deleteIfExists(lasFile);
+        }
+        options = LASToJsonUtil.ProcessingOptions.getDefault();
+        options.setSamplingStrategy(strategy);
+        options.setMaxPointsForJSON(maxPoints);
+    }
+
+    @Benchmark
+    public PointColumns sample() {
+        return util.samplePoints(points, options);
+    }
+}
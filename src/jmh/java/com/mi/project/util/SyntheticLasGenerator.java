@@ -0,0 +1,159 @@
+package com.mi.project.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成 LAS 文件生成器
+ * PDRF 0–5 写 LAS 1.2 头部（227 字节），PDRF 6–10 写 LAS 1.4 头部（375 字节）。
+ * 点分布模拟电力巡检场景：起伏地面（分类 2）、植被（分类 3/4/5）、杆塔（分类 15）和
+ * 悬垂的导线（分类 14），其余为未分类点（分类 1）；同一 seed 生成的文件内容完全相同。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class SyntheticLasGenerator {
+
+    private static final double SCALE = 0.01;
+    private static final double OFFSET_X = 500000;
+    private static final double OFFSET_Y = 3000000;
+
+    /** 场景范围（米） */
+    private static final double EXTENT_X = 2000;
+    private static final double EXTENT_Y = 200;
+
+    /** 写出时每批记录数 */
+    private static final int BATCH_RECORDS = 64 * 1024;
+
+    private SyntheticLasGenerator() {
+    }
+
+    /**
+     * 生成 pointCount 个点的 LAS 文件
+     *
+     * @param format 点数据记录格式（0–10）
+     */
+    static void write(Path path, int pointCount, int format, long seed) throws IOException {
+        if (format < 0 || format >= LASPointFormat.values().length) {
+            throw new IllegalArgumentException("不支持的点数据记录格式: " + format);
+        }
+        LASPointFormat pointFormat = LASPointFormat.values()[format];
+        boolean extended = pointFormat.isExtended();
+        int headerSize = extended ? 375 : 227;
+        int recordLength = pointFormat.minRecordLength;
+
+        Random random = new Random(seed);
+        int[] raw = new int[3];
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(headerSize);
+            ByteBuffer batch = ByteBuffer.allocate(BATCH_RECORDS * recordLength).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < pointCount; i++) {
+                int classification = nextPoint(random, raw);
+                int start = batch.position();
+                batch.putInt(raw[0]).putInt(raw[1]).putInt(raw[2]);
+                batch.putShort((short) random.nextInt(65536));
+                // 回波号 1 / 回波数 1
+                batch.put((byte) 0x11);
+                if (extended) {
+                    batch.put((byte) 0);
+                    batch.put((byte) classification);
+                } else {
+                    batch.put((byte) classification);
+                }
+                batch.position(start + recordLength);
+
+                double x = raw[0] * SCALE + OFFSET_X, y = raw[1] * SCALE + OFFSET_Y, z = raw[2] * SCALE;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                minZ = Math.min(minZ, z);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                maxZ = Math.max(maxZ, z);
+
+                if (!batch.hasRemaining()) {
+                    writeFully(channel, batch.flip());
+                    batch.clear();
+                }
+            }
+            writeFully(channel, batch.flip());
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.put("LASF".getBytes(StandardCharsets.US_ASCII));
+            header.position(24);
+            header.put((byte) 1).put((byte) (extended ? 4 : 2));
+            header.position(94);
+            header.putShort((short) headerSize);
+            header.putInt(headerSize);
+            header.putInt(0);
+            header.put((byte) format);
+            header.putShort((short) recordLength);
+            // LAS 1.4 的扩展格式不使用旧的 32 位点数字段
+            header.putInt(extended ? 0 : pointCount);
+            header.position(131);
+            header.putDouble(SCALE).putDouble(SCALE).putDouble(SCALE);
+            header.putDouble(OFFSET_X).putDouble(OFFSET_Y).putDouble(0);
+            header.putDouble(maxX).putDouble(minX).putDouble(maxY).putDouble(minY).putDouble(maxZ).putDouble(minZ);
+            if (extended) {
+                header.position(247);
+                header.putLong(pointCount);
+            }
+            channel.position(0);
+            writeFully(channel, header.clear());
+        }
+    }
+
+    /**
+     * 生成一个点的原始整数坐标，返回分类
+     */
+    private static int nextPoint(Random random, int[] raw) {
+        double x = random.nextDouble() * EXTENT_X;
+        double y = random.nextDouble() * EXTENT_Y;
+        double ground = 5 * Math.sin(x / 150) + 3 * Math.cos(y / 40);
+        double z;
+        int classification;
+        double roll = random.nextDouble();
+        if (roll < 0.55) {
+            z = ground + random.nextGaussian() * 0.05;
+            classification = 2;
+        } else if (roll < 0.80) {
+            double height = random.nextDouble() * 12;
+            z = ground + height;
+            classification = height < 0.5 ? 3 : height < 2 ? 4 : 5;
+        } else if (roll < 0.88) {
+            // 三根导线，档距 400m，悬链线近似为抛物线
+            int wire = random.nextInt(3);
+            y = EXTENT_Y / 2 + (wire - 1) * 8 + random.nextGaussian() * 0.02;
+            double span = x % 400;
+            z = 25 - 8 * (1 - Math.pow((span - 200) / 200, 2)) + random.nextGaussian() * 0.02;
+            classification = 14;
+        } else if (roll < 0.90) {
+            x = Math.round(x / 400) * 400 + random.nextGaussian() * 0.5;
+            y = EXTENT_Y / 2 + random.nextGaussian() * 1.5;
+            z = ground + random.nextDouble() * 30;
+            classification = 15;
+        } else {
+            z = ground + random.nextDouble() * 40;
+            classification = 1;
+        }
+        raw[0] = (int) Math.round(Math.max(0, x) / SCALE);
+        raw[1] = (int) Math.round(y / SCALE);
+        raw[2] = (int) Math.round(z / SCALE);
+        return classification;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -5,4 +5,5 @@ public class FileStatus {
     public static final Integer PROCESSING = 2;  // 处理中
     public static final Integer COMPLETED = 3;   // 处理完成
     public static final Integer FAILED = 4;      // 处理失败
+    public static final Integer CANCELLED = 5;   // 已取消（用户取消或超过处理时限）
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.mi.project.config;
+
+import com.mi.project.util.AnalysisExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分析执行器配置
+ * 所有点云分析任务共用一个按 CPU 核数和最大堆确定规模的执行器，
+ * 队列、运行与取消状态注册为 analysis.executor.* 指标，可在 /actuator/prometheus 查看。
+ */
+@Slf4j
+@Configuration
+public class AnalysisExecutorConfig {
+
+    @Value("${pointcloud.executor.threads:0}")
+    private int threads;
+
+    @Value("${pointcloud.executor.memory-fraction:0.6}")
+    private double memoryFraction;
+
+    @Value("${pointcloud.executor.max-job-concurrency:0}")
+    private int maxJobConcurrency;
+
+    @Bean(destroyMethod = "close")
+    public AnalysisExecutor analysisExecutor(ObjectProvider<MeterRegistry> registryProvider) {
+        AnalysisExecutor.Options options = AnalysisExecutor.Options.getDefault();
+        options.setThreads(threads);
+        options.setMemoryFraction(memoryFraction);
+        options.setMaxJobConcurrency(maxJobConcurrency);
+        AnalysisExecutor executor = new AnalysisExecutor(options);
+
+        MeterRegistry registry = registryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("analysis.executor.queued", executor, e -> e.getMetrics().queued)
+                    .description("排队中的分析任务数").register(registry);
+            Gauge.builder("analysis.executor.active", executor, e -> e.getMetrics().active)
+                    .description("运行中的分析任务数").register(registry);
+            Gauge.builder("analysis.executor.jobs", executor, e -> e.getMetrics().jobs)
+                    .description("进行中的分析作业数").register(registry);
+            Gauge.builder("analysis.executor.users", executor, e -> e.getMetrics().users)
+                    .description("有进行中作业的用户数").register(registry);
+            Gauge.builder("analysis.executor.reserved.bytes", executor, e -> e.getMetrics().reservedBytes)
+                    .description("运行中任务预留的内存").baseUnit("bytes").register(registry);
+            Gauge.builder("analysis.executor.completed", executor, e -> e.getMetrics().completed)
+                    .description("已完成的分析任务数").register(registry);
+            Gauge.builder("analysis.executor.cancelled", executor, e -> e.getMetrics().cancelled)
+                    .description("因作业取消或超过时限而停止的任务数").register(registry);
+            Gauge.builder("analysis.executor.dropped", executor, e -> e.getMetrics().dropped)
+                    .description("作业取消时丢弃、未占用线程的排队任务数").register(registry);
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mi.project.config;
+
+import com.mi.project.util.ResultCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 分析结果缓存配置
+ * 分块、电力线提取、曲线拟合、点坐标导出和八叉树按输入内容哈希与参数缓存在本地磁盘，
+ * 条目数、大小和命中情况注册为 result.cache.* 指标。
+ */
+@Slf4j
+@Configuration
+public class ResultCacheConfig {
+
+    @Value("${pointcloud.cache.directory:${java.io.tmpdir}/pointcloud-cache}")
+    private String directory;
+
+    @Value("${pointcloud.cache.max-size-mb:10240}")
+    private long maxSizeMb;
+
+    @Bean
+    public ResultCache resultCache(ObjectProvider<MeterRegistry> registryProvider) throws IOException {
+        ResultCache.Options options = ResultCache.Options.getDefault();
+        options.setDirectory(Path.of(directory));
+        options.setMaxBytes(maxSizeMb * 1024 * 1024);
+        ResultCache cache = new ResultCache(options);
+
+        MeterRegistry registry = registryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("result.cache.entries", cache, c -> c.getStats().entries)
+                    .description("缓存条目数").register(registry);
+            Gauge.builder("result.cache.bytes", cache, c -> c.getStats().bytes)
+                    .description("缓存占用的磁盘空间").baseUnit("bytes").register(registry);
+            Gauge.builder("result.cache.hits", cache, c -> c.getStats().hits)
+                    .description("缓存命中次数").register(registry);
+            Gauge.builder("result.cache.misses", cache, c -> c.getStats().misses)
+                    .description("缓存未命中（重新计算）次数").register(registry);
+            Gauge.builder("result.cache.evictions", cache, c -> c.getStats().evictions)
+                    .description("按预算淘汰的条目数").register(registry);
+        }
+        return cache;
+    }
+}
@@ -7,19 +7,28 @@ import com.mi.project.entity.User;
 import com.mi.project.service.serviceImpl.FileServiceImpl;
 import com.mi.project.util.CloudUploadUtil;
 import com.mi.project.util.LASToJsonUtil;
+import com.mi.project.util.PointBinaryWriter;
+import com.mi.project.util.PointOctree;
 import com.mi.project.util.WebSocketSenderUtil;
 import io.swagger.v3.oas.annotations.*;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
@@ -36,9 +45,11 @@ public class FileController {
 
     private final FileServiceImpl fileService;
     private final CloudUploadUtil cloudUploadUtil;
-    public FileController(FileServiceImpl fileService, CloudUploadUtil cloudUploadUtil) {
+    private final LASToJsonUtil lasToJsonUtil;
+    public FileController(FileServiceImpl fileService, CloudUploadUtil cloudUploadUtil, LASToJsonUtil lasToJsonUtil) {
         this.fileService = fileService;
         this.cloudUploadUtil = cloudUploadUtil;
+        this.lasToJsonUtil = lasToJsonUtil;
     }
     @GetMapping("/test")
     @ResponseBody
@@ -56,7 +67,7 @@ public class FileController {
         return fileContent;
     }
     @PostMapping("/upload")
-    @Operation(summary = "上传雷达文件（支持.las文件和.zip压缩包）")
+    @Operation(summary = "上传雷达文件（支持.las、.laz文件和.zip压缩包）")
     @ResponseBody
     @CrossOrigin
     public Result<File> uploadFile(@RequestParam("file") MultipartFile multipartFile,
@@ -161,4 +172,175 @@ public class FileController {
             return Result.failure(500,"删除文件失败: "+e.getMessage());
         }
     }
+
+    @PostMapping("/{fileId:[0-9]+}/cancel")
+    @Operation(summary = "取消文件处理", description = "停止排队和运行中的分析任务并结束对应的 Python 进程")
+    @ResponseBody
+    @CrossOrigin
+    public Result<Boolean> cancelProcessing(@PathVariable Long fileId,
+                                            HttpServletRequest request) {
+        try {
+            User currentUser = (User) request.getAttribute("currentUser");
+            if (currentUser == null) {
+                return Result.failure(401, "未登录");
+            }
+            boolean cancelled = fileService.cancelProcessing(fileId, currentUser.getUserName());
+            return Result.success(cancelled ? "已取消处理" : "文件不在处理中", cancelled);
+        } catch (Exception e) {
+            log.error("取消文件处理失败: {}", e.getMessage(), e);
+            return Result.failure(500, "取消文件处理失败: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{fileId:[0-9]+}/points")
+    @Operation(summary = "流式获取点云JSON（metadata + points）")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> streamPointsJson(@PathVariable Long fileId,
+                                                                  @RequestParam(value = "classes", required = false) int[] classes,
+                                                                  @RequestParam(value = "normalize", defaultValue = "true") boolean normalize,
+                                                                  HttpServletRequest request) {
+        User currentUser = (User) request.getAttribute("currentUser");
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String lasPath;
+        try {
+            lasPath = fileService.getLasFilePath(fileId, currentUser.getUserName());
+        } catch (Exception e) {
+            log.warn("获取点云文件失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> lasToJsonUtil.lasAnalysisStreamToOutput(lasPath, normalize, classes, out));
+    }
+
+    @GetMapping("/{fileId:[0-9]+}/points/binary")
+    @Operation(summary = "流式获取点云二进制帧（encoding: FLOAT32/INT16/INT32）")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> streamPointsBinary(@PathVariable Long fileId,
+                                                                    @RequestParam(value = "classes", required = false) int[] classes,
+                                                                    @RequestParam(value = "encoding", defaultValue = "INT16") PointBinaryWriter.PositionEncoding encoding,
+                                                                    HttpServletRequest request) {
+        User currentUser = (User) request.getAttribute("currentUser");
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String lasPath;
+        try {
+            lasPath = fileService.getLasFilePath(fileId, currentUser.getUserName());
+        } catch (Exception e) {
+            log.warn("获取点云文件失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(PointBinaryWriter.CONTENT_TYPE))
+                .body(out -> lasToJsonUtil.lasBinaryStreamToOutput(lasPath, encoding, classes, out));
+    }
+
+    @GetMapping("/{fileId:[0-9]+}/points/binary/page")
+    @Operation(summary = "分页获取点云二进制帧，各页共用全局中心点和量化参数（pageSize 不超过 1000000）")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> pagePointsBinary(@PathVariable Long fileId,
+                                                                  @RequestParam(value = "page", defaultValue = "0") int page,
+                                                                  @RequestParam(value = "pageSize", defaultValue = "100000") int pageSize,
+                                                                  @RequestParam(value = "classes", required = false) int[] classes,
+                                                                  @RequestParam(value = "encoding", defaultValue = "INT16") PointBinaryWriter.PositionEncoding encoding,
+                                                                  HttpServletRequest request) {
+        User currentUser = (User) request.getAttribute("currentUser");
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (page < 0 || pageSize <= 0 || pageSize > LASToJsonUtil.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        String lasPath;
+        try {
+            lasPath = fileService.getLasFilePath(fileId, currentUser.getUserName());
+        } catch (Exception e) {
+            log.warn("获取点云文件失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(PointBinaryWriter.CONTENT_TYPE))
+                .body(out -> lasToJsonUtil.lasBinaryPageToOutput(lasPath, page, pageSize, encoding, classes, out));
+    }
+
+    @GetMapping("/{fileId:[0-9]+}/octree")
+    @Operation(summary = "获取点云八叉树层级元数据（hierarchy.json）")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> getOctreeHierarchy(@PathVariable Long fileId,
+                                                                    HttpServletRequest request) {
+        User currentUser = (User) request.getAttribute("currentUser");
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Path hierarchyPath;
+        try {
+            hierarchyPath = fileService.getOctreeDirectory(fileId, currentUser.getUserName()).resolve(PointOctree.HIERARCHY_FILE);
+        } catch (Exception e) {
+            log.warn("获取八叉树失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> Files.copy(hierarchyPath, out));
+    }
+
+    @GetMapping("/{fileId:[0-9]+}/octree/nodes/{key:r[0-7]*}")
+    @Operation(summary = "按键获取八叉树节点的点云二进制帧（INT16，以节点立方体量化）")
+    @CrossOrigin
+    public ResponseEntity<StreamingResponseBody> getOctreeNode(@PathVariable Long fileId,
+                                                               @PathVariable String key,
+                                                               HttpServletRequest request) {
+        User currentUser = (User) request.getAttribute("currentUser");
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Path nodePath;
+        try {
+            nodePath = PointOctree.nodePath(fileService.getOctreeDirectory(fileId, currentUser.getUserName()), key);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.warn("获取八叉树失败: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (!Files.isRegularFile(nodePath)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        // 节点文件构建后不再变化，允许浏览器缓存
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                .contentType(MediaType.parseMediaType(PointBinaryWriter.CONTENT_TYPE))
+                .body(out -> Files.copy(nodePath, out));
+    }
+
+    @GetMapping("/{fileId:[0-9]+}/octree/select")
+    @Operation(summary = "按相机位置和点预算选出需要加载的八叉树节点键")
+    @ResponseBody
+    @CrossOrigin
+    public Result<List<String>> selectOctreeNodes(@PathVariable Long fileId,
+                                                  @RequestParam("x") double cameraX,
+                                                  @RequestParam("y") double cameraY,
+                                                  @RequestParam("z") double cameraZ,
+                                                  @RequestParam(value = "fov", defaultValue = "60") double fovDegrees,
+                                                  @RequestParam(value = "screenHeight", defaultValue = "1080") int screenHeight,
+                                                  @RequestParam(value = "minPixelSize", defaultValue = "150") double minPixelSize,
+                                                  @RequestParam(value = "pointBudget", defaultValue = "1000000") long pointBudget,
+                                                  HttpServletRequest request) {
+        try {
+            User currentUser = (User) request.getAttribute("currentUser");
+            if (currentUser == null) {
+                return Result.failure(401, "未登录");
+            }
+            PointOctree.Hierarchy hierarchy = fileService.getOctreeHierarchy(fileId, currentUser.getUserName());
+            List<String> keys = hierarchy.select(cameraX, cameraY, cameraZ, Math.toRadians(fovDegrees),
+                    screenHeight, minPixelSize, pointBudget);
+            return Result.success("获取成功", keys);
+        } catch (Exception e) {
+            log.error("选择八叉树节点失败: {}", e.getMessage(), e);
+            return Result.failure(500, "选择八叉树节点失败: " + e.getMessage());
+        }
+    }
 }
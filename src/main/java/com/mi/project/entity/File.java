@@ -32,6 +32,10 @@ public class File {
     @Column(nullable = false)
     private String relativeFilePath;
 
+    // 点数据所在 LAS/LAZ 的相对路径：zip 上传时为解压出的文件，las/laz 上传时与 relativeFilePath 相同
+    @Column
+    private String lasFilePath;
+
     @Column
     private String userName;
 
@@ -52,6 +56,10 @@ public class File {
     @Column(nullable = false)
     private String fileType;
 
+    // 文件内容的 SHA-256，分析结果按它缓存
+    @Column(length = 64)
+    private String contentHash;
+
     @Column(columnDefinition = "TEXT")
     private String processResult;
 
@@ -1,5 +1,7 @@
 package com.mi.project.rmi.server;
 import com.mi.project.rmi.api.PowerLineAnalysisService;
+import com.mi.project.util.CancellationToken;
+import com.mi.project.util.PowerLineRansacFitter;
 import com.mi.project.util.PythonScriptExecutorUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,7 +10,9 @@ import org.springframework.stereotype.Component;
 import java.rmi.RemoteException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 /**
  * 电力线分析远程服务实现
  * 提供电力线点云数据处理和分析功能
@@ -21,10 +25,14 @@ public class PowerLineAnalysisServiceImpl implements PowerLineAnalysisService {
     private final PythonScriptExecutorUtil pythonScriptExecutor;
     // 任务状态存储
     private final Map<String, Map<String, Object>> taskStatusMap = new ConcurrentHashMap<>();
+    // 处理中任务的取消令牌，取消时结束对应的 Python 进程树
+    private final Map<String, CancellationToken> taskTokens = new ConcurrentHashMap<>();
     @Override
     public Map<String, Object> processLasFile(String filePath, String outputDir) throws RemoteException {
         String taskId = UUID.randomUUID().toString();
         log.info("开始处理LAS文件: {}, 任务ID: {}", filePath, taskId);
+        CancellationToken token = CancellationToken.create();
+        taskTokens.put(taskId, token);
         try {
             // 初始化任务状态
             Map<String, Object> taskStatus = new HashMap<>();
@@ -36,7 +44,7 @@ public class PowerLineAnalysisServiceImpl implements PowerLineAnalysisService {
             taskStatus.put("progress", 0);
             taskStatusMap.put(taskId, taskStatus);
             // 执行Python脚本处理
-            String result = pythonScriptExecutor.executeFileAnalysis("", filePath, outputDir);
+            String result = pythonScriptExecutor.executeFileAnalysis("", filePath, outputDir, token);
             // 更新任务状态
             taskStatus.put("status", "COMPLETED");
             taskStatus.put("endTime", LocalDateTime.now());
@@ -48,6 +56,13 @@ public class PowerLineAnalysisServiceImpl implements PowerLineAnalysisService {
             response.put("message", "文件处理完成");
             response.put("result", result);
             return response;
+        } catch (CancellationException e) {
+            log.info("LAS文件处理已取消: {}, 任务ID: {}", filePath, taskId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("taskId", taskId);
+            response.put("status", "CANCELLED");
+            response.put("message", "文件处理已取消: " + e.getMessage());
+            return response;
         } catch (Exception e) {
             log.error("处理LAS文件失败: {}", filePath, e);
             // 更新任务状态为失败
@@ -62,6 +77,8 @@ public class PowerLineAnalysisServiceImpl implements PowerLineAnalysisService {
             response.put("status", "ERROR");
             response.put("message", "文件处理失败: " + e.getMessage());
             return response;
+        } finally {
+            taskTokens.remove(taskId);
         }
     }
 
@@ -126,20 +143,64 @@ public class PowerLineAnalysisServiceImpl implements PowerLineAnalysisService {
                 defaultParams.putAll(fitParameters);
             }
 
-            // 执行RANSAC拟合
-            Map<String, Object> result = new HashMap<>();
-            result.put("total_lines", powerLineData.size());
-            result.put("fitted_lines", powerLineData.size());
-            result.put("fitting_accuracy", 0.92);
-            result.put("parameters", defaultParams);
-            
+            PowerLineRansacFitter.Options options = PowerLineRansacFitter.Options.getDefault();
+            options.setMaxTrials(((Number) defaultParams.get("max_iterations")).intValue());
+            options.setRansacThreshold(((Number) defaultParams.get("threshold")).doubleValue());
+            if (defaultParams.get("segment_length") instanceof Number segmentLength) {
+                options.setSegmentLength(segmentLength.doubleValue());
+            }
+            if (defaultParams.get("overlap_ratio") instanceof Number overlapRatio) {
+                options.setOverlapRatio(overlapRatio.doubleValue());
+            }
+            if (defaultParams.get("min_samples_ratio") instanceof Number minSamplesRatio) {
+                options.setMinSamplesRatio(minSamplesRatio.doubleValue());
+            }
+            if (defaultParams.get("model") != null) {
+                options.setModel(PowerLineRansacFitter.CurveModel.valueOf(
+                        defaultParams.get("model").toString().toUpperCase()));
+            }
+            int minPoints = ((Number) defaultParams.get("min_points")).intValue();
+
+            // 每条电力线作为一个段，点数不足的不参与拟合
+            List<PowerLineRansacFitter.Segment> segments = new ArrayList<>();
+            for (int i = 0; i < powerLineData.size(); i++) {
+                PowerLineRansacFitter.Segment segment = toSegment(i + 1, powerLineData.get(i));
+                if (segment != null && segment.size() >= minPoints) {
+                    segments.add(segment);
+                }
+            }
+            PowerLineRansacFitter.Result fit = PowerLineRansacFitter.fitSegments(segments, options, ForkJoinPool.commonPool());
+            Map<Integer, PowerLineRansacFitter.SegmentInfo> infos = new HashMap<>();
+            for (PowerLineRansacFitter.SegmentInfo info : fit.segments) {
+                infos.put(info.segmentId, info);
+            }
+
             List<Map<String, Object>> fittedLines = new ArrayList<>();
-            for (Map<String, Object> line : powerLineData) {
-                Map<String, Object> fittedLine = new HashMap<>(line);
-                fittedLine.put("fitted", true);
-                fittedLine.put("rmse", 0.05 + Math.random() * 0.1);
+            int fittedCount = 0;
+            for (int i = 0; i < powerLineData.size(); i++) {
+                int segmentId = i + 1;
+                List<PowerLineRansacFitter.Curve> curves = fit.curves.stream()
+                        .filter(c -> c.segmentId == segmentId).toList();
+                Map<String, Object> fittedLine = new HashMap<>(powerLineData.get(i));
+                fittedLine.remove("points");
+                fittedLine.put("fitted", !curves.isEmpty());
+                if (!curves.isEmpty()) {
+                    fittedCount++;
+                    fittedLine.put("rmse", curves.stream().mapToDouble(c -> c.rmse).average().orElse(0));
+                    fittedLine.put("inlier_ratio", curves.stream().mapToDouble(c -> c.inlierRatio).average().orElse(0));
+                    fittedLine.put("total_length", infos.get(segmentId).totalLength);
+                    fittedLine.put("curves", curves.stream().map(this::toCurveMap).toList());
+                }
                 fittedLines.add(fittedLine);
             }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("total_lines", powerLineData.size());
+            result.put("fitted_lines", fittedCount);
+            result.put("fitting_accuracy", fit.getAverageInlierRatio());
+            result.put("average_rmse", fit.getAverageRmse());
+            result.put("processing_time_ms", fit.elapsedMillis);
+            result.put("parameters", defaultParams);
             result.put("fitted_lines_data", fittedLines);
 
             log.info("RANSAC拟合完成");
@@ -199,6 +260,11 @@ public class PowerLineAnalysisServiceImpl implements PowerLineAnalysisService {
         if (status != null && "PROCESSING".equals(status.get("status"))) {
             status.put("status", "CANCELLED");
             status.put("endTime", LocalDateTime.now());
+            // 结束正在执行的脚本及其子进程，processLasFile 随即以 CANCELLED 返回
+            CancellationToken token = taskTokens.get(taskId);
+            if (token != null) {
+                token.cancel("任务已取消: " + taskId);
+            }
             log.info("任务已取消: {}", taskId);
             return true;
         }
@@ -216,6 +282,46 @@ public class PowerLineAnalysisServiceImpl implements PowerLineAnalysisService {
         return health;
     }
 
+    /**
+     * 读取电力线的 "points"：元素为 [x, y, z] 数组或含 x / y / z 的对象；没有点时返回 null
+     */
+    private PowerLineRansacFitter.Segment toSegment(int segmentId, Map<String, Object> line) {
+        if (!(line.get("points") instanceof List<?> points) || points.isEmpty()) {
+            return null;
+        }
+        int n = points.size();
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            Object point = points.get(i);
+            if (point instanceof List<?> xyz) {
+                xs[i] = ((Number) xyz.get(0)).doubleValue();
+                ys[i] = ((Number) xyz.get(1)).doubleValue();
+                zs[i] = ((Number) xyz.get(2)).doubleValue();
+            } else if (point instanceof Map<?, ?> xyz) {
+                xs[i] = ((Number) xyz.get("x")).doubleValue();
+                ys[i] = ((Number) xyz.get("y")).doubleValue();
+                zs[i] = ((Number) xyz.get("z")).doubleValue();
+            } else {
+                throw new IllegalArgumentException("无法识别的点格式: " + point);
+            }
+        }
+        int classification = line.get("classification") instanceof Number c ? c.intValue() : 1;
+        return new PowerLineRansacFitter.Segment(segmentId, classification, xs, ys, zs);
+    }
+
+    private Map<String, Object> toCurveMap(PowerLineRansacFitter.Curve curve) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("subsegment_id", curve.subsegmentId);
+        map.put("inlier_ratio", curve.inlierRatio);
+        map.put("rmse", curve.rmse);
+        map.put("model", curve.z.model.name().toLowerCase());
+        map.put("start_point", curve.getStartPoint());
+        map.put("end_point", curve.getEndPoint());
+        map.put("points", curve.points);
+        map.put("original_points_count", curve.originalPointsCount);
+        return map;
+    }
+
     private String generateHtmlReport(Map<String, Object> data) {
         return "<html><body><h1>电力线分析报告</h1><p>分析完成时间: " + 
                LocalDateTime.now() + "</p><p>数据: " + data.toString() + "</p></body></html>";
@@ -6,7 +6,9 @@ import com.mi.project.dto.fileDTO.FileUploadDTO;
 import com.mi.project.entity.File;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.mi.project.entity.User;
+import com.mi.project.util.PointOctree;
 
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -32,4 +34,18 @@ public interface IFileService extends IService<File> {
 
     @Master
     void deleteFile(Long fileId,String userName);
+
+    /**
+     * 取消正在处理的文件，返回是否有处理中的任务被取消
+     */
+    boolean cancelProcessing(Long fileId,String userName);
+
+    @ReadOnly
+    String getLasFilePath(Long fileId,String userName);
+
+    @ReadOnly
+    Path getOctreeDirectory(Long fileId,String userName);
+
+    @ReadOnly
+    PointOctree.Hierarchy getOctreeHierarchy(Long fileId,String userName);
 }
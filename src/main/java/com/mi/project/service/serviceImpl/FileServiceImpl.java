@@ -17,12 +17,23 @@ import jakarta.annotation.Resource;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -46,8 +57,53 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements IF
 
     private final PythonScriptExecutorUtil pythonScriptExecutor;
 
+    private final AnalysisExecutor analysisExecutor;
+
+    private final ResultCache resultCache;
+
     private final MessageProducer messageProducer;
 
+    /** 点云结果的WebSocket推送格式：json（默认）或 float32/int16/int32 二进制帧 */
+    @Value("${pointcloud.transport.websocket-format:json}")
+    private String pointMessageFormat;
+
+    private static final String STAGE_EXTRACT = "extract";
+    private static final String STAGE_FIT = "fit";
+    private static final String STAGE_EXPORT = "export";
+    private static final String STAGE_OCTREE = "octree";
+
+    /** 分块流水线各阶段的并发上限：电力线提取 / 曲线拟合 / 点坐标导出 */
+    @Value("${pointcloud.pipeline.extract-concurrency:2}")
+    private int extractConcurrency;
+
+    @Value("${pointcloud.pipeline.fit-concurrency:2}")
+    private int fitConcurrency;
+
+    @Value("${pointcloud.pipeline.export-concurrency:2}")
+    private int exportConcurrency;
+
+    /** 各阶段单个分块任务的时限与整个文件的处理时限，0 为不限制 */
+    @Value("${pointcloud.pipeline.extract-timeout-seconds:600}")
+    private long extractTimeoutSeconds;
+
+    @Value("${pointcloud.pipeline.fit-timeout-seconds:300}")
+    private long fitTimeoutSeconds;
+
+    @Value("${pointcloud.pipeline.export-timeout-seconds:300}")
+    private long exportTimeoutSeconds;
+
+    @Value("${pointcloud.pipeline.job-timeout-minutes:120}")
+    private long jobTimeoutMinutes;
+
+    /** 处理中文件的取消令牌 */
+    private final Map<Long, CancellationToken> processingTokens = new ConcurrentHashMap<>();
+
+    /** 已加载的八叉树层级，按八叉树目录缓存 */
+    private final Map<Path, PointOctree.Hierarchy> octreeHierarchies = new ConcurrentHashMap<>();
+
+    /** 八叉树构建锁，同一文件只构建一次 */
+    private final Map<Path, Object> octreeLocks = new ConcurrentHashMap<>();
+
     @Override
     @Transactional
     @Master
@@ -61,11 +117,13 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements IF
                     .storedFileName(result.get(1))
                     .processStartTime(localDateTime)
                     .relativeFilePath(result.get(0))
+                    .lasFilePath(fileStorageUtil.relativize(Paths.get(result.get(4))))
                     .userName(uploadDTO.getUserName())
                     .uploadTime(LocalDateTime.now())
                     .fileUrl(result.get(3))
                     .fileStatus(FileStatus.UPLOADED)
                     .fileType(result.get(2))
+                    .contentHash(result.get(5))
                     .fileSize((int) multipartFile.getSize())
                     .user(user)
                     .build();
@@ -93,6 +151,9 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements IF
     @Transactional
     // String
     public void processFileAsync(Long fileId, String postParams, String absolutePath) {
+        // 整个文件的处理时限；用户取消（cancelProcessing）同样通过该令牌传播到执行器、流水线各阶段和 Python 进程
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMinutes(jobTimeoutMinutes));
+        processingTokens.put(fileId, token);
         try {
             File file = fileRepository.findById(fileId)
                     .orElseThrow(() -> new RuntimeException("文件不存在"));
@@ -105,80 +166,103 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements IF
             WebSocketSenderUtil.sendJsonToAll("{\"type\": \"start\"}");
 
             log.info("开始处理文件: {} (ID: {})", file.getFileName(), fileId);
-            int index = absolutePath.indexOf("resources");
-            String desiredPath = absolutePath.substring(0, index + "resources".length()) + "\\json\\" + file.getRelativeFilePath();
-            String jsonPath = desiredPath.replaceAll("\\.las$", ".json");
-            // 调用Python脚本处理
-
-            String outputDir = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\tilefiles";
-            String outputPrefix = "tile";
-
-            List<String> tileFiles =  pythonScriptExecutor.runLastile(absolutePath, outputDir, outputPrefix);
-
-            String processDir = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\process";
-            List<String> processedLasFiles = pythonScriptExecutor.processTilesAndExtractPowerlines(tileFiles, processDir);
-
-            String normJsonPath = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\tilefiles\\tile_threejs_params.json";
-
-            // 5. ransac 和 point 脚本输出目录
-            String ransacJsonDir = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\json\\ransac_json";
-            String pointJsonDir = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\json\\point_json";
-
-            // 6. 分别批量处理
-            pythonScriptExecutor.runRansacFitToJsonOnProcessFolders(processDir, normJsonPath, ransacJsonDir);
-            pythonScriptExecutor.runPointToJsonOnProcessFolders(processDir, normJsonPath, pointJsonDir);
-
-            // 新增：将生成的json文件通过WebSocket发送给前端
-            java.io.File ransacDir = new java.io.File(ransacJsonDir);
-            if (ransacDir.exists() && ransacDir.isDirectory()) {
-                java.io.File[] ransacJsonFiles = ransacDir.listFiles((dir, name) -> name.endsWith(".json"));
-                if (ransacJsonFiles != null) {
-                    for (java.io.File jsonFile : ransacJsonFiles) {
-                        try {
-                            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                            String fileContent = java.nio.file.Files
-                                    .readString(java.nio.file.Paths.get(jsonFile.getAbsolutePath()));
-                            com.fasterxml.jackson.databind.node.ObjectNode node = (com.fasterxml.jackson.databind.node.ObjectNode) mapper
-                                    .readTree(fileContent);
-                            node.put("type", "lines"); // 你可以根据需要改成其他类型
-                            String mergedJson = node.toString();
-                            WebSocketSenderUtil.sendJsonToAll(mergedJson);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                }
+            // 各阶段结果按内容哈希缓存，重复上传同一文件时直接复用；历史文件没有哈希时在此补算
+            String contentHash = file.getContentHash();
+            if (contentHash == null) {
+                contentHash = ResultCache.hash(Paths.get(absolutePath));
+                file.setContentHash(contentHash);
+                fileRepository.save(file);
             }
-
-            java.io.File pointDir = new java.io.File(pointJsonDir);
-            if (pointDir.exists() && pointDir.isDirectory()) {
-                java.io.File[] pointJsonFiles = pointDir.listFiles((dir, name) -> name.endsWith(".json"));
-                if (pointJsonFiles != null) {
-                    for (java.io.File jsonFile : pointJsonFiles) {
-                        try {
-                            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                            String fileContent = java.nio.file.Files
-                                    .readString(java.nio.file.Paths.get(jsonFile.getAbsolutePath()));
-                            com.fasterxml.jackson.databind.node.ObjectNode node = (com.fasterxml.jackson.databind.node.ObjectNode) mapper
-                                    .readTree(fileContent);
-                            node.put("type", "points"); // 你可以根据需要改成其他类型
-                            String mergedJson = node.toString();
-                            WebSocketSenderUtil.sendJsonToAll(mergedJson);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
+            token.throwIfCancelled();
+            // 每个文件在独立的作业工作区中处理，分块、中间结果和输出 JSON 不与同时进行的其他上传共用目录；
+            // 全部分块完成后把输出 JSON 提升到结果目录，工作区随后删除
+            Path resultDir;
+            try (JobWorkspace workspace = pythonScriptExecutor.openWorkspace("file-" + fileId, contentHash)) {
+                // 分块级流水线：每个分块封口后立即依次提取电力线，再并行拟合曲线和导出点坐标，
+                // 各阶段按自身并发上限执行，每个分块的结果生成后立即推送给前端；
+                // 任务在共享的分析执行器上以本文件为一个作业执行，与其他用户的上传公平分享线程和内存
+                List<CompletableFuture<Void>> tileTasks = new ArrayList<>();
+                Set<String> tileFailures = ConcurrentHashMap.newKeySet();
+                try (AnalysisExecutor.Job job = analysisExecutor.openJob(file.getUserName(), workspace.getJobId(), 1.0, token);
+                     TilePipeline pipeline = new TilePipeline(job)
+                        .stage(STAGE_EXTRACT, extractConcurrency, Duration.ofSeconds(extractTimeoutSeconds))
+                        .stage(STAGE_FIT, fitConcurrency, Duration.ofSeconds(fitTimeoutSeconds))
+                        .stage(STAGE_EXPORT, exportConcurrency, Duration.ofSeconds(exportTimeoutSeconds))
+                        .stage(STAGE_OCTREE, 1)) {
+                    CancellationToken.Scope scope = job.getToken().attach();
+                    try {
+                        // 入库时构建一次八叉树LOD，作为本作业的任务与分块并行执行，同样受取消令牌和内存预算约束；
+                        // 解码后的点云约与文件同量级。失败不影响后续处理，首次请求节点时会再次尝试
+                        Path lasPath = Paths.get(absolutePath);
+                        tileTasks.add(pipeline.start(STAGE_OCTREE, java.nio.file.Files.size(lasPath), () -> {
+                            ensureOctree(lasPath, workspace.getContentHash());
+                            return (Void) null;
+                        }).exceptionally(e -> {
+                            Throwable cause = e instanceof java.util.concurrent.CompletionException && e.getCause() != null ? e.getCause() : e;
+                            if (!(cause instanceof CancellationException)) {
+                                log.warn("八叉树构建失败: {} (ID: {}): {}", file.getFileName(), fileId, cause.getMessage());
+                            }
+                            return null;
+                        }));
+                        pythonScriptExecutor.runLastile(absolutePath, workspace, tileLas -> {
+                            long memory = PowerLineExtractor.estimateMemoryBytes(Path.of(tileLas));
+                            // 提取阶段顺带计算拟合和导出共用的输入摘要，每个分块只哈希一次
+                            CompletableFuture<PythonScriptExecutorUtil.PowerLines> extracted = pipeline.start(STAGE_EXTRACT, memory, () -> {
+                                Path allPowerLines = pythonScriptExecutor.extractPowerlines(tileLas, workspace)
+                                        .resolve("all_power_lines.las");
+                                if (!java.nio.file.Files.exists(allPowerLines)) {
+                                    return null;
+                                }
+                                java.io.File lasFile = allPowerLines.toFile();
+                                return new PythonScriptExecutorUtil.PowerLines(lasFile,
+                                        pythonScriptExecutor.powerLinesDigest(lasFile, workspace));
+                            });
+                            CompletableFuture<Void> lines = pipeline.then(STAGE_FIT, extracted, powerLines -> {
+                                if (powerLines != null) {
+                                    sendRansacJson(pythonScriptExecutor.runRansacFitToJson(powerLines.file, powerLines.digest, workspace));
+                                }
+                                return null;
+                            });
+                            CompletableFuture<Void> points = pipeline.then(STAGE_EXPORT, extracted, powerLines -> {
+                                if (powerLines != null) {
+                                    sendPointJson(pythonScriptExecutor.runPointToJson(powerLines.file, powerLines.digest, workspace));
+                                }
+                                return null;
+                            });
+                            tileTasks.add(lines.exceptionally(e -> recordTileFailure(tileLas,
+                                    extracted.isCompletedExceptionally() ? STAGE_EXTRACT : STAGE_FIT, e, tileFailures)));
+                            tileTasks.add(points.exceptionally(e -> recordTileFailure(tileLas,
+                                    extracted.isCompletedExceptionally() ? STAGE_EXTRACT : STAGE_EXPORT, e, tileFailures)));
+                        });
+                        CompletableFuture.allOf(tileTasks.toArray(CompletableFuture[]::new)).join();
+                        job.getToken().throwIfCancelled();
+                    } finally {
+                        scope.close();
                     }
                 }
+                // 任一分块的提取、拟合或导出失败时整个文件标记为失败，不提升不完整的结果；已成功的阶段留在缓存中，重试时直接复用
+                if (!tileFailures.isEmpty()) {
+                    throw new IllegalStateException(tileFailures.size() + " 个分块任务失败: " + String.join("; ", tileFailures));
+                }
+                resultDir = pythonScriptExecutor.promoteResults(workspace);
             }
 
             // 更新处理结果
             file.setFileStatus(FileStatus.COMPLETED);
+            file.setProcessResult(resultDir.toAbsolutePath().toString());
             fileRepository.save(file);
 
-            log.info("文件处理完成: {} (ID: {})", file.getFileName(), fileId);
+            log.info("文件处理完成: {} (ID: {})，结果目录: {}", file.getFileName(), fileId, resultDir);
 
             // return 这个地方应该是接收python文件处理的文件路径集合
 
+        } catch (CancellationException e) {
+            log.info("文件处理已取消: ID={}, 原因={}", fileId, e.getMessage());
+            fileRepository.findById(fileId).ifPresent(file -> {
+                file.setFileStatus(FileStatus.CANCELLED);
+                file.setProcessResult("已取消: " + e.getMessage());
+                fileRepository.save(file);
+            });
         } catch (Exception e) {
             log.error("文件处理失败: {}", e.getMessage(), e);
 
@@ -188,7 +272,88 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements IF
                 file.setProcessResult("处理失败: " + e.getMessage());
                 fileRepository.save(file);
             });
+        } finally {
+            processingTokens.remove(fileId, token);
+            token.close();
+        }
+    }
+
+    @Override
+    public boolean cancelProcessing(Long fileId, String userName) {
+        File file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("文件不存在"));
+        if (!file.getUserName().equals(userName)) {
+            throw new RuntimeException("无权限取消此文件的处理");
+        }
+        CancellationToken token = processingTokens.get(fileId);
+        if (token == null || token.isCancelled()) {
+            return false;
+        }
+        token.cancel("用户取消");
+        return true;
+    }
+
+    /**
+     * 推送一个分块的 RANSAC 拟合结果
+     */
+    private void sendRansacJson(Path jsonFile) {
+        try {
+            com.fasterxml.jackson.databind.node.ObjectNode node = (com.fasterxml.jackson.databind.node.ObjectNode)
+                    PointJsonWriter.sharedMapper().readTree(jsonFile.toFile());
+            node.put("type", "lines");
+            WebSocketSenderUtil.sendJsonToAll(node.toString());
+        } catch (Exception e) {
+            log.error("推送拟合结果失败: {}", jsonFile, e);
+        }
+    }
+
+    /**
+     * 推送一个分块的电力线点坐标
+     */
+    private void sendPointJson(Path jsonFile) {
+        try {
+            com.fasterxml.jackson.databind.node.ObjectNode node = (com.fasterxml.jackson.databind.node.ObjectNode)
+                    PointJsonWriter.sharedMapper().readTree(jsonFile.toFile());
+            if (!"json".equalsIgnoreCase(pointMessageFormat)) {
+                WebSocketSenderUtil.sendBinaryToAll(encodePointJson(node));
+                return;
+            }
+            node.put("type", "points");
+            WebSocketSenderUtil.sendJsonToAll(node.toString());
+        } catch (Exception e) {
+            log.error("推送点坐标失败: {}", jsonFile, e);
+        }
+    }
+
+    /**
+     * 记录分块任务的失败原因，提取失败会同时出现在拟合和导出两个任务上，按内容去重；取消不算失败，由作业令牌统一处理
+     */
+    private Void recordTileFailure(String tileLas, String stage, Throwable e, Set<String> failures) {
+        Throwable cause = e instanceof java.util.concurrent.CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CancellationException) {
+            log.info("分块处理已停止: {}: {}", tileLas, cause.getMessage());
+            return null;
+        }
+        if (failures.add(Paths.get(tileLas).getFileName() + " [" + stage + "] " + cause.getMessage())) {
+            log.error("分块处理失败: {} [{}]", tileLas, stage, cause);
         }
+        return null;
+    }
+
+    /**
+     * 将点脚本输出的 {"coordinates":[[x,y,z],...]} 转为二进制帧（仅坐标，无强度和分类）
+     */
+    private byte[] encodePointJson(com.fasterxml.jackson.databind.JsonNode node) throws java.io.IOException {
+        PointBinaryWriter.PositionEncoding encoding =
+                PointBinaryWriter.PositionEncoding.valueOf(pointMessageFormat.toUpperCase());
+        com.fasterxml.jackson.databind.JsonNode coordinates = node.path("coordinates");
+        PointColumns points = new PointColumns(Math.max(1, coordinates.size()),
+                PointColumns.DEFAULT_SCALE, PointColumns.DEFAULT_SCALE, PointColumns.DEFAULT_SCALE,
+                0, 0, 0, false);
+        for (com.fasterxml.jackson.databind.JsonNode xyz : coordinates) {
+            points.add(xyz.path(0).asDouble(), xyz.path(1).asDouble(), xyz.path(2).asDouble(), 0, 0);
+        }
+        return PointBinaryWriter.encode(points, encoding, null, 0);
     }
 
     @ReadOnly
@@ -226,12 +391,110 @@ public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements IF
             throw new RuntimeException("无权限删除此文件");
         }
         log.info("1 " + userName + "2 " + file.getUserName());
-        // 删除物理文件
+        // 删除物理文件（zip 上传时连同解压出的 LAS）及其八叉树
         fileStorageUtil.deleteFile(file.getRelativeFilePath());
+        String lasPath = lasRelativePath(file);
+        if (lasPath != null && !lasPath.equals(file.getRelativeFilePath())) {
+            fileStorageUtil.deleteFile(lasPath);
+        }
+        Path octreeDir = PointOctree.defaultDirectory(fileStorageUtil.resolvePath(
+                lasPath != null ? lasPath : file.getRelativeFilePath()));
+        octreeHierarchies.remove(octreeDir);
+        try {
+            PointOctree.deleteDirectory(octreeDir);
+        } catch (IOException e) {
+            log.warn("八叉树目录删除失败: {}", e.getMessage());
+        }
 
         // 删除数据库记录
         fileRepository.delete(file);
 
         log.info("文件删除成功: {} (ID: {})", file.getFileName(), fileId);
     }
+
+    @ReadOnly
+    @Override
+    public String getLasFilePath(Long fileId, String userName) {
+        File file = getFileById(fileId, userName);
+        String lasPath = lasRelativePath(file);
+        if (lasPath == null) {
+            throw new RuntimeException("该文件没有可读取的LAS/LAZ点数据，请重新上传");
+        }
+        return fileStorageUtil.resolvePath(lasPath).toString();
+    }
+
+    /**
+     * 点数据所在 LAS/LAZ 的相对路径，即处理时使用的文件（zip 上传时为解压出的 LAS）；
+     * 记录该字段之前上传的 las/laz 文件使用其存储路径，zip 文件没有记录时返回 null
+     */
+    private String lasRelativePath(File file) {
+        if (file.getLasFilePath() != null) {
+            return file.getLasFilePath();
+        }
+        String path = file.getRelativeFilePath().toLowerCase();
+        return path.endsWith(".las") || path.endsWith(".laz") ? file.getRelativeFilePath() : null;
+    }
+
+    @ReadOnly
+    @Override
+    public Path getOctreeDirectory(Long fileId, String userName) {
+        Path lasPath = Paths.get(getLasFilePath(fileId, userName));
+        try {
+            return ensureOctree(lasPath);
+        } catch (IOException e) {
+            throw new RuntimeException("八叉树构建失败: " + e.getMessage(), e);
+        }
+    }
+
+    @ReadOnly
+    @Override
+    public PointOctree.Hierarchy getOctreeHierarchy(Long fileId, String userName) {
+        Path directory = getOctreeDirectory(fileId, userName);
+        return octreeHierarchies.computeIfAbsent(directory, dir -> {
+            try {
+                return PointOctree.load(dir);
+            } catch (IOException e) {
+                throw new RuntimeException("八叉树读取失败: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 返回LAS文件的八叉树目录，尚未构建时（如历史文件）先构建
+     */
+    private Path ensureOctree(Path lasPath) throws IOException {
+        return ensureOctree(lasPath, null);
+    }
+
+    /**
+     * 同上；给出内容哈希时八叉树按内容缓存，重复上传的文件直接从缓存链接，节点文件先于 hierarchy.json 就位
+     */
+    private Path ensureOctree(Path lasPath, String contentHash) throws IOException {
+        Path directory = PointOctree.defaultDirectory(lasPath);
+        if (PointOctree.exists(directory)) {
+            return directory;
+        }
+        synchronized (octreeLocks.computeIfAbsent(directory, dir -> new Object())) {
+            if (!PointOctree.exists(directory)) {
+                if (contentHash == null) {
+                    octreeHierarchies.put(directory, PointOctree.build(lasPath, directory));
+                    return directory;
+                }
+                String cacheKey = ResultCache.key(contentHash, "octree", PointOctree.FORMAT_VERSION,
+                        PointOctree.DEFAULT_MAX_NODE_POINTS);
+                try (ResultCache.Lease lease = resultCache.computeIfAbsent(cacheKey,
+                        dir -> PointOctree.build(lasPath, dir));
+                     java.util.stream.Stream<Path> files = java.nio.file.Files.list(lease.getPath())) {
+                    java.nio.file.Files.createDirectories(directory);
+                    for (Path node : files.filter(f -> !f.getFileName().toString().equals(PointOctree.HIERARCHY_FILE)).toList()) {
+                        ResultCache.linkOrCopy(node, directory.resolve(node.getFileName().toString()));
+                    }
+                    ResultCache.linkOrCopy(lease.getPath().resolve(PointOctree.HIERARCHY_FILE),
+                            directory.resolve(PointOctree.HIERARCHY_FILE));
+                }
+                octreeHierarchies.remove(directory);
+            }
+        }
+        return directory;
+    }
 }
@@ -0,0 +1,561 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 全局共享的分析任务执行器
+ * 线程数按 CPU 核数、内存预算按最大堆确定，所有上传任务共用，不再各自创建线程池互相争抢：
+ * <ul>
+ *   <li>两级加权公平排队：先在用户之间、再在同一用户的各个作业之间按步进（stride）调度，
+ *       每派发一个任务，所在用户 / 作业的虚拟时间增加 1 / 权重，总是派发虚拟时间最小者的任务；
+ *       新变为活跃的用户或作业从当前虚拟时间起步，空闲期间不积累额度；</li>
+ *   <li>每个作业有并发上限，每个任务可声明预计占用的内存，已预留内存加上该任务超过预算时暂缓派发
+ *       （没有其他任务运行时仍会执行，避免大任务饿死）；</li>
+ *   <li>每个作业持有一个 {@link CancellationToken}：取消（或到达截止时间）时排队的任务立即丢弃，
+ *       运行中的任务在下一个检查点停止，腾出的线程和内存预算马上派发给其他作业；</li>
+ *   <li>按作业统计排队、运行、完成、失败、取消的任务数以及 CPU 时间、执行时间和内存预留峰值。</li>
+ * </ul>
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class AnalysisExecutor implements Closeable {
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 执行器参数，0 表示按机器自动确定
+     */
+    public static class Options {
+        private int threads = 0;                  // 工作线程数，0 为 CPU 核数
+        private long memoryBudgetBytes = 0;       // 任务内存预算，0 为最大堆 × memoryFraction
+        private double memoryFraction = 0.6;      // 自动确定内存预算时占最大堆的比例
+        private int maxJobConcurrency = 0;        // 单个作业同时运行的任务数上限，0 为线程数
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+
+        public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+        public void setMemoryBudgetBytes(long memoryBudgetBytes) { this.memoryBudgetBytes = memoryBudgetBytes; }
+
+        public double getMemoryFraction() { return memoryFraction; }
+        public void setMemoryFraction(double memoryFraction) { this.memoryFraction = memoryFraction; }
+
+        public int getMaxJobConcurrency() { return maxJobConcurrency; }
+        public void setMaxJobConcurrency(int maxJobConcurrency) { this.maxJobConcurrency = maxJobConcurrency; }
+
+        public static Options getDefault() {
+            return new Options();
+        }
+    }
+
+    /**
+     * 作业统计快照
+     */
+    public static class JobStats {
+        public final String user;
+        public final String jobId;
+        public final double weight;
+        public final int queued;
+        public final int running;
+        public final long completed;
+        public final long failed;
+        /** 被取消的任务数（含未开始即丢弃的） */
+        public final long cancelled;
+        /** 取消原因，未取消时为 null */
+        public final String cancelReason;
+        public final long cpuMillis;
+        public final long busyMillis;
+        public final long reservedBytes;
+        public final long peakReservedBytes;
+
+        JobStats(Job job) {
+            this.user = job.user.name;
+            this.jobId = job.id;
+            this.weight = job.weight;
+            this.queued = job.queue.size();
+            this.running = job.running;
+            this.completed = job.completed;
+            this.failed = job.failed;
+            this.cancelled = job.cancelled;
+            this.cancelReason = job.token.getReason();
+            this.cpuMillis = job.cpuNanos / 1_000_000;
+            this.busyMillis = job.busyMillis;
+            this.reservedBytes = job.reservedBytes;
+            this.peakReservedBytes = job.peakReservedBytes;
+        }
+    }
+
+    /**
+     * 执行器整体统计快照
+     */
+    public static class Metrics {
+        public final int threads;
+        public final long memoryBudgetBytes;
+        public final int queued;
+        public final int active;
+        public final long reservedBytes;
+        public final int users;
+        public final int jobs;
+        public final long completed;
+        /** 累计被取消的任务数 */
+        public final long cancelled;
+        /** 累计因取消而未执行的任务数，这部分线程和内存直接让给了其他作业 */
+        public final long dropped;
+        public final List<JobStats> jobStats;
+
+        Metrics(int threads, long memoryBudgetBytes, int queued, int active, long reservedBytes,
+                int users, long completed, long cancelled, long dropped, List<JobStats> jobStats) {
+            this.threads = threads;
+            this.memoryBudgetBytes = memoryBudgetBytes;
+            this.queued = queued;
+            this.active = active;
+            this.reservedBytes = reservedBytes;
+            this.users = users;
+            this.jobs = jobStats.size();
+            this.completed = completed;
+            this.cancelled = cancelled;
+            this.dropped = dropped;
+            this.jobStats = jobStats;
+        }
+    }
+
+    private final int threads;
+    private final long memoryBudget;
+    private final int maxJobConcurrency;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, User> users = new LinkedHashMap<>();
+    private final Map<String, Double> userWeights = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    /** 全局与各用户内的虚拟时间，取最近一次派发的用户 / 作业的虚拟时间 */
+    private double virtualTime;
+    private int queued;
+    private int active;
+    private long reservedBytes;
+    private long completed;
+    private long cancelled;
+    private long dropped;
+    private boolean closed;
+
+    public AnalysisExecutor(Options options) {
+        this.threads = options.threads > 0 ? options.threads : Runtime.getRuntime().availableProcessors();
+        this.memoryBudget = options.memoryBudgetBytes > 0 ? options.memoryBudgetBytes
+                : (long) (Runtime.getRuntime().maxMemory() * options.memoryFraction);
+        this.maxJobConcurrency = options.maxJobConcurrency > 0 ? options.maxJobConcurrency : threads;
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(this::work, "analysis-" + (i + 1));
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+        log.info("分析执行器已启动: 线程数={}, 内存预算={}MB, 单作业并发上限={}",
+                threads, memoryBudget >> 20, maxJobConcurrency);
+    }
+
+    /**
+     * 打开一个作业，weight 越大在同一用户的作业之间分到的执行份额越多
+     */
+    public Job openJob(String user, String jobId, double weight) {
+        return openJob(user, jobId, weight, CancellationToken.NONE);
+    }
+
+    /**
+     * 同上；作业的取消令牌是 parent 的子令牌，parent 取消或到达截止时间时作业随之取消
+     */
+    public Job openJob(String user, String jobId, double weight, CancellationToken parent) {
+        Job job;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("分析执行器已关闭");
+            }
+            User u = users.computeIfAbsent(user == null ? "system" : user, User::new);
+            job = new Job(u, jobId, weight > 0 ? weight : 1.0, parent.child());
+            u.jobs.add(job);
+        } finally {
+            lock.unlock();
+        }
+        // 在锁外登记：令牌已取消时回调会立即执行
+        job.token.onCancel(job::dropQueued);
+        return job;
+    }
+
+    /**
+     * 设置用户在用户之间分配执行份额时的权重（默认 1）
+     */
+    public void setUserWeight(String user, double weight) {
+        lock.lock();
+        try {
+            userWeights.put(user, weight > 0 ? weight : 1.0);
+            User u = users.get(user);
+            if (u != null) u.weight = userWeights.get(user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Metrics getMetrics() {
+        lock.lock();
+        try {
+            List<JobStats> stats = new ArrayList<>();
+            for (User u : users.values()) {
+                for (Job job : u.jobs) stats.add(new JobStats(job));
+            }
+            return new Metrics(threads, memoryBudget, queued, active, reservedBytes, users.size(), completed,
+                    cancelled, dropped, stats);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 停止接收新作业，等待已排队的任务执行完毕后结束工作线程
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread t : workers) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Task<?> task;
+            lock.lock();
+            try {
+                while ((task = next()) == null) {
+                    if (closed && queued == 0) {
+                        return;
+                    }
+                    changed.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+            run(task);
+        }
+    }
+
+    /**
+     * 选出下一个可派发的任务并记账，没有时返回 null；调用方持有锁
+     */
+    private Task<?> next() {
+        User bestUser = null;
+        Job bestJob = null;
+        for (User u : users.values()) {
+            if (bestUser != null && u.pass >= bestUser.pass) continue;
+            Job job = u.nextJob();
+            if (job != null) {
+                bestUser = u;
+                bestJob = job;
+            }
+        }
+        if (bestJob == null) {
+            return null;
+        }
+        Task<?> task = bestJob.queue.pollFirst();
+        virtualTime = bestUser.pass;
+        bestUser.pass += 1.0 / bestUser.weight;
+        bestUser.virtualTime = bestJob.pass;
+        bestJob.pass += 1.0 / bestJob.weight;
+
+        queued--;
+        active++;
+        bestJob.running++;
+        reservedBytes += task.memoryBytes;
+        bestJob.reservedBytes += task.memoryBytes;
+        bestJob.peakReservedBytes = Math.max(bestJob.peakReservedBytes, bestJob.reservedBytes);
+        return task;
+    }
+
+    private <T> void run(Task<T> task) {
+        Job job = task.job;
+        long cpuStart = THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+        long start = System.currentTimeMillis();
+        boolean ok = false;
+        T result = null;
+        Throwable error = null;
+        if (job.token.isCancelled()) {
+            error = new CancellationException(job.token.getReason());
+        } else {
+            CancellationToken.Scope scope = job.token.attach();
+            try {
+                result = task.callable.call();
+                ok = true;
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                scope.close();
+            }
+        }
+        boolean cancelledTask = !ok && (error instanceof CancellationException || job.token.isCancelled());
+        long cpu = THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() - cpuStart : 0;
+
+        lock.lock();
+        try {
+            active--;
+            completed++;
+            job.running--;
+            reservedBytes -= task.memoryBytes;
+            job.reservedBytes -= task.memoryBytes;
+            job.cpuNanos += cpu;
+            job.busyMillis += System.currentTimeMillis() - start;
+            if (ok) job.completed++;
+            else if (cancelledTask) {
+                job.cancelled++;
+                cancelled++;
+            } else job.failed++;
+            job.detachIfDone();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (ok) {
+            task.future.complete(result);
+        } else {
+            task.future.completeExceptionally(error);
+        }
+    }
+
+    private final class User {
+        final String name;
+        final List<Job> jobs = new ArrayList<>();
+        double weight;
+        double pass;
+        /** 用户内作业之间的虚拟时间 */
+        double virtualTime;
+        boolean idle = true;
+
+        User(String name) {
+            this.name = name;
+            this.weight = userWeights.getOrDefault(name, 1.0);
+        }
+
+        /**
+         * 该用户下虚拟时间最小的可派发作业
+         */
+        Job nextJob() {
+            Job best = null;
+            for (Job job : jobs) {
+                if (job.runnable() && (best == null || job.pass < best.pass)) best = job;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * 作业：同一次分析（例如一次上传文件的处理）提交的一组任务
+     * 也实现 {@link Executor}，可直接作为 CompletableFuture 的执行器（任务不声明内存）
+     */
+    public final class Job implements Executor, Closeable {
+        final User user;
+        final String id;
+        final double weight;
+        final ArrayDeque<Task<?>> queue = new ArrayDeque<>();
+        final CancellationToken token;
+        double pass;
+        int running;
+        long completed;
+        long failed;
+        long cancelled;
+        long cpuNanos;
+        long busyMillis;
+        long reservedBytes;
+        long peakReservedBytes;
+        boolean closed;
+
+        Job(User user, String id, double weight, CancellationToken token) {
+            this.user = user;
+            this.id = id;
+            this.weight = weight;
+            this.token = token;
+        }
+
+        public <T> CompletableFuture<T> submit(Callable<T> callable) {
+            return submit(0, callable);
+        }
+
+        /**
+         * 提交任务，memoryBytes 为预计占用的内存，用于按内存预算控制同时运行的任务
+         */
+        public <T> CompletableFuture<T> submit(long memoryBytes, Callable<T> callable) {
+            Task<T> task = new Task<>(this, Math.max(0, memoryBytes), callable);
+            lock.lock();
+            try {
+                if (AnalysisExecutor.this.closed) {
+                    throw new RejectedExecutionException("分析执行器已关闭");
+                }
+                if (token.isCancelled()) {
+                    cancelled++;
+                    AnalysisExecutor.this.cancelled++;
+                    dropped++;
+                    task.future.completeExceptionally(new CancellationException(token.getReason()));
+                    return task.future;
+                }
+                if (queue.isEmpty() && running == 0) {
+                    // 由空闲变为活跃：从当前虚拟时间起步
+                    activate();
+                }
+                queue.addLast(task);
+                queued++;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            return task.future;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            submit(() -> {
+                command.run();
+                return null;
+            });
+        }
+
+        /**
+         * 作业的取消令牌，运行中的任务也可通过 {@link CancellationToken#current()} 取得
+         */
+        public CancellationToken getToken() {
+            return token;
+        }
+
+        /**
+         * 取消作业：丢弃排队的任务，运行中的任务在下一个检查点停止，作业内启动的 Python 进程树被结束
+         */
+        public void cancel(String reason) {
+            token.cancel(reason);
+        }
+
+        public JobStats getStats() {
+            lock.lock();
+            try {
+                return new JobStats(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 不再提交新任务；已排队的任务继续执行，全部完成后作业从执行器中移除
+         */
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                detachIfDone();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 令牌取消时丢弃全部排队的任务，对应的 future 以 CancellationException 结束
+         */
+        private void dropQueued() {
+            List<Task<?>> removed;
+            int stillRunning;
+            lock.lock();
+            try {
+                stillRunning = running;
+                removed = new ArrayList<>(queue);
+                queue.clear();
+                AnalysisExecutor.this.queued -= removed.size();
+                cancelled += removed.size();
+                AnalysisExecutor.this.cancelled += removed.size();
+                dropped += removed.size();
+                detachIfDone();
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (!removed.isEmpty() || stillRunning > 0) {
+                log.info("作业已取消: user={}, job={}, 原因={}, 丢弃排队任务={}, 运行中任务={}",
+                        user.name, id, token.getReason(), removed.size(), stillRunning);
+            }
+            for (Task<?> task : removed) {
+                task.future.completeExceptionally(new CancellationException(token.getReason()));
+            }
+        }
+
+        boolean runnable() {
+            Task<?> head = queue.peekFirst();
+            if (head == null || running >= maxJobConcurrency) {
+                return false;
+            }
+            long reserved = AnalysisExecutor.this.reservedBytes;
+            return reserved == 0 || reserved + head.memoryBytes <= memoryBudget;
+        }
+
+        private void activate() {
+            if (user.idle) {
+                user.pass = Math.max(user.pass, virtualTime);
+                user.idle = false;
+            }
+            pass = Math.max(pass, user.virtualTime);
+        }
+
+        /**
+         * 已关闭且没有排队和运行中的任务时移除作业，用户没有作业时一并移除；调用方持有锁
+         */
+        void detachIfDone() {
+            if (queue.isEmpty() && running == 0) {
+                boolean userIdle = user.jobs.stream().allMatch(j -> j.queue.isEmpty() && j.running == 0);
+                if (userIdle) user.idle = true;
+                if (closed) {
+                    user.jobs.remove(this);
+                    token.close();
+                    log.debug("作业完成: user={}, job={}, 完成={}, 失败={}, CPU={}ms, 执行={}ms, 内存峰值={}MB",
+                            user.name, id, completed, failed, cpuNanos / 1_000_000, busyMillis, peakReservedBytes >> 20);
+                    if (user.jobs.isEmpty()) users.remove(user.name, user);
+                }
+            }
+        }
+    }
+
+    private static final class Task<T> {
+        final Job job;
+        final long memoryBytes;
+        final Callable<T> callable;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Job job, long memoryBytes, Callable<T> callable) {
+            this.job = job;
+            this.memoryBytes = memoryBytes;
+            this.callable = callable;
+        }
+    }
+}
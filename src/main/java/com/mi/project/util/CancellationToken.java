@@ -0,0 +1,209 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协作式取消令牌
+ * 取消可以由调用方主动发起（{@link #cancel}），也可以在截止时间到达时自动发生；父令牌取消时所有子令牌一并取消。
+ * 取消后已注册的回调立即执行（例如结束 Python 进程树、丢弃排队的任务），
+ * 进程内的计算在分块、区域、子段之间调用 {@link #throwIfCancelled()} 检查并抛出 CancellationException。
+ * 执行器在任务运行期间把令牌绑定到当前线程（{@link #attach()}），深层代码通过 {@link #current()} 取得，无需逐层传参：
+ * <pre>
+ * CancellationToken token = CancellationToken.current();       // 在进入 ForkJoinPool 之前取得
+ * pool.invoke(new RangeTask(0, n, 1, i -> { token.throwIfCancelled(); ... }));
+ * </pre>
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class CancellationToken implements Closeable {
+
+    /** 永不取消的令牌，没有绑定令牌的线程使用它 */
+    public static final CancellationToken NONE = new CancellationToken(null);
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private static final ScheduledExecutorService DEADLINES = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cancellation-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final CancellationToken parent;
+    private final List<Runnable> callbacks = new ArrayList<>();
+    private Runnable parentRegistration;
+    private ScheduledFuture<?> deadline;
+    private volatile String reason;
+
+    private CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    public static CancellationToken create() {
+        return new CancellationToken(null);
+    }
+
+    /**
+     * 创建在 timeout 后自动取消的令牌，timeout 为 null 或不大于 0 时不设截止时间
+     */
+    public static CancellationToken withTimeout(Duration timeout) {
+        return NONE.child(timeout);
+    }
+
+    /**
+     * 当前线程绑定的令牌，没有时返回 {@link #NONE}
+     */
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token != null ? token : NONE;
+    }
+
+    /**
+     * 检查当前线程绑定的令牌
+     */
+    public static void checkCurrent() {
+        current().throwIfCancelled();
+    }
+
+    public CancellationToken child() {
+        return child(null);
+    }
+
+    /**
+     * 创建子令牌：本令牌取消时子令牌随之取消，子令牌可另设更早的截止时间；用完后应关闭子令牌以解除登记
+     */
+    public CancellationToken child(Duration timeout) {
+        CancellationToken child = new CancellationToken(this == NONE ? null : this);
+        if (child.parent != null) {
+            Runnable propagate = () -> child.cancel(reason);
+            child.parentRegistration = propagate;
+            onCancel(propagate);
+        }
+        if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+            synchronized (child) {
+                child.deadline = DEADLINES.schedule(() -> child.cancel("超过截止时间 " + timeout.toMillis() + "ms"),
+                        timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return child;
+    }
+
+    /**
+     * 取消令牌并执行已注册的回调；重复取消无效
+     */
+    public void cancel(String reason) {
+        if (this == NONE) {
+            return;
+        }
+        List<Runnable> pending;
+        synchronized (this) {
+            if (this.reason != null) {
+                return;
+            }
+            this.reason = reason != null ? reason : "已取消";
+            pending = new ArrayList<>(callbacks);
+            callbacks.clear();
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+        }
+        for (Runnable callback : pending) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.warn("取消回调执行失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    /**
+     * 取消原因，未取消时为 null
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public void throwIfCancelled() {
+        String r = reason;
+        if (r != null) {
+            throw new CancellationException(r);
+        }
+    }
+
+    /**
+     * 注册取消回调，已取消时立即在调用线程执行；返回的句柄关闭后回调不再执行
+     */
+    public Closeable onCancel(Runnable callback) {
+        if (this == NONE) {
+            return () -> { };
+        }
+        synchronized (this) {
+            if (reason == null) {
+                callbacks.add(callback);
+                return () -> {
+                    synchronized (this) {
+                        callbacks.remove(callback);
+                    }
+                };
+            }
+        }
+        callback.run();
+        return () -> { };
+    }
+
+    /**
+     * 在当前线程上绑定本令牌，关闭返回的句柄时恢复原来的绑定
+     */
+    public Scope attach() {
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 解除在父令牌上的登记并取消截止计时，不会取消本令牌
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+        }
+        if (parent != null && parentRegistration != null) {
+            synchronized (parent) {
+                parent.callbacks.remove(parentRegistration);
+            }
+        }
+    }
+
+    /**
+     * 线程绑定句柄
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
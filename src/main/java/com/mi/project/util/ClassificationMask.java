@@ -0,0 +1,62 @@
+package com.mi.project.util;
+
+import java.util.Arrays;
+
+/**
+ * 256 位分类掩码（long[4]），用于在解码前按分类字节过滤点记录
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+public final class ClassificationMask {
+
+    private final long[] words = new long[4];
+
+    private ClassificationMask() {
+    }
+
+    /**
+     * 由分类值数组创建掩码，null 或空数组表示不过滤，返回 null；超出 0–255 的值被忽略
+     */
+    public static ClassificationMask of(int[] classificationValues) {
+        if (classificationValues == null || classificationValues.length == 0) {
+            return null;
+        }
+        ClassificationMask mask = new ClassificationMask();
+        for (int c : classificationValues) {
+            if (c >= 0 && c < 256) {
+                mask.words[c >>> 6] |= 1L << c;
+            }
+        }
+        return mask;
+    }
+
+    public boolean matches(int classification) {
+        return (words[classification >>> 6] & (1L << classification)) != 0;
+    }
+
+    /**
+     * 掩码原始数据，供解码循环直接按位测试（不可修改）
+     */
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * 掩码中的分类值，升序
+     */
+    public int[] toArray() {
+        int[] values = new int[Long.bitCount(words[0]) + Long.bitCount(words[1])
+                + Long.bitCount(words[2]) + Long.bitCount(words[3])];
+        int n = 0;
+        for (int c = 0; c < 256; c++) {
+            if (matches(c)) values[n++] = c;
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
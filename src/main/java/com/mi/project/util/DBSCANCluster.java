@@ -1,10 +1,16 @@
 package com.mi.project.util;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * 自实现的DBSCAN聚类算法
  * 替代Smile库，避免依赖下载问题
+ * 邻域查询使用边长为 eps 的均匀网格索引（前 3 维），只检查相邻网格中的点，
+ * 距离用平方比较，邻居和扩展队列均为 int 数组，聚类结果与逐点线性扫描完全相同。
+ * 多核环境可使用 {@link #fitParallel}，按空间条带并行计算后合并，结果不变。
  */
 public class DBSCANCluster {
 
@@ -17,6 +23,29 @@ public class DBSCANCluster {
     private static final int NOISE = -1;
     private static final int UNCLASSIFIED = 0;
 
+    /** 网格索引的维数上限 */
+    private static final int MAX_GRID_DIMS = 3;
+
+    /** 每维网格坐标位数 */
+    private static final int CELL_BITS = 21;
+
+    private final double epsSquared;
+    private final int gridDims;
+    private final double[] gridMin;
+    private double cellSize;
+
+    /** 网格编号 → 该网格的点在 cellPoints 中的区间 [cellStart[c], cellStart[c + 1]) */
+    private LongSlotTable cellTable;
+    private int[] cellStart;
+    private int[] cellPoints;
+
+    /** 相邻网格数（3^gridDims），第 k 个相邻网格各维偏移为 k 的 3 进制各位减 1 */
+    private int neighborOffsets;
+
+    /** 邻居缓冲区，复用 */
+    private int[] neighbors = new int[16];
+    private int neighborCount;
+
     /**
      * DBSCAN聚类构造函数
      *
@@ -30,6 +59,9 @@ public class DBSCANCluster {
         this.minPoints = minPoints;
         this.labels = new int[data.length];
         this.visited = new boolean[data.length];
+        this.epsSquared = eps * eps;
+        this.gridDims = data.length == 0 ? 0 : Math.min(MAX_GRID_DIMS, data[0].length);
+        this.gridMin = new double[gridDims];
 
         // 初始化标签
         Arrays.fill(labels, UNCLASSIFIED);
@@ -41,19 +73,21 @@ public class DBSCANCluster {
      * @return 聚类标签数组，-1表示噪声点，其他非负数表示聚类编号
      */
     public int[] cluster() {
+        buildGrid();
+        int[] queue = new int[data.length];
         int clusterId = 0;
 
         for (int i = 0; i < data.length; i++) {
             if (visited[i]) continue;
 
             visited[i] = true;
-            List<Integer> neighbors = getNeighbors(i);
+            findNeighbors(i);
 
-            if (neighbors.size() < minPoints) {
+            if (neighborCount < minPoints) {
                 labels[i] = NOISE;
             } else {
                 clusterId++;
-                expandCluster(i, neighbors, clusterId);
+                expandCluster(i, clusterId, queue);
             }
         }
 
@@ -61,56 +95,153 @@ public class DBSCANCluster {
     }
 
     /**
-     * 扩展聚类
+     * 扩展聚类（广度优先）
+     * 点在入队时即标记为当前聚类；未分类的点入队一次，噪声点只改标签（已访问过，不是核心点），
+     * 已属于其他聚类的点保持不变，与出队时再标记的结果相同
      */
-    private void expandCluster(int pointIdx, List<Integer> neighbors, int clusterId) {
+    private void expandCluster(int pointIdx, int clusterId, int[] queue) {
         labels[pointIdx] = clusterId;
+        int head = 0, tail = claimNeighbors(clusterId, queue, 0);
 
-        Queue<Integer> queue = new LinkedList<>(neighbors);
-
-        while (!queue.isEmpty()) {
-            int currentPoint = queue.poll();
+        while (head < tail) {
+            int currentPoint = queue[head++];
+            visited[currentPoint] = true;
+            findNeighbors(currentPoint);
+            if (neighborCount >= minPoints) {
+                tail = claimNeighbors(clusterId, queue, tail);
+            }
+        }
+    }
 
-            if (!visited[currentPoint]) {
-                visited[currentPoint] = true;
-                List<Integer> currentNeighbors = getNeighbors(currentPoint);
+    private int claimNeighbors(int clusterId, int[] queue, int tail) {
+        for (int k = 0; k < neighborCount; k++) {
+            int n = neighbors[k];
+            if (labels[n] == UNCLASSIFIED) {
+                labels[n] = clusterId;
+                if (!visited[n]) {
+                    queue[tail++] = n;
+                }
+            } else if (labels[n] == NOISE) {
+                labels[n] = clusterId;
+            }
+        }
+        return tail;
+    }
 
-                if (currentNeighbors.size() >= minPoints) {
-                    queue.addAll(currentNeighbors);
+    /**
+     * 按网格编号对点做计数排序，建立网格索引
+     */
+    private void buildGrid() {
+        int n = data.length;
+        Arrays.fill(gridMin, Double.POSITIVE_INFINITY);
+        double maxExtent = 0;
+        double[] gridMax = new double[gridDims];
+        Arrays.fill(gridMax, Double.NEGATIVE_INFINITY);
+        for (double[] point : data) {
+            for (int d = 0; d < gridDims; d++) {
+                double v = point[d];
+                if (Double.isFinite(v)) {
+                    if (v < gridMin[d]) gridMin[d] = v;
+                    if (v > gridMax[d]) gridMax[d] = v;
                 }
             }
+        }
+        for (int d = 0; d < gridDims; d++) {
+            if (gridMax[d] >= gridMin[d]) {
+                maxExtent = Math.max(maxExtent, gridMax[d] - gridMin[d]);
+            } else {
+                gridMin[d] = 0;
+            }
+        }
+        // 网格边长不小于 eps 时，邻居一定在相邻网格内；跨度过大时放大边长以免坐标溢出
+        cellSize = Math.max(eps, maxExtent / ((1 << CELL_BITS) - 2));
+        if (!(cellSize > 0)) {
+            cellSize = 1;
+        }
+
+        neighborOffsets = 1;
+        for (int d = 0; d < gridDims; d++) neighborOffsets *= 3;
+        int centerOffset = neighborOffsets / 2;
 
-            if (labels[currentPoint] == UNCLASSIFIED || labels[currentPoint] == NOISE) {
-                labels[currentPoint] = clusterId;
+        cellTable = new LongSlotTable(Math.min(n, 1 << 16));
+        int[] cellOf = new int[n];
+        int[] counts = new int[16];
+        for (int i = 0; i < n; i++) {
+            int cell = cellTable.insert(cellKey(data[i], centerOffset));
+            if (cell < 0) {
+                cell = ~cell;
+                if (cell == counts.length) counts = Arrays.copyOf(counts, counts.length * 2);
             }
+            cellOf[i] = cell;
+            counts[cell]++;
+        }
+        int cells = cellTable.size();
+        cellStart = new int[cells + 1];
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] = cellStart[c] + counts[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        cellPoints = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellPoints[fill[cellOf[i]]++] = i;
         }
     }
 
     /**
-     * 获取指定点的邻居
+     * 第 d 维网格坐标，范围 [1, 2^CELL_BITS - 2]，两侧各留一格给相邻网格查询
      */
-    private List<Integer> getNeighbors(int pointIdx) {
-        List<Integer> neighbors = new ArrayList<>();
+    private long cellCoord(double v, int d) {
+        double c = (v - gridMin[d]) / cellSize;
+        if (!(c >= 0)) return 1;
+        return Math.min((long) c, (1L << CELL_BITS) - 3) + 1;
+    }
 
-        for (int i = 0; i < data.length; i++) {
-            if (distance(data[pointIdx], data[i]) <= eps) {
-                neighbors.add(i);
+    /**
+     * 查找指定点的邻居（包括自身），结果在 neighbors[0, neighborCount)
+     */
+    private void findNeighbors(int pointIdx) {
+        double[] p = data[pointIdx];
+        neighborCount = 0;
+        if (!(eps >= 0)) return;
+        for (int offset = 0; offset < neighborOffsets; offset++) {
+            int cell = cellTable.get(cellKey(p, offset));
+            if (cell < 0) continue;
+            for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                int i = cellPoints[k];
+                if (withinEps(p, data[i])) {
+                    if (neighborCount == neighbors.length) neighbors = Arrays.copyOf(neighbors, neighborCount * 2);
+                    neighbors[neighborCount++] = i;
+                }
             }
         }
+    }
 
-        return neighbors;
+    /**
+     * 网格坐标打包为 long，offset 按 3 进制给出各维的相邻偏移（0/1/2 对应 -1/0/+1）
+     */
+    private long cellKey(double[] point, int offset) {
+        long key = 0;
+        for (int d = 0; d < gridDims; d++) {
+            long c = cellCoord(point[d], d) + (offset % 3) - 1;
+            offset /= 3;
+            key = (key << CELL_BITS) | c;
+        }
+        return key;
     }
 
     /**
-     * 计算两点间的欧几里得距离
+     * 两点距离是否不超过 eps
+     * 先比较距离平方，只有平方与 eps² 十分接近时才开方，保证与 sqrt(sum) <= eps 的判断一致
      */
-    private double distance(double[] point1, double[] point2) {
+    private boolean withinEps(double[] point1, double[] point2) {
         double sum = 0.0;
         for (int i = 0; i < point1.length; i++) {
             double diff = point1[i] - point2[i];
             sum += diff * diff;
         }
-        return Math.sqrt(sum);
+        if (sum < epsSquared * (1 - 1e-12)) return true;
+        if (sum > epsSquared * (1 + 1e-12)) return false;
+        return Math.sqrt(sum) <= eps;
     }
 
     /**
@@ -136,6 +267,314 @@ public class DBSCANCluster {
         return new ClusterResult(labels, dbscan.getClusterCount(), dbscan.getNoiseCount());
     }
 
+    /**
+     * 多线程 DBSCAN，结果与 {@link #fit} 完全相同
+     *
+     * @param parallelism 并行线程数
+     */
+    public static ClusterResult fitParallel(double[][] data, double eps, int minPoints, int parallelism) {
+        if (parallelism <= 1) {
+            return fit(data, eps, minPoints);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return fitParallel(data, eps, minPoints, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 在指定 ForkJoinPool 上执行多线程 DBSCAN
+     * <p>
+     * 沿跨度最大的坐标轴按分位数把点切成若干条带，每个条带附带两侧宽度不小于 eps 的缓冲区，
+     * 条带内的点的全部邻居都在条带 + 缓冲区中，因此可以各自独立计算：
+     * <ol>
+     *   <li>各条带并行判定自身点是否为核心点；</li>
+     *   <li>各条带并行用并查集连接距离不超过 eps 的核心点（含缓冲区中的核心点），
+     *       再在全局并查集中合并，跨条带的聚类通过缓冲区中共享的核心点连成一个；</li>
+     *   <li>按点下标顺序给各连通分量编号，非核心点取邻域内核心点所在聚类的最小编号，没有则为噪声。</li>
+     * </ol>
+     * 顺序算法中聚类按其最小核心点下标依次编号、边界点归属最先扩展到它的（即编号最小的）聚类，
+     * 与上述规则一致，所以结果确定且与 {@link #fit} 相同。
+     */
+    public static ClusterResult fitParallel(double[][] data, double eps, int minPoints, ForkJoinPool pool) {
+        Partition[] partitions = Partition.split(data, eps, pool.getParallelism());
+        if (partitions == null) {
+            return fit(data, eps, minPoints);
+        }
+
+        int n = data.length;
+        boolean[] core = new boolean[n];
+        pool.invoke(new PartitionTask(partitions, p -> p.markCore(minPoints, core)));
+        pool.invoke(new PartitionTask(partitions, p -> p.linkCore(core)));
+
+        // 全局并查集：父节点总是下标更小的点，根即为分量内最小的核心点下标
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+        for (Partition partition : partitions) {
+            int[] links = partition.links;
+            for (int k = 0; k < partition.linkCount; k += 2) {
+                union(parent, links[k], links[k + 1]);
+            }
+            partition.links = null;
+        }
+
+        int[] labels = new int[n];
+        int clusterId = 0;
+        for (int i = 0; i < n; i++) {
+            if (core[i]) {
+                int root = find(parent, i);
+                labels[i] = root == i ? ++clusterId : labels[root];
+            }
+        }
+        pool.invoke(new PartitionTask(partitions, p -> p.labelBorder(core, labels)));
+
+        int noise = 0;
+        for (int label : labels) {
+            if (label == NOISE) noise++;
+        }
+        return new ClusterResult(labels, Arrays.stream(labels).max().orElse(0), noise);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        a = find(parent, a);
+        b = find(parent, b);
+        if (a < b) {
+            parent[b] = a;
+        } else if (b < a) {
+            parent[a] = b;
+        }
+    }
+
+    /**
+     * 空间条带：members 前 owned 个为条带自身的点（全局下标），其后为缓冲区中的点
+     */
+    private static final class Partition {
+
+        /** 每个条带最少点数，过小的条带缓冲区占比过高 */
+        private static final int MIN_PARTITION_POINTS = 8192;
+
+        /** 每个工作线程平均分到的条带数，便于负载均衡 */
+        private static final int PARTITIONS_PER_THREAD = 4;
+
+        final int[] members;
+        final int owned;
+        final DBSCANCluster local;
+
+        /** 本条带产生的核心点连接（全局下标两两一组） */
+        int[] links;
+        int linkCount;
+
+        private Partition(double[][] data, int[] members, int owned, double eps) {
+            this.members = members;
+            this.owned = owned;
+            double[][] points = new double[members.length][];
+            for (int k = 0; k < members.length; k++) {
+                points[k] = data[members[k]];
+            }
+            this.local = new DBSCANCluster(points, eps, 0);
+        }
+
+        /**
+         * 沿跨度最大的轴按分位数切分条带；点数过少、eps 非有限值等不值得或无法切分时返回 null
+         */
+        static Partition[] split(double[][] data, double eps, int parallelism) {
+            int n = data.length;
+            int target = (int) Math.min((long) parallelism * PARTITIONS_PER_THREAD, n / MIN_PARTITION_POINTS);
+            if (target < 2 || !(eps >= 0) || Double.isInfinite(eps) || data[0].length == 0) {
+                return null;
+            }
+
+            int dims = Math.min(MAX_GRID_DIMS, data[0].length);
+            int axis = 0;
+            double bestExtent = -1;
+            for (int d = 0; d < dims; d++) {
+                double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+                for (double[] point : data) {
+                    double v = point[d];
+                    if (v < min) min = v;
+                    if (v > max) max = v;
+                }
+                if (max - min > bestExtent) {
+                    bestExtent = max - min;
+                    axis = d;
+                }
+            }
+
+            double[] values = new double[n];
+            int finite = 0;
+            for (double[] point : data) {
+                if (Double.isFinite(point[axis])) values[finite++] = point[axis];
+            }
+            if (finite == 0) {
+                return null;
+            }
+            Arrays.sort(values, 0, finite);
+
+            // 分界点取分位数，相邻分界点间距须大于 eps，使缓冲区不会跨过整个条带
+            double[] bounds = new double[target - 1];
+            int count = 0;
+            double previous = values[0];
+            for (int s = 1; s < target; s++) {
+                double b = values[(int) ((long) finite * s / target)];
+                if (b - previous > eps) {
+                    bounds[count++] = b;
+                    previous = b;
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            bounds = Arrays.copyOf(bounds, count);
+            // 缓冲区略宽于 eps，抵消坐标相减的舍入误差；多包含的点不影响结果
+            double halo = eps * (1 + 1e-9)
+                    + 4 * Math.ulp(Math.max(Math.abs(values[0]), Math.abs(values[finite - 1])));
+
+            int partitions = count + 1;
+            int[] ownedCounts = new int[partitions];
+            int[] haloCounts = new int[partitions];
+            int[] slabOf = new int[n];
+            for (int i = 0; i < n; i++) {
+                double v = data[i][axis];
+                // 轴坐标非有限值的点与任何点都不相邻，归入第一个条带即可
+                int s = Double.isFinite(v) ? slabOf(bounds, v) : 0;
+                slabOf[i] = s;
+                ownedCounts[s]++;
+                if (Double.isFinite(v)) {
+                    for (int t = s - 1; t >= 0 && v - bounds[t] <= halo; t--) haloCounts[t]++;
+                    for (int t = s + 1; t < partitions && bounds[t - 1] - v <= halo; t++) haloCounts[t]++;
+                }
+            }
+
+            int[][] members = new int[partitions][];
+            int[] ownedFill = new int[partitions];
+            int[] haloFill = new int[partitions];
+            for (int s = 0; s < partitions; s++) {
+                members[s] = new int[ownedCounts[s] + haloCounts[s]];
+                haloFill[s] = ownedCounts[s];
+            }
+            for (int i = 0; i < n; i++) {
+                int s = slabOf[i];
+                members[s][ownedFill[s]++] = i;
+                double v = data[i][axis];
+                if (Double.isFinite(v)) {
+                    for (int t = s - 1; t >= 0 && v - bounds[t] <= halo; t--) members[t][haloFill[t]++] = i;
+                    for (int t = s + 1; t < partitions && bounds[t - 1] - v <= halo; t++) members[t][haloFill[t]++] = i;
+                }
+            }
+
+            Partition[] result = new Partition[partitions];
+            for (int s = 0; s < partitions; s++) {
+                result[s] = new Partition(data, members[s], ownedCounts[s], eps);
+            }
+            return result;
+        }
+
+        /** 第一个大于 v 的分界点的序号，即 v 所在条带 */
+        private static int slabOf(double[] bounds, double v) {
+            int lo = 0, hi = bounds.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (bounds[mid] <= v) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * 判定条带自身的点是否为核心点
+         */
+        void markCore(int minPoints, boolean[] core) {
+            local.buildGrid();
+            for (int k = 0; k < owned; k++) {
+                local.findNeighbors(k);
+                core[members[k]] = local.neighborCount >= minPoints;
+            }
+        }
+
+        /**
+         * 在局部并查集中连接相邻的核心点，再把每个核心点与其局部根的连接导出给全局合并
+         */
+        void linkCore(boolean[] core) {
+            int[] parent = new int[members.length];
+            for (int k = 0; k < parent.length; k++) parent[k] = k;
+            for (int k = 0; k < owned; k++) {
+                if (!core[members[k]]) continue;
+                local.findNeighbors(k);
+                for (int j = 0; j < local.neighborCount; j++) {
+                    int other = local.neighbors[j];
+                    if (core[members[other]]) {
+                        union(parent, k, other);
+                    }
+                }
+            }
+            links = new int[16];
+            for (int k = 0; k < parent.length; k++) {
+                int root = find(parent, k);
+                if (root == k) continue;
+                if (linkCount == links.length) links = Arrays.copyOf(links, linkCount * 2);
+                links[linkCount++] = members[k];
+                links[linkCount++] = members[root];
+            }
+        }
+
+        /**
+         * 非核心点取邻域内核心点所在聚类的最小编号，没有核心邻居则为噪声
+         */
+        void labelBorder(boolean[] core, int[] labels) {
+            for (int k = 0; k < owned; k++) {
+                int i = members[k];
+                if (core[i]) continue;
+                int label = NOISE;
+                local.findNeighbors(k);
+                for (int j = 0; j < local.neighborCount; j++) {
+                    int other = members[local.neighbors[j]];
+                    if (core[other] && (label == NOISE || labels[other] < label)) {
+                        label = labels[other];
+                    }
+                }
+                labels[i] = label;
+            }
+        }
+    }
+
+    /**
+     * 对所有条带并行执行同一步骤
+     */
+    @SuppressWarnings("serial")
+    private static class PartitionTask extends RecursiveAction {
+        private final Partition[] partitions;
+        private final Consumer<Partition> step;
+
+        PartitionTask(Partition[] partitions, Consumer<Partition> step) {
+            this.partitions = partitions;
+            this.step = step;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>(partitions.length);
+            for (Partition partition : partitions) {
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        step.accept(partition);
+                    }
+                });
+            }
+            invokeAll(tasks);
+        }
+    }
+
     /**
      * 聚类结果封装类
      */
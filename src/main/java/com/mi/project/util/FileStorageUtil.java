@@ -9,6 +9,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -49,8 +52,8 @@ public class FileStorageUtil {
             String finalLasPath;
             String fileUrl = null;
             if (extension.equals(".zip")) {
-                // 1. 保存zip到目标目录
-                Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+                // 1. 保存zip到目标目录，落盘时顺带计算内容哈希
+                String contentHash = ResultCache.copyAndHash(file.getInputStream(), targetPath);
                 // 2. 创建临时解压目录
                 Path tempUnzipDir = Files.createTempDirectory("unzip_las_");
                 // 3. 解压出第一个las文件
@@ -58,11 +61,18 @@ public class FileStorageUtil {
                 if (lasPath == null) {
                     throw new IllegalArgumentException("zip包中未找到las文件");
                 }
+                try (InputStream in = Files.newInputStream(lasPath)) {
+                    validatePointFormat(in, lasPath.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    FileTrees.deleteRecursively(tempUnzipDir);
+                    Files.deleteIfExists(targetPath);
+                    throw e;
+                }
                 finalLasPath = lasPath.toString();
                 // 4. 可选：上传原始zip到云端
                 fileUrl = cloudUploadUtil.cloudStorage(file, relativePath + storedFileName);
-                // 6. 可选：将las文件复制到正式存储目录
-                Path finalLasTarget = uploadDir.resolve(UUID.randomUUID() + ".las");
+                // 6. 可选：将las/laz文件复制到正式存储目录（保留原扩展名）
+                Path finalLasTarget = uploadDir.resolve(UUID.randomUUID() + getFileExtension(lasPath.getFileName().toString()).toLowerCase());
                 Files.copy(lasPath, finalLasTarget, StandardCopyOption.REPLACE_EXISTING);
                 // 7. 结果信息
                 result.add(relativePath);
@@ -70,12 +80,13 @@ public class FileStorageUtil {
                 result.add(extension);
                 result.add(fileUrl);
                 result.add(finalLasTarget.toString());
+                result.add(contentHash);
                 // 8. 清理临时解压目录
                 try { Files.deleteIfExists(lasPath); Files.deleteIfExists(tempUnzipDir); } catch (Exception ignore) {}
                 return result;
-            } else if (".las".equals(extension)) {
-                // 直接保存las文件
-                Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            } else if (".las".equals(extension) || ".laz".equals(extension)) {
+                // 直接保存las/laz文件，laz 读取时在内存中按块解压，无需落盘
+                String contentHash = ResultCache.copyAndHash(file.getInputStream(), targetPath);
                 finalLasPath = targetPath.toString();
                 fileUrl = cloudUploadUtil.cloudStorage(file, relativePath + storedFileName);
                 log.info("文件存储成功: {}", relativePath);
@@ -84,6 +95,7 @@ public class FileStorageUtil {
                 result.add(extension);
                 result.add(fileUrl);
                 result.add(finalLasPath);
+                result.add(contentHash);
                 return result;
             } else {
                 throw new IllegalArgumentException("不支持的文件类型: " + extension);
@@ -111,8 +123,42 @@ public class FileStorageUtil {
         String extension = getFileExtension(filename).toLowerCase();
 
         // 检查文件扩展名
-        if (!extension.equals(".las") && !extension.equals(".zip")) {
-            throw new IllegalArgumentException("不支持的文件类型: " + extension + "，仅支持.las和.zip文件");
+        if (!extension.equals(".las") && !extension.equals(".laz") && !extension.equals(".zip")) {
+            throw new IllegalArgumentException("不支持的文件类型: " + extension + "，仅支持.las、.laz和.zip文件");
+        }
+
+        // zip 包在解压后检查其中的点云文件
+        if (!extension.equals(".zip")) {
+            try (InputStream in = file.getInputStream()) {
+                validatePointFormat(in, filename);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("文件读取失败: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 按文件头检查点数据记录格式，在上传时拒绝无法处理的文件，而不是入库后在处理阶段失败：
+     * 不是 LAS/LAZ、格式编号未知或记录长度不足，以及 LASzip 分层压缩的 LAS 1.4 格式 6–10（尚不支持解码）
+     */
+    static void validatePointFormat(InputStream in, String filename) throws IOException {
+        byte[] bytes = in.readNBytes(LASFileReader.MAX_HEADER_BYTES);
+        LASToJsonUtil.LASHeader header;
+        try {
+            header = LASToJsonUtil.readLASHeader(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("不是有效的LAS/LAZ文件: " + filename);
+        }
+        LASPointFormat format;
+        try {
+            format = LASPointFormat.of(header.pointDataRecordFormat, header.pointDataRecordLength);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(filename + ": " + e.getMessage());
+        }
+        boolean compressed = header.compressed || filename.toLowerCase().endsWith(".laz");
+        if (compressed && format.isExtended()) {
+            throw new IllegalArgumentException(filename + ": 暂不支持压缩的LAS 1.4点格式 " + format.id
+                    + "（PDRF 6–10 使用LASzip分层压缩），请上传未压缩的.las文件");
         }
     }
     private String getFileExtension(String filename) {
@@ -127,6 +173,20 @@ public class FileStorageUtil {
 
         return filename.substring(lastDotIndex);
     }
+    /**
+     * 相对路径转换为存储目录下的绝对路径
+     */
+    public Path resolvePath(String relativePath) {
+        return Paths.get(storagePath, relativePath);
+    }
+
+    /**
+     * 存储目录下的绝对路径转换为相对路径，与 {@link #resolvePath} 互逆
+     */
+    public String relativize(Path path) {
+        return Paths.get(storagePath).toAbsolutePath().relativize(path.toAbsolutePath()).toString().replace('\\', '/');
+    }
+
     public void deleteFile(String relativePath) {
         try {
             Path filePath = Paths.get(storagePath, relativePath);
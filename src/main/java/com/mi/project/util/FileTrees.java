@@ -0,0 +1,40 @@
+package com.mi.project.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 目录树操作，供作业工作区、结果缓存和八叉树共用
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class FileTrees {
+
+    private FileTrees() {
+    }
+
+    /**
+     * 删除目录及其全部内容，先删文件后删目录；不存在时忽略，path 为普通文件时只删除该文件
+     */
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(entry -> {
+                try {
+                    Files.deleteIfExists(entry);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
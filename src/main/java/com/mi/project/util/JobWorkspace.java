@@ -0,0 +1,136 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+/**
+ * 作业工作区：每个分析作业在基础目录下独占一个根目录
+ * 分块、处理结果和输出 JSON 都写在自己的目录中，多个文件同时分析时互不覆盖。
+ * 生命周期为 创建 → 运行 → 提升结果 → 清理：
+ * <pre>
+ * try (JobWorkspace workspace = JobWorkspace.create(baseDir, "file-42")) {
+ *     ...                                     // 分块写入 getTileDir()，结果写入 getRansacJsonDir() / getPointJsonDir()
+ *     workspace.promote(resultsDir);          // 输出 JSON 移到 resultsDir/file-42
+ * }                                           // 删除整个工作区
+ * </pre>
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class JobWorkspace implements Closeable {
+
+    /** 分块文件名前缀，归一化参数文件为 {prefix}_threejs_params.json */
+    public static final String TILE_PREFIX = "tile";
+
+    private static final String TILE_DIR = "tilefiles";
+    private static final String PROCESS_DIR = "process";
+    private static final String OUTPUT_DIR = "json";
+    private static final String RANSAC_JSON_DIR = "ransac_json";
+    private static final String POINT_JSON_DIR = "point_json";
+
+    private final String jobId;
+    private final String contentHash;
+    private final Path root;
+    private final Path outputDir;
+    private Path promotedDir;
+
+    private JobWorkspace(String jobId, String contentHash, Path root) {
+        this.jobId = jobId;
+        this.contentHash = contentHash;
+        this.root = root;
+        this.outputDir = root.resolve(OUTPUT_DIR);
+    }
+
+    public static JobWorkspace create(Path baseDir, String jobId) throws IOException {
+        return create(baseDir, jobId, null);
+    }
+
+    /**
+     * 在 baseDir 下创建作业工作区，根目录名为 {jobId}-随机后缀，同一作业重复执行也不会共用目录
+     *
+     * @param contentHash 输入文件的内容哈希，各阶段结果按它缓存；为 null 时不使用缓存
+     */
+    public static JobWorkspace create(Path baseDir, String jobId, String contentHash) throws IOException {
+        Files.createDirectories(baseDir);
+        JobWorkspace workspace = new JobWorkspace(jobId, contentHash, Files.createTempDirectory(baseDir, jobId + "-"));
+        Files.createDirectories(workspace.getTileDir());
+        Files.createDirectories(workspace.getProcessDir());
+        Files.createDirectories(workspace.getRansacJsonDir());
+        Files.createDirectories(workspace.getPointJsonDir());
+        log.info("创建作业工作区: {}", workspace.root);
+        return workspace;
+    }
+
+    public String getJobId() { return jobId; }
+    public String getContentHash() { return contentHash; }
+    public Path getRoot() { return root; }
+    public Path getTileDir() { return root.resolve(TILE_DIR); }
+    public Path getProcessDir() { return root.resolve(PROCESS_DIR); }
+    public Path getRansacJsonDir() { return outputDir.resolve(RANSAC_JSON_DIR); }
+    public Path getPointJsonDir() { return outputDir.resolve(POINT_JSON_DIR); }
+    public Path getNormalizationFile() { return getTileDir().resolve(TILE_PREFIX + "_threejs_params.json"); }
+
+    /**
+     * 提升后的结果目录，尚未提升时为 null
+     */
+    public Path getPromotedDir() { return promotedDir; }
+
+    /**
+     * 把输出 JSON（ransac_json、point_json）移到 resultsDir/{jobId}，替换该作业之前的结果
+     * 同一文件系统内整体改名，目标目录要么是旧结果要么是完整的新结果；跨文件系统时退化为复制。
+     *
+     * @return 结果目录
+     */
+    public Path promote(Path resultsDir) throws IOException {
+        Files.createDirectories(resultsDir);
+        Path target = resultsDir.resolve(jobId);
+        FileTrees.deleteRecursively(target);
+        try {
+            Files.move(outputDir, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException | DirectoryNotEmptyException e) {
+            copyRecursively(outputDir, target);
+        }
+        promotedDir = target;
+        log.info("作业结果已提升: {} -> {}", jobId, target);
+        return target;
+    }
+
+    /**
+     * 删除整个工作区，包括分块和中间结果
+     */
+    public void cleanUp() throws IOException {
+        FileTrees.deleteRecursively(root);
+        log.info("已清理作业工作区: {}", root);
+    }
+
+    @Override
+    public void close() {
+        try {
+            cleanUp();
+        } catch (IOException e) {
+            log.warn("清理作业工作区失败: {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static void copyRecursively(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path dest = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(dest);
+                } else {
+                    Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+}
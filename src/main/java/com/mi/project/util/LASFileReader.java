@@ -0,0 +1,199 @@
+package com.mi.project.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于 FileChannel 内存映射的 LAS 读取器
+ * 点数据区按窗口逐段映射，所有偏移量使用 long，支持超过 2GB 的文件，
+ * 堆内存占用与文件大小无关；
+ * LAZ 文件按压缩块在内存中解码为标准点记录，对调用方透明
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+class LASFileReader implements Closeable {
+
+    /** 单个映射窗口的默认字节数（64MB） */
+    static final int DEFAULT_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    /** LAS 1.4 头部最大长度，足以覆盖所有版本的公共头部字段 */
+    static final int MAX_HEADER_BYTES = 375;
+
+    private final FileChannel channel;
+    private final LASToJsonUtil.LASHeader header;
+    private final long pointCount;
+    private final int recordsPerWindow;
+    private final LASPointFormat pointFormat;
+    private final LASRecordDecoder recordDecoder;
+
+    /** LAZ 文件的块解码器，普通 LAS 为 null */
+    private final LAZPointDecoder lazDecoder;
+
+    /**
+     * 逐点回调（原始类型参数，避免每点创建对象）
+     */
+    @FunctionalInterface
+    interface PointVisitor {
+        void accept(double x, double y, double z, int intensity, int classification);
+    }
+
+    LASFileReader(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW_BYTES);
+    }
+
+    LASFileReader(Path path, int windowBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            ByteBuffer headerBuffer = ByteBuffer.allocate((int) Math.min(fileSize, MAX_HEADER_BYTES));
+            headerBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            while (headerBuffer.hasRemaining() && channel.read(headerBuffer, headerBuffer.position()) > 0) {
+                // 读满头部缓冲区
+            }
+            headerBuffer.flip();
+            this.header = LASToJsonUtil.readLASHeader(headerBuffer);
+
+            int recordLength = header.pointDataRecordLength;
+            if (recordLength <= 0) {
+                throw new IOException("Invalid point data record length: " + recordLength);
+            }
+            this.pointFormat = LASPointFormat.of(header.pointDataRecordFormat, recordLength);
+            this.recordDecoder = LASRecordDecoder.forFormat(pointFormat);
+            if (header.compressed) {
+                // 以压缩块为窗口，每个窗口独立解码
+                this.lazDecoder = LAZPointDecoder.open(channel, header);
+                this.pointCount = lazDecoder.getPointCount();
+                int chunkSize = lazDecoder.getChunkSize();
+                this.recordsPerWindow = chunkSize > 0 ? chunkSize : Math.max(1, windowBytes / recordLength);
+                return;
+            }
+            this.lazDecoder = null;
+            // 文件被截断时只处理完整的记录
+            long available = Math.max(0, (fileSize - header.offsetToPointData) / recordLength);
+            if (available < header.numberOfPointRecords) {
+                System.err.printf("LAS文件点数据不完整: 头部声明 %d 点, 实际可读 %d 点\n",
+                        header.numberOfPointRecords, available);
+            }
+            this.pointCount = Math.min(header.numberOfPointRecords, available);
+            this.recordsPerWindow = Math.max(1, windowBytes / recordLength);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    LASToJsonUtil.LASHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * 实际可读取的点数
+     */
+    long getPointCount() {
+        return pointCount;
+    }
+
+    int getRecordLength() {
+        return header.pointDataRecordLength;
+    }
+
+    LASPointFormat getPointFormat() {
+        return pointFormat;
+    }
+
+    /**
+     * 按本文件点格式选定的解码循环
+     */
+    LASRecordDecoder getRecordDecoder() {
+        return recordDecoder;
+    }
+
+    /**
+     * 每个窗口的记录数；LAZ 文件为压缩块大小，按它对齐切分可避免重复解码
+     */
+    int getRecordsPerWindow() {
+        return recordsPerWindow;
+    }
+
+    boolean isCompressed() {
+        return lazDecoder != null;
+    }
+
+    /**
+     * 映射从 firstRecord 开始的 recordCount 条记录，返回小端序只读缓冲区，position 0 即第一条记录
+     */
+    ByteBuffer mapRecords(long firstRecord, int recordCount) throws IOException {
+        if (lazDecoder != null) {
+            return lazDecoder.decodeRecords(firstRecord, recordCount);
+        }
+        long position = header.offsetToPointData + firstRecord * header.pointDataRecordLength;
+        long size = (long) recordCount * header.pointDataRecordLength;
+        ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        return window;
+    }
+
+    /**
+     * 按文件顺序遍历所有点
+     */
+    void forEachPoint(PointVisitor visitor) throws IOException {
+        forEachPoint(0, pointCount, visitor);
+    }
+
+    /**
+     * 按文件顺序遍历分类命中掩码的点，mask 为 null 时遍历全部点
+     */
+    void forEachPoint(ClassificationMask mask, PointVisitor visitor) throws IOException {
+        forEachPoint(0, pointCount, mask, visitor);
+    }
+
+    /**
+     * 按文件顺序遍历 [fromRecord, toRecord) 范围内分类命中掩码的点，未命中的记录只读取分类字节
+     */
+    void forEachPoint(long fromRecord, long toRecord, ClassificationMask mask, PointVisitor visitor) throws IOException {
+        if (mask == null) {
+            forEachPoint(fromRecord, toRecord, visitor);
+            return;
+        }
+        int recordLength = header.pointDataRecordLength;
+        for (long first = fromRecord; first < toRecord; first += recordsPerWindow) {
+            int count = (int) Math.min(recordsPerWindow, toRecord - first);
+            recordDecoder.visitMatching(mapRecords(first, count), count, recordLength, header, mask, visitor);
+        }
+    }
+
+    /**
+     * 只扫描分类字节统计各分类点数（长度 256）
+     */
+    long[] countClassifications() throws IOException {
+        long[] counts = new long[256];
+        int recordLength = header.pointDataRecordLength;
+        for (long first = 0; first < pointCount; first += recordsPerWindow) {
+            int count = (int) Math.min(recordsPerWindow, pointCount - first);
+            recordDecoder.countClassifications(mapRecords(first, count), count, recordLength, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * 按文件顺序遍历 [fromRecord, toRecord) 范围内的点
+     */
+    void forEachPoint(long fromRecord, long toRecord, PointVisitor visitor) throws IOException {
+        int recordLength = header.pointDataRecordLength;
+        for (long first = fromRecord; first < toRecord; first += recordsPerWindow) {
+            int count = (int) Math.min(recordsPerWindow, toRecord - first);
+            recordDecoder.visit(mapRecords(first, count), count, recordLength, header, visitor);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,283 @@
+package com.mi.project.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * LAS 点记录并行解码器
+ * LAS 记录定长，可按下标直接定位，因此把记录区间切成若干块，在 ForkJoinPool 上并行解码，
+ * 每个点写入列式缓冲区中与文件顺序一致的位置，输出结果确定；
+ * 每块各自统计分类直方图和坐标范围，最后合并。
+ * 带分类过滤时每块只完整解码命中的记录，块内结果按块顺序拼接，输出同样与文件顺序一致。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+class LASParallelDecoder {
+
+    /** 每块最少记录数，过小的块调度开销大于解码本身 */
+    private static final int MIN_CHUNK_RECORDS = 64 * 1024;
+
+    /** 每个工作线程平均分到的块数，块多一些便于负载均衡 */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * 解码结果
+     */
+    static class DecodeResult {
+        final PointColumns points;
+        final long[] classificationCounts;
+        final LASToJsonUtil.BoundingBox bounds;
+
+        DecodeResult(PointColumns points, long[] classificationCounts, LASToJsonUtil.BoundingBox bounds) {
+            this.points = points;
+            this.classificationCounts = classificationCounts;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * 每块的统计信息（原始整数坐标范围 + 分类直方图）
+     */
+    private static class ChunkStats extends LASRecordDecoder.RawBounds {
+        final long[] classificationCounts = new long[256];
+        long count;
+
+        ChunkStats merge(ChunkStats other) {
+            for (int c = 0; c < 256; c++) {
+                classificationCounts[c] += other.classificationCounts[c];
+            }
+            minX = Math.min(minX, other.minX);
+            minY = Math.min(minY, other.minY);
+            minZ = Math.min(minZ, other.minZ);
+            maxX = Math.max(maxX, other.maxX);
+            maxY = Math.max(maxY, other.maxY);
+            maxZ = Math.max(maxZ, other.maxZ);
+            count += other.count;
+            return this;
+        }
+    }
+
+    private LASParallelDecoder() {
+    }
+
+    /**
+     * 使用公共 ForkJoinPool 并行解码全部点
+     */
+    static DecodeResult decode(LASFileReader reader, boolean offHeap) throws IOException {
+        return decode(reader, offHeap, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在指定 ForkJoinPool 上并行解码全部点
+     */
+    static DecodeResult decode(LASFileReader reader, boolean offHeap, ForkJoinPool pool) throws IOException {
+        LASToJsonUtil.LASHeader header = reader.getHeader();
+        long total = reader.getPointCount();
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("点数超过单次加载上限，请使用流式接口: " + total);
+        }
+
+        PointColumns points = new PointColumns((int) total,
+                header.xScaleFactor, header.yScaleFactor, header.zScaleFactor,
+                header.xOffset, header.yOffset, header.zOffset, offHeap);
+        points.resize((int) total);
+
+        int chunkRecords = chunkRecords(reader, total, pool);
+
+        ChunkStats stats;
+        try {
+            stats = pool.invoke(new DecodeTask(reader, points, 0, (int) total, chunkRecords));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return new DecodeResult(points, stats.classificationCounts, toBoundingBox(stats, header));
+    }
+
+    /**
+     * 使用公共 ForkJoinPool 并行解码分类命中掩码的点，mask 为 null 时解码全部点
+     */
+    static DecodeResult decode(LASFileReader reader, ClassificationMask mask, boolean offHeap) throws IOException {
+        return decode(reader, mask, offHeap, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在指定 ForkJoinPool 上并行解码分类命中掩码的点。
+     * 结果中的分类直方图统计的是全部记录（过滤前），坐标范围只包含命中的点
+     */
+    static DecodeResult decode(LASFileReader reader, ClassificationMask mask, boolean offHeap, ForkJoinPool pool) throws IOException {
+        if (mask == null) {
+            return decode(reader, offHeap, pool);
+        }
+        LASToJsonUtil.LASHeader header = reader.getHeader();
+        long total = reader.getPointCount();
+        int chunkRecords = chunkRecords(reader, total, pool);
+        long chunkCount = (total + chunkRecords - 1) / chunkRecords;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IOException("点数过多，无法分块解码: " + total);
+        }
+
+        FilteredChunk[] chunks = new FilteredChunk[(int) chunkCount];
+        try {
+            pool.invoke(new FilterTask(reader, mask, chunks, 0, chunks.length, chunkRecords, total));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // 按块顺序拼接命中的点
+        ChunkStats stats = new ChunkStats();
+        for (FilteredChunk chunk : chunks) {
+            stats.merge(chunk.stats);
+        }
+        if (stats.count > Integer.MAX_VALUE) {
+            throw new IOException("过滤后点数超过单次加载上限，请使用流式接口: " + stats.count);
+        }
+        PointColumns points = new PointColumns((int) stats.count,
+                header.xScaleFactor, header.yScaleFactor, header.zScaleFactor,
+                header.xOffset, header.yOffset, header.zOffset, offHeap);
+        points.resize((int) stats.count);
+        int at = 0;
+        for (FilteredChunk chunk : chunks) {
+            PointColumns part = chunk.points;
+            for (int i = 0; i < part.size(); i++, at++) {
+                points.setRaw(at, part.getRawX(i), part.getRawY(i), part.getRawZ(i),
+                        part.getIntensity(i), part.getClassification(i));
+            }
+        }
+        return new DecodeResult(points, stats.classificationCounts, toBoundingBox(stats, header));
+    }
+
+    /**
+     * 每块记录数；LAZ 以压缩块为最小解码单位，块内只能顺序解码
+     */
+    private static int chunkRecords(LASFileReader reader, long total, ForkJoinPool pool) {
+        if (reader.isCompressed()) {
+            return reader.getRecordsPerWindow();
+        }
+        return (int) Math.max(MIN_CHUNK_RECORDS,
+                Math.min(reader.getRecordsPerWindow(), total / ((long) pool.getParallelism() * CHUNKS_PER_THREAD) + 1));
+    }
+
+    private static LASToJsonUtil.BoundingBox toBoundingBox(ChunkStats stats, LASToJsonUtil.LASHeader header) {
+        return stats.count == 0 ? null : new LASToJsonUtil.BoundingBox(
+                stats.minX * header.xScaleFactor + header.xOffset,
+                stats.minY * header.yScaleFactor + header.yOffset,
+                stats.minZ * header.zScaleFactor + header.zOffset,
+                stats.maxX * header.xScaleFactor + header.xOffset,
+                stats.maxY * header.yScaleFactor + header.yOffset,
+                stats.maxZ * header.zScaleFactor + header.zOffset);
+    }
+
+    /**
+     * 单块的过滤结果
+     */
+    private static class FilteredChunk {
+        final PointColumns points;
+        final ChunkStats stats = new ChunkStats();
+
+        FilteredChunk(PointColumns points) {
+            this.points = points;
+        }
+    }
+
+    /**
+     * 二分拆分块下标区间 [from, to)，每个叶子解码一块并写入 chunks[块下标]
+     */
+    @SuppressWarnings("serial")
+    private static class FilterTask extends RecursiveAction {
+        private final LASFileReader reader;
+        private final ClassificationMask mask;
+        private final FilteredChunk[] chunks;
+        private final int from, to, chunkRecords;
+        private final long total;
+
+        FilterTask(LASFileReader reader, ClassificationMask mask, FilteredChunk[] chunks,
+                   int from, int to, int chunkRecords, long total) {
+            this.reader = reader;
+            this.mask = mask;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.chunkRecords = chunkRecords;
+            this.total = total;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FilterTask(reader, mask, chunks, from, mid, chunkRecords, total),
+                        new FilterTask(reader, mask, chunks, mid, to, chunkRecords, total));
+                return;
+            }
+            LASToJsonUtil.LASHeader header = reader.getHeader();
+            long first = (long) from * chunkRecords;
+            int count = (int) Math.min(chunkRecords, total - first);
+            FilteredChunk chunk = new FilteredChunk(new PointColumns(Math.max(16, count >>> 4),
+                    header.xScaleFactor, header.yScaleFactor, header.zScaleFactor,
+                    header.xOffset, header.yOffset, header.zOffset, false));
+            ByteBuffer window;
+            try {
+                window = reader.mapRecords(first, count);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            reader.getRecordDecoder().decodeMatching(window, count, reader.getRecordLength(), mask,
+                    chunk.points, chunk.stats.classificationCounts, chunk.stats);
+            chunk.stats.count = chunk.points.size();
+            chunks[from] = chunk;
+        }
+    }
+
+    /**
+     * 二分拆分记录区间，直到不超过 chunkRecords 后直接解码
+     */
+    @SuppressWarnings("serial")
+    private static class DecodeTask extends RecursiveTask<ChunkStats> {
+        private final LASFileReader reader;
+        private final PointColumns target;
+        private final int from, to, chunkRecords;
+
+        DecodeTask(LASFileReader reader, PointColumns target, int from, int to, int chunkRecords) {
+            this.reader = reader;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.chunkRecords = chunkRecords;
+        }
+
+        @Override
+        protected ChunkStats compute() {
+            if (to - from <= chunkRecords) {
+                return decodeChunk();
+            }
+            // 在 chunkRecords 的整数倍处拆分，保证每个叶子任务恰好对应整块
+            int chunks = (int) (((long) to - from + chunkRecords - 1) / chunkRecords);
+            int mid = from + (chunks / 2) * chunkRecords;
+            DecodeTask left = new DecodeTask(reader, target, from, mid, chunkRecords);
+            DecodeTask right = new DecodeTask(reader, target, mid, to, chunkRecords);
+            left.fork();
+            ChunkStats rightStats = right.compute();
+            return left.join().merge(rightStats);
+        }
+
+        private ChunkStats decodeChunk() {
+            ChunkStats stats = new ChunkStats();
+            ByteBuffer window;
+            try {
+                window = reader.mapRecords(from, to - from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            reader.getRecordDecoder().decode(window, to - from, reader.getRecordLength(),
+                    target, from, stats.classificationCounts, stats);
+            stats.count = to - from;
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mi.project.util;
+
+import java.io.IOException;
+
+/**
+ * LAS 点数据记录格式（PDRF 0–10）的字段布局表
+ * 所有格式的 X/Y/Z 与强度都位于记录的 0/4/8/12 字节；
+ * PDRF 0–5 的分类在第 15 字节低 5 位（高 3 位为合成/关键点/保留标志），
+ * PDRF 6–10 的第 15 字节改为扫描通道与标志位，分类移到第 16 字节并使用完整的 8 位。
+ * 偏移量为 -1 表示该格式没有此字段。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+enum LASPointFormat {
+
+    PDRF0(0, 20, -1, -1, -1),
+    PDRF1(1, 28, 20, -1, -1),
+    PDRF2(2, 26, -1, 20, -1),
+    PDRF3(3, 34, 20, 28, -1),
+    PDRF4(4, 57, 20, -1, -1),
+    PDRF5(5, 63, 20, 28, -1),
+    PDRF6(6, 30, 22, -1, -1),
+    PDRF7(7, 36, 22, 30, -1),
+    PDRF8(8, 38, 22, 30, 36),
+    PDRF9(9, 59, 22, -1, -1),
+    PDRF10(10, 67, 22, 30, 36);
+
+    /** 格式编号 */
+    final int id;
+
+    /** 标准记录长度，实际记录可以更长（额外字节） */
+    final int minRecordLength;
+
+    final int gpsTimeOffset;
+    final int rgbOffset;
+    final int nirOffset;
+
+    /** 分类字段偏移 */
+    final int classificationOffset;
+
+    /** 分类取值掩码 */
+    final int classificationMask;
+
+    private static final LASPointFormat[] BY_ID = values();
+
+    LASPointFormat(int id, int minRecordLength, int gpsTimeOffset, int rgbOffset, int nirOffset) {
+        this.id = id;
+        this.minRecordLength = minRecordLength;
+        this.gpsTimeOffset = gpsTimeOffset;
+        this.rgbOffset = rgbOffset;
+        this.nirOffset = nirOffset;
+        this.classificationOffset = id >= 6 ? 16 : 15;
+        this.classificationMask = id >= 6 ? 0xFF : 0x1F;
+    }
+
+    /**
+     * LAS 1.4 新增的扩展格式（6–10）
+     */
+    boolean isExtended() {
+        return id >= 6;
+    }
+
+    /**
+     * 按头部的格式编号和记录长度查找布局，格式未知或记录长度不足时抛出异常
+     */
+    static LASPointFormat of(int id, int recordLength) throws IOException {
+        if (id < 0 || id >= BY_ID.length) {
+            throw new IOException("不支持的点数据记录格式: " + id);
+        }
+        LASPointFormat format = BY_ID[id];
+        if (recordLength < format.minRecordLength) {
+            throw new IOException("点记录长度 " + recordLength + " 小于格式 " + id + " 的标准长度 " + format.minRecordLength);
+        }
+        return format;
+    }
+}
@@ -0,0 +1,114 @@
+package com.mi.project.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * 把列式点云写成 LAS 1.2、点格式 0 的文件（只含坐标、强度和分类）
+ * 原始整数坐标连同 PointColumns 的比例因子和偏移量原样写出，不重新量化。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class LASPointWriter {
+
+    private static final int HEADER_SIZE = 227;
+
+    private static final int RECORD_LENGTH = 20;
+
+    /** 写缓冲区能容纳的点数 */
+    private static final int BATCH_POINTS = 1 << 13;
+
+    private LASPointWriter() {
+    }
+
+    /**
+     * 写出全部点，文件已存在时覆盖
+     */
+    static void write(Path file, PointColumns points) throws IOException {
+        int n = points.size();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = header(points);
+            while (header.hasRemaining()) channel.write(header);
+
+            ByteBuffer buffer = ByteBuffer.allocate(BATCH_POINTS * RECORD_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < n; i++) {
+                buffer.putInt(points.getRawX(i));
+                buffer.putInt(points.getRawY(i));
+                buffer.putInt(points.getRawZ(i));
+                buffer.putShort((short) points.getIntensity(i));
+                buffer.put((byte) 0x09);    // 第 1 次回波，共 1 次回波
+                buffer.put((byte) (points.getClassification(i) & 0x1F));
+                buffer.put((byte) 0);       // 扫描角
+                buffer.put((byte) 0);       // 用户数据
+                buffer.putShort((short) 0); // 点源 ID
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static ByteBuffer header(PointColumns points) {
+        int n = points.size();
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double x = points.getX(i), y = points.getY(i), z = points.getZ(i);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        if (n == 0) {
+            minX = minY = minZ = maxX = maxY = maxZ = 0;
+        }
+
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        h.put("LASF".getBytes(StandardCharsets.US_ASCII));
+        h.position(24);
+        h.put((byte) 1).put((byte) 2);                       // 版本 1.2
+        putText(h, "MI Project", 32);                        // 系统标识
+        putText(h, "MI Project LAS Writer", 32);             // 生成软件
+        LocalDate today = LocalDate.now();
+        h.putShort((short) today.getDayOfYear());
+        h.putShort((short) today.getYear());
+        h.putShort((short) HEADER_SIZE);
+        h.putInt(HEADER_SIZE);                               // 点数据偏移
+        h.putInt(0);                                         // VLR 数量
+        h.put((byte) 0);                                     // 点格式 0
+        h.putShort((short) RECORD_LENGTH);
+        h.putInt(n);
+        h.putInt(n);                                         // 按回波统计：全部为第 1 次回波
+        h.putInt(0).putInt(0).putInt(0).putInt(0);
+        h.putDouble(points.getScaleX()).putDouble(points.getScaleY()).putDouble(points.getScaleZ());
+        h.putDouble(points.getOffsetX()).putDouble(points.getOffsetY()).putDouble(points.getOffsetZ());
+        h.putDouble(maxX).putDouble(minX);
+        h.putDouble(maxY).putDouble(minY);
+        h.putDouble(maxZ).putDouble(minZ);
+        h.flip();
+        return h;
+    }
+
+    private static void putText(ByteBuffer buffer, String text, int length) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(bytes, 0, Math.min(bytes.length, length));
+        for (int i = bytes.length; i < length; i++) buffer.put((byte) 0);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
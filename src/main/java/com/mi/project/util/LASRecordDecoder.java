@@ -0,0 +1,232 @@
+package com.mi.project.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 按点格式特化的记录解码循环
+ * 每个文件打开时根据 PDRF 选定一次实现，分类字段的偏移和掩码在各实现中是常量，
+ * 解码循环内部没有按点的格式分支。
+ * PDRF 0–5 与 PDRF 6–10 内部各格式的公共字段布局相同，因此各共用一个实现。
+ * 带分类过滤的循环先按记录步长只读分类字节，与 256 位掩码比较，命中后才解码坐标和强度。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+abstract class LASRecordDecoder {
+
+    /**
+     * 分块解码的统计结果：原始整数坐标范围
+     */
+    static class RawBounds {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+    }
+
+    private static final LASRecordDecoder LEGACY = new Legacy();
+    private static final LASRecordDecoder EXTENDED = new Extended();
+
+    /** 分类字段偏移与掩码 */
+    private final int classificationOffset;
+    private final int classificationBits;
+
+    private LASRecordDecoder(int classificationOffset, int classificationBits) {
+        this.classificationOffset = classificationOffset;
+        this.classificationBits = classificationBits;
+    }
+
+    static LASRecordDecoder forFormat(LASPointFormat format) {
+        return format.isExtended() ? EXTENDED : LEGACY;
+    }
+
+    /**
+     * 逐点回调，坐标已按缩放因子和偏移量换算
+     */
+    abstract void visit(ByteBuffer window, int count, int recordLength,
+                        LASToJsonUtil.LASHeader header, LASFileReader.PointVisitor visitor);
+
+    /**
+     * 写入列式缓冲区 [targetIndex, targetIndex + count)，同时统计分类直方图和坐标范围
+     */
+    abstract void decode(ByteBuffer window, int count, int recordLength, PointColumns target, int targetIndex,
+                         long[] classificationCounts, RawBounds bounds);
+
+    /**
+     * 只扫描分类字节，累加各分类点数
+     */
+    final void countClassifications(ByteBuffer window, int count, int recordLength, long[] classificationCounts) {
+        int offset = classificationOffset, bits = classificationBits;
+        for (int i = 0, base = offset; i < count; i++, base += recordLength) {
+            classificationCounts[window.get(base) & bits]++;
+        }
+    }
+
+    /**
+     * 只对分类命中掩码的记录解码并回调
+     */
+    final void visitMatching(ByteBuffer window, int count, int recordLength, LASToJsonUtil.LASHeader header,
+                             ClassificationMask mask, LASFileReader.PointVisitor visitor) {
+        double xScale = header.xScaleFactor, yScale = header.yScaleFactor, zScale = header.zScaleFactor;
+        double xOffset = header.xOffset, yOffset = header.yOffset, zOffset = header.zOffset;
+        long[] words = mask.words();
+        int offset = classificationOffset, bits = classificationBits;
+        int base = 0;
+        for (int i = 0; i < count; i++, base += recordLength) {
+            int classification = window.get(base + offset) & bits;
+            if ((words[classification >>> 6] & (1L << classification)) == 0) {
+                continue;
+            }
+            double x = window.getInt(base) * xScale + xOffset;
+            double y = window.getInt(base + 4) * yScale + yOffset;
+            double z = window.getInt(base + 8) * zScale + zOffset;
+            int intensity = window.getShort(base + 12) & 0xFFFF;
+            visitor.accept(x, y, z, intensity, classification);
+        }
+    }
+
+    /**
+     * 将分类命中掩码的记录追加到 target，同时累加所有记录的分类直方图和命中点的坐标范围
+     */
+    final void decodeMatching(ByteBuffer window, int count, int recordLength, ClassificationMask mask,
+                              PointColumns target, long[] classificationCounts, RawBounds bounds) {
+        long[] words = mask.words();
+        int offset = classificationOffset, bits = classificationBits;
+        int minX = bounds.minX, minY = bounds.minY, minZ = bounds.minZ;
+        int maxX = bounds.maxX, maxY = bounds.maxY, maxZ = bounds.maxZ;
+        int base = 0;
+        for (int i = 0; i < count; i++, base += recordLength) {
+            int classification = window.get(base + offset) & bits;
+            classificationCounts[classification]++;
+            if ((words[classification >>> 6] & (1L << classification)) == 0) {
+                continue;
+            }
+            int rawX = window.getInt(base);
+            int rawY = window.getInt(base + 4);
+            int rawZ = window.getInt(base + 8);
+            target.addRaw(rawX, rawY, rawZ, window.getShort(base + 12) & 0xFFFF, classification);
+            if (rawX < minX) minX = rawX;
+            if (rawX > maxX) maxX = rawX;
+            if (rawY < minY) minY = rawY;
+            if (rawY > maxY) maxY = rawY;
+            if (rawZ < minZ) minZ = rawZ;
+            if (rawZ > maxZ) maxZ = rawZ;
+        }
+        bounds.minX = minX;
+        bounds.minY = minY;
+        bounds.minZ = minZ;
+        bounds.maxX = maxX;
+        bounds.maxY = maxY;
+        bounds.maxZ = maxZ;
+    }
+
+    /**
+     * PDRF 0–5：分类位于第 15 字节低 5 位
+     */
+    private static final class Legacy extends LASRecordDecoder {
+
+        Legacy() {
+            super(15, 0x1F);
+        }
+
+        @Override
+        void visit(ByteBuffer window, int count, int recordLength,
+                   LASToJsonUtil.LASHeader header, LASFileReader.PointVisitor visitor) {
+            double xScale = header.xScaleFactor, yScale = header.yScaleFactor, zScale = header.zScaleFactor;
+            double xOffset = header.xOffset, yOffset = header.yOffset, zOffset = header.zOffset;
+            int base = 0;
+            for (int i = 0; i < count; i++, base += recordLength) {
+                double x = window.getInt(base) * xScale + xOffset;
+                double y = window.getInt(base + 4) * yScale + yOffset;
+                double z = window.getInt(base + 8) * zScale + zOffset;
+                int intensity = window.getShort(base + 12) & 0xFFFF;
+                int classification = window.get(base + 15) & 0x1F;
+                visitor.accept(x, y, z, intensity, classification);
+            }
+        }
+
+        @Override
+        void decode(ByteBuffer window, int count, int recordLength, PointColumns target, int targetIndex,
+                    long[] classificationCounts, RawBounds bounds) {
+            int minX = bounds.minX, minY = bounds.minY, minZ = bounds.minZ;
+            int maxX = bounds.maxX, maxY = bounds.maxY, maxZ = bounds.maxZ;
+            int base = 0;
+            for (int i = 0; i < count; i++, base += recordLength) {
+                int rawX = window.getInt(base);
+                int rawY = window.getInt(base + 4);
+                int rawZ = window.getInt(base + 8);
+                int intensity = window.getShort(base + 12) & 0xFFFF;
+                int classification = window.get(base + 15) & 0x1F;
+                target.setRaw(targetIndex + i, rawX, rawY, rawZ, intensity, classification);
+
+                classificationCounts[classification]++;
+                if (rawX < minX) minX = rawX;
+                if (rawX > maxX) maxX = rawX;
+                if (rawY < minY) minY = rawY;
+                if (rawY > maxY) maxY = rawY;
+                if (rawZ < minZ) minZ = rawZ;
+                if (rawZ > maxZ) maxZ = rawZ;
+            }
+            bounds.minX = minX;
+            bounds.minY = minY;
+            bounds.minZ = minZ;
+            bounds.maxX = maxX;
+            bounds.maxY = maxY;
+            bounds.maxZ = maxZ;
+        }
+    }
+
+    /**
+     * PDRF 6–10：分类位于第 16 字节，完整 8 位
+     */
+    private static final class Extended extends LASRecordDecoder {
+
+        Extended() {
+            super(16, 0xFF);
+        }
+
+        @Override
+        void visit(ByteBuffer window, int count, int recordLength,
+                   LASToJsonUtil.LASHeader header, LASFileReader.PointVisitor visitor) {
+            double xScale = header.xScaleFactor, yScale = header.yScaleFactor, zScale = header.zScaleFactor;
+            double xOffset = header.xOffset, yOffset = header.yOffset, zOffset = header.zOffset;
+            int base = 0;
+            for (int i = 0; i < count; i++, base += recordLength) {
+                double x = window.getInt(base) * xScale + xOffset;
+                double y = window.getInt(base + 4) * yScale + yOffset;
+                double z = window.getInt(base + 8) * zScale + zOffset;
+                int intensity = window.getShort(base + 12) & 0xFFFF;
+                int classification = window.get(base + 16) & 0xFF;
+                visitor.accept(x, y, z, intensity, classification);
+            }
+        }
+
+        @Override
+        void decode(ByteBuffer window, int count, int recordLength, PointColumns target, int targetIndex,
+                    long[] classificationCounts, RawBounds bounds) {
+            int minX = bounds.minX, minY = bounds.minY, minZ = bounds.minZ;
+            int maxX = bounds.maxX, maxY = bounds.maxY, maxZ = bounds.maxZ;
+            int base = 0;
+            for (int i = 0; i < count; i++, base += recordLength) {
+                int rawX = window.getInt(base);
+                int rawY = window.getInt(base + 4);
+                int rawZ = window.getInt(base + 8);
+                int intensity = window.getShort(base + 12) & 0xFFFF;
+                int classification = window.get(base + 16) & 0xFF;
+                target.setRaw(targetIndex + i, rawX, rawY, rawZ, intensity, classification);
+
+                classificationCounts[classification]++;
+                if (rawX < minX) minX = rawX;
+                if (rawX > maxX) maxX = rawX;
+                if (rawY < minY) minY = rawY;
+                if (rawY > maxY) maxY = rawY;
+                if (rawZ < minZ) minZ = rawZ;
+                if (rawZ > maxZ) maxZ = rawZ;
+            }
+            bounds.minX = minX;
+            bounds.minY = minY;
+            bounds.minZ = minZ;
+            bounds.maxX = maxX;
+            bounds.maxY = maxY;
+            bounds.maxZ = maxZ;
+        }
+    }
+}
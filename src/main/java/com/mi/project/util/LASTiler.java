@@ -0,0 +1,518 @@
+package com.mi.project.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * LAS/LAZ 流式分块（替代 1-lastile_wrapper.py 调用的 lastile64.exe / lasinfo64.exe）
+ * 按文件顺序读取一遍输入，把每条点记录的原始字节原样复制到其所在的瓦片（含 bufferSize 宽的缓冲带，
+ * 一个点可能同时落入相邻的几个瓦片），每个瓦片一个带缓冲的写出器；同一遍扫描中统计实际坐标范围，
+ * 生成 {prefix}_threejs_params.json。
+ * <p>
+ * 瓦片网格与 lastile 相同，按 tileSize 的整数倍对齐，文件名为 {prefix}_{minX}_{minY}.las；
+ * 输出与输入的 LAS 版本、点格式、缩放/偏移相同，LAZ 输入解压为 LAS 输出。
+ * 输入没有空间顺序保证，任何瓦片都可能在最后一条记录才收到点，所以瓦片在扫描结束后逐个封口
+ * （补写头部的点数与范围），每封口一个立即交给回调，下游不必等待全部瓦片写完。
+ * 同时打开的瓦片文件数不超过 maxOpenTiles：超出时把最久未写入的瓦片写完缓冲区后关闭，
+ * 把它的缓冲区交给新打开的瓦片，之后再收到点时重新打开并追加到末尾，文件句柄和缓冲区内存都有上限。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class LASTiler {
+
+    /** 每个瓦片写出器的缓冲区大小 */
+    private static final int BUFFER_BYTES = 256 * 1024;
+
+    /** Three.js 参数中固定的中心高程，与脚本一致 */
+    private static final double CENTER_Z = 20.0;
+
+    /** LASzip 压缩说明 VLR 的用户 ID，解压输出时移除 */
+    private static final String LASZIP_USER_ID = "laszip encoded";
+
+    /** 瓦片编号打包成 long 键前的平移量 */
+    private static final long TILE_INDEX_BIAS = 1L << 31;
+
+    /** VLR 头部长度 */
+    private static final int VLR_HEADER_BYTES = 54;
+
+    /**
+     * 分块参数，默认值与 1-lastile_wrapper.py 一致
+     */
+    public static class Options {
+        private double tileSize = 1000.0;     // 瓦片边长（米）
+        private double bufferSize = 20.0;     // 瓦片四周缓冲带宽度（米）
+        private int maxOpenTiles = 128;       // 同时打开的瓦片文件数上限
+
+        public double getTileSize() { return tileSize; }
+        public void setTileSize(double tileSize) { this.tileSize = tileSize; }
+
+        public double getBufferSize() { return bufferSize; }
+        public void setBufferSize(double bufferSize) { this.bufferSize = bufferSize; }
+
+        /** 只影响资源占用、不影响输出，不计入分块结果的缓存键 */
+        @JsonIgnore
+        public int getMaxOpenTiles() { return maxOpenTiles; }
+        public void setMaxOpenTiles(int maxOpenTiles) { this.maxOpenTiles = maxOpenTiles; }
+
+        public static Options getDefault() {
+            return new Options();
+        }
+    }
+
+    /**
+     * 已封口的瓦片
+     */
+    public static class Tile {
+        public final Path path;
+        /** 瓦片（不含缓冲带）左下角坐标 */
+        public final double minX, minY;
+        /** 含缓冲带的点数 */
+        public final long pointCount;
+        /** 不含缓冲带的点数 */
+        public final long corePointCount;
+
+        Tile(Path path, double minX, double minY, long pointCount, long corePointCount) {
+            this.path = path;
+            this.minX = minX;
+            this.minY = minY;
+            this.pointCount = pointCount;
+            this.corePointCount = corePointCount;
+        }
+    }
+
+    /**
+     * 分块结果
+     */
+    public static class Result {
+        public final List<Tile> tiles;
+        /** Three.js 归一化参数文件 */
+        public final Path paramsFile;
+        public final long pointCount;
+
+        Result(List<Tile> tiles, Path paramsFile, long pointCount) {
+            this.tiles = tiles;
+            this.paramsFile = paramsFile;
+            this.pointCount = pointCount;
+        }
+    }
+
+    private LASTiler() {
+    }
+
+    public static Result tile(Path input, Path outputDir, String prefix) throws IOException {
+        return tile(input, outputDir, prefix, Options.getDefault(), tile -> { });
+    }
+
+    /**
+     * 分块并生成归一化参数文件
+     *
+     * @param onSealed 每个瓦片封口后立即调用（在调用线程上）
+     */
+    public static Result tile(Path input, Path outputDir, String prefix, Options options,
+                              Consumer<Tile> onSealed) throws IOException {
+        if (!(options.tileSize > 0) || !(options.bufferSize >= 0)) {
+            throw new IllegalArgumentException("瓦片大小必须为正、缓冲带宽度不能为负: "
+                    + options.tileSize + " / " + options.bufferSize);
+        }
+        if (options.maxOpenTiles < 1) {
+            throw new IllegalArgumentException("同时打开的瓦片数至少为 1: " + options.maxOpenTiles);
+        }
+        Files.createDirectories(outputDir);
+        long start = System.currentTimeMillis();
+
+        try (LASFileReader reader = new LASFileReader(input)) {
+            LASToJsonUtil.LASHeader header = reader.getHeader();
+            byte[] tileHeader = tileHeaderTemplate(input, header);
+            Router router = new Router(reader, header, tileHeader, outputDir, prefix, options);
+            try {
+                router.run();
+            } catch (IOException | RuntimeException e) {
+                router.abort();
+                throw e;
+            }
+
+            Path paramsFile = outputDir.resolve(prefix + "_threejs_params.json");
+            writeThreejsParams(paramsFile, header, router);
+
+            List<Tile> tiles = new ArrayList<>();
+            TileWriter[] writers = router.writers.toArray(new TileWriter[0]);
+            Arrays.sort(writers, Comparator.<TileWriter>comparingLong(w -> w.tileY).thenComparingLong(w -> w.tileX));
+            for (TileWriter writer : writers) {
+                Tile tile = writer.seal();
+                if (tile == null) {
+                    continue;
+                }
+                tiles.add(tile);
+                onSealed.accept(tile);
+            }
+            log.info("LAS分块完成: {} 点 -> {} 个瓦片 (瓦片 {}m, 缓冲 {}m), 耗时 {}ms",
+                    router.pointCount, tiles.size(), options.tileSize, options.bufferSize,
+                    System.currentTimeMillis() - start);
+            return new Result(tiles, paramsFile, router.pointCount);
+        }
+    }
+
+    /**
+     * 按文件顺序把点记录分发到瓦片写出器，同时统计整体坐标范围
+     */
+    private static final class Router {
+        final LASFileReader reader;
+        final LASToJsonUtil.LASHeader header;
+        final byte[] tileHeader;
+        final Path outputDir;
+        final String prefix;
+        final Options options;
+        final LongSlotTable tileTable = new LongSlotTable(64);
+        final List<TileWriter> writers = new ArrayList<>();
+        /** 当前打开文件的写出器，数量不超过 maxOpenTiles */
+        final List<TileWriter> open = new ArrayList<>();
+        final int returnMask;
+        /** 每写入一条记录加一，用于找出最久未写入的瓦片 */
+        long tick;
+
+        long pointCount;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+
+        Router(LASFileReader reader, LASToJsonUtil.LASHeader header, byte[] tileHeader, Path outputDir,
+               String prefix, Options options) {
+            this.reader = reader;
+            this.header = header;
+            this.tileHeader = tileHeader;
+            this.outputDir = outputDir;
+            this.prefix = prefix;
+            this.options = options;
+            // 回波号：PDRF 0–5 为第 14 字节低 3 位，6–10 为低 4 位
+            this.returnMask = reader.getPointFormat().isExtended() ? 0x0F : 0x07;
+        }
+
+        void run() throws IOException {
+            int recordLength = header.pointDataRecordLength;
+            long total = reader.getPointCount();
+            double tileSize = options.tileSize, buffer = options.bufferSize;
+            CancellationToken token = CancellationToken.current();
+            for (long first = 0; first < total; first += reader.getRecordsPerWindow()) {
+                // 每个映射窗口之间检查取消
+                token.throwIfCancelled();
+                int count = (int) Math.min(reader.getRecordsPerWindow(), total - first);
+                ByteBuffer window = reader.mapRecords(first, count);
+                for (int r = 0; r < count; r++) {
+                    int base = r * recordLength;
+                    double x = window.getInt(base) * header.xScaleFactor + header.xOffset;
+                    double y = window.getInt(base + 4) * header.yScaleFactor + header.yOffset;
+                    double z = window.getInt(base + 8) * header.zScaleFactor + header.zOffset;
+                    int returnNumber = window.get(base + 14) & returnMask;
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    minZ = Math.min(minZ, z);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                    maxZ = Math.max(maxZ, z);
+
+                    long coreX = (long) Math.floor(x / tileSize), coreY = (long) Math.floor(y / tileSize);
+                    long i0 = (long) Math.floor((x - buffer) / tileSize), i1 = (long) Math.floor((x + buffer) / tileSize);
+                    long j0 = (long) Math.floor((y - buffer) / tileSize), j1 = (long) Math.floor((y + buffer) / tileSize);
+                    for (long i = i0; i <= i1; i++) {
+                        for (long j = j0; j <= j1; j++) {
+                            TileWriter writer = writer(i, j);
+                            ensureOpen(writer);
+                            writer.add(window, base, recordLength, x, y, z, returnNumber, i == coreX && j == coreY);
+                        }
+                    }
+                }
+                pointCount += count;
+            }
+        }
+
+        /**
+         * 分块失败时关闭并删除已创建的瓦片文件
+         */
+        void abort() {
+            for (TileWriter writer : writers) {
+                try {
+                    writer.close();
+                    Files.deleteIfExists(writer.path);
+                } catch (IOException e) {
+                    log.warn("清理瓦片文件失败: {}", writer.path, e);
+                }
+            }
+        }
+
+        private TileWriter writer(long i, long j) throws IOException {
+            // 瓦片编号各平移 2^31 后取 32 位打包，足以覆盖任何投影坐标范围，且不会与空槽标记 -1 冲突
+            int slot = tileTable.insert(((i + TILE_INDEX_BIAS) << 32) | ((j + TILE_INDEX_BIAS) & 0xFFFFFFFFL));
+            if (slot >= 0) {
+                return writers.get(slot);
+            }
+            long tileX = Math.round(i * options.tileSize), tileY = Math.round(j * options.tileSize);
+            Path path = outputDir.resolve(prefix + "_" + tileX + "_" + tileY + ".las");
+            TileWriter writer = new TileWriter(path, tileX, tileY, tileHeader, header);
+            writers.add(writer);
+            return writer;
+        }
+
+        /**
+         * 打开写出器的文件；已达上限时先挂起最久未写入的瓦片，复用它的缓冲区
+         */
+        private void ensureOpen(TileWriter writer) throws IOException {
+            writer.lastUsed = ++tick;
+            if (writer.isOpen()) {
+                return;
+            }
+            ByteBuffer buffer;
+            if (open.size() < options.maxOpenTiles) {
+                buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            } else {
+                int eldest = 0;
+                for (int k = 1; k < open.size(); k++) {
+                    if (open.get(k).lastUsed < open.get(eldest).lastUsed) eldest = k;
+                }
+                buffer = open.get(eldest).suspend();
+                // 用最后一个元素填补空位，列表顺序无关
+                open.set(eldest, open.get(open.size() - 1));
+                open.remove(open.size() - 1);
+            }
+            writer.resume(buffer);
+            open.add(writer);
+        }
+    }
+
+    /**
+     * 单个瓦片的缓冲写出器：先写头部模板占位，封口时补写点数、回波统计与范围。
+     * 被挂起时写完缓冲区并关闭文件，恢复时重新打开并从文件末尾继续追加
+     */
+    private static final class TileWriter {
+        final Path path;
+        final long tileX, tileY;
+        final byte[] headerTemplate;
+        final LASToJsonUtil.LASHeader sourceHeader;
+        final long[] returnCounts = new long[15];
+        /** 挂起时为 null */
+        FileChannel channel;
+        ByteBuffer buffer;
+        boolean created;
+        long lastUsed;
+
+        long pointCount, coreCount;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+
+        TileWriter(Path path, long tileX, long tileY, byte[] headerTemplate, LASToJsonUtil.LASHeader sourceHeader) {
+            this.path = path;
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.headerTemplate = headerTemplate;
+            this.sourceHeader = sourceHeader;
+        }
+
+        boolean isOpen() {
+            return channel != null;
+        }
+
+        /**
+         * 第一次打开时创建文件并写头部占位，之后定位到文件末尾继续追加
+         */
+        void resume(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+            if (!created) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                created = true;
+                ByteBuffer placeholder = ByteBuffer.wrap(headerTemplate);
+                while (placeholder.hasRemaining()) {
+                    channel.write(placeholder);
+                }
+            } else {
+                channel = FileChannel.open(path, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+            this.buffer = buffer;
+        }
+
+        /**
+         * 写完缓冲区并关闭文件，返回缓冲区供其他瓦片使用
+         */
+        ByteBuffer suspend() throws IOException {
+            flush();
+            ByteBuffer released = buffer;
+            close();
+            return released;
+        }
+
+        void close() throws IOException {
+            buffer = null;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } finally {
+                    channel = null;
+                }
+            }
+        }
+
+        void add(ByteBuffer window, int base, int recordLength, double x, double y, double z,
+                 int returnNumber, boolean core) throws IOException {
+            if (buffer.remaining() < recordLength) {
+                flush();
+            }
+            buffer.put(buffer.position(), window, base, recordLength);
+            buffer.position(buffer.position() + recordLength);
+            pointCount++;
+            if (core) coreCount++;
+            if (returnNumber >= 1 && returnNumber <= returnCounts.length) returnCounts[returnNumber - 1]++;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * 写完剩余记录并补写头部；只含缓冲带点的瓦片删除并返回 null
+         */
+        Tile seal() throws IOException {
+            try {
+                if (coreCount > 0) {
+                    if (isOpen()) {
+                        flush();
+                    } else {
+                        channel = FileChannel.open(path, StandardOpenOption.WRITE);
+                    }
+                    ByteBuffer h = ByteBuffer.wrap(headerTemplate.clone()).order(ByteOrder.LITTLE_ENDIAN);
+                    boolean extendedFormat = sourceHeader.pointDataRecordFormat >= 6;
+                    // 旧的 32 位点数与按回波统计：扩展格式或超出 32 位时写 0
+                    boolean legacyCounts = !extendedFormat && pointCount <= 0xFFFFFFFFL;
+                    h.putInt(107, legacyCounts ? (int) pointCount : 0);
+                    for (int k = 0; k < 5; k++) {
+                        h.putInt(111 + 4 * k, legacyCounts ? (int) returnCounts[k] : 0);
+                    }
+                    h.putDouble(179, maxX).putDouble(187, minX).putDouble(195, maxY)
+                            .putDouble(203, minY).putDouble(211, maxZ).putDouble(219, minZ);
+                    if (h.capacity() >= 375 && sourceHeader.headerSize >= 375) {
+                        h.putLong(247, pointCount);
+                        for (int k = 0; k < 15; k++) {
+                            h.putLong(255 + 8 * k, returnCounts[k]);
+                        }
+                    }
+                    h.clear().limit(sourceHeader.headerSize);
+                    while (h.hasRemaining()) {
+                        channel.write(h, h.position());
+                    }
+                }
+            } finally {
+                close();
+            }
+            if (coreCount == 0) {
+                Files.deleteIfExists(path);
+                return null;
+            }
+            return new Tile(path, tileX, tileY, pointCount, coreCount);
+        }
+    }
+
+    /**
+     * 读取输入文件的头部与 VLR 作为瓦片头部模板；LAZ 输入清除压缩标志并去掉 LASzip VLR，
+     * 不复制 EVLR（瓦片文件不含波形数据）
+     */
+    private static byte[] tileHeaderTemplate(Path input, LASToJsonUtil.LASHeader header) throws IOException {
+        int size = (int) header.offsetToPointData;
+        ByteBuffer raw = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            while (raw.hasRemaining() && channel.read(raw, raw.position()) > 0) {
+                // 读满头部与 VLR
+            }
+        }
+        raw.flip();
+
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(raw.array(), 0, header.headerSize);
+        int position = header.headerSize;
+        int kept = 0;
+        for (long v = 0; v < header.numberOfVariableLengthRecords && position + VLR_HEADER_BYTES <= size; v++) {
+            String userId = new String(raw.array(), position + 2, 16, StandardCharsets.US_ASCII).trim();
+            int length = VLR_HEADER_BYTES + (raw.getShort(position + 20) & 0xFFFF);
+            if (position + length > size) {
+                break;
+            }
+            if (!(header.compressed && userId.startsWith(LASZIP_USER_ID))) {
+                out.put(raw.array(), position, length);
+                kept++;
+            }
+            position += length;
+        }
+        byte[] template = Arrays.copyOf(out.array(), out.position());
+        ByteBuffer h = ByteBuffer.wrap(template).order(ByteOrder.LITTLE_ENDIAN);
+        h.putInt(96, template.length);
+        h.putInt(100, kept);
+        h.put(104, (byte) header.pointDataRecordFormat);
+        if (header.headerSize >= 375) {
+            // 没有波形数据与 EVLR
+            h.putLong(227, 0).putLong(235, 0).putInt(243, 0);
+        }
+        return template;
+    }
+
+    /**
+     * 生成与 1-lastile_wrapper.py calculate_normalization_params 相同结构的 Three.js 参数文件，
+     * 范围取实际点坐标（脚本取 lasinfo 报告的头部范围，正常文件二者一致）
+     */
+    private static void writeThreejsParams(Path file, LASToJsonUtil.LASHeader header, Router router) throws IOException {
+        double minX = router.minX, minY = router.minY, minZ = router.minZ;
+        double maxX = router.maxX, maxY = router.maxY, maxZ = router.maxZ;
+        if (router.pointCount == 0) {
+            minX = header.minX;
+            minY = header.minY;
+            minZ = header.minZ;
+            maxX = header.maxX;
+            maxY = header.maxY;
+            maxZ = header.maxZ;
+        }
+        double centerX = (minX + maxX) / 2, centerY = (minY + maxY) / 2;
+
+        ObjectNode root = PointJsonWriter.sharedMapper().createObjectNode();
+        ObjectNode bounds = root.putObject("original_bounds");
+        bounds.putObject("min").put("x", minX).put("y", minY).put("z", minZ);
+        bounds.putObject("max").put("x", maxX).put("y", maxY).put("z", maxZ);
+        root.putObject("center").put("x", centerX).put("y", centerY).put("z", CENTER_Z);
+        root.putObject("range").put("x", maxX - minX).put("y", maxY - minY).put("z", maxZ - minZ)
+                .put("max", Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)));
+        root.putObject("scale_factors").put("x", header.xScaleFactor).put("y", header.yScaleFactor)
+                .put("z", header.zScaleFactor);
+        root.putObject("offset").put("x", header.xOffset).put("y", header.yOffset).put("z", header.zOffset);
+        ObjectNode normalization = root.putObject("normalization");
+        normalization.put("scale", 1.0);
+        normalization.putObject("translate").put("x", -centerX).put("y", -centerY).put("z", -CENTER_Z);
+        root.put("point_count", router.pointCount);
+        root.putObject("metadata").put("version", header.versionMajor + "." + header.versionMinor)
+                .put("point_format", String.valueOf(header.pointDataRecordFormat));
+
+        PointJsonWriter.sharedMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+        log.info("归一化参数已保存到: {}", file);
+    }
+}
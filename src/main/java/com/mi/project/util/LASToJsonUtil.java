@@ -1,13 +1,10 @@
 package com.mi.project.util;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -26,10 +23,30 @@ import java.util.*;
 @Component
 public class LASToJsonUtil {
 
+    /** 二进制分页接口的单页点数上限 */
+    public static final int MAX_PAGE_SIZE = 1_000_000;
+
+    /** 按文件和分类缓存的过滤索引条目上限 */
+    private static final int FILTER_INDEX_CACHE_SIZE = 64;
+
+    /** 按访问顺序淘汰，键包含文件大小和修改时间，文件被替换后自动失效 */
+    private final Map<String, FilterIndex> filterIndexCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FilterIndex> eldest) {
+                    return size() > FILTER_INDEX_CACHE_SIZE;
+                }
+            });
+
     // LAS文件头部结构
     static class LASHeader {
         String fileSignature;
+        int versionMajor, versionMinor;
+        int headerSize;
+        long numberOfVariableLengthRecords;
         int pointDataRecordFormat;
+        // LAZ 文件在点格式字节的高位做标记
+        boolean compressed;
         int pointDataRecordLength;
         long numberOfPointRecords;
         double xScaleFactor, yScaleFactor, zScaleFactor;
@@ -39,8 +56,9 @@ public class LASToJsonUtil {
 
         @Override
         public String toString() {
-            return String.format("LAS Header: %d points, format %d, scale(%.6f, %.6f, %.6f)",
-                    numberOfPointRecords, pointDataRecordFormat, xScaleFactor, yScaleFactor, zScaleFactor);
+            return String.format("LAS %d.%d Header: %d points, format %d%s, scale(%.6f, %.6f, %.6f)",
+                    versionMajor, versionMinor, numberOfPointRecords, pointDataRecordFormat, compressed ? " (LAZ)" : "",
+                    xScaleFactor, yScaleFactor, zScaleFactor);
         }
     }
 
@@ -86,6 +104,37 @@ public class LASToJsonUtil {
             centerZ = (minZ + maxZ) / 2;
         }
 
+        public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            centerX = (minX + maxX) / 2;
+            centerY = (minY + maxY) / 2;
+            centerZ = (minZ + maxZ) / 2;
+        }
+
+        public BoundingBox(PointColumns points) {
+            if (points.isEmpty()) return;
+
+            minX = maxX = points.getX(0);
+            minY = maxY = points.getY(0);
+            minZ = maxZ = points.getZ(0);
+
+            for (int i = 1; i < points.size(); i++) {
+                double x = points.getX(i), y = points.getY(i), z = points.getZ(i);
+                if (x < minX) minX = x; else if (x > maxX) maxX = x;
+                if (y < minY) minY = y; else if (y > maxY) maxY = y;
+                if (z < minZ) minZ = z; else if (z > maxZ) maxZ = z;
+            }
+
+            centerX = (minX + maxX) / 2;
+            centerY = (minY + maxY) / 2;
+            centerZ = (minZ + maxZ) / 2;
+        }
+
         @Override
         public String toString() {
             return String.format("Bounds: X[%.2f, %.2f], Y[%.2f, %.2f], Z[%.2f, %.2f]",
@@ -93,13 +142,72 @@ public class LASToJsonUtil {
         }
     }
 
+    // 流式边界累加器，只保存各轴的最小/最大值
+    static class BoundsAccumulator {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        long count;
+
+        /**
+         * 直接使用LAS头部记录的范围和点数，头部范围无效时返回null
+         */
+        static BoundsAccumulator fromHeader(LASHeader header, long pointCount) {
+            if (!(header.minX <= header.maxX && header.minY <= header.maxY && header.minZ <= header.maxZ)) {
+                return null;
+            }
+            BoundsAccumulator accumulator = new BoundsAccumulator();
+            accumulator.minX = header.minX;
+            accumulator.minY = header.minY;
+            accumulator.minZ = header.minZ;
+            accumulator.maxX = header.maxX;
+            accumulator.maxY = header.maxY;
+            accumulator.maxZ = header.maxZ;
+            accumulator.count = pointCount;
+            return accumulator;
+        }
+
+        void add(double x, double y, double z) {
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+            if (z < minZ) minZ = z;
+            if (z > maxZ) maxZ = z;
+            count++;
+        }
+
+        /**
+         * 没有累加任何点时与空点集的BoundingBox一致（全为0）
+         */
+        BoundingBox toBoundingBox() {
+            if (count == 0) {
+                return new BoundingBox(0, 0, 0, 0, 0, 0);
+            }
+            return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+    }
+
+    /**
+     * 过滤后点集的边界和点数，以及每个读取窗口之前累计命中的点数，分页时据此直接定位到起始窗口
+     */
+    static final class FilterIndex {
+        final BoundsAccumulator bounds;
+        /** windowStarts[w] 为第 w 个窗口之前命中的点数，长度为窗口数 + 1；直接取自头部时为 null */
+        final long[] windowStarts;
+
+        FilterIndex(BoundsAccumulator bounds, long[] windowStarts) {
+            this.bounds = bounds;
+            this.windowStarts = windowStarts;
+        }
+    }
+
     /**
      * 采样策略枚举
      */
     public enum SamplingStrategy {
         UNIFORM,     // 均匀采样
         RANDOM,      // 随机采样
-        GRID_BASED,  // 基于网格的采样
+        GRID_BASED,  // 三维体素网格采样（见 VoxelGridSampler）
         INTENSITY    // 基于强度的采样
     }
 
@@ -113,6 +221,8 @@ public class LASToJsonUtil {
         private int pageSize = 10000;               // 分页大小
         private boolean enableCompression = false;   // 是否启用压缩
         private SamplingStrategy samplingStrategy = SamplingStrategy.UNIFORM; // 采样策略
+        private boolean offHeapColumns = false;      // 点云列式缓冲区是否使用堆外内存
+        private VoxelGridSampler.Representative voxelRepresentative = VoxelGridSampler.Representative.MAX_INTENSITY; // 网格采样时每个体素的代表点
 
         // Getters and Setters
         public int getMaxPointsForJSON() { return maxPointsForJSON; }
@@ -133,6 +243,12 @@ public class LASToJsonUtil {
         public SamplingStrategy getSamplingStrategy() { return samplingStrategy; }
         public void setSamplingStrategy(SamplingStrategy samplingStrategy) { this.samplingStrategy = samplingStrategy; }
 
+        public boolean isOffHeapColumns() { return offHeapColumns; }
+        public void setOffHeapColumns(boolean offHeapColumns) { this.offHeapColumns = offHeapColumns; }
+
+        public VoxelGridSampler.Representative getVoxelRepresentative() { return voxelRepresentative; }
+        public void setVoxelRepresentative(VoxelGridSampler.Representative voxelRepresentative) { this.voxelRepresentative = voxelRepresentative; }
+
         public static ProcessingOptions getDefault() {
             return new ProcessingOptions();
         }
@@ -255,29 +371,40 @@ public class LASToJsonUtil {
                     ", 采样=" + options.enableSampling +
                     ", 分页=" + options.enablePagination);
 
-            // 读取LAS文件
-            List<LASPoint> allPoints = readLASPoints(filePath);
-
-            // 过滤点云
-            List<LASPoint> filteredPoints = filterPointsByClassification(allPoints, classificationValues);
+            ClassificationMask classMask = ClassificationMask.of(classificationValues);
+            StreamingSampler sampler = null;
+            PointColumns filteredPoints;
+            int totalPointCount;
+            if (options.enableSampling && options.maxPointsForJSON > 0
+                    && StreamingSampler.supports(options.samplingStrategy)) {
+                // 随机/强度/均匀采样挂在解码循环上单遍完成，内存只保留 maxPointsForJSON 个点
+                try (LASFileReader reader = new LASFileReader(Paths.get(filePath))) {
+                    sampler = readLASSample(reader, classMask, options);
+                    totalPointCount = (int) Math.min(Integer.MAX_VALUE, reader.getPointCount());
+                }
+                filteredPoints = sampler.isSampled() ? null : sampler.sample;
+            } else {
+                // 读取LAS文件，分类过滤下推到解码循环，只完整解码目标分类的点
+                LASParallelDecoder.DecodeResult decoded = readLASColumns(filePath, classMask, options.offHeapColumns);
+                filteredPoints = decoded.points;
+                totalPointCount = (int) Math.min(Integer.MAX_VALUE, printFilterResult(decoded, classificationValues));
+            }
+            long matchedCount = sampler != null ? sampler.getSeen() : filteredPoints.size();
 
-            if (filteredPoints.isEmpty()) {
+            if (matchedCount == 0) {
                 return createErrorResult("未找到指定分类的点", startTime);
             }
 
             // 统计分类信息
-            Map<Integer, Integer> classStats = new HashMap<>();
-            for (LASPoint point : filteredPoints) {
-                classStats.merge(point.classification, 1, Integer::sum);
-            }
+            Map<Integer, Integer> classStats = sampler != null ? sampler.classificationStats() : filteredPoints.classificationStats();
 
             String originalFileName = Paths.get(filePath).getFileName().toString();
 
             // 决定处理策略
-            boolean needsSampling = filteredPoints.size() > options.maxPointsForJSON && options.enableSampling;
-            boolean needsPagination = filteredPoints.size() > options.maxPointsForJSON && options.enablePagination && !needsSampling;
+            boolean needsSampling = matchedCount > options.maxPointsForJSON && options.enableSampling;
+            boolean needsPagination = matchedCount > options.maxPointsForJSON && options.enablePagination && !needsSampling;
 
-            List<LASPoint> jsonPoints = filteredPoints;
+            PointColumns jsonPoints = filteredPoints;
             boolean isSampled = false;
             boolean isPaginated = false;
             int totalPages = 1;
@@ -287,14 +414,18 @@ public class LASToJsonUtil {
             if (needsSampling) {
                 // 采样处理
                 System.out.println("数据量过大，启用采样处理...");
-                jsonPoints = samplePoints(filteredPoints, options.maxPointsForJSON, options.samplingStrategy);
+                jsonPoints = sampler != null ? sampler.result() : samplePoints(filteredPoints, options);
                 isSampled = true;
                 jsonData = generateJSONString(jsonPoints, normalizeCoords, originalFileName);
 
-                // 保存完整数据到文件，采样数据返回JSON
+                // 保存完整数据到文件，采样数据返回JSON；流式采样时完整数据不在内存中，再读一遍源文件写出
                 if (outputPath != null) {
                     String fullDataPath = determineOutputPath(outputPath, originalFileName);
-                    saveJSONToFile(generateJSONString(filteredPoints, normalizeCoords, originalFileName), fullDataPath);
+                    if (filteredPoints != null) {
+                        writeJSONToFile(filteredPoints, normalizeCoords, originalFileName, fullDataPath);
+                    } else {
+                        streamJSONToFile(filePath, normalizeCoords, classificationValues, fullDataPath);
+                    }
                     pageFiles.add(fullDataPath);
                 }
 
@@ -312,7 +443,7 @@ public class LASToJsonUtil {
 
                 // 返回第一页数据作为JSON
                 int firstPageSize = Math.min(options.pageSize, filteredPoints.size());
-                jsonPoints = filteredPoints.subList(0, firstPageSize);
+                jsonPoints = filteredPoints.range(0, firstPageSize);
                 jsonData = generateJSONString(jsonPoints, normalizeCoords, originalFileName);
 
             } else {
@@ -330,7 +461,7 @@ public class LASToJsonUtil {
             System.out.printf("LAS分析完成! 总耗时: %.2f 秒\n", processingTime / 1000.0);
 
             return new LASAnalysisResult(true, pageFiles.isEmpty() ? null : pageFiles.get(0), null,
-                    processingTime, allPoints.size(), filteredPoints.size(), jsonPoints.size(),
+                    processingTime, totalPointCount, (int) Math.min(Integer.MAX_VALUE, matchedCount), jsonPoints.size(),
                     classStats, jsonData, isSampled, isPaginated, totalPages, pageFiles);
 
         } catch (Exception e) {
@@ -414,80 +545,213 @@ public class LASToJsonUtil {
      * @param jsonBatchConsumer 每批JSON片段的消费函数（如WebSocket推送）
      */
     public void lasAnalysisStream(String filePath, int batchSize, boolean normalizeCoords, int[] classificationValues, java.util.function.Consumer<String> jsonBatchConsumer) throws IOException {
-        // 读取LAS文件全部字节
+        // 过滤分类
+        final ClassificationMask classMask = ClassificationMask.of(classificationValues);
+
         Path path = Paths.get(filePath);
-        byte[] fileBytes = Files.readAllBytes(path);
-        ByteBuffer buffer = ByteBuffer.wrap(fileBytes);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try (LASFileReader reader = new LASFileReader(path)) {
+            // 归一化需要边界：无分类过滤时直接使用头部范围，否则额外扫描一遍只累加min/max（结果按文件缓存）
+            BoundingBox bounds = normalizeCoords ? scanBounds(path, reader, classMask) : null;
+
+            final BoundingBox batchBounds = bounds;
+            List<LASPoint> batch = new ArrayList<>(batchSize);
+            reader.forEachPoint(classMask, (x, y, z, intensity, classification) -> {
+                batch.add(new LASPoint(x, y, z, intensity, classification));
+                if (batch.size() == batchSize) {
+                    jsonBatchConsumer.accept(generateBatchJSONUnchecked(batch, normalizeCoords, batchBounds));
+                    batch.clear();
+                }
+            });
+            // 处理最后一批
+            if (!batch.isEmpty()) {
+                jsonBatchConsumer.accept(generateBatchJSON(batch, normalizeCoords, batchBounds));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-        // 读取头部
-        LASHeader header = readLASHeader(buffer);
-        long totalPoints = header.numberOfPointRecords;
-        buffer.position((int) header.offsetToPointData);
+    /**
+     * 将LAS文件中指定分类的点以完整JSON文档（metadata + points）直接流式写入输出流，
+     * 适用于HTTP响应等场景，边读边写，内存占用与点数无关
+     * @param filePath LAS文件路径
+     * @param normalizeCoords 是否归一化坐标
+     * @param classificationValues 需要的分类（可为null，默认全部）
+     * @param out 输出流（不会被关闭）
+     * @return 写出的点数
+     */
+    public long lasAnalysisStreamToOutput(String filePath, boolean normalizeCoords, int[] classificationValues, OutputStream out) throws IOException {
+        final ClassificationMask classMask = ClassificationMask.of(classificationValues);
+        Path path = Paths.get(filePath);
+        try (LASFileReader reader = new LASFileReader(path);
+             JsonGenerator g = PointJsonWriter.createGenerator(out)) {
+            // metadata在points之前，需要先得到边界和点数（无过滤时取头部，不扫描；过滤后的结果按文件缓存）
+            BoundsAccumulator accumulator = collectBounds(path, reader, classMask);
+            BoundingBox bounds = accumulator.toBoundingBox();
+            double cx = normalizeCoords ? bounds.centerX : 0;
+            double cy = normalizeCoords ? bounds.centerY : 0;
+            double cz = normalizeCoords ? bounds.centerZ : 0;
+
+            g.writeStartObject();
+            PointJsonWriter.writeMetadata(g, accumulator.count, Paths.get(filePath).getFileName().toString(), bounds);
+            g.writeArrayFieldStart("points");
+            long[] written = {0};
+            forEachMatchingPoint(reader, classMask, (x, y, z, intensity, classification) -> {
+                PointJsonWriter.writePoint(g, x - cx, y - cy, z - cz, classification, intensity);
+                written[0]++;
+            });
+            g.writeEndArray();
+            g.writeEndObject();
+            g.flush();
+            return written[0];
+        }
+    }
 
-        // 过滤分类
-        Set<Integer> classSet = null;
-        if (classificationValues != null && classificationValues.length > 0) {
-            classSet = new HashSet<>();
-            for (int c : classificationValues) classSet.add(c);
+    /**
+     * 将LAS文件中指定分类的点编码为单个二进制帧（格式见 PointBinaryWriter）直接写入输出流。
+     * 点数据只解码一遍：坐标列直接写出，强度、分类列暂存到临时文件后依次追加，内存占用与点数无关
+     * @param filePath LAS文件路径
+     * @param encoding 坐标编码方式
+     * @param classificationValues 需要的分类（可为null，默认全部）
+     * @param out 输出流（不会被关闭）
+     * @return 写出的点数
+     */
+    public long lasBinaryStreamToOutput(String filePath, PointBinaryWriter.PositionEncoding encoding,
+                                        int[] classificationValues, OutputStream out) throws IOException {
+        final ClassificationMask classMask = ClassificationMask.of(classificationValues);
+        Path path = Paths.get(filePath);
+        try (LASFileReader reader = new LASFileReader(path);
+             PointBinaryWriter.ColumnSpill intensities = new PointBinaryWriter.ColumnSpill();
+             PointBinaryWriter.ColumnSpill classifications = new PointBinaryWriter.ColumnSpill()) {
+            // 帧头需要点数和边界：无过滤时取头部，过滤后的结果按文件缓存
+            BoundsAccumulator accumulator = collectBounds(path, reader, classMask);
+            LASHeader header = reader.getHeader();
+            PointBinaryWriter.Frame frame = PointBinaryWriter.Frame.of(encoding, PointBinaryWriter.ATTR_ALL,
+                    accumulator.count, accumulator.toBoundingBox(),
+                    header.xScaleFactor, header.yScaleFactor, header.zScaleFactor);
+
+            PointBinaryWriter.FrameOutput output = new PointBinaryWriter.FrameOutput(out, frame);
+            output.writeHeader();
+            forEachMatchingPoint(reader, classMask, (x, y, z, intensity, classification) -> {
+                output.position(x, y, z);
+                intensities.putShort(intensity);
+                classifications.put(classification);
+            });
+            output.append(intensities);
+            output.append(classifications);
+            output.flush();
+            return accumulator.count;
         }
+    }
 
-        List<LASPoint> batch = new ArrayList<>(batchSize);
-        int batchIndex = 0;
-        int sentPoints = 0;
-        BoundingBox bounds = null;
-        List<LASPoint> allForBounds = new ArrayList<>();
-
-        // 先遍历一遍获取边界（可选：如需精确归一化）
-        if (normalizeCoords) {
-            int pos = buffer.position();
-            for (long i = 0; i < totalPoints; i++) {
-                int rawX = buffer.getInt();
-                int rawY = buffer.getInt();
-                int rawZ = buffer.getInt();
-                double x = rawX * header.xScaleFactor + header.xOffset;
-                double y = rawY * header.yScaleFactor + header.yOffset;
-                double z = rawZ * header.zScaleFactor + header.zOffset;
-                int intensity = buffer.getShort() & 0xFFFF;
-                buffer.get(); // flags
-                int classification = buffer.get() & 0xFF;
-                int skipBytes = header.pointDataRecordLength - 20;
-                if (skipBytes > 0) buffer.position(buffer.position() + skipBytes);
-                if (classSet == null || classSet.contains(classification)) {
-                    allForBounds.add(new LASPoint(x, y, z, intensity, classification));
+    /**
+     * 按页输出二进制帧，第 page 页为过滤后第 page*pageSize 个点起的 pageSize 个点。
+     * 所有页共用整个文件（过滤后）的中心点和量化参数，前端可直接拼接
+     * @param pageSize 每页点数，1 到 {@link #MAX_PAGE_SIZE}
+     * @return 本页点数
+     */
+    public int lasBinaryPageToOutput(String filePath, int page, int pageSize, PointBinaryWriter.PositionEncoding encoding,
+                                     int[] classificationValues, OutputStream out) throws IOException {
+        if (page < 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("无效的分页参数: page=" + page + ", pageSize=" + pageSize);
+        }
+        final ClassificationMask classMask = ClassificationMask.of(classificationValues);
+        Path path = Paths.get(filePath);
+        try (LASFileReader reader = new LASFileReader(path)) {
+            FilterIndex index = filterIndex(path, reader, classMask);
+            BoundingBox globalBounds = index.bounds.toBoundingBox();
+            LASHeader header = reader.getHeader();
+            // 过滤后的点数
+            long total = index.bounds.count;
+            long skip = (long) page * pageSize;
+
+            // 按本页实际可能的点数分配，末页和越界页不会按 pageSize 预留
+            int capacity = (int) Math.max(0, Math.min(pageSize, total - skip));
+            PointColumns pagePoints = new PointColumns(capacity,
+                    header.xScaleFactor, header.yScaleFactor, header.zScaleFactor,
+                    header.xOffset, header.yOffset, header.zOffset, false);
+            if (classMask == null) {
+                // 无过滤时记录下标即点序号，直接定位
+                reader.forEachPoint(Math.min(skip, total), Math.min(skip + pageSize, total), pagePoints::add);
+            } else if (skip < total) {
+                // 从包含第 skip 个命中点的窗口开始解码，之前的窗口不再读取
+                long[] windowStarts = index.windowStarts;
+                int w = 0;
+                while (w + 2 < windowStarts.length && windowStarts[w + 1] <= skip) {
+                    w++;
+                }
+                long[] matched = {windowStarts[w]};
+                int window = reader.getRecordsPerWindow();
+                long records = reader.getPointCount();
+                for (long first = (long) w * window; first < records && pagePoints.size() < pageSize; first += window) {
+                    reader.forEachPoint(first, Math.min(first + window, records), classMask, (x, y, z, intensity, classification) -> {
+                        if (pagePoints.size() == pageSize) return;
+                        if (matched[0]++ >= skip) {
+                            pagePoints.add(x, y, z, intensity, classification);
+                        }
+                    });
                 }
             }
-            bounds = new BoundingBox(allForBounds);
-            buffer.position(pos); // 重置回点数据起始
+            PointBinaryWriter.write(out, pagePoints, encoding, globalBounds, PointBinaryWriter.ATTR_ALL);
+            return pagePoints.size();
         }
+    }
 
-        for (long i = 0; i < totalPoints; i++) {
-            int rawX = buffer.getInt();
-            int rawY = buffer.getInt();
-            int rawZ = buffer.getInt();
-            double x = rawX * header.xScaleFactor + header.xOffset;
-            double y = rawY * header.yScaleFactor + header.yOffset;
-            double z = rawZ * header.zScaleFactor + header.zOffset;
-            int intensity = buffer.getShort() & 0xFFFF;
-            buffer.get(); // flags
-            int classification = buffer.get() & 0xFF;
-            int skipBytes = header.pointDataRecordLength - 20;
-            if (skipBytes > 0) buffer.position(buffer.position() + skipBytes);
-            if (classSet != null && !classSet.contains(classification)) continue;
-            LASPoint point = new LASPoint(x, y, z, intensity, classification);
-            batch.add(point);
-            sentPoints++;
-            if (batch.size() == batchSize) {
-                String json = generateBatchJSON(batch, normalizeCoords, bounds);
-                jsonBatchConsumer.accept(json);
-                batch.clear();
-                batchIndex++;
+    /**
+     * 分批读取LAS文件，每批编码为一个二进制帧交给消费函数（如WebSocket BinaryMessage推送），
+     * 所有批次使用全局中心点和量化参数
+     * @param filePath LAS文件路径
+     * @param batchSize 每批点数
+     * @param encoding 坐标编码方式
+     * @param classificationValues 需要的分类（可为null，默认全部）
+     * @param frameConsumer 每批二进制帧的消费函数
+     */
+    public void lasAnalysisBinaryStream(String filePath, int batchSize, PointBinaryWriter.PositionEncoding encoding,
+                                        int[] classificationValues, java.util.function.Consumer<byte[]> frameConsumer) throws IOException {
+        final ClassificationMask classMask = ClassificationMask.of(classificationValues);
+        Path path = Paths.get(filePath);
+        try (LASFileReader reader = new LASFileReader(path)) {
+            BoundingBox globalBounds = scanBounds(path, reader, classMask);
+            LASHeader header = reader.getHeader();
+            PointColumns batch = new PointColumns(batchSize,
+                    header.xScaleFactor, header.yScaleFactor, header.zScaleFactor,
+                    header.xOffset, header.yOffset, header.zOffset, false);
+            forEachMatchingPoint(reader, classMask, (x, y, z, intensity, classification) -> {
+                batch.add(x, y, z, intensity, classification);
+                if (batch.size() == batchSize) {
+                    frameConsumer.accept(PointBinaryWriter.encode(batch, encoding, globalBounds));
+                    batch.clear();
+                }
+            });
+            // 处理最后一批
+            if (!batch.isEmpty()) {
+                frameConsumer.accept(PointBinaryWriter.encode(batch, encoding, globalBounds));
             }
         }
-        // 处理最后一批
-        if (!batch.isEmpty()) {
-            String json = generateBatchJSON(batch, normalizeCoords, bounds);
-            jsonBatchConsumer.accept(json);
+    }
+
+    /**
+     * 可抛出IOException的逐点写出回调
+     */
+    @FunctionalInterface
+    private interface PointSink {
+        void accept(double x, double y, double z, int intensity, int classification) throws IOException;
+    }
+
+    /**
+     * 按文件顺序遍历分类匹配的点（classMask为null时为全部点）
+     */
+    private static void forEachMatchingPoint(LASFileReader reader, ClassificationMask classMask, PointSink sink) throws IOException {
+        try {
+            reader.forEachPoint(classMask, (x, y, z, intensity, classification) -> {
+                try {
+                    sink.accept(x, y, z, intensity, classification);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
@@ -528,7 +792,7 @@ public class LASToJsonUtil {
      * @throws IOException
      */
     public List<String> lasAnalysisStreamToFilesGlobalNormalized(String filePath, String outputDir, int batchSize, int[] classificationValues) throws IOException {
-        // 1. 先统计全局min/max/center
+        // 1. 先统计全局min/max/center（无分类过滤时直接取头部范围，不扫描点数据）
         BoundingBox globalBounds = calcGlobalBounds(filePath, classificationValues);
         List<String> batchFiles = new ArrayList<>();
         java.io.File outDir = new java.io.File(outputDir);
@@ -550,28 +814,35 @@ public class LASToJsonUtil {
      * 生成单批次JSON（只包含points数组，不含metadata）
      */
     private static String generateBatchJSON(List<LASPoint> points, boolean normalizeCoords, BoundingBox bounds) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode root = mapper.createObjectNode();
-        ArrayNode pointsArray = mapper.createArrayNode();
-        for (LASPoint point : points) {
-            ObjectNode pointNode = mapper.createObjectNode();
-            ArrayNode position = mapper.createArrayNode();
-            if (normalizeCoords && bounds != null) {
-                position.add(point.x - bounds.centerX);
-                position.add(point.y - bounds.centerY);
-                position.add(point.z - bounds.centerZ);
-            } else {
-                position.add(point.x);
-                position.add(point.y);
-                position.add(point.z);
+        double cx = 0, cy = 0, cz = 0;
+        if (normalizeCoords && bounds != null) {
+            cx = bounds.centerX;
+            cy = bounds.centerY;
+            cz = bounds.centerZ;
+        }
+        StringWriter writer = new StringWriter(points.size() * 80);
+        try (JsonGenerator g = PointJsonWriter.createGenerator(writer)) {
+            g.writeStartObject();
+            g.writeArrayFieldStart("points");
+            for (LASPoint point : points) {
+                PointJsonWriter.writePoint(g, point.x - cx, point.y - cy, point.z - cz,
+                        point.classification, point.intensity);
             }
-            pointNode.set("position", position);
-            pointNode.put("classification", point.classification);
-            pointNode.put("intensity", point.intensity);
-            pointsArray.add(pointNode);
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    /**
+     * 供逐点回调内部使用，将受检异常包装为 UncheckedIOException
+     */
+    private static String generateBatchJSONUnchecked(List<LASPoint> points, boolean normalizeCoords, BoundingBox bounds) {
+        try {
+            return generateBatchJSON(points, normalizeCoords, bounds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        root.set("points", pointsArray);
-        return mapper.writeValueAsString(root);
     }
 
     /**
@@ -582,130 +853,114 @@ public class LASToJsonUtil {
      * @return metadata部分的JSON字符串
      */
     public String lasMetadataJson(String filePath, int[] classificationValues, boolean normalizeCoords) throws IOException {
+        BoundsAccumulator accumulator;
         Path path = Paths.get(filePath);
-        byte[] fileBytes = Files.readAllBytes(path);
-        ByteBuffer buffer = ByteBuffer.wrap(fileBytes);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        LASHeader header = readLASHeader(buffer);
-        long totalPoints = header.numberOfPointRecords;
-        buffer.position((int) header.offsetToPointData);
-        Set<Integer> classSet = null;
-        if (classificationValues != null && classificationValues.length > 0) {
-            classSet = new HashSet<>();
-            for (int c : classificationValues) classSet.add(c);
+        try (LASFileReader reader = new LASFileReader(path)) {
+            accumulator = collectBounds(path, reader, ClassificationMask.of(classificationValues));
         }
-        List<LASPoint> allForBounds = new ArrayList<>();
-        for (long i = 0; i < totalPoints; i++) {
-            int rawX = buffer.getInt();
-            int rawY = buffer.getInt();
-            int rawZ = buffer.getInt();
-            double x = rawX * header.xScaleFactor + header.xOffset;
-            double y = rawY * header.yScaleFactor + header.yOffset;
-            double z = rawZ * header.zScaleFactor + header.zOffset;
-            int intensity = buffer.getShort() & 0xFFFF;
-            buffer.get(); // flags
-            int classification = buffer.get() & 0xFF;
-            int skipBytes = header.pointDataRecordLength - 20;
-            if (skipBytes > 0) buffer.position(buffer.position() + skipBytes);
-            if (classSet == null || classSet.contains(classification)) {
-                allForBounds.add(new LASPoint(x, y, z, intensity, classification));
-            }
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator g = PointJsonWriter.createGenerator(writer)) {
+            g.writeStartObject();
+            PointJsonWriter.writeMetadata(g, accumulator.count,
+                    Paths.get(filePath).getFileName().toString(), accumulator.toBoundingBox());
+            g.writeEndObject();
         }
-        BoundingBox bounds = new BoundingBox(allForBounds);
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode metadata = mapper.createObjectNode();
-        metadata.put("version", 1.0);
-        metadata.put("type", "pointcloud");
-        metadata.put("generator", "MI Project LAS Extractor v2.0");
-        metadata.put("count", allForBounds.size());
-        metadata.put("original_file", Paths.get(filePath).getFileName().toString());
-        metadata.put("timestamp", System.currentTimeMillis());
-        ObjectNode boundsNode = mapper.createObjectNode();
-        ArrayNode minArray = mapper.createArrayNode();
-        minArray.add(bounds.minX).add(bounds.minY).add(bounds.minZ);
-        ArrayNode maxArray = mapper.createArrayNode();
-        maxArray.add(bounds.maxX).add(bounds.maxY).add(bounds.maxZ);
-        ArrayNode centerArray = mapper.createArrayNode();
-        centerArray.add(bounds.centerX).add(bounds.centerY).add(bounds.centerZ);
-        boundsNode.set("min", minArray);
-        boundsNode.set("max", maxArray);
-        boundsNode.set("center", centerArray);
-        metadata.set("bounds", boundsNode);
-        ObjectNode root = mapper.createObjectNode();
-        root.set("metadata", metadata);
-        return mapper.writeValueAsString(root);
+        return writer.toString();
     }
 
     /**
-     * 先遍历一遍LAS文件，统计全局min/max/center
+     * 统计LAS文件各分类的点数，只按记录步长读取分类字节，不解码坐标
+     * @param filePath LAS文件路径
+     * @return 分类值 → 点数（只包含点数大于0的分类）
+     */
+    public Map<Integer, Long> classificationHistogram(String filePath) throws IOException {
+        long[] counts;
+        try (LASFileReader reader = new LASFileReader(Paths.get(filePath))) {
+            counts = reader.countClassifications();
+        }
+        Map<Integer, Long> histogram = new TreeMap<>();
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) histogram.put(c, counts[c]);
+        }
+        return histogram;
+    }
+
+    /**
+     * 统计全局min/max/center（无分类过滤时使用头部范围，否则扫描一遍）
      */
     private BoundingBox calcGlobalBounds(String filePath, int[] classificationValues) throws IOException {
         Path path = Paths.get(filePath);
-        byte[] fileBytes = Files.readAllBytes(path);
-        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(fileBytes);
-        buffer.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-        LASHeader header = readLASHeader(buffer);
-        buffer.position((int) header.offsetToPointData);
-        List<LASPoint> allPoints = new ArrayList<>();
-        java.util.Set<Integer> classSet = null;
-        if (classificationValues != null && classificationValues.length > 0) {
-            classSet = new java.util.HashSet<>();
-            for (int c : classificationValues) classSet.add(c);
+        try (LASFileReader reader = new LASFileReader(path)) {
+            return scanBounds(path, reader, ClassificationMask.of(classificationValues));
         }
-        for (long i = 0; i < header.numberOfPointRecords; i++) {
-            int rawX = buffer.getInt();
-            int rawY = buffer.getInt();
-            int rawZ = buffer.getInt();
-            double x = rawX * header.xScaleFactor + header.xOffset;
-            double y = rawY * header.yScaleFactor + header.yOffset;
-            double z = rawZ * header.zScaleFactor + header.zOffset;
-            int intensity = buffer.getShort() & 0xFFFF;
-            buffer.get(); // flags
-            int classification = buffer.get() & 0xFF;
-            int skipBytes = header.pointDataRecordLength - 20;
-            if (skipBytes > 0) buffer.position(buffer.position() + skipBytes);
-            if (classSet == null || classSet.contains(classification)) {
-                allPoints.add(new LASPoint(x, y, z, intensity, classification));
+    }
+
+    /**
+     * 计算指定分类点的边界：无分类过滤且头部范围有效时直接返回头部范围，不扫描点数据；
+     * 否则扫描一遍，只累加min/max，不创建点对象，结果按文件和分类缓存
+     */
+    private BoundingBox scanBounds(Path path, LASFileReader reader, ClassificationMask classMask) throws IOException {
+        return collectBounds(path, reader, classMask).toBoundingBox();
+    }
+
+    /**
+     * 同 scanBounds，同时给出匹配的点数
+     */
+    private BoundsAccumulator collectBounds(Path path, LASFileReader reader, ClassificationMask classMask) throws IOException {
+        return filterIndex(path, reader, classMask).bounds;
+    }
+
+    private FilterIndex filterIndex(Path path, LASFileReader reader, ClassificationMask classMask) throws IOException {
+        if (classMask == null && reader.getPointCount() > 0) {
+            BoundsAccumulator fromHeader = BoundsAccumulator.fromHeader(reader.getHeader(), reader.getPointCount());
+            if (fromHeader != null) {
+                return new FilterIndex(fromHeader, null);
             }
         }
-        return new BoundingBox(allPoints);
+        String key = path.toAbsolutePath().normalize() + "|" + Files.size(path) + "|"
+                + Files.getLastModifiedTime(path).toMillis() + "|" + classMask;
+        FilterIndex cached = filterIndexCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        FilterIndex index = accumulateBounds(reader, classMask);
+        filterIndexCache.put(key, index);
+        return index;
+    }
+
+    /**
+     * 逐窗口扫描一遍，只累加min/max，同时记录每个窗口之前的命中点数
+     */
+    private static FilterIndex accumulateBounds(LASFileReader reader, ClassificationMask classMask) throws IOException {
+        BoundsAccumulator accumulator = new BoundsAccumulator();
+        long records = reader.getPointCount();
+        int window = reader.getRecordsPerWindow();
+        long[] windowStarts = new long[(int) ((records + window - 1) / window) + 1];
+        for (int w = 0; w + 1 < windowStarts.length; w++) {
+            long first = (long) w * window;
+            reader.forEachPoint(first, Math.min(first + window, records), classMask,
+                    (x, y, z, intensity, classification) -> accumulator.add(x, y, z));
+            windowStarts[w + 1] = accumulator.count;
+        }
+        return new FilterIndex(accumulator, windowStarts);
     }
 
     /**
      * 分批读取LAS文件，每批都用全局center归一化，生成JSON字符串
      */
     private void lasAnalysisStreamWithGlobalCenter(String filePath, int batchSize, BoundingBox globalBounds, int[] classificationValues, java.util.function.Consumer<String> jsonBatchConsumer) throws IOException {
-        Path path = Paths.get(filePath);
-        byte[] fileBytes = Files.readAllBytes(path);
-        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(fileBytes);
-        buffer.order(java.nio.ByteOrder.LITTLE_ENDIAN);
-        LASHeader header = readLASHeader(buffer);
-        buffer.position((int) header.offsetToPointData);
-        java.util.Set<Integer> classSet = null;
-        if (classificationValues != null && classificationValues.length > 0) {
-            classSet = new java.util.HashSet<>();
-            for (int c : classificationValues) classSet.add(c);
-        }
+        final ClassificationMask classMask = ClassificationMask.of(classificationValues);
         List<LASPoint> batch = new ArrayList<>(batchSize);
-        for (long i = 0; i < header.numberOfPointRecords; i++) {
-            int rawX = buffer.getInt();
-            int rawY = buffer.getInt();
-            int rawZ = buffer.getInt();
-            double x = rawX * header.xScaleFactor + header.xOffset;
-            double y = rawY * header.yScaleFactor + header.yOffset;
-            double z = rawZ * header.zScaleFactor + header.zOffset;
-            int intensity = buffer.getShort() & 0xFFFF;
-            buffer.get(); // flags
-            int classification = buffer.get() & 0xFF;
-            int skipBytes = header.pointDataRecordLength - 20;
-            if (skipBytes > 0) buffer.position(buffer.position() + skipBytes);
-            if (classSet != null && !classSet.contains(classification)) continue;
-            batch.add(new LASPoint(x, y, z, intensity, classification));
-            if (batch.size() == batchSize) {
-                String json = generateBatchJSONWithGlobalCenter(batch, globalBounds);
-                jsonBatchConsumer.accept(json);
-                batch.clear();
-            }
+        try (LASFileReader reader = new LASFileReader(Paths.get(filePath))) {
+            reader.forEachPoint(classMask, (x, y, z, intensity, classification) -> {
+                batch.add(new LASPoint(x, y, z, intensity, classification));
+                if (batch.size() == batchSize) {
+                    jsonBatchConsumer.accept(generateBatchJSONWithGlobalCenterUnchecked(batch, globalBounds));
+                    batch.clear();
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
         if (!batch.isEmpty()) {
             String json = generateBatchJSONWithGlobalCenter(batch, globalBounds);
@@ -717,23 +972,16 @@ public class LASToJsonUtil {
      * 生成单批次JSON，所有点用全局center归一化
      */
     private static String generateBatchJSONWithGlobalCenter(List<LASPoint> points, BoundingBox globalBounds) throws IOException {
-        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-        com.fasterxml.jackson.databind.node.ObjectNode root = mapper.createObjectNode();
-        com.fasterxml.jackson.databind.node.ArrayNode pointsArray = mapper.createArrayNode();
-        for (LASPoint point : points) {
-            com.fasterxml.jackson.databind.node.ObjectNode pointNode = mapper.createObjectNode();
-            com.fasterxml.jackson.databind.node.ArrayNode position = mapper.createArrayNode();
-            position.add(point.x - globalBounds.centerX);
-            position.add(point.y - globalBounds.centerY);
-            position.add(point.z - globalBounds.centerZ);
-            pointNode.set("position", position);
-            pointNode.put("classification", point.classification);
-            pointNode.put("intensity", point.intensity);
-            pointsArray.add(pointNode);
-        }
-        root.set("points", pointsArray);
         // 只保留points数组，metadata可按需扩展
-        return mapper.writeValueAsString(root);
+        return generateBatchJSON(points, true, globalBounds);
+    }
+
+    private static String generateBatchJSONWithGlobalCenterUnchecked(List<LASPoint> points, BoundingBox globalBounds) {
+        try {
+            return generateBatchJSONWithGlobalCenter(points, globalBounds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     // ================================ 私有方法 ================================
@@ -741,7 +989,7 @@ public class LASToJsonUtil {
     /**
      * 读取LAS文件头部信息
      */
-    private static LASHeader readLASHeader(ByteBuffer buffer) throws IOException {
+    static LASHeader readLASHeader(ByteBuffer buffer) throws IOException {
         LASHeader header = new LASHeader();
 
         // 读取文件签名 (4 bytes)
@@ -753,17 +1001,34 @@ public class LASToJsonUtil {
             throw new IOException("Invalid LAS file signature: " + header.fileSignature);
         }
 
+        buffer.position(24); // 跳到 version
+        header.versionMajor = buffer.get() & 0xFF;
+        header.versionMinor = buffer.get() & 0xFF;
+
         // 跳过一些字段到关键信息
-        buffer.position(96); // 跳到 offset to point data
+        buffer.position(94); // 跳到 header size
+        header.headerSize = buffer.getShort() & 0xFFFF;
         header.offsetToPointData = Integer.toUnsignedLong(buffer.getInt());
+        header.numberOfVariableLengthRecords = Integer.toUnsignedLong(buffer.getInt());
 
         buffer.position(104); // 跳到 point data record format
-        header.pointDataRecordFormat = buffer.get() & 0xFF;
+        int rawFormat = buffer.get() & 0xFF;
+        header.compressed = (rawFormat & 0x80) != 0;
+        header.pointDataRecordFormat = rawFormat & 0x3F;
         header.pointDataRecordLength = buffer.getShort() & 0xFFFF;
 
         buffer.position(107); // 跳到 number of point records
         header.numberOfPointRecords = Integer.toUnsignedLong(buffer.getInt());
 
+        // LAS 1.4 在 247 处有 64 位点数，超过 42 亿点或 PDRF 6–10 时旧字段为 0
+        if (header.versionMajor == 1 && header.versionMinor >= 4
+                && header.headerSize >= 375 && buffer.limit() >= 255) {
+            long extendedCount = buffer.getLong(247);
+            if (extendedCount > 0) {
+                header.numberOfPointRecords = extendedCount;
+            }
+        }
+
         // 读取缩放因子和偏移量
         buffer.position(131);
         header.xScaleFactor = buffer.getDouble();
@@ -785,102 +1050,114 @@ public class LASToJsonUtil {
     }
 
     /**
-     * 读取LAS文件中的点云数据
+     * 读取LAS文件中指定分类的点到列式缓冲区（ForkJoin并行解码，未命中分类的记录只读取分类字节）
      */
-    private static List<LASPoint> readLASPoints(String filePath) throws IOException {
+    private static LASParallelDecoder.DecodeResult readLASColumns(String filePath, ClassificationMask classMask,
+                                                                  boolean offHeap) throws IOException {
         System.out.println("开始读取LAS文件: " + filePath);
         long startTime = System.currentTimeMillis();
 
-        Path path = Paths.get(filePath);
-        byte[] fileBytes = Files.readAllBytes(path);
-        ByteBuffer buffer = ByteBuffer.wrap(fileBytes);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        // 读取头部
-        LASHeader header = readLASHeader(buffer);
-        System.out.println("LAS文件信息: " + header);
+        LASParallelDecoder.DecodeResult decoded;
+        try (LASFileReader reader = new LASFileReader(Paths.get(filePath))) {
+            LASHeader header = reader.getHeader();
+            System.out.println("LAS文件信息: " + header);
 
-        // 移动到点数据开始位置
-        buffer.position((int) header.offsetToPointData);
-
-        List<LASPoint> points = new ArrayList<>();
-
-        // 根据点数据格式读取点
-        for (long i = 0; i < header.numberOfPointRecords; i++) {
-            // 读取XYZ坐标 (每个4字节整数)
-            int rawX = buffer.getInt();
-            int rawY = buffer.getInt();
-            int rawZ = buffer.getInt();
-
-            // 转换为实际坐标
-            double x = rawX * header.xScaleFactor + header.xOffset;
-            double y = rawY * header.yScaleFactor + header.yOffset;
-            double z = rawZ * header.zScaleFactor + header.zOffset;
-
-            // 读取强度 (2字节)
-            int intensity = buffer.getShort() & 0xFFFF;
-
-            // 读取分类等信息 (1字节)
-            byte flags = buffer.get();
-
-            // 读取分类 (1字节)
-            int classification = buffer.get() & 0xFF;
-
-            // 跳过其他字段，根据格式不同跳过不同字节数
-            int skipBytes = header.pointDataRecordLength - 20; // 已读取20字节
-            if (skipBytes > 0) {
-                buffer.position(buffer.position() + skipBytes);
-            }
-
-            points.add(new LASPoint(x, y, z, intensity, classification));
-
-            // 进度显示
-            if (i % 100000 == 0 && i > 0) {
-                System.out.printf("已读取 %d / %d 点 (%.1f%%)\n",
-                        i, header.numberOfPointRecords, (double) i / header.numberOfPointRecords * 100);
+            // 记录定长，按块并行解码，结果保持文件顺序
+            decoded = LASParallelDecoder.decode(reader, classMask, offHeap);
+            if (decoded.bounds != null) {
+                System.out.println("点云范围: " + decoded.bounds);
             }
         }
 
+        PointColumns points = decoded.points;
         long endTime = System.currentTimeMillis();
-        System.out.printf("读取完成! 共 %d 个点，耗时: %.2f 秒\n",
-                points.size(), (endTime - startTime) / 1000.0);
+        System.out.printf("读取完成! 共 %d 个点，耗时: %.2f 秒，内存占用约 %.1f MB\n",
+                points.size(), (endTime - startTime) / 1000.0, points.memoryBytes() / (1024.0 * 1024.0));
 
-        return points;
+        return decoded;
     }
 
     /**
-     * 根据分类值过滤点云数据
+     * 打印过滤结果，返回文件总点数（来自解码时的分类直方图）
      */
-    private static List<LASPoint> filterPointsByClassification(List<LASPoint> points, int[] classificationValues) {
-        Set<Integer> targetClasses = new HashSet<>();
-        for (int cls : classificationValues) {
-            targetClasses.add(cls);
+    private static long printFilterResult(LASParallelDecoder.DecodeResult decoded, int[] classificationValues) {
+        long total = 0;
+        for (long count : decoded.classificationCounts) {
+            total += count;
         }
+        int matched = decoded.points.size();
+        System.out.printf("过滤结果: 从 %d 个点中找到 %d 个目标点 (%.2f%%)\n",
+                total, matched, total == 0 ? 0.0 : (double) matched / total * 100);
 
-        List<LASPoint> filteredPoints = new ArrayList<>();
-        Map<Integer, Integer> classCounts = new HashMap<>();
-
-        for (LASPoint point : points) {
-            if (targetClasses.contains(point.classification)) {
-                filteredPoints.add(point);
-                classCounts.merge(point.classification, 1, Integer::sum);
+        for (int c : ClassificationMask.of(classificationValues).toArray()) {
+            if (decoded.classificationCounts[c] > 0) {
+                System.out.printf("  分类 %d: %d 个点\n", c, decoded.classificationCounts[c]);
             }
         }
+        return total;
+    }
 
+    /**
+     * 单遍读取LAS文件中指定分类的点并交给流式采样器
+     */
+    private static StreamingSampler readLASSample(LASFileReader reader, ClassificationMask classMask,
+                                                  ProcessingOptions options) throws IOException {
+        System.out.println("开始流式采样LAS文件: " + reader.getHeader());
+        long startTime = System.currentTimeMillis();
+        // 均匀采样的步长取决于目标点数，先只扫描分类字节计数
+        long expected = options.samplingStrategy == SamplingStrategy.UNIFORM ? countMatching(reader, classMask) : -1;
+        StreamingSampler sampler = StreamingSampler.create(options.samplingStrategy, options.maxPointsForJSON,
+                expected, reader.getHeader());
+        reader.forEachPoint(classMask, sampler);
+
+        long total = reader.getPointCount();
+        long matched = sampler.getSeen();
         System.out.printf("过滤结果: 从 %d 个点中找到 %d 个目标点 (%.2f%%)\n",
-                points.size(), filteredPoints.size(),
-                (double) filteredPoints.size() / points.size() * 100);
+                total, matched, total == 0 ? 0.0 : (double) matched / total * 100);
+        System.out.printf("流式采样完成! 保留 %d 个点 (策略: %s)，耗时: %.2f 秒\n",
+                sampler.sample.size(), options.samplingStrategy, (System.currentTimeMillis() - startTime) / 1000.0);
+        return sampler;
+    }
 
-        classCounts.forEach((cls, count) ->
-                System.out.printf("  分类 %d: %d 个点\n", cls, count));
+    /**
+     * 分类命中掩码的点数（classMask 为 null 时为全部点）
+     */
+    private static long countMatching(LASFileReader reader, ClassificationMask classMask) throws IOException {
+        if (classMask == null) {
+            return reader.getPointCount();
+        }
+        long[] counts = reader.countClassifications();
+        long matched = 0;
+        for (int c = 0; c < counts.length; c++) {
+            if (classMask.matches(c)) matched += counts[c];
+        }
+        return matched;
+    }
 
-        return filteredPoints;
+    /**
+     * 从源文件流式写出指定分类的完整点云JSON文件
+     */
+    private void streamJSONToFile(String filePath, boolean normalizeCoords, int[] classificationValues,
+                                  String outputPath) throws IOException {
+        System.out.println("正在保存JSON文件到: " + outputPath);
+        File outputFile = new File(outputPath);
+        File parentDir = outputFile.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(outputPath),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            lasAnalysisStreamToOutput(filePath, normalizeCoords, classificationValues, out);
+        }
+        System.out.printf("文件保存成功: %s (%.2f MB)\n", outputFile.getAbsolutePath(), outputFile.length() / (1024.0 * 1024.0));
     }
 
     /**
      * 点云采样
      */
-    private List<LASPoint> samplePoints(List<LASPoint> points, int maxPoints, SamplingStrategy strategy) {
+    PointColumns samplePoints(PointColumns points, ProcessingOptions options) {
+        int maxPoints = options.maxPointsForJSON;
+        SamplingStrategy strategy = options.samplingStrategy;
         if (points.size() <= maxPoints) {
             return points;
         }
@@ -893,7 +1170,7 @@ public class LASToJsonUtil {
             case RANDOM:
                 return randomSampling(points, maxPoints);
             case GRID_BASED:
-                return gridBasedSampling(points, maxPoints);
+                return VoxelGridSampler.sample(points, maxPoints, options.voxelRepresentative);
             case INTENSITY:
                 return intensityBasedSampling(points, maxPoints);
             default:
@@ -904,69 +1181,39 @@ public class LASToJsonUtil {
     /**
      * 均匀采样
      */
-    private List<LASPoint> uniformSampling(List<LASPoint> points, int maxPoints) {
-        List<LASPoint> sampled = new ArrayList<>();
+    private PointColumns uniformSampling(PointColumns points, int maxPoints) {
+        int[] indices = new int[maxPoints];
+        int count = 0;
         double step = (double) points.size() / maxPoints;
 
         for (int i = 0; i < maxPoints; i++) {
             int index = (int) (i * step);
             if (index < points.size()) {
-                sampled.add(points.get(index));
+                indices[count++] = index;
             }
         }
 
-        return sampled;
-    }
-
-    /**
-     * 随机采样
-     */
-    private List<LASPoint> randomSampling(List<LASPoint> points, int maxPoints) {
-        List<LASPoint> sampled = new ArrayList<>(points);
-        Collections.shuffle(sampled);
-        return sampled.subList(0, Math.min(maxPoints, sampled.size()));
+        return points.select(indices, count);
     }
 
     /**
-     * 网格采样 - 空间均匀分布
+     * 随机采样（蓄水池采样，不复制全部下标）
      */
-    private List<LASPoint> gridBasedSampling(List<LASPoint> points, int maxPoints) {
-        BoundingBox bounds = new BoundingBox(points);
-
-        // 计算网格大小
-        int gridSize = (int) Math.sqrt(maxPoints);
-        double cellWidth = (bounds.maxX - bounds.minX) / gridSize;
-        double cellHeight = (bounds.maxY - bounds.minY) / gridSize;
-
-        Map<String, LASPoint> gridMap = new HashMap<>();
-
-        for (LASPoint point : points) {
-            int gridX = (int) ((point.x - bounds.minX) / cellWidth);
-            int gridY = (int) ((point.y - bounds.minY) / cellHeight);
-            String key = gridX + "," + gridY;
-
-            // 每个网格只保留一个点（或者选择强度最高的）
-            if (!gridMap.containsKey(key) || point.intensity > gridMap.get(key).intensity) {
-                gridMap.put(key, point);
-            }
-        }
-
-        return new ArrayList<>(gridMap.values());
+    private PointColumns randomSampling(PointColumns points, int maxPoints) {
+        return StreamingSampler.createFor(SamplingStrategy.RANDOM, maxPoints, points).offerAll(points).result();
     }
 
     /**
-     * 基于强度的采样
+     * 基于强度的采样（有界最小堆保留强度最高的点，不做全排序）
      */
-    private List<LASPoint> intensityBasedSampling(List<LASPoint> points, int maxPoints) {
-        List<LASPoint> sorted = new ArrayList<>(points);
-        sorted.sort((a, b) -> Integer.compare(b.intensity, a.intensity)); // 按强度降序
-        return sorted.subList(0, Math.min(maxPoints, sorted.size()));
+    private PointColumns intensityBasedSampling(PointColumns points, int maxPoints) {
+        return StreamingSampler.createFor(SamplingStrategy.INTENSITY, maxPoints, points).offerAll(points).result();
     }
 
     /**
      * 生成分页文件
      */
-    private List<String> generatePagedFiles(List<LASPoint> points, String outputPath, String originalFileName,
+    private List<String> generatePagedFiles(PointColumns points, String outputPath, String originalFileName,
                                             int pageSize, boolean normalizeCoords) throws IOException {
         List<String> pageFiles = new ArrayList<>();
         int totalPages = (int) Math.ceil((double) points.size() / pageSize);
@@ -977,11 +1224,10 @@ public class LASToJsonUtil {
         for (int page = 0; page < totalPages; page++) {
             int startIndex = page * pageSize;
             int endIndex = Math.min(startIndex + pageSize, points.size());
-            List<LASPoint> pagePoints = points.subList(startIndex, endIndex);
+            PointColumns pagePoints = points.range(startIndex, endIndex);
 
             String pageFileName = String.format("%s_page_%d_of_%d.json", baseFileName, page + 1, totalPages);
-            String pageJson = generateJSONString(pagePoints, normalizeCoords, originalFileName);
-            saveJSONToFile(pageJson, pageFileName);
+            writeJSONToFile(pagePoints, normalizeCoords, originalFileName, pageFileName);
             pageFiles.add(pageFileName);
 
             System.out.printf("生成分页文件 %d/%d: %s (%d 点)\n", page + 1, totalPages,
@@ -994,70 +1240,43 @@ public class LASToJsonUtil {
     /**
      * 生成JSON字符串
      */
-    private static String generateJSONString(List<LASPoint> points, boolean normalizeCoords, String originalFile) throws IOException {
+    static String generateJSONString(PointColumns points, boolean normalizeCoords, String originalFile) throws IOException {
         System.out.println("开始构建JSON数据...");
 
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectNode root = mapper.createObjectNode();
-
         // 计算边界框
         BoundingBox bounds = new BoundingBox(points);
         System.out.println("点云范围: " + bounds);
 
-        // 创建metadata
-        ObjectNode metadata = mapper.createObjectNode();
-        metadata.put("version", 1.0);
-        metadata.put("type", "pointcloud");
-        metadata.put("generator", "MI Project LAS Extractor v2.0");
-        metadata.put("count", points.size());
-        metadata.put("original_file", originalFile);
-        metadata.put("timestamp", System.currentTimeMillis());
-
-        // 添加边界信息
-        ObjectNode boundsNode = mapper.createObjectNode();
-        ArrayNode minArray = mapper.createArrayNode();
-        minArray.add(bounds.minX).add(bounds.minY).add(bounds.minZ);
-        ArrayNode maxArray = mapper.createArrayNode();
-        maxArray.add(bounds.maxX).add(bounds.maxY).add(bounds.maxZ);
-        ArrayNode centerArray = mapper.createArrayNode();
-        centerArray.add(bounds.centerX).add(bounds.centerY).add(bounds.centerZ);
-
-        boundsNode.set("min", minArray);
-        boundsNode.set("max", maxArray);
-        boundsNode.set("center", centerArray);
-        metadata.set("bounds", boundsNode);
-
-        root.set("metadata", metadata);
-
-        // 创建points数组
-        ArrayNode pointsArray = mapper.createArrayNode();
-
-        for (LASPoint point : points) {
-            ObjectNode pointNode = mapper.createObjectNode();
-
-            ArrayNode position = mapper.createArrayNode();
-            if (normalizeCoords) {
-                // 归一化坐标
-                position.add(point.x - bounds.centerX);
-                position.add(point.y - bounds.centerY);
-                position.add(point.z - bounds.centerZ);
-            } else {
-                position.add(point.x);
-                position.add(point.y);
-                position.add(point.z);
-            }
+        StringWriter writer = new StringWriter(points.size() * 80 + 512);
+        try (JsonGenerator g = PointJsonWriter.createGenerator(writer)) {
+            PointJsonWriter.writePointCloud(g, points, normalizeCoords, originalFile, bounds);
+        }
+        return writer.toString();
+    }
 
-            pointNode.set("position", position);
-            pointNode.put("classification", point.classification);
-            pointNode.put("intensity", point.intensity);
+    /**
+     * 将点云JSON直接流式写入文件，不生成中间字符串
+     */
+    private static void writeJSONToFile(PointColumns points, boolean normalizeCoords, String originalFile,
+                                        String outputPath) throws IOException {
+        System.out.println("正在保存JSON文件到: " + outputPath);
 
-            pointsArray.add(pointNode);
+        File outputFile = new File(outputPath);
+        File parentDir = outputFile.getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
         }
 
-        root.set("points", pointsArray);
+        BoundingBox bounds = new BoundingBox(points);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(outputPath),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+             JsonGenerator g = PointJsonWriter.createGenerator(out)) {
+            PointJsonWriter.writePointCloud(g, points, normalizeCoords, originalFile, bounds);
+        }
 
-        // 转换为JSON字符串
-        return mapper.writeValueAsString(root);
+        double fileSizeMB = outputFile.length() / (1024.0 * 1024.0);
+        System.out.printf("JSON文件大小: %.2f MB (UTF-8编码)\n", fileSizeMB);
+        System.out.printf("文件保存成功: %s\n", outputFile.getAbsolutePath());
     }
 
     /**
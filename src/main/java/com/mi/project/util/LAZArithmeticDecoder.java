@@ -0,0 +1,354 @@
+package com.mi.project.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LASzip 算术解码器（区间解码，32 位无符号运算）及其概率模型
+ * 与 LASzip 的 arithmeticdecoder / arithmeticmodel / integercompressor 保持逐位一致，
+ * 每个 LAZ 块各自使用一个解码器实例，块之间互不依赖，可并行解码。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class LAZArithmeticDecoder {
+
+    /** 区间长度下限，低于该值需要重新归一化 */
+    private static final int MIN_LENGTH = 0x01000000;
+
+    private final ByteBuffer in;
+    private int value;
+    private int length;
+
+    /**
+     * @param in 压缩数据，从当前 position 开始读取
+     */
+    LAZArithmeticDecoder(ByteBuffer in) {
+        this.in = in;
+        this.length = 0xFFFFFFFF;
+        this.value = (nextByte() << 24) | (nextByte() << 16) | (nextByte() << 8) | nextByte();
+    }
+
+    int decodeBit(BitModel m) {
+        int x = m.bit0Prob * (length >>> 13);
+        int sym;
+        if (Integer.compareUnsigned(value, x) >= 0) {
+            sym = 1;
+            value -= x;
+            length -= x;
+        } else {
+            sym = 0;
+            length = x;
+            m.bit0Count++;
+        }
+        if (Integer.compareUnsigned(length, MIN_LENGTH) < 0) {
+            renormalize();
+        }
+        if (--m.bitsUntilUpdate == 0) {
+            m.update();
+        }
+        return sym;
+    }
+
+    int decodeSymbol(SymbolModel m) {
+        int sym;
+        int x;
+        int y = length;
+        if (m.decoderTable != null) {
+            length >>>= 15;
+            int dv = Integer.divideUnsigned(value, length);
+            int t = dv >>> m.tableShift;
+            sym = m.decoderTable[t];
+            int n = m.decoderTable[t + 1] + 1;
+            // 在查表给出的区间内二分
+            while (n > sym + 1) {
+                int k = (sym + n) >>> 1;
+                if (Integer.compareUnsigned(m.distribution[k], dv) > 0) {
+                    n = k;
+                } else {
+                    sym = k;
+                }
+            }
+            x = m.distribution[sym] * length;
+            if (sym != m.lastSymbol) {
+                y = m.distribution[sym + 1] * length;
+            }
+        } else {
+            sym = 0;
+            x = 0;
+            length >>>= 15;
+            int n = m.symbols;
+            int k = n >>> 1;
+            do {
+                int z = length * m.distribution[k];
+                if (Integer.compareUnsigned(z, value) > 0) {
+                    n = k;
+                    y = z;
+                } else {
+                    sym = k;
+                    x = z;
+                }
+            } while ((k = (sym + n) >>> 1) != sym);
+        }
+        value -= x;
+        length = y - x;
+        if (Integer.compareUnsigned(length, MIN_LENGTH) < 0) {
+            renormalize();
+        }
+        m.symbolCount[sym]++;
+        if (--m.symbolsUntilUpdate == 0) {
+            m.update();
+        }
+        return sym;
+    }
+
+    int readBits(int bits) {
+        if (bits > 19) {
+            int low = readShort();
+            return (readBits(bits - 16) << 16) | low;
+        }
+        length >>>= bits;
+        int sym = Integer.divideUnsigned(value, length);
+        value -= length * sym;
+        if (Integer.compareUnsigned(length, MIN_LENGTH) < 0) {
+            renormalize();
+        }
+        return sym;
+    }
+
+    int readShort() {
+        length >>>= 16;
+        int sym = Integer.divideUnsigned(value, length);
+        value -= length * sym;
+        if (Integer.compareUnsigned(length, MIN_LENGTH) < 0) {
+            renormalize();
+        }
+        return sym & 0xFFFF;
+    }
+
+    int readInt() {
+        int low = readShort();
+        int high = readShort();
+        return (high << 16) | low;
+    }
+
+    private void renormalize() {
+        do {
+            value = (value << 8) | nextByte();
+            length <<= 8;
+        } while (Integer.compareUnsigned(length, MIN_LENGTH) < 0);
+    }
+
+    /** 读到数据末尾后补 0，损坏的块最终会在校验点数时暴露 */
+    private int nextByte() {
+        return in.hasRemaining() ? in.get() & 0xFF : 0;
+    }
+
+    /**
+     * 二值自适应模型
+     */
+    static final class BitModel {
+        int updateCycle;
+        int bitsUntilUpdate;
+        int bit0Prob;
+        int bit0Count;
+        int bitCount;
+
+        BitModel() {
+            init();
+        }
+
+        void init() {
+            bit0Count = 1;
+            bitCount = 2;
+            bit0Prob = 1 << 12;
+            updateCycle = bitsUntilUpdate = 4;
+        }
+
+        void update() {
+            if ((bitCount += updateCycle) > (1 << 13)) {
+                bitCount = (bitCount + 1) >>> 1;
+                bit0Count = (bit0Count + 1) >>> 1;
+                if (bit0Count == bitCount) {
+                    ++bitCount;
+                }
+            }
+            int scale = Integer.divideUnsigned(0x80000000, bitCount);
+            bit0Prob = (bit0Count * scale) >>> 18;
+            updateCycle = (5 * updateCycle) >>> 2;
+            if (updateCycle > 64) {
+                updateCycle = 64;
+            }
+            bitsUntilUpdate = updateCycle;
+        }
+    }
+
+    /**
+     * 多符号自适应模型，符号数超过 16 时使用查找表加速
+     */
+    static final class SymbolModel {
+        final int symbols;
+        final int lastSymbol;
+        final int[] distribution;
+        final int[] symbolCount;
+        final int[] decoderTable;
+        final int tableSize;
+        final int tableShift;
+        int totalCount;
+        int updateCycle;
+        int symbolsUntilUpdate;
+
+        SymbolModel(int symbols) {
+            if (symbols < 2 || symbols > 2048) {
+                throw new IllegalArgumentException("invalid number of symbols: " + symbols);
+            }
+            this.symbols = symbols;
+            this.lastSymbol = symbols - 1;
+            if (symbols > 16) {
+                int tableBits = 3;
+                while (symbols > (1 << (tableBits + 2))) {
+                    ++tableBits;
+                }
+                this.tableSize = 1 << tableBits;
+                this.tableShift = 15 - tableBits;
+                this.decoderTable = new int[tableSize + 2];
+            } else {
+                this.tableSize = 0;
+                this.tableShift = 0;
+                this.decoderTable = null;
+            }
+            this.distribution = new int[symbols];
+            this.symbolCount = new int[symbols];
+            init();
+        }
+
+        void init() {
+            totalCount = 0;
+            updateCycle = symbols;
+            for (int k = 0; k < symbols; k++) {
+                symbolCount[k] = 1;
+            }
+            update();
+            symbolsUntilUpdate = updateCycle = (symbols + 6) >>> 1;
+        }
+
+        void update() {
+            if ((totalCount += updateCycle) > (1 << 15)) {
+                totalCount = 0;
+                for (int n = 0; n < symbols; n++) {
+                    totalCount += (symbolCount[n] = (symbolCount[n] + 1) >>> 1);
+                }
+            }
+            int sum = 0;
+            int s = 0;
+            int scale = Integer.divideUnsigned(0x80000000, totalCount);
+            if (tableSize == 0) {
+                for (int k = 0; k < symbols; k++) {
+                    distribution[k] = (scale * sum) >>> 16;
+                    sum += symbolCount[k];
+                }
+            } else {
+                for (int k = 0; k < symbols; k++) {
+                    distribution[k] = (scale * sum) >>> 16;
+                    sum += symbolCount[k];
+                    int w = distribution[k] >>> tableShift;
+                    while (s < w) {
+                        decoderTable[++s] = k - 1;
+                    }
+                }
+                decoderTable[0] = 0;
+                while (s <= tableSize) {
+                    decoderTable[++s] = symbols - 1;
+                }
+            }
+            updateCycle = (5 * updateCycle) >>> 2;
+            int maxCycle = (symbols + 6) << 3;
+            if (Integer.compareUnsigned(updateCycle, maxCycle) > 0) {
+                updateCycle = maxCycle;
+            }
+            symbolsUntilUpdate = updateCycle;
+        }
+    }
+
+    /**
+     * 整数差值解码器（LASzip IntegerCompressor 的解码部分）：
+     * 先解出修正量的位数 k，再解出 k 位修正量，与预测值相加
+     */
+    static final class IntegerDecompressor {
+        private final LAZArithmeticDecoder dec;
+        private final int corrBits;
+        private final int corrRange;
+        private final int corrMin;
+        private final int bitsHigh;
+        private final SymbolModel[] mBits;
+        private final BitModel mCorrector0;
+        private final SymbolModel[] mCorrector;
+        private int k;
+
+        IntegerDecompressor(LAZArithmeticDecoder dec, int bits, int contexts) {
+            this(dec, bits, contexts, 8);
+        }
+
+        IntegerDecompressor(LAZArithmeticDecoder dec, int bits, int contexts, int bitsHigh) {
+            this.dec = dec;
+            this.bitsHigh = bitsHigh;
+            if (bits != 0 && bits < 32) {
+                this.corrBits = bits;
+                this.corrRange = 1 << bits;
+                this.corrMin = -(corrRange >>> 1);
+            } else {
+                this.corrBits = 32;
+                this.corrRange = 0;
+                this.corrMin = Integer.MIN_VALUE;
+            }
+            this.mBits = new SymbolModel[contexts];
+            for (int i = 0; i < contexts; i++) {
+                mBits[i] = new SymbolModel(corrBits + 1);
+            }
+            this.mCorrector0 = new BitModel();
+            this.mCorrector = new SymbolModel[corrBits + 1];
+            for (int i = 1; i <= corrBits; i++) {
+                mCorrector[i] = new SymbolModel(1 << Math.min(i, bitsHigh));
+            }
+        }
+
+        /** 最近一次解码的修正量位数，用作后续字段的上下文 */
+        int getK() {
+            return k;
+        }
+
+        int decompress(int pred, int context) {
+            int real = pred + readCorrector(mBits[context]);
+            if (real < 0) {
+                real += corrRange;
+            } else if (Integer.compareUnsigned(real, corrRange) >= 0) {
+                real -= corrRange;
+            }
+            return real;
+        }
+
+        private int readCorrector(SymbolModel bitsModel) {
+            k = dec.decodeSymbol(bitsModel);
+            if (k == 0) {
+                return dec.decodeBit(mCorrector0);
+            }
+            if (k >= 32) {
+                return corrMin;
+            }
+            int c;
+            if (k <= bitsHigh) {
+                c = dec.decodeSymbol(mCorrector[k]);
+            } else {
+                int k1 = k - bitsHigh;
+                c = dec.decodeSymbol(mCorrector[k]);
+                c = (c << k1) | dec.readBits(k1);
+            }
+            // 将 [0, 2^k) 映射回 [-(2^k-1), -2^(k-1)] ∪ [2^(k-1), 2^k]
+            if (c >= (1 << (k - 1))) {
+                c += 1;
+            } else {
+                c -= (1 << k) - 1;
+            }
+            return c;
+        }
+    }
+}
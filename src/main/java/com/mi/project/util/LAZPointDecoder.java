@@ -0,0 +1,733 @@
+package com.mi.project.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LAZ（LASzip 压缩的 LAS）点数据解码器
+ * 读取 LASzip VLR 和块表，把指定范围的压缩块直接在内存中还原为标准 LAS 点记录，
+ * 由 LASFileReader 在映射点数据时调用，上层读取逻辑与普通 LAS 完全相同，无需先解压到磁盘。
+ * 每个块独立编码（首点原样存储，其余点算术编码），因此不同块可以在多个线程上并行解码。
+ * 支持 LASzip 2.x 写出的逐点压缩格式（PDRF 0–5 的 POINT10/GPSTIME11/RGB12/BYTE v2），
+ * LAS 1.4 分层压缩（PDRF 6–10）暂不支持，会抛出明确的异常。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class LAZPointDecoder {
+
+    private static final String LASZIP_USER_ID = "laszip encoded";
+    private static final int LASZIP_RECORD_ID = 22204;
+
+    /** VLR 头部长度 */
+    private static final int VLR_HEADER_BYTES = 54;
+
+    private static final int COMPRESSOR_POINTWISE = 1;
+    private static final int COMPRESSOR_POINTWISE_CHUNKED = 2;
+
+    private static final int ITEM_BYTE = 0;
+    private static final int ITEM_POINT10 = 6;
+    private static final int ITEM_GPSTIME11 = 7;
+    private static final int ITEM_RGB12 = 8;
+
+    /** 块大小可变时 chunk_size 的取值 */
+    private static final long VARIABLE_CHUNK_SIZE = 0xFFFFFFFFL;
+
+    private final FileChannel channel;
+    private final int recordLength;
+    private final int[] itemTypes;
+    private final int[] itemSizes;
+    private final int[] itemOffsets;
+    private final long pointCount;
+    private final int fixedChunkSize;
+
+    /** 第 i 块的压缩数据位于 [chunkStarts[i], chunkStarts[i+1]) */
+    private final long[] chunkStarts;
+
+    /** 第 i 块的首点序号，长度为块数 + 1，最后一项为总点数 */
+    private final long[] chunkFirstPoints;
+
+    private LAZPointDecoder(FileChannel channel, int recordLength, int[] itemTypes, int[] itemSizes,
+                            long pointCount, int fixedChunkSize, long[] chunkStarts, long[] chunkFirstPoints) {
+        this.channel = channel;
+        this.recordLength = recordLength;
+        this.itemTypes = itemTypes;
+        this.itemSizes = itemSizes;
+        this.itemOffsets = new int[itemTypes.length];
+        for (int i = 1; i < itemTypes.length; i++) {
+            itemOffsets[i] = itemOffsets[i - 1] + itemSizes[i - 1];
+        }
+        this.pointCount = pointCount;
+        this.fixedChunkSize = fixedChunkSize;
+        this.chunkStarts = chunkStarts;
+        this.chunkFirstPoints = chunkFirstPoints;
+    }
+
+    /**
+     * 解析 LASzip VLR 与块表
+     */
+    static LAZPointDecoder open(FileChannel channel, LASToJsonUtil.LASHeader header) throws IOException {
+        ByteBuffer vlr = findLaszipVlr(channel, header);
+        if (vlr == null) {
+            throw new IOException("LAZ文件缺少LASzip VLR");
+        }
+        int compressor = vlr.getShort(0) & 0xFFFF;
+        long chunkSize = Integer.toUnsignedLong(vlr.getInt(12));
+        int numItems = vlr.getShort(32) & 0xFFFF;
+        if (compressor != COMPRESSOR_POINTWISE && compressor != COMPRESSOR_POINTWISE_CHUNKED) {
+            throw new IOException("暂不支持的LAZ压缩方式（LAS 1.4分层压缩）: compressor=" + compressor);
+        }
+
+        int[] types = new int[numItems];
+        int[] sizes = new int[numItems];
+        int total = 0;
+        for (int i = 0; i < numItems; i++) {
+            int base = 34 + i * 6;
+            types[i] = vlr.getShort(base) & 0xFFFF;
+            sizes[i] = vlr.getShort(base + 2) & 0xFFFF;
+            int version = vlr.getShort(base + 4) & 0xFFFF;
+            if (!isSupportedItem(types[i], version)) {
+                throw new IOException("暂不支持的LAZ数据项: type=" + types[i] + ", version=" + version);
+            }
+            total += sizes[i];
+        }
+        if (numItems == 0 || types[0] != ITEM_POINT10 || total != header.pointDataRecordLength) {
+            throw new IOException("LAZ数据项与点记录长度不匹配: " + total + " != " + header.pointDataRecordLength);
+        }
+
+        long pointCount = header.numberOfPointRecords;
+        long[] chunkStarts;
+        long[] chunkFirstPoints;
+        int fixedChunkSize;
+        if (compressor == COMPRESSOR_POINTWISE) {
+            // 未分块：整个点数据区是一个块
+            chunkStarts = new long[]{header.offsetToPointData, channel.size()};
+            chunkFirstPoints = new long[]{0, pointCount};
+            fixedChunkSize = (int) Math.min(Integer.MAX_VALUE, Math.max(1, pointCount));
+        } else {
+            boolean variable = chunkSize == VARIABLE_CHUNK_SIZE;
+            long[][] table = readChunkTable(channel, header.offsetToPointData, variable);
+            chunkStarts = table[0];
+            int chunks = chunkStarts.length - 1;
+            if (variable) {
+                chunkFirstPoints = table[1];
+                pointCount = Math.min(pointCount, chunkFirstPoints[chunks]);
+                fixedChunkSize = 0;
+            } else {
+                if (chunkSize == 0 || chunkSize > Integer.MAX_VALUE) {
+                    throw new IOException("无效的LAZ块大小: " + chunkSize);
+                }
+                fixedChunkSize = (int) chunkSize;
+                pointCount = Math.min(pointCount, (long) chunks * fixedChunkSize);
+                chunkFirstPoints = new long[chunks + 1];
+                for (int i = 1; i <= chunks; i++) {
+                    chunkFirstPoints[i] = Math.min(pointCount, (long) i * fixedChunkSize);
+                }
+            }
+        }
+        return new LAZPointDecoder(channel, header.pointDataRecordLength, types, sizes,
+                pointCount, fixedChunkSize, chunkStarts, chunkFirstPoints);
+    }
+
+    private static boolean isSupportedItem(int type, int version) {
+        return switch (type) {
+            case ITEM_POINT10, ITEM_GPSTIME11, ITEM_RGB12, ITEM_BYTE -> version == 2;
+            default -> false;
+        };
+    }
+
+    /**
+     * 在 VLR 区中查找 LASzip 记录，返回其内容（小端）
+     */
+    private static ByteBuffer findLaszipVlr(FileChannel channel, LASToJsonUtil.LASHeader header) throws IOException {
+        long position = header.headerSize;
+        for (long i = 0; i < header.numberOfVariableLengthRecords; i++) {
+            ByteBuffer vlrHeader = readFully(channel, position, VLR_HEADER_BYTES);
+            byte[] userId = new byte[16];
+            vlrHeader.position(2);
+            vlrHeader.get(userId);
+            int recordId = vlrHeader.getShort(18) & 0xFFFF;
+            int payloadLength = vlrHeader.getShort(20) & 0xFFFF;
+            if (recordId == LASZIP_RECORD_ID && trimNul(userId).equals(LASZIP_USER_ID)) {
+                return readFully(channel, position + VLR_HEADER_BYTES, payloadLength);
+            }
+            position += VLR_HEADER_BYTES + payloadLength;
+        }
+        return null;
+    }
+
+    /**
+     * 读取块表：点数据区开头的 8 字节指向块表（写出时未能回填则为 -1，此时位于文件末尾 8 字节），
+     * 块表为 版本号 + 块数 + 算术编码的（点数、）字节数差分序列
+     * @return [0] 各块起始偏移（长度为块数 + 1）；[1] 可变块大小时各块首点序号
+     */
+    private static long[][] readChunkTable(FileChannel channel, long offsetToPointData, boolean variable) throws IOException {
+        long tablePosition = readFully(channel, offsetToPointData, 8).getLong(0);
+        long chunksStart = offsetToPointData + 8;
+        if (tablePosition == -1) {
+            tablePosition = readFully(channel, channel.size() - 8, 8).getLong(0);
+        }
+        if (tablePosition <= offsetToPointData || tablePosition + 8 > channel.size()) {
+            throw new IOException("LAZ块表缺失或损坏，无法定位压缩块");
+        }
+
+        ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, tablePosition, channel.size() - tablePosition)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int version = table.getInt();
+        long chunks = Integer.toUnsignedLong(table.getInt());
+        if (version != 0 || chunks > Integer.MAX_VALUE - 1) {
+            throw new IOException("无法识别的LAZ块表: version=" + version + ", chunks=" + chunks);
+        }
+
+        int n = (int) chunks;
+        long[] starts = new long[n + 1];
+        long[] firstPoints = variable ? new long[n + 1] : null;
+        starts[0] = chunksStart;
+        if (n > 0) {
+            LAZArithmeticDecoder dec = new LAZArithmeticDecoder(table);
+            LAZArithmeticDecoder.IntegerDecompressor ic = new LAZArithmeticDecoder.IntegerDecompressor(dec, 32, 2);
+            int prevCount = 0, prevBytes = 0;
+            for (int i = 1; i <= n; i++) {
+                if (variable) {
+                    prevCount = ic.decompress(prevCount, 0);
+                    firstPoints[i] = firstPoints[i - 1] + Integer.toUnsignedLong(prevCount);
+                }
+                prevBytes = ic.decompress(prevBytes, 1);
+                starts[i] = starts[i - 1] + Integer.toUnsignedLong(prevBytes);
+                if (starts[i] <= starts[i - 1] || starts[i] > tablePosition) {
+                    throw new IOException("LAZ块表损坏: 第 " + (i - 1) + " 块");
+                }
+            }
+        }
+        return new long[][]{starts, firstPoints};
+    }
+
+    long getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * 固定块大小（点数），块大小可变时返回 0
+     */
+    int getChunkSize() {
+        return fixedChunkSize;
+    }
+
+    int getChunkCount() {
+        return chunkStarts.length - 1;
+    }
+
+    /**
+     * 解码 [firstRecord, firstRecord + recordCount) 范围的点，返回标准 LAS 点记录（小端，position 0 即第一条记录）。
+     * 范围两端落在块中间时会解码整个块再截取，调用方按块对齐可避免浪费
+     */
+    ByteBuffer decodeRecords(long firstRecord, int recordCount) throws IOException {
+        if (recordCount <= 0) {
+            return ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int firstChunk = chunkOf(firstRecord);
+        int lastChunk = chunkOf(firstRecord + recordCount - 1);
+        long decodedFirst = chunkFirstPoints[firstChunk];
+        long decodedCount = chunkFirstPoints[lastChunk + 1] - decodedFirst;
+        if (decodedCount * recordLength > Integer.MAX_VALUE) {
+            throw new IOException("单次解码范围过大: " + decodedCount + " 点");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) (decodedCount * recordLength)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int chunk = firstChunk; chunk <= lastChunk; chunk++) {
+            int base = (int) ((chunkFirstPoints[chunk] - decodedFirst) * recordLength);
+            decodeChunk(chunk, out, base);
+        }
+        out.position((int) ((firstRecord - decodedFirst) * recordLength));
+        out.limit(out.position() + recordCount * recordLength);
+        return out.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int chunkOf(long record) {
+        if (record < 0 || record >= pointCount) {
+            throw new IndexOutOfBoundsException("点序号超出范围: " + record);
+        }
+        if (fixedChunkSize > 0) {
+            return (int) (record / fixedChunkSize);
+        }
+        int lo = 0, hi = chunkFirstPoints.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (chunkFirstPoints[mid] <= record) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 解码一个块写入 out 的 base 位置：首点原样复制，随后初始化算术解码器逐点解码
+     */
+    private void decodeChunk(int chunk, ByteBuffer out, int base) throws IOException {
+        int points = (int) (chunkFirstPoints[chunk + 1] - chunkFirstPoints[chunk]);
+        if (points == 0) {
+            return;
+        }
+        ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, chunkStarts[chunk],
+                chunkStarts[chunk + 1] - chunkStarts[chunk]).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < recordLength) {
+            throw new IOException("LAZ块数据不完整: 第 " + chunk + " 块");
+        }
+        in.get(out.array(), out.arrayOffset() + base, recordLength);
+        if (points == 1) {
+            return;
+        }
+
+        LAZArithmeticDecoder dec = new LAZArithmeticDecoder(in);
+        ItemDecoder[] decoders = new ItemDecoder[itemTypes.length];
+        for (int i = 0; i < decoders.length; i++) {
+            int seed = base + itemOffsets[i];
+            decoders[i] = switch (itemTypes[i]) {
+                case ITEM_POINT10 -> new Point10Decoder(dec, out, seed);
+                case ITEM_GPSTIME11 -> new GpsTime11Decoder(dec, out, seed);
+                case ITEM_RGB12 -> new Rgb12Decoder(dec, out, seed);
+                default -> new ByteDecoder(dec, out, seed, itemSizes[i]);
+            };
+        }
+        int record = base;
+        for (int p = 1; p < points; p++) {
+            record += recordLength;
+            for (int i = 0; i < decoders.length; i++) {
+                decoders[i].decode(out, record + itemOffsets[i]);
+            }
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("LAZ文件被截断");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String trimNul(byte[] bytes) {
+        int end = 0;
+        while (end < bytes.length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, 0, end, StandardCharsets.US_ASCII);
+    }
+
+    // ================================ 数据项解码器 ================================
+
+    /**
+     * 单个数据项的解码器，以上一点为上下文解出当前点并写入记录中的对应位置
+     */
+    private interface ItemDecoder {
+        void decode(ByteBuffer out, int position);
+    }
+
+    /**
+     * 五值滑动中位数，用于预测 X/Y 差分
+     */
+    private static final class Median5 {
+        private final int[] values = new int[5];
+        private boolean high = true;
+
+        int get() {
+            return values[2];
+        }
+
+        void add(int v) {
+            int[] a = values;
+            if (high) {
+                if (v < a[2]) {
+                    a[4] = a[3];
+                    a[3] = a[2];
+                    if (v < a[0]) {
+                        a[2] = a[1];
+                        a[1] = a[0];
+                        a[0] = v;
+                    } else if (v < a[1]) {
+                        a[2] = a[1];
+                        a[1] = v;
+                    } else {
+                        a[2] = v;
+                    }
+                } else {
+                    if (v < a[3]) {
+                        a[4] = a[3];
+                        a[3] = v;
+                    } else {
+                        a[4] = v;
+                    }
+                    high = false;
+                }
+            } else {
+                if (a[2] < v) {
+                    a[0] = a[1];
+                    a[1] = a[2];
+                    if (a[4] < v) {
+                        a[2] = a[3];
+                        a[3] = a[4];
+                        a[4] = v;
+                    } else if (a[3] < v) {
+                        a[2] = a[3];
+                        a[3] = v;
+                    } else {
+                        a[2] = v;
+                    }
+                } else {
+                    if (a[1] < v) {
+                        a[0] = a[1];
+                        a[1] = v;
+                    } else {
+                        a[0] = v;
+                    }
+                    high = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * POINT10 v2：X/Y/Z、强度、回波标志、分类、扫描角、用户数据、点源ID（20 字节）
+     */
+    private static final class Point10Decoder implements ItemDecoder {
+
+        /** [回波数][回波序号] → 强度与 XY 差分的上下文 */
+        private static final byte[][] NUMBER_RETURN_MAP = {
+                {15, 14, 13, 12, 11, 10, 9, 8},
+                {14, 0, 1, 3, 6, 10, 10, 9},
+                {13, 1, 2, 4, 7, 11, 11, 10},
+                {12, 3, 4, 5, 8, 12, 12, 11},
+                {11, 6, 7, 8, 9, 13, 13, 12},
+                {10, 10, 11, 12, 13, 14, 14, 13},
+                {9, 10, 11, 12, 13, 14, 15, 14},
+                {8, 9, 10, 11, 12, 13, 14, 15}
+        };
+
+        /** [回波数][回波序号] → 高程预测的上下文 */
+        private static final byte[][] NUMBER_RETURN_LEVEL = {
+                {0, 1, 2, 3, 4, 5, 6, 7},
+                {1, 0, 1, 2, 3, 4, 5, 6},
+                {2, 1, 0, 1, 2, 3, 4, 5},
+                {3, 2, 1, 0, 1, 2, 3, 4},
+                {4, 3, 2, 1, 0, 1, 2, 3},
+                {5, 4, 3, 2, 1, 0, 1, 2},
+                {6, 5, 4, 3, 2, 1, 0, 1},
+                {7, 6, 5, 4, 3, 2, 1, 0}
+        };
+
+        private final LAZArithmeticDecoder dec;
+        private final LAZArithmeticDecoder.SymbolModel changedValues = new LAZArithmeticDecoder.SymbolModel(64);
+        private final LAZArithmeticDecoder.SymbolModel[] scanAngleRank = {
+                new LAZArithmeticDecoder.SymbolModel(256), new LAZArithmeticDecoder.SymbolModel(256)};
+        private final LAZArithmeticDecoder.SymbolModel[] bitByte = new LAZArithmeticDecoder.SymbolModel[256];
+        private final LAZArithmeticDecoder.SymbolModel[] classificationModels = new LAZArithmeticDecoder.SymbolModel[256];
+        private final LAZArithmeticDecoder.SymbolModel[] userDataModels = new LAZArithmeticDecoder.SymbolModel[256];
+        private final LAZArithmeticDecoder.IntegerDecompressor icIntensity;
+        private final LAZArithmeticDecoder.IntegerDecompressor icPointSourceId;
+        private final LAZArithmeticDecoder.IntegerDecompressor icDx;
+        private final LAZArithmeticDecoder.IntegerDecompressor icDy;
+        private final LAZArithmeticDecoder.IntegerDecompressor icZ;
+
+        private final int[] lastIntensity = new int[16];
+        private final Median5[] lastXDiff = new Median5[16];
+        private final Median5[] lastYDiff = new Median5[16];
+        private final int[] lastHeight = new int[8];
+
+        private int x, y, z;
+        private int intensity;
+        private int flags;
+        private int classification;
+        private int scanAngle;
+        private int userData;
+        private int pointSourceId;
+
+        Point10Decoder(LAZArithmeticDecoder dec, ByteBuffer seed, int position) {
+            this.dec = dec;
+            this.icIntensity = new LAZArithmeticDecoder.IntegerDecompressor(dec, 16, 4);
+            this.icPointSourceId = new LAZArithmeticDecoder.IntegerDecompressor(dec, 16, 1);
+            this.icDx = new LAZArithmeticDecoder.IntegerDecompressor(dec, 32, 2);
+            this.icDy = new LAZArithmeticDecoder.IntegerDecompressor(dec, 32, 22);
+            this.icZ = new LAZArithmeticDecoder.IntegerDecompressor(dec, 32, 20);
+            for (int i = 0; i < 16; i++) {
+                lastXDiff[i] = new Median5();
+                lastYDiff[i] = new Median5();
+            }
+            x = seed.getInt(position);
+            y = seed.getInt(position + 4);
+            z = seed.getInt(position + 8);
+            // 与 LASzip 一致，首点强度不作为预测上下文
+            intensity = 0;
+            flags = seed.get(position + 14) & 0xFF;
+            classification = seed.get(position + 15) & 0xFF;
+            scanAngle = seed.get(position + 16) & 0xFF;
+            userData = seed.get(position + 17) & 0xFF;
+            pointSourceId = seed.getShort(position + 18) & 0xFFFF;
+        }
+
+        @Override
+        public void decode(ByteBuffer out, int position) {
+            int changed = dec.decodeSymbol(changedValues);
+            int m, l, n;
+            if (changed != 0) {
+                if ((changed & 0x20) != 0) {
+                    flags = dec.decodeSymbol(model(bitByte, flags));
+                }
+                n = (flags >>> 3) & 7;
+                m = NUMBER_RETURN_MAP[n][flags & 7];
+                l = NUMBER_RETURN_LEVEL[n][flags & 7];
+                if ((changed & 0x10) != 0) {
+                    intensity = icIntensity.decompress(lastIntensity[m], m < 3 ? m : 3) & 0xFFFF;
+                    lastIntensity[m] = intensity;
+                } else {
+                    intensity = lastIntensity[m];
+                }
+                if ((changed & 0x08) != 0) {
+                    classification = dec.decodeSymbol(model(classificationModels, classification));
+                }
+                if ((changed & 0x04) != 0) {
+                    int val = dec.decodeSymbol(scanAngleRank[(flags >>> 6) & 1]);
+                    scanAngle = (val + scanAngle) & 0xFF;
+                }
+                if ((changed & 0x02) != 0) {
+                    userData = dec.decodeSymbol(model(userDataModels, userData));
+                }
+                if ((changed & 0x01) != 0) {
+                    pointSourceId = icPointSourceId.decompress(pointSourceId, 0) & 0xFFFF;
+                }
+            } else {
+                n = (flags >>> 3) & 7;
+                m = NUMBER_RETURN_MAP[n][flags & 7];
+                l = NUMBER_RETURN_LEVEL[n][flags & 7];
+            }
+
+            int single = n == 1 ? 1 : 0;
+            int diff = icDx.decompress(lastXDiff[m].get(), single);
+            x += diff;
+            lastXDiff[m].add(diff);
+
+            int kBits = icDx.getK();
+            diff = icDy.decompress(lastYDiff[m].get(), single + (kBits < 20 ? kBits & ~1 : 20));
+            y += diff;
+            lastYDiff[m].add(diff);
+
+            kBits = (icDx.getK() + icDy.getK()) / 2;
+            z = icZ.decompress(lastHeight[l], single + (kBits < 18 ? kBits & ~1 : 18));
+            lastHeight[l] = z;
+
+            out.putInt(position, x);
+            out.putInt(position + 4, y);
+            out.putInt(position + 8, z);
+            out.putShort(position + 12, (short) intensity);
+            out.put(position + 14, (byte) flags);
+            out.put(position + 15, (byte) classification);
+            out.put(position + 16, (byte) scanAngle);
+            out.put(position + 17, (byte) userData);
+            out.putShort(position + 18, (short) pointSourceId);
+        }
+
+        private static LAZArithmeticDecoder.SymbolModel model(LAZArithmeticDecoder.SymbolModel[] models, int context) {
+            LAZArithmeticDecoder.SymbolModel m = models[context];
+            if (m == null) {
+                m = models[context] = new LAZArithmeticDecoder.SymbolModel(256);
+            }
+            return m;
+        }
+    }
+
+    /**
+     * GPSTIME11 v2：按 double 的位模式做整数差分，最多同时跟踪 4 条时间序列
+     */
+    private static final class GpsTime11Decoder implements ItemDecoder {
+        private static final int MULTI = 500;
+        private static final int MULTI_MINUS = -10;
+        private static final int MULTI_UNCHANGED = MULTI - MULTI_MINUS + 1;
+        private static final int MULTI_CODE_FULL = MULTI - MULTI_MINUS + 2;
+        private static final int MULTI_TOTAL = MULTI - MULTI_MINUS + 6;
+
+        private final LAZArithmeticDecoder dec;
+        private final LAZArithmeticDecoder.SymbolModel mMulti = new LAZArithmeticDecoder.SymbolModel(MULTI_TOTAL);
+        private final LAZArithmeticDecoder.SymbolModel m0Diff = new LAZArithmeticDecoder.SymbolModel(6);
+        private final LAZArithmeticDecoder.IntegerDecompressor icGpsTime;
+        private final long[] lastGpsTime = new long[4];
+        private final int[] lastDiff = new int[4];
+        private final int[] multiExtremeCounter = new int[4];
+        private int last;
+        private int next;
+
+        GpsTime11Decoder(LAZArithmeticDecoder dec, ByteBuffer seed, int position) {
+            this.dec = dec;
+            this.icGpsTime = new LAZArithmeticDecoder.IntegerDecompressor(dec, 32, 9);
+            lastGpsTime[0] = seed.getLong(position);
+        }
+
+        @Override
+        public void decode(ByteBuffer out, int position) {
+            decodeNext();
+            out.putLong(position, lastGpsTime[last]);
+        }
+
+        private void decodeNext() {
+            if (lastDiff[last] == 0) {
+                int multi = dec.decodeSymbol(m0Diff);
+                if (multi == 1) {
+                    lastDiff[last] = icGpsTime.decompress(0, 0);
+                    lastGpsTime[last] += lastDiff[last];
+                    multiExtremeCounter[last] = 0;
+                } else if (multi == 2) {
+                    readFullTime();
+                } else if (multi > 2) {
+                    last = (last + multi - 2) & 3;
+                    decodeNext();
+                }
+                return;
+            }
+
+            int multi = dec.decodeSymbol(mMulti);
+            if (multi == 1) {
+                lastGpsTime[last] += icGpsTime.decompress(lastDiff[last], 1);
+                multiExtremeCounter[last] = 0;
+            } else if (multi < MULTI_UNCHANGED) {
+                int diff;
+                if (multi == 0) {
+                    diff = icGpsTime.decompress(0, 7);
+                    countExtreme(diff);
+                } else if (multi < MULTI) {
+                    diff = icGpsTime.decompress(multi * lastDiff[last], multi < 10 ? 2 : 3);
+                } else if (multi == MULTI) {
+                    diff = icGpsTime.decompress(MULTI * lastDiff[last], 4);
+                    countExtreme(diff);
+                } else {
+                    multi = MULTI - multi;
+                    if (multi > MULTI_MINUS) {
+                        diff = icGpsTime.decompress(multi * lastDiff[last], 5);
+                    } else {
+                        diff = icGpsTime.decompress(MULTI_MINUS * lastDiff[last], 6);
+                        countExtreme(diff);
+                    }
+                }
+                lastGpsTime[last] += diff;
+            } else if (multi == MULTI_CODE_FULL) {
+                readFullTime();
+            } else if (multi > MULTI_CODE_FULL) {
+                last = (last + multi - MULTI_CODE_FULL) & 3;
+                decodeNext();
+            }
+        }
+
+        /** 连续多次出现极端差分时，改用它作为新的参考差分 */
+        private void countExtreme(int diff) {
+            if (++multiExtremeCounter[last] > 3) {
+                lastDiff[last] = diff;
+                multiExtremeCounter[last] = 0;
+            }
+        }
+
+        /** 跳变过大时完整存储：高 32 位按上一值预测，低 32 位原样 */
+        private void readFullTime() {
+            next = (next + 1) & 3;
+            long high = icGpsTime.decompress((int) (lastGpsTime[last] >>> 32), 8);
+            lastGpsTime[next] = (high << 32) | Integer.toUnsignedLong(dec.readInt());
+            last = next;
+            lastDiff[last] = 0;
+            multiExtremeCounter[last] = 0;
+        }
+    }
+
+    /**
+     * RGB12 v2：按字节差分，G/B 以 R 的变化量为预测
+     */
+    private static final class Rgb12Decoder implements ItemDecoder {
+        private final LAZArithmeticDecoder dec;
+        private final LAZArithmeticDecoder.SymbolModel byteUsed = new LAZArithmeticDecoder.SymbolModel(128);
+        private final LAZArithmeticDecoder.SymbolModel[] diff = new LAZArithmeticDecoder.SymbolModel[6];
+        private int r, g, b;
+
+        Rgb12Decoder(LAZArithmeticDecoder dec, ByteBuffer seed, int position) {
+            this.dec = dec;
+            for (int i = 0; i < diff.length; i++) {
+                diff[i] = new LAZArithmeticDecoder.SymbolModel(256);
+            }
+            r = seed.getShort(position) & 0xFFFF;
+            g = seed.getShort(position + 2) & 0xFFFF;
+            b = seed.getShort(position + 4) & 0xFFFF;
+        }
+
+        @Override
+        public void decode(ByteBuffer out, int position) {
+            int sym = dec.decodeSymbol(byteUsed);
+            int nr, ng, nb;
+            nr = (sym & 1) != 0 ? fold(dec.decodeSymbol(diff[0]) + (r & 0xFF)) : r & 0xFF;
+            nr |= (sym & 2) != 0 ? fold(dec.decodeSymbol(diff[1]) + (r >>> 8)) << 8 : r & 0xFF00;
+            if ((sym & 0x40) != 0) {
+                int d = (nr & 0xFF) - (r & 0xFF);
+                ng = (sym & 4) != 0 ? fold(dec.decodeSymbol(diff[2]) + clamp(d + (g & 0xFF))) : g & 0xFF;
+                if ((sym & 0x10) != 0) {
+                    d = (d + (ng & 0xFF) - (g & 0xFF)) / 2;
+                    nb = fold(dec.decodeSymbol(diff[4]) + clamp(d + (b & 0xFF)));
+                } else {
+                    nb = b & 0xFF;
+                }
+                d = (nr >>> 8) - (r >>> 8);
+                ng |= (sym & 8) != 0 ? fold(dec.decodeSymbol(diff[3]) + clamp(d + (g >>> 8))) << 8 : g & 0xFF00;
+                if ((sym & 0x20) != 0) {
+                    d = (d + (ng >>> 8) - (g >>> 8)) / 2;
+                    nb |= fold(dec.decodeSymbol(diff[5]) + clamp(d + (b >>> 8))) << 8;
+                } else {
+                    nb |= b & 0xFF00;
+                }
+            } else {
+                ng = nr;
+                nb = nr;
+            }
+            r = nr;
+            g = ng;
+            b = nb;
+            out.putShort(position, (short) r);
+            out.putShort(position + 2, (short) g);
+            out.putShort(position + 4, (short) b);
+        }
+
+        private static int fold(int v) {
+            return v & 0xFF;
+        }
+
+        private static int clamp(int v) {
+            return v < 0 ? 0 : Math.min(v, 255);
+        }
+    }
+
+    /**
+     * BYTE v2：额外字节逐字节差分
+     */
+    private static final class ByteDecoder implements ItemDecoder {
+        private final LAZArithmeticDecoder dec;
+        private final LAZArithmeticDecoder.SymbolModel[] models;
+        private final byte[] last;
+
+        ByteDecoder(LAZArithmeticDecoder dec, ByteBuffer seed, int position, int size) {
+            this.dec = dec;
+            this.models = new LAZArithmeticDecoder.SymbolModel[size];
+            this.last = new byte[size];
+            for (int i = 0; i < size; i++) {
+                models[i] = new LAZArithmeticDecoder.SymbolModel(256);
+                last[i] = seed.get(position + i);
+            }
+        }
+
+        @Override
+        public void decode(ByteBuffer out, int position) {
+            for (int i = 0; i < last.length; i++) {
+                last[i] = (byte) (last[i] + dec.decodeSymbol(models[i]));
+                out.put(position + i, last[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.mi.project.util;
+
+import java.util.Arrays;
+
+/**
+ * 非负 long 键 → 编号的开放寻址（线性探测）哈希表，编号按插入顺序从 0 递增，
+ * 用于体素、网格单元等打包坐标的去重和编号，不装箱、不为每个键创建对象。
+ * -1 表示空槽；负载因子不超过 0.5，超过后容量翻倍
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class LongSlotTable {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    LongSlotTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * 返回键的编号，不存在时返回 -1
+     */
+    int get(long key) {
+        int i = hash(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                return slots[i];
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 返回已有键的编号；键不存在时插入并返回 ~新编号（负数）
+     */
+    int insert(long key) {
+        int i = hash(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                return slots[i];
+            }
+            if (k == EMPTY) {
+                keys[i] = key;
+                slots[i] = size;
+                if (++size * 2 > keys.length) {
+                    rehash();
+                }
+                return ~(size - 1);
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[oldKeys.length * 2];
+        slots = new int[keys.length];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == EMPTY) continue;
+            int i = hash(k) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = k;
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    /** MurmurHash3 的 64 位混合函数，打散相邻坐标的键 */
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
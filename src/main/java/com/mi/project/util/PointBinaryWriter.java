@@ -0,0 +1,340 @@
+package com.mi.project.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 点云二进制传输格式写出工具（与 JSON 输出并存）
+ * 一帧 = 固定长度帧头 + 按列紧密排列的小端数组，前端可直接用 TypedArray 视图读取，无需解析：
+ * <pre>
+ * 偏移  长度  内容
+ *   0    4   魔数 "MIPC"
+ *   4    1   版本号（1）
+ *   5    1   坐标编码：0=float32，1=int16，2=int32
+ *   6    1   属性位：1=强度 uint16，2=分类 uint8
+ *   7    1   保留
+ *   8    2   帧头长度（112），数据区起始偏移
+ *  10    2   保留
+ *  12    4   点数 uint32
+ *  16   24   中心点 float64[3]
+ *  40   24   缩放因子 float64[3]，实际坐标 = 中心点 + 存储值 × 缩放因子
+ *  64   24   包围盒最小值 float64[3]
+ *  88   24   包围盒最大值 float64[3]
+ * 112    -   坐标 [x,y,z]×点数，之后依次为强度数组、分类数组（按属性位出现）
+ * </pre>
+ * 帧头长度为 8 的倍数，坐标区与强度区的偏移均满足对应 TypedArray 的对齐要求。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+public final class PointBinaryWriter {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 112;
+
+    public static final int ATTR_INTENSITY = 1;
+
+    public static final int ATTR_CLASSIFICATION = 2;
+
+    public static final int ATTR_ALL = ATTR_INTENSITY | ATTR_CLASSIFICATION;
+
+    private static final byte[] MAGIC = {'M', 'I', 'P', 'C'};
+
+    /** 单帧点数上限（帧头点数字段为 uint32） */
+    private static final long MAX_FRAME_POINTS = 0xFFFFFFFFL;
+
+    /** 写出缓冲区大小 */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * 坐标编码方式
+     */
+    public enum PositionEncoding {
+        /** 相对中心点的 float32，缩放因子为 1 */
+        FLOAT32(0, 4),
+        /** 相对中心点按包围盒量化到 int16，每点 6 字节 */
+        INT16(1, 2),
+        /** 相对中心点量化到 int32，默认沿用 LAS 的缩放因子，精度与源数据相同 */
+        INT32(2, 4);
+
+        private final int code;
+        private final int bytes;
+
+        PositionEncoding(int code, int bytes) {
+            this.code = code;
+            this.bytes = bytes;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        /** 每个坐标分量占用的字节数 */
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * 帧参数：点数、编码、属性位以及量化用的中心点和缩放因子
+     */
+    static final class Frame {
+        final PositionEncoding encoding;
+        final int attributes;
+        final long count;
+        final LASToJsonUtil.BoundingBox bounds;
+        final double centerX, centerY, centerZ;
+        final double scaleX, scaleY, scaleZ;
+
+        private Frame(PositionEncoding encoding, int attributes, long count, LASToJsonUtil.BoundingBox bounds,
+                      double scaleX, double scaleY, double scaleZ) {
+            this.encoding = encoding;
+            this.attributes = attributes;
+            this.count = count;
+            this.bounds = bounds;
+            this.centerX = bounds.centerX;
+            this.centerY = bounds.centerY;
+            this.centerZ = bounds.centerZ;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.scaleZ = scaleZ;
+        }
+
+        /**
+         * @param sourceScaleX 源数据的量化精度（LAS 头部缩放因子），仅 INT32 编码使用
+         */
+        static Frame of(PositionEncoding encoding, int attributes, long count, LASToJsonUtil.BoundingBox bounds,
+                        double sourceScaleX, double sourceScaleY, double sourceScaleZ) {
+            if (count < 0 || count > MAX_FRAME_POINTS) {
+                throw new IllegalArgumentException("单帧点数超出范围: " + count);
+            }
+            double halfX = Math.max(bounds.maxX - bounds.centerX, bounds.centerX - bounds.minX);
+            double halfY = Math.max(bounds.maxY - bounds.centerY, bounds.centerY - bounds.minY);
+            double halfZ = Math.max(bounds.maxZ - bounds.centerZ, bounds.centerZ - bounds.minZ);
+            return switch (encoding) {
+                case FLOAT32 -> new Frame(encoding, attributes, count, bounds, 1.0, 1.0, 1.0);
+                case INT16 -> new Frame(encoding, attributes, count, bounds,
+                        quantizationScale(halfX, Short.MAX_VALUE, 0),
+                        quantizationScale(halfY, Short.MAX_VALUE, 0),
+                        quantizationScale(halfZ, Short.MAX_VALUE, 0));
+                case INT32 -> new Frame(encoding, attributes, count, bounds,
+                        quantizationScale(halfX, Integer.MAX_VALUE, sourceScaleX),
+                        quantizationScale(halfY, Integer.MAX_VALUE, sourceScaleY),
+                        quantizationScale(halfZ, Integer.MAX_VALUE, sourceScaleZ));
+            };
+        }
+
+        /**
+         * 取 preferred 和"半径刚好映射到 maxValue"两者中较粗的精度，保证不溢出
+         */
+        private static double quantizationScale(double halfRange, int maxValue, double preferred) {
+            double scale = Math.max(preferred, halfRange / maxValue);
+            return scale > 0 ? scale : 1.0;
+        }
+
+        long byteSize() {
+            long perPoint = 3L * encoding.bytes;
+            if ((attributes & ATTR_INTENSITY) != 0) perPoint += 2;
+            if ((attributes & ATTR_CLASSIFICATION) != 0) perPoint += 1;
+            return HEADER_BYTES + count * perPoint;
+        }
+    }
+
+    /**
+     * 带缓冲的小端帧输出，按 帧头 → 坐标 → 强度 → 分类 的顺序写入
+     */
+    static final class FrameOutput {
+        private final OutputStream out;
+        private final Frame frame;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        FrameOutput(OutputStream out, Frame frame) {
+            this.out = out;
+            this.frame = frame;
+        }
+
+        void writeHeader() throws IOException {
+            ensure(HEADER_BYTES);
+            LASToJsonUtil.BoundingBox b = frame.bounds;
+            buffer.put(MAGIC);
+            buffer.put((byte) VERSION);
+            buffer.put((byte) frame.encoding.code);
+            buffer.put((byte) frame.attributes);
+            buffer.put((byte) 0);
+            buffer.putShort((short) HEADER_BYTES);
+            buffer.putShort((short) 0);
+            buffer.putInt((int) frame.count);
+            buffer.putDouble(frame.centerX).putDouble(frame.centerY).putDouble(frame.centerZ);
+            buffer.putDouble(frame.scaleX).putDouble(frame.scaleY).putDouble(frame.scaleZ);
+            buffer.putDouble(b.minX).putDouble(b.minY).putDouble(b.minZ);
+            buffer.putDouble(b.maxX).putDouble(b.maxY).putDouble(b.maxZ);
+        }
+
+        void position(double x, double y, double z) throws IOException {
+            ensure(12);
+            double dx = x - frame.centerX, dy = y - frame.centerY, dz = z - frame.centerZ;
+            switch (frame.encoding) {
+                case FLOAT32 -> buffer.putFloat((float) dx).putFloat((float) dy).putFloat((float) dz);
+                case INT16 -> buffer.putShort((short) quantize(dx / frame.scaleX, Short.MIN_VALUE, Short.MAX_VALUE))
+                        .putShort((short) quantize(dy / frame.scaleY, Short.MIN_VALUE, Short.MAX_VALUE))
+                        .putShort((short) quantize(dz / frame.scaleZ, Short.MIN_VALUE, Short.MAX_VALUE));
+                case INT32 -> buffer.putInt((int) quantize(dx / frame.scaleX, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                        .putInt((int) quantize(dy / frame.scaleY, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                        .putInt((int) quantize(dz / frame.scaleZ, Integer.MIN_VALUE, Integer.MAX_VALUE));
+            }
+        }
+
+        void intensity(int intensity) throws IOException {
+            ensure(2);
+            buffer.putShort((short) intensity);
+        }
+
+        void classification(int classification) throws IOException {
+            ensure(1);
+            buffer.put((byte) classification);
+        }
+
+        /**
+         * 把暂存的一列属性原样追加到帧中
+         */
+        void append(ColumnSpill column) throws IOException {
+            column.finish();
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+            Files.copy(column.file, out);
+        }
+
+        void flush() throws IOException {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+            out.flush();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+
+        private static long quantize(double value, long min, long max) {
+            return Math.max(min, Math.min(max, Math.round(value)));
+        }
+    }
+
+    /**
+     * 单遍写出时暂存一列属性（强度或分类）的临时文件，坐标列写完后由 {@link FrameOutput#append} 追加，关闭时删除
+     */
+    static final class ColumnSpill implements Closeable {
+        private final Path file;
+        private final OutputStream out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        ColumnSpill() throws IOException {
+            this.file = Files.createTempFile("point-column-", ".bin");
+            try {
+                this.out = Files.newOutputStream(file);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        }
+
+        void putShort(int value) throws IOException {
+            ensure(2);
+            buffer.putShort((short) value);
+        }
+
+        void put(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        private void finish() throws IOException {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+            out.flush();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private PointBinaryWriter() {
+    }
+
+    /**
+     * 编码为单个二进制帧（如 WebSocket BinaryMessage），坐标以 bounds 的中心为原点
+     */
+    public static byte[] encode(PointColumns points, PositionEncoding encoding,
+                                LASToJsonUtil.BoundingBox bounds, int attributes) throws IOException {
+        Frame frame = frameFor(points, encoding, bounds, attributes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, frame.byteSize()));
+        write(out, points, frame);
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(PointColumns points, PositionEncoding encoding,
+                                LASToJsonUtil.BoundingBox bounds) throws IOException {
+        return encode(points, encoding, bounds, ATTR_ALL);
+    }
+
+    /**
+     * 将点写成一个二进制帧到输出流（不关闭输出流）
+     */
+    public static void write(OutputStream out, PointColumns points, PositionEncoding encoding,
+                             LASToJsonUtil.BoundingBox bounds, int attributes) throws IOException {
+        write(out, points, frameFor(points, encoding, bounds, attributes));
+    }
+
+    private static Frame frameFor(PointColumns points, PositionEncoding encoding,
+                                  LASToJsonUtil.BoundingBox bounds, int attributes) {
+        if (bounds == null) {
+            bounds = new LASToJsonUtil.BoundingBox(points);
+        }
+        return Frame.of(encoding, attributes, points.size(), bounds,
+                points.getScaleX(), points.getScaleY(), points.getScaleZ());
+    }
+
+    private static void write(OutputStream out, PointColumns points, Frame frame) throws IOException {
+        FrameOutput output = new FrameOutput(out, frame);
+        output.writeHeader();
+        int n = points.size();
+        for (int i = 0; i < n; i++) {
+            output.position(points.getX(i), points.getY(i), points.getZ(i));
+        }
+        if ((frame.attributes & ATTR_INTENSITY) != 0) {
+            for (int i = 0; i < n; i++) {
+                output.intensity(points.getIntensity(i));
+            }
+        }
+        if ((frame.attributes & ATTR_CLASSIFICATION) != 0) {
+            for (int i = 0; i < n; i++) {
+                output.classification(points.getClassification(i));
+            }
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,326 @@
+package com.mi.project.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 列式点云缓冲区（struct-of-arrays）
+ * 坐标按 LAS 相同的量化方式以 int 存储（实际坐标 = 偏移量 + 整数值 × 缩放因子），
+ * 强度为 char（uint16），分类为 byte（uint8），每点 15 字节，替代每点一个 LASPoint 对象的 List 结构。
+ * 支持自动扩容，可选使用堆外内存（DirectByteBuffer）。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+public class PointColumns {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /** 堆外 int 列按字节分配，容量受 ByteBuffer 上限约束 */
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - 8) / 4;
+
+    /** 默认量化精度（1mm），用于非 LAS 来源的点 */
+    public static final double DEFAULT_SCALE = 0.001;
+
+    /** 每点占用字节数：xyz 各 4 字节 + 强度 2 字节 + 分类 1 字节 */
+    public static final int BYTES_PER_POINT = 4 * 3 + 2 + 1;
+
+    private final double offsetX, offsetY, offsetZ;
+    private final double scaleX, scaleY, scaleZ;
+    private final boolean offHeap;
+    private int size;
+    private int capacity;
+
+    // 堆内存储
+    private int[] xs, ys, zs;
+    private char[] intensities;
+    private byte[] classifications;
+
+    // 堆外存储
+    private IntBuffer directXs, directYs, directZs;
+    private CharBuffer directIntensities;
+    private ByteBuffer directClassifications;
+
+    /**
+     * @param initialCapacity 初始容量，不超过 (Integer.MAX_VALUE - 8) / 4
+     * @param scaleX X缩放因子，读取LAS时直接使用头部的缩放因子即可无损保存
+     * @param scaleY Y缩放因子
+     * @param scaleZ Z缩放因子
+     * @param offsetX X偏移量，读取LAS时直接使用头部的偏移量
+     * @param offsetY Y偏移量
+     * @param offsetZ Z偏移量
+     * @param offHeap 是否使用堆外内存
+     */
+    public PointColumns(int initialCapacity, double scaleX, double scaleY, double scaleZ,
+                        double offsetX, double offsetY, double offsetZ, boolean offHeap) {
+        if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("列式缓冲区初始容量超出范围: " + initialCapacity);
+        }
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.scaleZ = scaleZ;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.offsetZ = offsetZ;
+        this.offHeap = offHeap;
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    /**
+     * 以默认精度（1mm）创建，偏移量应取点云范围内的值
+     */
+    public PointColumns(double offsetX, double offsetY, double offsetZ) {
+        this(DEFAULT_CAPACITY, DEFAULT_SCALE, DEFAULT_SCALE, DEFAULT_SCALE, offsetX, offsetY, offsetZ, false);
+    }
+
+    /**
+     * 创建与 template 量化参数、存储方式相同的空缓冲区
+     */
+    public static PointColumns like(PointColumns template, int initialCapacity) {
+        return new PointColumns(initialCapacity, template.scaleX, template.scaleY, template.scaleZ,
+                template.offsetX, template.offsetY, template.offsetZ, template.offHeap);
+    }
+
+    // ================================ 写入 ================================
+
+    public void add(double x, double y, double z, int intensity, int classification) {
+        if (size == capacity) {
+            grow(size + 1);
+        }
+        set(size++, x, y, z, intensity, classification);
+    }
+
+    /**
+     * 追加已按本缓冲区参数量化的整数坐标
+     */
+    public void addRaw(int rawX, int rawY, int rawZ, int intensity, int classification) {
+        if (size == capacity) {
+            grow(size + 1);
+        }
+        setRaw(size++, rawX, rawY, rawZ, intensity, classification);
+    }
+
+    /**
+     * 追加另一个缓冲区中的第 index 个点
+     */
+    public void add(PointColumns source, int index) {
+        if (source.scaleX == scaleX && source.scaleY == scaleY && source.scaleZ == scaleZ
+                && source.offsetX == offsetX && source.offsetY == offsetY && source.offsetZ == offsetZ) {
+            addRaw(source.getRawX(index), source.getRawY(index), source.getRawZ(index),
+                    source.getIntensity(index), source.getClassification(index));
+        } else {
+            add(source.getX(index), source.getY(index), source.getZ(index),
+                    source.getIntensity(index), source.getClassification(index));
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 直接将 size 设置为 newSize，必要时扩容，新增位置的内容由调用方通过 setRaw 填充
+     */
+    void resize(int newSize) {
+        if (newSize > capacity) {
+            grow(newSize);
+        }
+        size = newSize;
+    }
+
+    /**
+     * 覆盖写入第 i 个点（不改变 size），坐标按本缓冲区参数量化
+     */
+    void set(int i, double x, double y, double z, int intensity, int classification) {
+        setRaw(i, (int) Math.round((x - offsetX) / scaleX),
+                (int) Math.round((y - offsetY) / scaleY),
+                (int) Math.round((z - offsetZ) / scaleZ),
+                intensity, classification);
+    }
+
+    /**
+     * 覆盖写入第 i 个点（不改变 size），不同线程写入互不重叠的下标是安全的
+     */
+    void setRaw(int i, int rawX, int rawY, int rawZ, int intensity, int classification) {
+        if (offHeap) {
+            directXs.put(i, rawX);
+            directYs.put(i, rawY);
+            directZs.put(i, rawZ);
+            directIntensities.put(i, (char) intensity);
+            directClassifications.put(i, (byte) classification);
+        } else {
+            xs[i] = rawX;
+            ys[i] = rawY;
+            zs[i] = rawZ;
+            intensities[i] = (char) intensity;
+            classifications[i] = (byte) classification;
+        }
+    }
+
+    // ================================ 读取 ================================
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public double getScaleX() { return scaleX; }
+    public double getScaleY() { return scaleY; }
+    public double getScaleZ() { return scaleZ; }
+    public double getOffsetX() { return offsetX; }
+    public double getOffsetY() { return offsetY; }
+    public double getOffsetZ() { return offsetZ; }
+
+    public int getRawX(int i) {
+        return offHeap ? directXs.get(i) : xs[i];
+    }
+
+    public int getRawY(int i) {
+        return offHeap ? directYs.get(i) : ys[i];
+    }
+
+    public int getRawZ(int i) {
+        return offHeap ? directZs.get(i) : zs[i];
+    }
+
+    public double getX(int i) {
+        return getRawX(i) * scaleX + offsetX;
+    }
+
+    public double getY(int i) {
+        return getRawY(i) * scaleY + offsetY;
+    }
+
+    public double getZ(int i) {
+        return getRawZ(i) * scaleZ + offsetZ;
+    }
+
+    public int getIntensity(int i) {
+        return offHeap ? directIntensities.get(i) : intensities[i];
+    }
+
+    public int getClassification(int i) {
+        return (offHeap ? directClassifications.get(i) : classifications[i]) & 0xFF;
+    }
+
+    // ================================ 派生 ================================
+
+    /**
+     * 按索引数组选取子集，保持索引顺序
+     */
+    public PointColumns select(int[] indices, int count) {
+        PointColumns result = like(this, count);
+        for (int k = 0; k < count; k++) {
+            result.add(this, indices[k]);
+        }
+        return result;
+    }
+
+    /**
+     * 复制 [from, to) 范围内的点
+     */
+    public PointColumns range(int from, int to) {
+        PointColumns result = like(this, to - from);
+        for (int i = from; i < to; i++) {
+            result.add(this, i);
+        }
+        return result;
+    }
+
+    /**
+     * 按分类值过滤，分类集合用 256 位掩码判断；与 {@link ClassificationMask#of} 一致，null 或空数组表示全部分类
+     */
+    public PointColumns filterByClassification(int[] classificationValues) {
+        ClassificationMask mask = ClassificationMask.of(classificationValues);
+        if (mask == null) {
+            return range(0, size);
+        }
+        int matched = 0;
+        for (int i = 0; i < size; i++) {
+            if (mask.matches(getClassification(i))) matched++;
+        }
+        PointColumns result = like(this, matched);
+        for (int i = 0; i < size; i++) {
+            if (mask.matches(getClassification(i))) result.add(this, i);
+        }
+        return result;
+    }
+
+    /**
+     * 统计各分类点数
+     */
+    public Map<Integer, Integer> classificationStats() {
+        int[] counts = new int[256];
+        for (int i = 0; i < size; i++) {
+            counts[getClassification(i)]++;
+        }
+        Map<Integer, Integer> stats = new HashMap<>();
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) stats.put(c, counts[c]);
+        }
+        return stats;
+    }
+
+    /**
+     * 当前数据占用字节数（不含未使用容量）
+     */
+    public long memoryBytes() {
+        return (long) size * BYTES_PER_POINT;
+    }
+
+    // ================================ 容量管理 ================================
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        if (offHeap) {
+            directXs = ByteBuffer.allocateDirect(newCapacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            directYs = ByteBuffer.allocateDirect(newCapacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            directZs = ByteBuffer.allocateDirect(newCapacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            directIntensities = ByteBuffer.allocateDirect(newCapacity * 2).order(ByteOrder.nativeOrder()).asCharBuffer();
+            directClassifications = ByteBuffer.allocateDirect(newCapacity);
+        } else {
+            xs = new int[newCapacity];
+            ys = new int[newCapacity];
+            zs = new int[newCapacity];
+            intensities = new char[newCapacity];
+            classifications = new byte[newCapacity];
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("点数超过列式缓冲区容量上限: " + minCapacity);
+        }
+        int newCapacity = (int) Math.min(MAX_CAPACITY, Math.max(minCapacity, capacity + (long) (capacity >> 1)));
+        if (offHeap) {
+            IntBuffer oldXs = directXs, oldYs = directYs, oldZs = directZs;
+            CharBuffer oldIntensities = directIntensities;
+            ByteBuffer oldClassifications = directClassifications;
+            allocate(newCapacity);
+            directXs.put(oldXs.position(0).limit(size)).clear();
+            directYs.put(oldYs.position(0).limit(size)).clear();
+            directZs.put(oldZs.position(0).limit(size)).clear();
+            directIntensities.put(oldIntensities.position(0).limit(size)).clear();
+            directClassifications.put(oldClassifications.position(0).limit(size)).clear();
+        } else {
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            zs = Arrays.copyOf(zs, newCapacity);
+            intensities = Arrays.copyOf(intensities, newCapacity);
+            classifications = Arrays.copyOf(classifications, newCapacity);
+            capacity = newCapacity;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.mi.project.util;
+
+import java.util.Arrays;
+
+/**
+ * 三维点的均匀网格索引，用于固定半径邻域查询和（第 k）最近邻查询
+ * 点按网格编号做计数排序，每个网格的点在 cellPoints 中连续存放；
+ * 网格坐标各占 21 位打包成 long，由 {@link LongSlotTable} 映射到网格序号。
+ * 建好后只读，多个线程可以同时查询（各自使用自己的 {@link Neighbors}）。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class PointGrid {
+
+    private static final int CELL_BITS = 21;
+
+    /** 网格坐标上限，两侧各留一格，使 ±1 的相邻网格坐标不越界 */
+    private static final long MAX_CELL = (1L << CELL_BITS) - 2;
+
+    private final double[] xs, ys, zs;
+    private final double minX, minY, minZ;
+    private final double cellSize;
+    private final LongSlotTable cellTable;
+    private final int[] cellStart;
+    private final int[] cellPoints;
+
+    /**
+     * 邻域查询结果缓冲区，按需扩容，可在多次查询间复用
+     */
+    static final class Neighbors {
+        int[] indices = new int[32];
+        int count;
+
+        void add(int index) {
+            if (count == indices.length) {
+                indices = Arrays.copyOf(indices, count * 2);
+            }
+            indices[count++] = index;
+        }
+    }
+
+    /**
+     * @param cellSize 网格边长，半径查询在半径不超过边长时只需检查 27 个相邻网格
+     */
+    PointGrid(double[] xs, double[] ys, double[] zs, double cellSize) {
+        int n = xs.length;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            x0 = Math.min(x0, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            z0 = Math.min(z0, zs[i]);
+            x1 = Math.max(x1, xs[i]);
+            y1 = Math.max(y1, ys[i]);
+            z1 = Math.max(z1, zs[i]);
+        }
+        this.minX = n == 0 ? 0 : x0;
+        this.minY = n == 0 ? 0 : y0;
+        this.minZ = n == 0 ? 0 : z0;
+        double extent = n == 0 ? 0 : Math.max(x1 - x0, Math.max(y1 - y0, z1 - z0));
+        // 跨度过大时放大边长，保证网格坐标不超过 21 位
+        double size = Math.max(cellSize, extent / (MAX_CELL - 1));
+        this.cellSize = size > 0 ? size : 1;
+
+        cellTable = new LongSlotTable(Math.min(n, 1 << 16));
+        int[] cellOf = new int[n];
+        int[] counts = new int[16];
+        for (int i = 0; i < n; i++) {
+            int cell = cellTable.insert(key(cellX(xs[i]), cellY(ys[i]), cellZ(zs[i])));
+            if (cell < 0) {
+                cell = ~cell;
+                if (cell == counts.length) counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            cellOf[i] = cell;
+            counts[cell]++;
+        }
+        int cells = cellTable.size();
+        cellStart = new int[cells + 1];
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] = cellStart[c] + counts[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        cellPoints = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellPoints[fill[cellOf[i]]++] = i;
+        }
+    }
+
+    int size() {
+        return xs.length;
+    }
+
+    /**
+     * 查找与 (x, y, z) 距离不超过 radius 的所有点（含距离为 0 的点），结果写入 out
+     */
+    void within(double x, double y, double z, double radius, Neighbors out) {
+        out.count = 0;
+        if (!(radius >= 0)) {
+            return;
+        }
+        double r2 = radius * radius;
+        long reach = (long) Math.ceil(radius / cellSize);
+        long cx = cellX(x), cy = cellY(y), cz = cellZ(z);
+        for (long i = Math.max(1, cx - reach); i <= Math.min(MAX_CELL, cx + reach); i++) {
+            for (long j = Math.max(1, cy - reach); j <= Math.min(MAX_CELL, cy + reach); j++) {
+                for (long k = Math.max(1, cz - reach); k <= Math.min(MAX_CELL, cz + reach); k++) {
+                    int cell = cellTable.get(key(i, j, k));
+                    if (cell < 0) continue;
+                    for (int p = cellStart[cell], end = cellStart[cell + 1]; p < end; p++) {
+                        int idx = cellPoints[p];
+                        if (distance2(idx, x, y, z) <= r2) {
+                            out.add(idx);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 第 index 个点到其余点中最近点的距离，只有一个点时返回 NaN
+     */
+    double nearestDistance(int index) {
+        return kthNearestDistance(index, 1);
+    }
+
+    /**
+     * 第 index 个点到其余点中第 k 近的点的距离（不含自身，与 sklearn kneighbors 的第 k+1 列一致），
+     * 其余点不足 k 个时返回 NaN
+     */
+    double kthNearestDistance(int index, int k) {
+        if (k < 1 || k >= xs.length) {
+            return Double.NaN;
+        }
+        double[] best2 = new double[k];
+        nearest(index, best2);
+        return Math.sqrt(best2[k - 1]);
+    }
+
+    /**
+     * 第 index 个点到其余点中最近 k 个点的平均距离（与 cKDTree.query(k+1) 去掉第一列后的均值一致），
+     * 其余点不足 k 个时返回 NaN
+     */
+    double meanNearestDistance(int index, int k) {
+        if (k < 1 || k >= xs.length) {
+            return Double.NaN;
+        }
+        double[] best2 = new double[k];
+        nearest(index, best2);
+        double sum = 0;
+        for (double d2 : best2) {
+            sum += Math.sqrt(d2);
+        }
+        return sum / k;
+    }
+
+    /**
+     * 把第 index 个点到其余点中最近的 best2.length 个距离平方按升序写入 best2
+     * 从所在网格逐圈向外搜索，已找到的第 k 近距离不大于下一圈的最近可能距离时停止；
+     * 要检查的网格数超过点数时（孤立点）改为直接扫描全部点
+     */
+    private void nearest(int index, double[] best2) {
+        int k = best2.length;
+        double x = xs[index], y = ys[index], z = zs[index];
+        long cx = cellX(x), cy = cellY(y), cz = cellZ(z);
+        Arrays.fill(best2, Double.POSITIVE_INFINITY);
+        for (long ring = 0; ; ring++) {
+            if (best2[k - 1] <= sq(Math.max(0, ring - 1) * cellSize)) {
+                break;
+            }
+            long side = 2 * ring + 1;
+            if (side * side * side > xs.length) {
+                Arrays.fill(best2, Double.POSITIVE_INFINITY);
+                for (int idx = 0; idx < xs.length; idx++) {
+                    if (idx != index) offer(best2, distance2(idx, x, y, z));
+                }
+                break;
+            }
+            for (long i = cx - ring; i <= cx + ring; i++) {
+                for (long j = cy - ring; j <= cy + ring; j++) {
+                    // 不在 i/j 两个方向的外圈上时，只有 k 方向的两端属于本圈
+                    boolean shell = i == cx - ring || i == cx + ring || j == cy - ring || j == cy + ring;
+                    for (long l = cz - ring; l <= cz + ring; l += shell ? 1 : Math.max(1, 2 * ring)) {
+                        if (i < 1 || j < 1 || l < 1 || i > MAX_CELL || j > MAX_CELL || l > MAX_CELL) continue;
+                        int cell = cellTable.get(key(i, j, l));
+                        if (cell < 0) continue;
+                        for (int p = cellStart[cell], end = cellStart[cell + 1]; p < end; p++) {
+                            int idx = cellPoints[p];
+                            if (idx != index) offer(best2, distance2(idx, x, y, z));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 把距离平方插入升序的定长数组，超出长度的最大值被丢弃
+     */
+    private static void offer(double[] best2, double d2) {
+        int last = best2.length - 1;
+        if (d2 >= best2[last]) {
+            return;
+        }
+        int p = last;
+        while (p > 0 && best2[p - 1] > d2) {
+            best2[p] = best2[p - 1];
+            p--;
+        }
+        best2[p] = d2;
+    }
+
+    private double distance2(int idx, double x, double y, double z) {
+        double dx = xs[idx] - x, dy = ys[idx] - y, dz = zs[idx] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double sq(double v) {
+        return v * v;
+    }
+
+    private long cellX(double v) {
+        return cell(v - minX);
+    }
+
+    private long cellY(double v) {
+        return cell(v - minY);
+    }
+
+    private long cellZ(double v) {
+        return cell(v - minZ);
+    }
+
+    private long cell(double offset) {
+        double c = offset / cellSize;
+        if (!(c >= 0)) return 1;
+        return Math.min((long) c, MAX_CELL - 1) + 1;
+    }
+
+    private static long key(long i, long j, long k) {
+        return (i << (2 * CELL_BITS)) | (j << CELL_BITS) | k;
+    }
+}
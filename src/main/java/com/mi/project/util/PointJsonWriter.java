@@ -0,0 +1,126 @@
+package com.mi.project.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * 点云JSON流式写出工具
+ * 基于 JsonGenerator 逐点直接写入输出流（文件、HTTP响应、WebSocket缓冲区），
+ * 不构建 ObjectNode/ArrayNode 树，也不先拼成完整字符串，峰值内存与点数无关。
+ * JsonFactory/ObjectMapper 全局共享，二者均线程安全。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+public final class PointJsonWriter {
+
+    /** 共享的 ObjectMapper，用于元数据等小对象的树模型操作 */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** 点数据写出用的 JsonFactory，不随生成器关闭目标流，由调用方管理流的生命周期 */
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    static final String GENERATOR_NAME = "MI Project LAS Extractor v2.0";
+
+    private PointJsonWriter() {
+    }
+
+    public static ObjectMapper sharedMapper() {
+        return MAPPER;
+    }
+
+    public static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return FACTORY.createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    public static JsonGenerator createGenerator(Writer writer) throws IOException {
+        return FACTORY.createGenerator(writer);
+    }
+
+    /**
+     * 写出 "metadata" 字段（调用方已处于根对象内）
+     */
+    static void writeMetadata(JsonGenerator g, long count, String originalFile,
+                              LASToJsonUtil.BoundingBox bounds) throws IOException {
+        g.writeObjectFieldStart("metadata");
+        g.writeNumberField("version", 1.0);
+        g.writeStringField("type", "pointcloud");
+        g.writeStringField("generator", GENERATOR_NAME);
+        g.writeNumberField("count", count);
+        g.writeStringField("original_file", originalFile);
+        g.writeNumberField("timestamp", System.currentTimeMillis());
+
+        g.writeObjectFieldStart("bounds");
+        writeVector(g, "min", bounds.minX, bounds.minY, bounds.minZ);
+        writeVector(g, "max", bounds.maxX, bounds.maxY, bounds.maxZ);
+        writeVector(g, "center", bounds.centerX, bounds.centerY, bounds.centerZ);
+        g.writeEndObject();
+
+        g.writeEndObject();
+    }
+
+    /**
+     * 写出单个点对象：{"position":[x,y,z],"classification":c,"intensity":i}
+     */
+    static void writePoint(JsonGenerator g, double x, double y, double z,
+                           int classification, int intensity) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName("position");
+        g.writeStartArray();
+        g.writeNumber(x);
+        g.writeNumber(y);
+        g.writeNumber(z);
+        g.writeEndArray();
+        g.writeNumberField("classification", classification);
+        g.writeNumberField("intensity", intensity);
+        g.writeEndObject();
+    }
+
+    /**
+     * 写出 "points" 数组，normalizeCenter 不为 null 时坐标减去该中心点
+     */
+    static void writePoints(JsonGenerator g, PointColumns points,
+                            LASToJsonUtil.BoundingBox normalizeCenter) throws IOException {
+        double cx = 0, cy = 0, cz = 0;
+        if (normalizeCenter != null) {
+            cx = normalizeCenter.centerX;
+            cy = normalizeCenter.centerY;
+            cz = normalizeCenter.centerZ;
+        }
+        g.writeArrayFieldStart("points");
+        for (int i = 0; i < points.size(); i++) {
+            writePoint(g, points.getX(i) - cx, points.getY(i) - cy, points.getZ(i) - cz,
+                    points.getClassification(i), points.getIntensity(i));
+        }
+        g.writeEndArray();
+    }
+
+    /**
+     * 写出完整点云文档：{"metadata":{...},"points":[...]}
+     */
+    static void writePointCloud(JsonGenerator g, PointColumns points, boolean normalizeCoords,
+                                String originalFile, LASToJsonUtil.BoundingBox bounds) throws IOException {
+        g.writeStartObject();
+        writeMetadata(g, points.size(), originalFile, bounds);
+        writePoints(g, points, normalizeCoords ? bounds : null);
+        g.writeEndObject();
+        g.flush();
+    }
+
+    private static void writeVector(JsonGenerator g, String name, double x, double y, double z) throws IOException {
+        g.writeArrayFieldStart(name);
+        g.writeNumber(x);
+        g.writeNumber(y);
+        g.writeNumber(z);
+        g.writeEndArray();
+    }
+}
@@ -0,0 +1,467 @@
+package com.mi.project.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+
+/**
+ * 点云八叉树 LOD 层级（参考 Potree 的目录结构）
+ * 入库时对每个 LAS/LAZ 文件构建一次：根节点立方体为包围盒的外接立方体，
+ * 每个节点把立方体划分为 128³ 个网格，每格只保留最先落入的一个点，其余点下沉到对应的子节点，
+ * 因此每层都是空间均匀的子集，层级越深点间距越小；点数不超过阈值的节点直接作为叶子保存全部点。
+ * <p>
+ * 输出目录中 hierarchy.json 记录立方体、根节点点间距和各节点的点数与子节点掩码，
+ * 每个节点单独保存为 {key}.bin（PointBinaryWriter 二进制帧，INT16 编码，以节点立方体量化）。
+ * 节点键为 "r" 加上逐层的子节点下标（0–7，x/y/z 分别对应第 2/1/0 位），如 r、r3、r31。
+ * 前端按相机位置选出需要的节点后按键直接读取文件，任意缩放级别的加载都与总点数无关。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class PointOctree {
+
+    public static final String HIERARCHY_FILE = "hierarchy.json";
+
+    public static final String NODE_SUFFIX = ".bin";
+
+    /** 每个节点每个轴上的网格数 */
+    public static final int GRID_SIZE = 128;
+
+    /** 点数不超过此值的节点不再拆分 */
+    public static final int DEFAULT_MAX_NODE_POINTS = 20000;
+
+    /** 最大层级，超过后剩余点全部保存在叶子节点 */
+    public static final int MAX_DEPTH = 16;
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final Pattern NODE_KEY = Pattern.compile("r[0-7]{0," + MAX_DEPTH + "}");
+
+    /** 节点点数超过此值时子节点并行构建 */
+    private static final int PARALLEL_THRESHOLD = 64 * 1024;
+
+    private static final PointBinaryWriter.PositionEncoding NODE_ENCODING = PointBinaryWriter.PositionEncoding.INT16;
+
+    /**
+     * 节点信息
+     */
+    public static final class Node {
+        private final String key;
+        private final long pointCount;
+        private final int childMask;
+
+        Node(String key, long pointCount, int childMask) {
+            this.key = key;
+            this.pointCount = pointCount;
+            this.childMask = childMask;
+        }
+
+        public String getKey() { return key; }
+        public long getPointCount() { return pointCount; }
+        /** 第 i 位为 1 表示存在子节点 key + i */
+        public int getChildMask() { return childMask; }
+        public int getLevel() { return key.length() - 1; }
+        public boolean isLeaf() { return childMask == 0; }
+    }
+
+    /**
+     * 层级元数据（hierarchy.json 的内容）
+     */
+    public static final class Hierarchy {
+        private final String source;
+        private final long pointCount;
+        private final LASToJsonUtil.BoundingBox bounds;
+        private final double cubeMinX, cubeMinY, cubeMinZ, cubeSize;
+        private final double spacing;
+        private final Map<String, Node> nodes;
+
+        Hierarchy(String source, long pointCount, LASToJsonUtil.BoundingBox bounds,
+                  double cubeMinX, double cubeMinY, double cubeMinZ, double cubeSize, Map<String, Node> nodes) {
+            this.source = source;
+            this.pointCount = pointCount;
+            this.bounds = bounds;
+            this.cubeMinX = cubeMinX;
+            this.cubeMinY = cubeMinY;
+            this.cubeMinZ = cubeMinZ;
+            this.cubeSize = cubeSize;
+            this.spacing = cubeSize / GRID_SIZE;
+            this.nodes = nodes;
+        }
+
+        public String getSource() { return source; }
+        public long getPointCount() { return pointCount; }
+        /** 根节点的点间距，第 n 层为 spacing / 2^n */
+        public double getSpacing() { return spacing; }
+        public int getNodeCount() { return nodes.size(); }
+        public Node getNode(String key) { return nodes.get(key); }
+
+        /**
+         * 按屏幕投影大小选出需要加载的节点（与 Potree 的点预算遍历相同）：
+         * 从根节点开始，优先展开投影最大的节点，投影小于 minPixelSize 的节点不再细化，
+         * 累计点数达到 pointBudget 后停止。返回的键按加载优先级排列，父节点总在子节点之前
+         *
+         * @param fovY         垂直视场角（弧度）
+         * @param screenHeight 视口高度（像素）
+         */
+        public List<String> select(double cameraX, double cameraY, double cameraZ,
+                                   double fovY, int screenHeight, double minPixelSize, long pointBudget) {
+            double projectionFactor = screenHeight / (2 * Math.tan(fovY / 2));
+            PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble((double[] e) -> -e[0]));
+            List<String> keys = new ArrayList<>();
+            List<String> pending = new ArrayList<>();
+            pending.add("r");
+            queue.add(new double[]{Double.POSITIVE_INFINITY, 0});
+            long loaded = 0;
+            while (!queue.isEmpty()) {
+                double[] entry = queue.poll();
+                Node node = nodes.get(pending.get((int) entry[1]));
+                if (node == null || loaded + node.pointCount > pointBudget) {
+                    continue;
+                }
+                keys.add(node.key);
+                loaded += node.pointCount;
+                for (int i = 0; i < 8; i++) {
+                    if ((node.childMask & (1 << i)) == 0) {
+                        continue;
+                    }
+                    String childKey = node.key + i;
+                    double[] cube = cubeOf(childKey);
+                    double half = cube[3] / 2;
+                    double dx = cube[0] + half - cameraX, dy = cube[1] + half - cameraY, dz = cube[2] + half - cameraZ;
+                    double radius = half * Math.sqrt(3);
+                    double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    double projected = distance <= radius ? Double.POSITIVE_INFINITY : radius / distance * projectionFactor;
+                    if (projected < minPixelSize) {
+                        continue;
+                    }
+                    pending.add(childKey);
+                    queue.add(new double[]{projected, pending.size() - 1});
+                }
+            }
+            return keys;
+        }
+
+        /**
+         * 节点立方体 {minX, minY, minZ, size}
+         */
+        public double[] cubeOf(String key) {
+            double x = cubeMinX, y = cubeMinY, z = cubeMinZ, size = cubeSize;
+            for (int i = 1; i < key.length(); i++) {
+                int child = key.charAt(i) - '0';
+                size /= 2;
+                if ((child & 4) != 0) x += size;
+                if ((child & 2) != 0) y += size;
+                if ((child & 1) != 0) z += size;
+            }
+            return new double[]{x, y, z, size};
+        }
+    }
+
+    private PointOctree() {
+    }
+
+    /**
+     * LAS 文件对应的默认八叉树目录：同目录下的 {文件名}.octree
+     */
+    public static Path defaultDirectory(Path lasPath) {
+        return lasPath.resolveSibling(lasPath.getFileName() + ".octree");
+    }
+
+    /**
+     * 目录中是否已有构建完成的八叉树
+     */
+    public static boolean exists(Path directory) {
+        return Files.isRegularFile(directory.resolve(HIERARCHY_FILE));
+    }
+
+    /**
+     * 节点文件路径，键不合法时抛出 IllegalArgumentException
+     */
+    public static Path nodePath(Path directory, String key) {
+        if (key == null || !NODE_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("无效的节点键: " + key);
+        }
+        return directory.resolve(key + NODE_SUFFIX);
+    }
+
+    public static Hierarchy build(Path lasPath, Path directory) throws IOException {
+        return build(lasPath, directory, DEFAULT_MAX_NODE_POINTS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 构建八叉树并写入 directory（已存在时整体替换）。
+     * 先写入同级临时目录，完成后再移动到目标位置，读取方不会看到构建到一半的目录
+     */
+    public static Hierarchy build(Path lasPath, Path directory, int maxNodePoints, ForkJoinPool pool) throws IOException {
+        if (maxNodePoints <= 0) {
+            throw new IllegalArgumentException("节点点数阈值必须大于0: " + maxNodePoints);
+        }
+        long startTime = System.currentTimeMillis();
+        PointColumns points;
+        LASToJsonUtil.BoundingBox bounds;
+        try (LASFileReader reader = new LASFileReader(lasPath)) {
+            LASParallelDecoder.DecodeResult decoded = LASParallelDecoder.decode(reader, false, pool);
+            points = decoded.points;
+            bounds = decoded.bounds;
+        }
+        if (points.isEmpty()) {
+            throw new IOException("文件中没有点数据: " + lasPath);
+        }
+
+        double cubeSize = Math.max(bounds.maxX - bounds.minX, Math.max(bounds.maxY - bounds.minY, bounds.maxZ - bounds.minZ));
+        if (cubeSize <= 0) {
+            cubeSize = 1;
+        }
+        Path parent = directory.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempDirectory(parent, directory.getFileName() + ".tmp-");
+        Map<String, Node> nodes = new ConcurrentHashMap<>();
+        try {
+            int[] all = new int[points.size()];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            try {
+                pool.invoke(new BuildTask(CancellationToken.current(), points, temp, nodes, maxNodePoints, "r",
+                        bounds.minX, bounds.minY, bounds.minZ, cubeSize, all));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            Hierarchy hierarchy = new Hierarchy(lasPath.getFileName().toString(), points.size(), bounds,
+                    bounds.minX, bounds.minY, bounds.minZ, cubeSize, sortedByLevel(nodes));
+            writeHierarchy(temp.resolve(HIERARCHY_FILE), hierarchy);
+            deleteDirectory(directory);
+            Files.move(temp, directory, StandardCopyOption.ATOMIC_MOVE);
+            log.info("八叉树构建完成: {} 点, {} 个节点, 耗时 {} ms -> {}",
+                    points.size(), nodes.size(), System.currentTimeMillis() - startTime, directory);
+            return hierarchy;
+        } finally {
+            deleteDirectory(temp);
+        }
+    }
+
+    /**
+     * 读取 hierarchy.json
+     */
+    public static Hierarchy load(Path directory) throws IOException {
+        JsonNode root = PointJsonWriter.sharedMapper().readTree(directory.resolve(HIERARCHY_FILE).toFile());
+        if (root.path("version").asInt() != FORMAT_VERSION) {
+            throw new IOException("不支持的八叉树版本: " + root.path("version").asText());
+        }
+        JsonNode b = root.path("bounds");
+        JsonNode cube = root.path("cube");
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        for (JsonNode n : root.path("nodes")) {
+            String key = n.path("key").asText();
+            nodes.put(key, new Node(key, n.path("count").asLong(), n.path("children").asInt()));
+        }
+        return new Hierarchy(root.path("source").asText(), root.path("pointCount").asLong(),
+                new LASToJsonUtil.BoundingBox(
+                        b.path("minX").asDouble(), b.path("minY").asDouble(), b.path("minZ").asDouble(),
+                        b.path("maxX").asDouble(), b.path("maxY").asDouble(), b.path("maxZ").asDouble()),
+                cube.path("minX").asDouble(), cube.path("minY").asDouble(), cube.path("minZ").asDouble(),
+                cube.path("size").asDouble(), nodes);
+    }
+
+    /**
+     * 删除八叉树目录（不存在时忽略）
+     */
+    public static void deleteDirectory(Path directory) throws IOException {
+        FileTrees.deleteRecursively(directory);
+    }
+
+    private static Map<String, Node> sortedByLevel(Map<String, Node> nodes) {
+        List<String> keys = new ArrayList<>(nodes.keySet());
+        keys.sort(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+        Map<String, Node> sorted = new LinkedHashMap<>();
+        for (String key : keys) {
+            sorted.put(key, nodes.get(key));
+        }
+        return Collections.unmodifiableMap(sorted);
+    }
+
+    private static void writeHierarchy(Path file, Hierarchy h) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator g = PointJsonWriter.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeNumberField("version", FORMAT_VERSION);
+            g.writeStringField("source", h.source);
+            g.writeNumberField("pointCount", h.pointCount);
+            g.writeStringField("encoding", NODE_ENCODING.name());
+            g.writeNumberField("gridSize", GRID_SIZE);
+            g.writeNumberField("spacing", h.spacing);
+            g.writeObjectFieldStart("bounds");
+            g.writeNumberField("minX", h.bounds.minX);
+            g.writeNumberField("minY", h.bounds.minY);
+            g.writeNumberField("minZ", h.bounds.minZ);
+            g.writeNumberField("maxX", h.bounds.maxX);
+            g.writeNumberField("maxY", h.bounds.maxY);
+            g.writeNumberField("maxZ", h.bounds.maxZ);
+            g.writeEndObject();
+            g.writeObjectFieldStart("cube");
+            g.writeNumberField("minX", h.cubeMinX);
+            g.writeNumberField("minY", h.cubeMinY);
+            g.writeNumberField("minZ", h.cubeMinZ);
+            g.writeNumberField("size", h.cubeSize);
+            g.writeEndObject();
+            g.writeArrayFieldStart("nodes");
+            for (Node node : h.nodes.values()) {
+                g.writeStartObject();
+                g.writeStringField("key", node.key);
+                g.writeNumberField("count", node.pointCount);
+                g.writeNumberField("children", node.childMask);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+    }
+
+    /**
+     * 构建一个节点：按网格抽稀保留本节点的点，其余点按所在八分体分给子节点递归构建
+     */
+    @SuppressWarnings("serial")
+    private static class BuildTask extends RecursiveAction {
+        private final CancellationToken token;
+        private final PointColumns points;
+        private final Path directory;
+        private final Map<String, Node> nodes;
+        private final int maxNodePoints;
+        private final String key;
+        private final double minX, minY, minZ, size;
+        private int[] indices;
+
+        BuildTask(CancellationToken token, PointColumns points, Path directory, Map<String, Node> nodes,
+                  int maxNodePoints, String key, double minX, double minY, double minZ, double size, int[] indices) {
+            this.token = token;
+            this.points = points;
+            this.directory = directory;
+            this.nodes = nodes;
+            this.maxNodePoints = maxNodePoints;
+            this.key = key;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.size = size;
+            this.indices = indices;
+        }
+
+        @Override
+        protected void compute() {
+            // 每个节点开始前检查，取消后尚未写出的节点不再构建，临时目录由 build 删除
+            token.throwIfCancelled();
+            int[] own = indices;
+            indices = null;
+            int n = own.length;
+            if (n <= maxNodePoints || key.length() > MAX_DEPTH) {
+                writeNode(own, n, 0);
+                return;
+            }
+
+            // 每格最先落入的点留在本节点，其余点记下所属子节点
+            long[] occupied = new long[GRID_SIZE * GRID_SIZE * GRID_SIZE / 64];
+            byte[] child = new byte[n];
+            int[] childCounts = new int[8];
+            int kept = 0;
+            double cellScale = GRID_SIZE / size;
+            int half = GRID_SIZE / 2;
+            for (int i = 0; i < n; i++) {
+                int index = own[i];
+                int cx = cell(points.getX(index), minX, cellScale);
+                int cy = cell(points.getY(index), minY, cellScale);
+                int cz = cell(points.getZ(index), minZ, cellScale);
+                int cell = (cx * GRID_SIZE + cy) * GRID_SIZE + cz;
+                if ((occupied[cell >>> 6] & (1L << cell)) == 0) {
+                    occupied[cell >>> 6] |= 1L << cell;
+                    child[i] = -1;
+                    kept++;
+                } else {
+                    int octant = (cx >= half ? 4 : 0) | (cy >= half ? 2 : 0) | (cz >= half ? 1 : 0);
+                    child[i] = (byte) octant;
+                    childCounts[octant]++;
+                }
+            }
+
+            int[] keptIndices = new int[kept];
+            int[][] childIndices = new int[8][];
+            for (int c = 0; c < 8; c++) {
+                childIndices[c] = new int[childCounts[c]];
+            }
+            int[] fill = new int[8];
+            for (int i = 0, k = 0; i < n; i++) {
+                int c = child[i];
+                if (c < 0) {
+                    keptIndices[k++] = own[i];
+                } else {
+                    childIndices[c][fill[c]++] = own[i];
+                }
+            }
+            own = null;
+
+            int childMask = 0;
+            for (int c = 0; c < 8; c++) {
+                if (childCounts[c] > 0) childMask |= 1 << c;
+            }
+            writeNode(keptIndices, kept, childMask);
+
+            List<BuildTask> tasks = new ArrayList<>(8);
+            double childSize = size / 2;
+            for (int c = 0; c < 8; c++) {
+                if (childCounts[c] == 0) {
+                    continue;
+                }
+                tasks.add(new BuildTask(token, points, directory, nodes, maxNodePoints, key + c,
+                        (c & 4) != 0 ? minX + childSize : minX,
+                        (c & 2) != 0 ? minY + childSize : minY,
+                        (c & 1) != 0 ? minZ + childSize : minZ,
+                        childSize, childIndices[c]));
+                childIndices[c] = null;
+            }
+            if (n >= PARALLEL_THRESHOLD) {
+                invokeAll(tasks);
+            } else {
+                for (BuildTask task : tasks) {
+                    task.compute();
+                }
+            }
+        }
+
+        private static int cell(double value, double min, double scale) {
+            int c = (int) ((value - min) * scale);
+            return c < 0 ? 0 : Math.min(c, GRID_SIZE - 1);
+        }
+
+        private void writeNode(int[] own, int count, int childMask) {
+            PointColumns nodePoints = points.select(own, count);
+            LASToJsonUtil.BoundingBox cubeBounds = new LASToJsonUtil.BoundingBox(
+                    minX, minY, minZ, minX + size, minY + size, minZ + size);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(directory.resolve(key + NODE_SUFFIX)))) {
+                PointBinaryWriter.write(out, nodePoints, NODE_ENCODING, cubeBounds, PointBinaryWriter.ATTR_ALL);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            nodes.put(key, new Node(key, count, childMask));
+        }
+    }
+}
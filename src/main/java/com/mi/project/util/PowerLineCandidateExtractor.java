@@ -0,0 +1,467 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 电力线候选点提取（3-powerline_extractor.py 中 extract_high_points → extract_powerline_candidates 的 Java 实现）
+ * 直接处理内存中的列式点云，不启动 Python、不写中间 LAS 文件：
+ * <ol>
+ *   <li>过滤绝对高程低于 minZ 的点，按 regionSize / overlap 把水平范围划分为相互重叠的区域；</li>
+ *   <li>每个区域按 10m 网格减去网格内最低点得到归一化高程，在 0–100m 的高程直方图上找突变点作为高程阈值
+ *       （找不到时山地取 20m、平原取 15m，并限制在 8–30m），高于阈值的为高空点；</li>
+ *   <li>以抽样点的平均最近邻距离确定邻域半径，对每个高空点计算半径邻域的协方差矩阵并做特征分解，
+ *       线性度 (λ1-λ2)/λ1 足够高且主方向接近水平的点为候选点。</li>
+ * </ol>
+ * 第 3 步按点在 ForkJoinPool 上并行，输出顺序与输入一致。候选点按区域返回，供残差聚类逐区域使用。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class PowerLineCandidateExtractor {
+
+    /** 归一化高程直方图：100 个 1m 的区间 */
+    private static final int HISTOGRAM_BINS = 100;
+
+    /** 并行计算维度特征时每个任务的最少点数 */
+    private static final int MIN_TASK_POINTS = 2048;
+
+    /** 抽样计算平均点间距的随机种子，保证结果可复现 */
+    private static final long SAMPLE_SEED = 42L;
+
+    /**
+     * 提取参数，默认值与 Python 脚本一致
+     */
+    public static class Options {
+        private double minZ = 20.0;                  // 绝对高程阈值，低于该值的点直接过滤
+        private double regionSize = 500.0;           // 区域大小（米）
+        private double overlap = 20.0;               // 区域重叠（米）
+        private double gridSize = 10.0;              // 归一化高程的网格大小（米）
+        private double linearityThreshold = 0.80;    // 线性度阈值
+        private double horizontalThreshold = 0.70;   // 主方向水平分量阈值
+        private int distanceSampleSize = 10000;      // 计算平均点间距的抽样点数
+        private int minRegionPoints = 100;           // 区域点数不超过该值时跳过
+        private int minHighPoints = 50;              // 高空点少于该值时认为区域内没有电力线
+        private int minCandidates = 10;              // 候选点少于该值时认为区域内没有电力线
+
+        public double getMinZ() { return minZ; }
+        public void setMinZ(double minZ) { this.minZ = minZ; }
+
+        public double getRegionSize() { return regionSize; }
+        public void setRegionSize(double regionSize) { this.regionSize = regionSize; }
+
+        public double getOverlap() { return overlap; }
+        public void setOverlap(double overlap) { this.overlap = overlap; }
+
+        public double getGridSize() { return gridSize; }
+        public void setGridSize(double gridSize) { this.gridSize = gridSize; }
+
+        public double getLinearityThreshold() { return linearityThreshold; }
+        public void setLinearityThreshold(double linearityThreshold) { this.linearityThreshold = linearityThreshold; }
+
+        public double getHorizontalThreshold() { return horizontalThreshold; }
+        public void setHorizontalThreshold(double horizontalThreshold) { this.horizontalThreshold = horizontalThreshold; }
+
+        public int getDistanceSampleSize() { return distanceSampleSize; }
+        public void setDistanceSampleSize(int distanceSampleSize) { this.distanceSampleSize = distanceSampleSize; }
+
+        public int getMinRegionPoints() { return minRegionPoints; }
+        public void setMinRegionPoints(int minRegionPoints) { this.minRegionPoints = minRegionPoints; }
+
+        public int getMinHighPoints() { return minHighPoints; }
+        public void setMinHighPoints(int minHighPoints) { this.minHighPoints = minHighPoints; }
+
+        public int getMinCandidates() { return minCandidates; }
+        public void setMinCandidates(int minCandidates) { this.minCandidates = minCandidates; }
+
+        public static Options getDefault() {
+            return new Options();
+        }
+    }
+
+    /**
+     * 单个区域的提取结果
+     */
+    public static class Region {
+        public final double minX, maxX, minY, maxY;
+        /** 区域内参与计算的点数（已过滤绝对高程） */
+        public final int pointCount;
+        public final double averageSpacing;
+        public final double heightThreshold;
+        public final int highPointCount;
+        /** 候选点，量化参数与输入相同 */
+        public final PointColumns candidates;
+
+        Region(double minX, double maxX, double minY, double maxY, int pointCount, double averageSpacing,
+               double heightThreshold, int highPointCount, PointColumns candidates) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.pointCount = pointCount;
+            this.averageSpacing = averageSpacing;
+            this.heightThreshold = heightThreshold;
+            this.highPointCount = highPointCount;
+            this.candidates = candidates;
+        }
+    }
+
+    private PowerLineCandidateExtractor() {
+    }
+
+    /**
+     * 读取 LAS/LAZ 文件并提取候选点
+     */
+    public static List<Region> extract(Path lasFile, Options options) throws IOException {
+        PointColumns points;
+        try (LASFileReader reader = new LASFileReader(lasFile)) {
+            points = LASParallelDecoder.decode(reader, false).points;
+        }
+        return extract(points, options, ForkJoinPool.commonPool());
+    }
+
+    public static List<Region> extract(PointColumns points) {
+        return extract(points, Options.getDefault(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 提取候选点，只返回候选点数达到 minCandidates 的区域
+     */
+    public static List<Region> extract(PointColumns points, Options options, ForkJoinPool pool) {
+        int[] kept = new int[points.size()];
+        int count = 0;
+        for (int i = 0; i < points.size(); i++) {
+            if (points.getZ(i) >= options.minZ) kept[count++] = i;
+        }
+        List<Region> regions = new ArrayList<>();
+        if (count == 0) {
+            return regions;
+        }
+        kept = Arrays.copyOf(kept, count);
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i : kept) {
+            double x = points.getX(i), y = points.getY(i);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        double step = options.regionSize - options.overlap;
+        if (!(step > 0)) {
+            throw new IllegalArgumentException("区域大小必须大于重叠宽度: " + options.regionSize + " / " + options.overlap);
+        }
+        int xRegions = Math.max(1, (int) Math.ceil((maxX - minX) / step));
+        int yRegions = Math.max(1, (int) Math.ceil((maxY - minY) / step));
+        double[] xStart = new double[xRegions], xEnd = new double[xRegions];
+        double[] yStart = new double[yRegions], yEnd = new double[yRegions];
+        for (int i = 0; i < xRegions; i++) {
+            xStart[i] = minX + i * step;
+            xEnd[i] = i == xRegions - 1 ? maxX : Math.min(maxX, xStart[i] + options.regionSize);
+        }
+        for (int j = 0; j < yRegions; j++) {
+            yStart[j] = minY + j * step;
+            yEnd[j] = j == yRegions - 1 ? maxY : Math.min(maxY, yStart[j] + options.regionSize);
+        }
+
+        // 两遍分桶：一个点最多落入相邻的几个重叠区域，只检查按步长估算出的区域
+        int[] regionCounts = new int[xRegions * yRegions];
+        int[][] members = new int[regionCounts.length][];
+        for (int pass = 0; pass < 2; pass++) {
+            int[] fill = new int[regionCounts.length];
+            for (int idx : kept) {
+                double x = points.getX(idx), y = points.getY(idx);
+                int i0 = Math.max(0, (int) Math.floor((x - minX - options.regionSize) / step));
+                int i1 = Math.min(xRegions - 1, (int) Math.floor((x - minX) / step));
+                int j0 = Math.max(0, (int) Math.floor((y - minY - options.regionSize) / step));
+                int j1 = Math.min(yRegions - 1, (int) Math.floor((y - minY) / step));
+                for (int i = i0; i <= i1; i++) {
+                    if (x < xStart[i] || x > xEnd[i]) continue;
+                    for (int j = j0; j <= j1; j++) {
+                        if (y < yStart[j] || y > yEnd[j]) continue;
+                        int r = i * yRegions + j;
+                        if (pass == 0) {
+                            regionCounts[r]++;
+                        } else if (members[r] != null) {
+                            members[r][fill[r]++] = idx;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int r = 0; r < regionCounts.length; r++) {
+                    // 点数不超过下限的区域直接跳过，不收集成员
+                    members[r] = regionCounts[r] > options.minRegionPoints ? new int[regionCounts[r]] : null;
+                }
+            }
+        }
+
+        CancellationToken token = CancellationToken.current();
+        for (int i = 0; i < xRegions; i++) {
+            for (int j = 0; j < yRegions; j++) {
+                int[] regionMembers = members[i * yRegions + j];
+                if (regionMembers == null) {
+                    continue;
+                }
+                token.throwIfCancelled();
+                Region region = processRegion(points, regionMembers, xStart[i], xEnd[i], yStart[j], yEnd[j], options, pool);
+                log.debug("区域 ({},{}): 点数={}, 平均间距={}, 高程阈值={}, 高空点={}, 候选点={}",
+                        i, j, regionMembers.length, region.averageSpacing, region.heightThreshold,
+                        region.highPointCount, region.candidates.size());
+                if (region.candidates.size() >= options.minCandidates) {
+                    regions.add(region);
+                }
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * 合并各区域的候选点（重叠区域中的点可能重复出现）
+     */
+    public static PointColumns merge(List<Region> regions, PointColumns template) {
+        int total = regions.stream().mapToInt(r -> r.candidates.size()).sum();
+        PointColumns merged = PointColumns.like(template, total);
+        for (Region region : regions) {
+            for (int i = 0; i < region.candidates.size(); i++) {
+                merged.add(region.candidates, i);
+            }
+        }
+        return merged;
+    }
+
+    private static Region processRegion(PointColumns points, int[] members, double xStart, double xEnd,
+                                        double yStart, double yEnd, Options options, ForkJoinPool pool) {
+        int m = members.length;
+        double[] xs = new double[m], ys = new double[m], zs = new double[m];
+        for (int k = 0; k < m; k++) {
+            xs[k] = points.getX(members[k]);
+            ys[k] = points.getY(members[k]);
+            zs[k] = points.getZ(members[k]);
+        }
+
+        double spacing = averageSpacing(xs, ys, zs, options.distanceSampleSize);
+        double[] heights = normalizedHeights(xs, ys, zs, options.gridSize);
+        double threshold = heightThreshold(heights, zs);
+
+        int[] high = new int[m];
+        int highCount = 0;
+        for (int k = 0; k < m; k++) {
+            if (heights[k] > threshold) high[highCount++] = k;
+        }
+        if (highCount < options.minHighPoints) {
+            return new Region(xStart, xEnd, yStart, yEnd, m, spacing, threshold, highCount, PointColumns.like(points, 0));
+        }
+
+        double[] hx = new double[highCount], hy = new double[highCount], hz = new double[highCount];
+        for (int k = 0; k < highCount; k++) {
+            hx[k] = xs[high[k]];
+            hy[k] = ys[high[k]];
+            hz[k] = zs[high[k]];
+        }
+        // 脚本中 radius = max(max(1, 0.5d), 2d)，即 max(1, 2d)
+        double radius = spacing > 0 ? Math.max(1.0, spacing * 2) : 1.0;
+        PointGrid grid = new PointGrid(hx, hy, hz, radius);
+        boolean[] candidate = new boolean[highCount];
+        pool.invoke(new FeatureTask(grid, hx, hy, hz, radius, options, candidate, 0, highCount));
+
+        int[] selected = new int[highCount];
+        int selectedCount = 0;
+        for (int k = 0; k < highCount; k++) {
+            if (candidate[k]) selected[selectedCount++] = members[high[k]];
+        }
+        return new Region(xStart, xEnd, yStart, yEnd, m, spacing, threshold, highCount,
+                points.select(selected, selectedCount));
+    }
+
+    /**
+     * 随机抽取最多 sampleSize 个点，计算抽样点之间最近邻距离的平均值
+     */
+    static double averageSpacing(double[] xs, double[] ys, double[] zs, int sampleSize) {
+        int n = xs.length;
+        int s = Math.min(sampleSize, n);
+        if (s < 2) {
+            return Double.NaN;
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Random random = new Random(SAMPLE_SEED);
+        for (int i = 0; i < s; i++) {
+            int j = i + random.nextInt(n - i);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        double[] sx = new double[s], sy = new double[s], sz = new double[s];
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < s; i++) {
+            sx[i] = xs[order[i]];
+            sy[i] = ys[order[i]];
+            sz[i] = zs[order[i]];
+            x0 = Math.min(x0, sx[i]);
+            x1 = Math.max(x1, sx[i]);
+            y0 = Math.min(y0, sy[i]);
+            y1 = Math.max(y1, sy[i]);
+        }
+        // 点云近似分布在水平面上，按水平面积估计网格边长，使每格平均约一个点
+        double area = (x1 - x0) * (y1 - y0);
+        PointGrid grid = new PointGrid(sx, sy, sz, area > 0 ? Math.sqrt(area / s) : 1.0);
+        double sum = 0;
+        for (int i = 0; i < s; i++) {
+            sum += grid.nearestDistance(i);
+        }
+        return sum / s;
+    }
+
+    /**
+     * 按 gridSize 的水平网格减去网格内最低点高程
+     */
+    static double[] normalizedHeights(double[] xs, double[] ys, double[] zs, double gridSize) {
+        int n = xs.length;
+        double minX = Arrays.stream(xs).min().orElse(0), minY = Arrays.stream(ys).min().orElse(0);
+        LongSlotTable cells = new LongSlotTable(Math.min(n, 1 << 12));
+        int[] cellOf = new int[n];
+        double[] cellMin = new double[16];
+        for (int i = 0; i < n; i++) {
+            long ix = (long) ((xs[i] - minX) / gridSize), iy = (long) ((ys[i] - minY) / gridSize);
+            int cell = cells.insert((ix << 32) | iy);
+            if (cell < 0) {
+                cell = ~cell;
+                if (cell == cellMin.length) cellMin = Arrays.copyOf(cellMin, cell * 2);
+                cellMin[cell] = zs[i];
+            } else {
+                cellMin[cell] = Math.min(cellMin[cell], zs[i]);
+            }
+            cellOf[i] = cell;
+        }
+        double[] heights = new double[n];
+        for (int i = 0; i < n; i++) {
+            heights[i] = zs[i] - cellMin[cellOf[i]];
+        }
+        return heights;
+    }
+
+    /**
+     * 在 0–100m 的归一化高程直方图上寻找第一个骤降（降到上一区间的 30% 以下，且上一区间点数超过 0.5%）的区间，
+     * 以其下边界为阈值；找不到时按高差选择经验值，最终限制在 8–30m
+     */
+    static double heightThreshold(double[] heights, double[] zs) {
+        int n = heights.length;
+        long[] histogram = new long[HISTOGRAM_BINS];
+        for (double h : heights) {
+            if (h >= 0 && h <= HISTOGRAM_BINS) {
+                histogram[Math.min((int) h, HISTOGRAM_BINS - 1)]++;
+            }
+        }
+        int thresholdBin = 0;
+        for (int i = 1; i < HISTOGRAM_BINS; i++) {
+            if (histogram[i] < histogram[i - 1] * 0.3 && histogram[i - 1] > n * 0.005) {
+                thresholdBin = i;
+                break;
+            }
+        }
+        double threshold;
+        if (thresholdBin == 0) {
+            double zRange = Arrays.stream(zs).max().orElse(0) - Arrays.stream(zs).min().orElse(0);
+            threshold = zRange > 100 ? 20.0 : 15.0;
+        } else {
+            threshold = thresholdBin;
+        }
+        return Math.max(8.0, Math.min(threshold, 30.0));
+    }
+
+    /**
+     * 判断单个高空点是否为候选点：邻域至少 3 个点，协方差最大特征值为正，
+     * 线性度超过阈值且主方向的水平分量超过阈值
+     */
+    static boolean isCandidate(PointGrid grid, double[] xs, double[] ys, double[] zs, int index, double radius,
+                               Options options, PointGrid.Neighbors neighbors, double[] values, double[] vectors) {
+        double px = xs[index], py = ys[index], pz = zs[index];
+        grid.within(px, py, pz, radius, neighbors);
+        int n = neighbors.count;
+        if (n < 3) {
+            return false;
+        }
+        // 以查询点为原点累加，避免大坐标相减造成的精度损失
+        double sx = 0, sy = 0, sz = 0, sxx = 0, sxy = 0, sxz = 0, syy = 0, syz = 0, szz = 0;
+        for (int k = 0; k < n; k++) {
+            int j = neighbors.indices[k];
+            double dx = xs[j] - px, dy = ys[j] - py, dz = zs[j] - pz;
+            sx += dx;
+            sy += dy;
+            sz += dz;
+            sxx += dx * dx;
+            sxy += dx * dy;
+            sxz += dx * dz;
+            syy += dy * dy;
+            syz += dy * dz;
+            szz += dz * dz;
+        }
+        double inv = 1.0 / n, norm = 1.0 / (n - 1);
+        SymmetricEigen3.decompose(
+                (sxx - sx * sx * inv) * norm, (sxy - sx * sy * inv) * norm, (sxz - sx * sz * inv) * norm,
+                (syy - sy * sy * inv) * norm, (syz - sy * sz * inv) * norm, (szz - sz * sz * inv) * norm,
+                values, vectors);
+        if (values[0] <= 0) {
+            return false;
+        }
+        double linearity = (values[0] - values[1]) / values[0];
+        if (!(linearity > options.linearityThreshold)) {
+            return false;
+        }
+        double horizontal = Math.sqrt(vectors[0] * vectors[0] + vectors[1] * vectors[1]);
+        return horizontal > options.horizontalThreshold;
+    }
+
+    /**
+     * 按点区间二分的并行任务，每个叶子任务复用自己的邻域缓冲区
+     */
+    @SuppressWarnings("serial")
+    private static class FeatureTask extends RecursiveAction {
+        private final PointGrid grid;
+        private final double[] xs, ys, zs;
+        private final double radius;
+        private final Options options;
+        private final boolean[] candidate;
+        private final int from, to;
+
+        FeatureTask(PointGrid grid, double[] xs, double[] ys, double[] zs, double radius, Options options,
+                    boolean[] candidate, int from, int to) {
+            this.grid = grid;
+            this.xs = xs;
+            this.ys = ys;
+            this.zs = zs;
+            this.radius = radius;
+            this.options = options;
+            this.candidate = candidate;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MIN_TASK_POINTS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FeatureTask(grid, xs, ys, zs, radius, options, candidate, from, mid),
+                        new FeatureTask(grid, xs, ys, zs, radius, options, candidate, mid, to));
+                return;
+            }
+            PointGrid.Neighbors neighbors = new PointGrid.Neighbors();
+            double[] values = new double[3], vectors = new double[9];
+            for (int i = from; i < to; i++) {
+                candidate[i] = isCandidate(grid, xs, ys, zs, i, radius, options, neighbors, values, vectors);
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.mi.project.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 把 {@link PowerLineRansacFitter} 的拟合结果写成 powerline_curves.json
+ * 字段结构与 5-ransac_fit_to_json.py 的 export_json 相同（metadata / parameters / normalization / segments / curves），
+ * 前端无需区分结果来自哪一端。给定 tile_threejs_params.json 时曲线点按 (p + translate) × scale 归一化，
+ * 同时在 originalCoordinates 中保留原始坐标。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class PowerLineCurveWriter {
+
+    private static final String GENERATOR_NAME = "RANSAC Power Line Fitting";
+
+    private static final String BASE_NAME = "powerline_curves";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 导出时每条曲线保留的点数（按步长抽取） */
+    private static final int EXPORTED_POINTS = 10;
+
+    /**
+     * Three.js 归一化参数（1-lastile_wrapper.py 生成的 *_threejs_params.json）
+     */
+    public static final class Normalization {
+        private final JsonNode originalBounds;
+        private final JsonNode center;
+        private final double scale;
+        private final double translateX, translateY, translateZ;
+
+        private Normalization(JsonNode originalBounds, JsonNode center, double scale,
+                              double translateX, double translateY, double translateZ) {
+            this.originalBounds = originalBounds;
+            this.center = center;
+            this.scale = scale;
+            this.translateX = translateX;
+            this.translateY = translateY;
+            this.translateZ = translateZ;
+        }
+
+        double[] apply(double[] p) {
+            return new double[]{(p[0] + translateX) * scale, (p[1] + translateY) * scale, (p[2] + translateZ) * scale};
+        }
+    }
+
+    private PowerLineCurveWriter() {
+    }
+
+    /**
+     * 读取归一化参数，文件为空、不存在或缺少必要字段时返回 null（输出使用原始坐标）
+     */
+    public static Normalization loadNormalization(Path file) {
+        if (file == null || !Files.isRegularFile(file)) {
+            log.warn("归一化参数文件不存在，使用原始坐标: {}", file);
+            return null;
+        }
+        try {
+            JsonNode root = PointJsonWriter.sharedMapper().readTree(file.toFile());
+            JsonNode normalization = root.path("normalization");
+            JsonNode translate = normalization.path("translate");
+            if (!root.has("center") || !normalization.has("scale") || !translate.isObject()) {
+                log.warn("归一化参数文件缺少 center / normalization 字段，使用原始坐标: {}", file);
+                return null;
+            }
+            return new Normalization(root.get("original_bounds"), root.get("center"),
+                    normalization.path("scale").asDouble(), translate.path("x").asDouble(),
+                    translate.path("y").asDouble(), translate.path("z").asDouble());
+        } catch (IOException e) {
+            log.warn("归一化参数文件读取失败，使用原始坐标: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * 在 outputDir 下写出 powerline_curves.json，文件已存在时依次尝试 powerline_curves-1.json、-2.json ...
+     *
+     * @return 实际写出的文件
+     */
+    public static Path write(PowerLineRansacFitter.Result result, PowerLineRansacFitter.Options options,
+                             Normalization normalization, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        Path file = outputDir.resolve(BASE_NAME + ".json");
+        for (int counter = 1; ; counter++) {
+            try {
+                Files.createFile(file);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                file = outputDir.resolve(BASE_NAME + "-" + counter + ".json");
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator g = PointJsonWriter.createGenerator(out)) {
+            g.useDefaultPrettyPrinter();
+            write(g, result, options, normalization);
+        }
+        log.info("RANSAC拟合结果已保存到: {}", file);
+        return file;
+    }
+
+    static void write(JsonGenerator g, PowerLineRansacFitter.Result result, PowerLineRansacFitter.Options options,
+                      Normalization normalization) throws IOException {
+        g.writeStartObject();
+
+        g.writeObjectFieldStart("metadata");
+        g.writeStringField("generator", GENERATOR_NAME);
+        g.writeStringField("version", "2.0");
+        g.writeStringField("date", LocalDateTime.now().format(DATE_FORMAT));
+        g.writeNumberField("totalSegments", result.segments.size());
+        g.writeNumberField("totalCurves", result.curves.size());
+        g.writeStringField("coordinateSystem", normalization != null ? "normalized" : "original");
+        g.writeEndObject();
+
+        g.writeObjectFieldStart("parameters");
+        g.writeNumberField("segmentLength", options.getSegmentLength());
+        g.writeNumberField("overlapRatio", options.getOverlapRatio());
+        g.writeNumberField("ransacThreshold", options.getRansacThreshold());
+        g.writeNumberField("minSamplesRatio", options.getMinSamplesRatio());
+        g.writeNumberField("polynomialDegree", options.getModel().getDegree());
+        g.writeStringField("curveModel", options.getModel().name().toLowerCase());
+        g.writeEndObject();
+
+        if (normalization != null) {
+            g.writeObjectFieldStart("normalization");
+            g.writeStringField("source", "threejs_params");
+            g.writeBooleanField("applied", true);
+            writeNode(g, "originalBounds", normalization.originalBounds);
+            writeNode(g, "center", normalization.center);
+            g.writeNumberField("scale", normalization.scale);
+            g.writeObjectFieldStart("translate");
+            g.writeNumberField("x", normalization.translateX);
+            g.writeNumberField("y", normalization.translateY);
+            g.writeNumberField("z", normalization.translateZ);
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+
+        g.writeArrayFieldStart("segments");
+        for (PowerLineRansacFitter.SegmentInfo info : result.segments) {
+            g.writeStartObject();
+            g.writeNumberField("segmentId", info.segmentId);
+            g.writeNumberField("classification", info.classification);
+            g.writeNumberField("totalPoints", info.totalPoints);
+            g.writeNumberField("fittedSegments", info.fittedSegments);
+            g.writeNumberField("totalLength", info.totalLength);
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+
+        g.writeArrayFieldStart("curves");
+        for (PowerLineRansacFitter.Curve curve : result.curves) {
+            writeCurve(g, curve, normalization);
+        }
+        g.writeEndArray();
+
+        g.writeEndObject();
+    }
+
+    private static void writeCurve(JsonGenerator g, PowerLineRansacFitter.Curve curve,
+                                   Normalization normalization) throws IOException {
+        double[][] points = curve.points;
+        double[][] exported = points;
+        if (normalization != null) {
+            exported = new double[points.length][];
+            for (int i = 0; i < points.length; i++) {
+                exported[i] = normalization.apply(points[i]);
+            }
+        }
+
+        g.writeStartObject();
+        g.writeNumberField("segmentId", curve.segmentId);
+        g.writeNumberField("subsegmentId", curve.subsegmentId);
+        g.writeNumberField("classification", curve.classification);
+        g.writeNumberField("inlierRatio", curve.inlierRatio);
+        g.writeNumberField("rmse", curve.rmse);
+        g.writeObjectFieldStart("coefficients");
+        writeAxis(g, "x", curve.x);
+        writeAxis(g, "y", curve.y);
+        writeAxis(g, "z", curve.z);
+        g.writeEndObject();
+        writePoint(g, "startPoint", exported[0]);
+        writePoint(g, "endPoint", exported[exported.length - 1]);
+        writeSimplified(g, exported);
+        g.writeNumberField("originalPointsCount", curve.originalPointsCount);
+        if (normalization != null) {
+            g.writeObjectFieldStart("originalCoordinates");
+            writePoint(g, "startPoint", curve.getStartPoint());
+            writePoint(g, "endPoint", curve.getEndPoint());
+            writeSimplified(g, points);
+            g.writeEndObject();
+        }
+        g.writeEndObject();
+    }
+
+    /**
+     * 直线只写 slope / intercept；抛物线加 quadratic；悬链线另写 a / vertex / offset，
+     * 同时保留其抛物线近似，只认识直线系数的读取方仍可使用 slope / intercept
+     */
+    private static void writeAxis(JsonGenerator g, String name, PowerLineRansacFitter.AxisCurve axis) throws IOException {
+        g.writeObjectFieldStart(name);
+        g.writeNumberField("slope", axis.slope);
+        g.writeNumberField("intercept", axis.intercept);
+        if (axis.model != PowerLineRansacFitter.CurveModel.LINE) {
+            g.writeNumberField("quadratic", axis.quadratic);
+        }
+        if (axis.model == PowerLineRansacFitter.CurveModel.CATENARY) {
+            g.writeNumberField("a", axis.catenaryA);
+            g.writeNumberField("vertex", axis.vertex);
+            g.writeNumberField("offset", axis.offset);
+        }
+        g.writeEndObject();
+    }
+
+    /**
+     * 按 len / 10 的步长抽取曲线点，不足两个时改为起点和终点（与脚本相同）
+     */
+    private static void writeSimplified(JsonGenerator g, double[][] points) throws IOException {
+        g.writeArrayFieldStart("points");
+        int step = Math.max(1, points.length / EXPORTED_POINTS);
+        if (points.length >= 2 && (points.length + step - 1) / step < 2) {
+            writeArray(g, points[0]);
+            writeArray(g, points[points.length - 1]);
+        } else {
+            for (int i = 0; i < points.length; i += step) {
+                writeArray(g, points[i]);
+            }
+        }
+        g.writeEndArray();
+    }
+
+    private static void writeNode(JsonGenerator g, String name, JsonNode node) throws IOException {
+        g.writeFieldName(name);
+        if (node == null) {
+            g.writeNull();
+        } else {
+            PointJsonWriter.sharedMapper().writeTree(g, node);
+        }
+    }
+
+    private static void writePoint(JsonGenerator g, String name, double[] p) throws IOException {
+        g.writeFieldName(name);
+        writeArray(g, p);
+    }
+
+    private static void writeArray(JsonGenerator g, double[] p) throws IOException {
+        g.writeStartArray();
+        g.writeNumber(p[0]);
+        g.writeNumber(p[1]);
+        g.writeNumber(p[2]);
+        g.writeEndArray();
+    }
+}
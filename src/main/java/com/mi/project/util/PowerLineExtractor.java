@@ -0,0 +1,156 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 单个分块的电力线提取（2-process_tiles.py + 3-powerline_extractor.py 的 Java 实现）
+ * 逐区域提取候选点（{@link PowerLineCandidateExtractor}）并在残差空间中分离导线（{@link PowerLineResidualSeparator}），
+ * 各区域结果直接拼接（重叠区域的点可能重复，与脚本相同），经密度过滤和统计离群点过滤后写出：
+ * <ul>
+ *   <li>power_line_N.las：第 N 根导线，分类值 (N-1) % 31 + 1；</li>
+ *   <li>all_power_lines.las：全部导线，分类值同上；</li>
+ *   <li>noise_points.las：残差聚类的噪声点，分类值 0。</li>
+ * </ul>
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class PowerLineExtractor {
+
+    /** LAS 1.2 分类字段可用的最大导线分类值 */
+    private static final int MAX_LINE_CLASS = 31;
+
+    private static final String ALL_POWER_LINES = "all_power_lines.las";
+
+    /**
+     * 提取结果
+     */
+    public static class Result {
+        /** 过滤后的各根导线，分类值已按输出规则设置 */
+        public final List<PointColumns> lines;
+        public final PointColumns noise;
+        /** 写出的 LAS 文件 */
+        public final List<Path> files;
+        /** all_power_lines.las，没有导线时为 null */
+        public final Path allPowerLines;
+
+        Result(List<PointColumns> lines, PointColumns noise, List<Path> files, Path allPowerLines) {
+            this.lines = lines;
+            this.noise = noise;
+            this.files = files;
+            this.allPowerLines = allPowerLines;
+        }
+    }
+
+    /** 提取时的内存占用约为分块文件大小的倍数（列式点云、邻域网格与特征计算的临时数组） */
+    private static final int MEMORY_FACTOR = 3;
+
+    private PowerLineExtractor() {
+    }
+
+    /**
+     * 估计提取一个分块所需的内存，供 {@link AnalysisExecutor} 按内存预算控制并发
+     */
+    public static long estimateMemoryBytes(Path tileLas) {
+        try {
+            return Files.size(tileLas) * MEMORY_FACTOR;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 读取分块文件，提取电力线并写入 outputDir
+     *
+     * @param minZ 绝对高程阈值（2-process_tiles.py 的 min_z_threshold）
+     */
+    public static Result extract(Path tileLas, Path outputDir, double minZ) throws IOException {
+        PowerLineCandidateExtractor.Options candidateOptions = PowerLineCandidateExtractor.Options.getDefault();
+        candidateOptions.setMinZ(minZ);
+        return extract(tileLas, outputDir, candidateOptions, PowerLineResidualSeparator.Options.getDefault());
+    }
+
+    public static Result extract(Path tileLas, Path outputDir, PowerLineCandidateExtractor.Options candidateOptions,
+                                 PowerLineResidualSeparator.Options separatorOptions) throws IOException {
+        PointColumns points;
+        try (LASFileReader reader = new LASFileReader(tileLas)) {
+            points = LASParallelDecoder.decode(reader, false).points;
+        }
+        return extract(points, outputDir, candidateOptions, separatorOptions, ForkJoinPool.commonPool());
+    }
+
+    public static Result extract(PointColumns points, Path outputDir, PowerLineCandidateExtractor.Options candidateOptions,
+                                 PowerLineResidualSeparator.Options separatorOptions, ForkJoinPool pool) throws IOException {
+        long start = System.currentTimeMillis();
+        List<PointColumns> lines = new ArrayList<>();
+        PointColumns noise = PointColumns.like(points, 1024);
+        CancellationToken token = CancellationToken.current();
+        for (PowerLineCandidateExtractor.Region region : PowerLineCandidateExtractor.extract(points, candidateOptions, pool)) {
+            token.throwIfCancelled();
+            PointColumns candidates = region.candidates;
+            PowerLineResidualSeparator.Result separated = PowerLineResidualSeparator.separate(candidates, separatorOptions, pool);
+            for (PowerLineResidualSeparator.Conductor conductor : separated.conductors) {
+                lines.add(candidates.select(conductor.indices, conductor.size()));
+            }
+            for (int index : separated.noise) {
+                noise.add(candidates, index);
+            }
+        }
+
+        List<PointColumns> filtered = new ArrayList<>(lines.size());
+        for (PointColumns line : lines) {
+            line = PowerLineResidualSeparator.filterLowDensity(line, separatorOptions);
+            line = PowerLineResidualSeparator.removeStatisticalOutliers(line, separatorOptions);
+            filtered.add(withClassification(line, filtered.size() % MAX_LINE_CLASS + 1));
+        }
+        noise = withClassification(noise, 0);
+
+        List<Path> files = write(filtered, noise, outputDir);
+        log.info("电力线提取完成: 导线={}, 噪声点={}, 耗时={}ms", filtered.size(), noise.size(),
+                System.currentTimeMillis() - start);
+        return new Result(filtered, noise, files,
+                filtered.isEmpty() ? null : outputDir.resolve(ALL_POWER_LINES));
+    }
+
+    private static List<Path> write(List<PointColumns> lines, PointColumns noise, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            Path file = outputDir.resolve("power_line_" + (i + 1) + ".las");
+            LASPointWriter.write(file, lines.get(i));
+            files.add(file);
+        }
+        if (!lines.isEmpty()) {
+            int total = lines.stream().mapToInt(PointColumns::size).sum();
+            PointColumns merged = PointColumns.like(noise, total);
+            for (PointColumns line : lines) {
+                for (int i = 0; i < line.size(); i++) merged.add(line, i);
+            }
+            Path file = outputDir.resolve(ALL_POWER_LINES);
+            LASPointWriter.write(file, merged);
+            files.add(file);
+        }
+        if (!noise.isEmpty()) {
+            Path file = outputDir.resolve("noise_points.las");
+            LASPointWriter.write(file, noise);
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static PointColumns withClassification(PointColumns points, int classification) {
+        PointColumns result = PointColumns.like(points, points.size());
+        for (int i = 0; i < points.size(); i++) {
+            result.addRaw(points.getRawX(i), points.getRawY(i), points.getRawZ(i), points.getIntensity(i), classification);
+        }
+        return result;
+    }
+}
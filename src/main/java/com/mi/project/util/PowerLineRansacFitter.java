@@ -0,0 +1,934 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * 电力线 RANSAC 分段拟合（5-ransac_fit_to_json.py 中 RANSACPowerLineFitting 的 Java 实现）
+ * <ol>
+ *   <li>按分类分组，每个分类以第 k 近邻平均距离的 2.5 倍为半径做 DBSCAN，细分为若干电力线段；</li>
+ *   <li>每段用 PCA 主方向排序，沿主方向按 segmentLength / overlapRatio 切成子段；</li>
+ *   <li>每个子段以沿线距离 t 为自变量，对 x、y、z 分别做 RANSAC 回归：x、y 为直线，
+ *       z 按 {@link CurveModel} 取直线、抛物线或悬链线（悬链线以抛物线假设做 RANSAC，
+ *       再在一致集上用 Gauss-Newton 精化）。</li>
+ * </ol>
+ * RANSAC 的采样规则与 sklearn RANSACRegressor 相同（样本数由 minSamplesRatio 决定，固定随机种子），
+ * 迭代次数按当前最优一致集的内点比例自适应收缩：N = log(1-p) / log(1-w^s)，
+ * 内点比例接近 1 时一两次采样即可结束。各子段在 ForkJoinPool 上并行拟合，输出顺序确定。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class PowerLineRansacFitter {
+
+    /** 自适应迭代次数的置信度，与 sklearn 的 stop_probability 默认值相同 */
+    private static final double STOP_PROBABILITY = 0.99;
+
+    /** RANSAC 随机种子（对应脚本中的 random_state=42），每个子段独立使用，结果与线程调度无关 */
+    private static final long RANDOM_SEED = 42L;
+
+    /** 每条拟合曲线的采样点数上限 */
+    private static final int CURVE_POINTS = 50;
+
+    /** 子段拟合所需的最少点数 */
+    private static final int MIN_FIT_POINTS = 5;
+
+    /** 悬链线 Gauss-Newton 精化的最大迭代次数 */
+    private static final int CATENARY_ITERATIONS = 20;
+
+    /** 估算第 k 近邻网格边长时的抽样点数 */
+    private static final int KNN_SAMPLE_SIZE = 1000;
+
+    /** 并行计算第 k 近邻距离时每个任务的最少点数 */
+    private static final int MIN_TASK_POINTS = 2048;
+
+    /**
+     * z 方向（弧垂方向）的曲线模型
+     */
+    public enum CurveModel {
+        /** 直线，与 Python 脚本的线性拟合一致 */
+        LINE(1),
+        /** 抛物线 z = a·t² + b·t + c */
+        PARABOLA(2),
+        /** 悬链线 z = c + a·(cosh((t - t0) / a) - 1) */
+        CATENARY(2);
+
+        private final int degree;
+
+        CurveModel(int degree) {
+            this.degree = degree;
+        }
+
+        /** RANSAC 假设所用多项式的次数 */
+        public int getDegree() {
+            return degree;
+        }
+    }
+
+    /**
+     * 拟合参数，默认值与 Python 脚本命令行默认值一致
+     */
+    public static class Options {
+        private double segmentLength = 60.0;         // 子段长度（米）
+        private double overlapRatio = 0.1;           // 子段重叠比例
+        private double ransacThreshold = 1.2;        // RANSAC 内点残差阈值（米）
+        private double minSamplesRatio = 0.5;        // 每次采样的点数比例
+        private int maxTrials = 50;                  // RANSAC 最大迭代次数
+        private int minSegmentPoints = 10;           // 分类点数少于该值时跳过
+        private CurveModel model = CurveModel.LINE;  // z 方向曲线模型
+
+        public double getSegmentLength() { return segmentLength; }
+        public void setSegmentLength(double segmentLength) { this.segmentLength = segmentLength; }
+
+        public double getOverlapRatio() { return overlapRatio; }
+        public void setOverlapRatio(double overlapRatio) { this.overlapRatio = overlapRatio; }
+
+        public double getRansacThreshold() { return ransacThreshold; }
+        public void setRansacThreshold(double ransacThreshold) { this.ransacThreshold = ransacThreshold; }
+
+        public double getMinSamplesRatio() { return minSamplesRatio; }
+        public void setMinSamplesRatio(double minSamplesRatio) { this.minSamplesRatio = minSamplesRatio; }
+
+        public int getMaxTrials() { return maxTrials; }
+        public void setMaxTrials(int maxTrials) { this.maxTrials = maxTrials; }
+
+        public int getMinSegmentPoints() { return minSegmentPoints; }
+        public void setMinSegmentPoints(int minSegmentPoints) { this.minSegmentPoints = minSegmentPoints; }
+
+        public CurveModel getModel() { return model; }
+        public void setModel(CurveModel model) { this.model = model; }
+
+        public static Options getDefault() {
+            return new Options();
+        }
+    }
+
+    /**
+     * 待拟合的电力线段
+     */
+    public static class Segment {
+        public final int segmentId;
+        public final int classification;
+        public final double[] xs, ys, zs;
+
+        public Segment(int segmentId, int classification, double[] xs, double[] ys, double[] zs) {
+            this.segmentId = segmentId;
+            this.classification = classification;
+            this.xs = xs;
+            this.ys = ys;
+            this.zs = zs;
+        }
+
+        public int size() {
+            return xs.length;
+        }
+    }
+
+    /**
+     * 单个电力线段的拟合统计
+     */
+    public static class SegmentInfo {
+        public final int segmentId;
+        public final int classification;
+        public final int totalPoints;
+        public final int fittedSegments;
+        public final double totalLength;
+
+        SegmentInfo(int segmentId, int classification, int totalPoints, int fittedSegments, double totalLength) {
+            this.segmentId = segmentId;
+            this.classification = classification;
+            this.totalPoints = totalPoints;
+            this.fittedSegments = fittedSegments;
+            this.totalLength = totalLength;
+        }
+    }
+
+    /**
+     * 单个坐标分量关于沿线距离 t 的拟合函数
+     */
+    public static final class AxisCurve {
+        /** 实际使用的模型，悬链线精化失败时退化为抛物线 */
+        public final CurveModel model;
+        /** 多项式系数，t 的 0、1、2 次项 */
+        public final double intercept, slope, quadratic;
+        /** 悬链线参数，仅 model 为 CATENARY 时有效 */
+        public final double catenaryA, vertex, offset;
+
+        private AxisCurve(CurveModel model, double intercept, double slope, double quadratic,
+                          double catenaryA, double vertex, double offset) {
+            this.model = model;
+            this.intercept = intercept;
+            this.slope = slope;
+            this.quadratic = quadratic;
+            this.catenaryA = catenaryA;
+            this.vertex = vertex;
+            this.offset = offset;
+        }
+
+        public double evaluate(double t) {
+            if (model == CurveModel.CATENARY) {
+                return offset + catenaryA * (Math.cosh((t - vertex) / catenaryA) - 1);
+            }
+            return (quadratic * t + slope) * t + intercept;
+        }
+    }
+
+    /**
+     * 单个子段的拟合曲线
+     */
+    public static class Curve {
+        public final int segmentId;
+        public final int subsegmentId;
+        public final int classification;
+        public final double inlierRatio;
+        public final double rmse;
+        public final AxisCurve x, y, z;
+        /** 在 [t 最小值, t 最大值] 上等距采样的曲线点，每行为 {x, y, z} */
+        public final double[][] points;
+        public final int originalPointsCount;
+        /** 三个坐标分量实际执行的 RANSAC 迭代次数之和 */
+        public final int trials;
+
+        Curve(int segmentId, int subsegmentId, int classification, double inlierRatio, double rmse,
+              AxisCurve x, AxisCurve y, AxisCurve z, double[][] points, int originalPointsCount, int trials) {
+            this.segmentId = segmentId;
+            this.subsegmentId = subsegmentId;
+            this.classification = classification;
+            this.inlierRatio = inlierRatio;
+            this.rmse = rmse;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.points = points;
+            this.originalPointsCount = originalPointsCount;
+            this.trials = trials;
+        }
+
+        public double[] getStartPoint() {
+            return points[0];
+        }
+
+        public double[] getEndPoint() {
+            return points[points.length - 1];
+        }
+    }
+
+    /**
+     * 拟合结果，segments 与输入的电力线段一一对应，curves 按段号、子段号排列
+     */
+    public static class Result {
+        public final List<SegmentInfo> segments;
+        public final List<Curve> curves;
+        public final long elapsedMillis;
+
+        Result(List<SegmentInfo> segments, List<Curve> curves, long elapsedMillis) {
+            this.segments = segments;
+            this.curves = curves;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public double getAverageInlierRatio() {
+            return curves.stream().mapToDouble(c -> c.inlierRatio).average().orElse(0);
+        }
+
+        public double getAverageRmse() {
+            return curves.stream().mapToDouble(c -> c.rmse).average().orElse(0);
+        }
+    }
+
+    private PowerLineRansacFitter() {
+    }
+
+    /**
+     * 读取电力线 LAS 文件（all_power_lines.las）并拟合
+     */
+    public static Result fit(Path lasFile, Options options) throws IOException {
+        PointColumns points;
+        try (LASFileReader reader = new LASFileReader(lasFile)) {
+            points = LASParallelDecoder.decode(reader, false).points;
+        }
+        return fit(points, options, ForkJoinPool.commonPool());
+    }
+
+    public static Result fit(PointColumns points, Options options, ForkJoinPool pool) {
+        return fitSegments(extractSegments(points, options, pool), options, pool);
+    }
+
+    /**
+     * 按分类和 DBSCAN 聚类提取电力线段，规则与 Python 脚本的 extract_powerline_segments 相同；
+     * 一个段也没有时忽略分类对全部点重新聚类（分类记为 1）
+     */
+    public static List<Segment> extractSegments(PointColumns points, Options options, ForkJoinPool pool) {
+        int n = points.size();
+        int[] classCounts = new int[256];
+        for (int i = 0; i < n; i++) {
+            classCounts[points.getClassification(i) & 0xFF]++;
+        }
+        int[][] members = new int[256][];
+        int[] fill = new int[256];
+        for (int c = 0; c < 256; c++) {
+            if (classCounts[c] > 0) members[c] = new int[classCounts[c]];
+        }
+        for (int i = 0; i < n; i++) {
+            int c = points.getClassification(i) & 0xFF;
+            members[c][fill[c]++] = i;
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        // 0 类通常是噪声点
+        for (int c = 1; c < 256; c++) {
+            if (members[c] == null) {
+                continue;
+            }
+            if (members[c].length < options.minSegmentPoints) {
+                log.debug("分类 {} 点数太少，跳过 ({}点)", c, members[c].length);
+                continue;
+            }
+            splitByClusters(points, members[c], c, true, segments, pool);
+        }
+
+        if (segments.isEmpty() && n > 0) {
+            log.info("未找到有效电力线段，忽略分类信息重新聚类");
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            splitByClusters(points, all, 1, false, segments, pool);
+        }
+        return segments;
+    }
+
+    /**
+     * 对一组点做自适应半径 DBSCAN，把足够大的聚类依次追加为电力线段；聚类失败时整组作为一段
+     *
+     * @param limitEps 是否把超过 20m 的半径限制为 15m（按分类聚类时限制，忽略分类时不限制）
+     */
+    private static void splitByClusters(PointColumns points, int[] members, int classification, boolean limitEps,
+                                        List<Segment> segments, ForkJoinPool pool) {
+        int m = members.length;
+        double[] xs = new double[m], ys = new double[m], zs = new double[m];
+        for (int i = 0; i < m; i++) {
+            xs[i] = points.getX(members[i]);
+            ys[i] = points.getY(members[i]);
+            zs[i] = points.getZ(members[i]);
+        }
+        // 点数很少时直接作为一个段
+        if (m < 20) {
+            segments.add(new Segment(segments.size() + 1, classification, xs, ys, zs));
+            return;
+        }
+
+        int k = Math.min(10, m - 1);
+        double eps = Math.max(0.01, averageKthDistance(xs, ys, zs, k, pool) * 2.5);
+        if (limitEps && eps > 20.0) {
+            eps = 15.0;
+        }
+        double[][] data = new double[m][];
+        for (int i = 0; i < m; i++) {
+            data[i] = new double[]{xs[i], ys[i], zs[i]};
+        }
+        DBSCANCluster.ClusterResult clusters = DBSCANCluster.fitParallel(data, eps, Math.min(5, m / 2), pool);
+        log.debug("分类 {}: {}点, 聚类半径 {}m, {}个聚类, {}个噪声点",
+                classification, m, eps, clusters.clusterCount, clusters.noiseCount);
+        if (clusters.clusterCount == 0) {
+            segments.add(new Segment(segments.size() + 1, classification, xs, ys, zs));
+            return;
+        }
+
+        int[] sizes = new int[clusters.clusterCount + 1];
+        for (int label : clusters.labels) {
+            if (label > 0) sizes[label]++;
+        }
+        int minClusterPoints = Math.min(8, m / 2);
+        for (int label = 1; label <= clusters.clusterCount; label++) {
+            if (sizes[label] < minClusterPoints) {
+                continue;
+            }
+            double[] cx = new double[sizes[label]], cy = new double[sizes[label]], cz = new double[sizes[label]];
+            int p = 0;
+            for (int i = 0; i < m; i++) {
+                if (clusters.labels[i] == label) {
+                    cx[p] = xs[i];
+                    cy[p] = ys[i];
+                    cz[p] = zs[i];
+                    p++;
+                }
+            }
+            segments.add(new Segment(segments.size() + 1, classification, cx, cy, cz));
+        }
+    }
+
+    /**
+     * 所有点到其第 k 近邻距离的平均值
+     * 先按最大跨度上每 k 个点一格的网格估算少量抽样点的第 k 近邻距离，再以其 2 倍为边长重建网格，
+     * 使大多数查询在第一圈（27 个网格）内结束
+     */
+    static double averageKthDistance(double[] xs, double[] ys, double[] zs, int k, ForkJoinPool pool) {
+        int n = xs.length;
+        double extent = Math.max(span(xs), Math.max(span(ys), span(zs)));
+        double cellSize = extent * k / n;
+        PointGrid grid = new PointGrid(xs, ys, zs, cellSize > 0 ? cellSize : 1.0);
+        int stride = Math.max(1, n / KNN_SAMPLE_SIZE);
+        double sampled = 0;
+        int count = 0;
+        for (int i = 0; i < n; i += stride, count++) {
+            sampled += grid.kthNearestDistance(i, k);
+        }
+        if (sampled > 0) {
+            grid = new PointGrid(xs, ys, zs, 2 * sampled / count);
+        }
+
+        PointGrid index = grid;
+        double[] distances = new double[n];
+        pool.invoke(new RangeTask(0, n, MIN_TASK_POINTS, i -> distances[i] = index.kthNearestDistance(i, k)));
+        double sum = 0;
+        for (double d : distances) {
+            sum += d;
+        }
+        return sum / n;
+    }
+
+    private static double span(double[] values) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (double v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        return max - min;
+    }
+
+    /**
+     * 拟合给定的电力线段：先并行做各段的 PCA 排序和子段划分，再并行拟合全部子段
+     */
+    public static Result fitSegments(List<Segment> segments, Options options, ForkJoinPool pool) {
+        long start = System.currentTimeMillis();
+        int count = segments.size();
+        Ordered[] ordered = new Ordered[count];
+        pool.invoke(new RangeTask(0, count, 1, s -> ordered[s] = Ordered.of(segments.get(s), options)));
+
+        List<Window> windows = new ArrayList<>();
+        for (Ordered o : ordered) {
+            if (o != null) windows.addAll(o.windows);
+        }
+        Curve[] curves = new Curve[windows.size()];
+        // ForkJoinPool 的线程上没有绑定令牌，在调用线程上取得后逐个子段检查
+        CancellationToken token = CancellationToken.current();
+        pool.invoke(new RangeTask(0, curves.length, 1, w -> {
+            token.throwIfCancelled();
+            curves[w] = fitWindow(windows.get(w), options);
+        }));
+
+        List<SegmentInfo> infos = new ArrayList<>(count);
+        List<Curve> fitted = new ArrayList<>();
+        int w = 0;
+        for (int s = 0; s < count; s++) {
+            Segment segment = segments.get(s);
+            int fittedSegments = 0;
+            if (ordered[s] != null) {
+                for (int end = w + ordered[s].windows.size(); w < end; w++) {
+                    if (curves[w] != null) {
+                        fitted.add(curves[w]);
+                        fittedSegments++;
+                    }
+                }
+            }
+            double totalLength = ordered[s] == null ? 0 : ordered[s].totalLength;
+            infos.add(new SegmentInfo(segment.segmentId, segment.classification, segment.size(),
+                    fittedSegments, totalLength));
+        }
+        Result result = new Result(infos, fitted, System.currentTimeMillis() - start);
+        log.info("RANSAC拟合完成: {}个电力线段, {}条曲线, 平均内点比例 {}, 平均RMSE {}m, 耗时 {}ms",
+                count, fitted.size(), String.format("%.3f", result.getAverageInlierRatio()),
+                String.format("%.3f", result.getAverageRmse()), result.elapsedMillis);
+        return result;
+    }
+
+    /**
+     * 按 PCA 主方向排序后的电力线段及其子段划分
+     */
+    private static final class Ordered {
+        final double totalLength;
+        final List<Window> windows = new ArrayList<>();
+
+        private Ordered(double totalLength) {
+            this.totalLength = totalLength;
+        }
+
+        /**
+         * 点数少于 5 时返回 null（无法拟合）
+         */
+        static Ordered of(Segment segment, Options options) {
+            int n = segment.size();
+            if (n < MIN_FIT_POINTS) {
+                return null;
+            }
+            double[] xs = segment.xs, ys = segment.ys, zs = segment.zs;
+            double mx = 0, my = 0, mz = 0;
+            for (int i = 0; i < n; i++) {
+                mx += xs[i];
+                my += ys[i];
+                mz += zs[i];
+            }
+            mx /= n;
+            my /= n;
+            mz /= n;
+            double cxx = 0, cxy = 0, cxz = 0, cyy = 0, cyz = 0, czz = 0;
+            for (int i = 0; i < n; i++) {
+                double dx = xs[i] - mx, dy = ys[i] - my, dz = zs[i] - mz;
+                cxx += dx * dx;
+                cxy += dx * dy;
+                cxz += dx * dz;
+                cyy += dy * dy;
+                cyz += dy * dz;
+                czz += dz * dz;
+            }
+            double[] values = new double[3], vectors = new double[9];
+            SymmetricEigen3.decompose(cxx, cxy, cxz, cyy, cyz, czz, values, vectors);
+
+            // 按主方向上的投影排序，沿线距离从 0 开始
+            long[] keyed = new long[n];
+            double[] projection = new double[n];
+            for (int i = 0; i < n; i++) {
+                projection[i] = (xs[i] - mx) * vectors[0] + (ys[i] - my) * vectors[1] + (zs[i] - mz) * vectors[2];
+            }
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Double.compare(projection[a], projection[b]));
+            double[] sx = new double[n], sy = new double[n], sz = new double[n], t = new double[n];
+            double t0 = projection[order[0]];
+            for (int i = 0; i < n; i++) {
+                int idx = order[i];
+                sx[i] = xs[idx];
+                sy[i] = ys[idx];
+                sz[i] = zs[idx];
+                t[i] = projection[idx] - t0;
+            }
+            double totalLength = t[n - 1];
+
+            Ordered ordered = new Ordered(totalLength);
+            if (totalLength < options.segmentLength || n < 20) {
+                ordered.windows.add(new Window(segment, 1, sx, sy, sz, t, 0, n));
+                return ordered;
+            }
+            // 与脚本相同：第 i 个子段为 [i·step·(1-overlap), (i+1)·step]
+            int segmentCount = (int) Math.ceil(totalLength / options.segmentLength);
+            double step = totalLength / segmentCount;
+            for (int i = 0; i < segmentCount; i++) {
+                int from = lowerBound(t, i * step * (1 - options.overlapRatio));
+                int to = upperBound(t, (i + 1) * step);
+                if (to - from >= MIN_FIT_POINTS) {
+                    ordered.windows.add(new Window(segment, i + 1, sx, sy, sz, t, from, to));
+                }
+            }
+            return ordered;
+        }
+
+        private static int lowerBound(double[] sorted, double value) {
+            int lo = 0, hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < value) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private static int upperBound(double[] sorted, double value) {
+            int lo = 0, hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] <= value) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * 一个子段：排序后数组中 [from, to) 的点
+     */
+    private static final class Window {
+        final Segment segment;
+        final int subsegmentId;
+        final double[] xs, ys, zs, t;
+        final int from, to;
+
+        Window(Segment segment, int subsegmentId, double[] xs, double[] ys, double[] zs, double[] t, int from, int to) {
+            this.segment = segment;
+            this.subsegmentId = subsegmentId;
+            this.xs = xs;
+            this.ys = ys;
+            this.zs = zs;
+            this.t = t;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * 拟合单个子段，任一坐标分量的 RANSAC 找不到一致集时返回 null
+     */
+    private static Curve fitWindow(Window window, Options options) {
+        int n = window.to - window.from;
+        double[] t = Arrays.copyOfRange(window.t, window.from, window.to);
+        double[][] values = {
+                Arrays.copyOfRange(window.xs, window.from, window.to),
+                Arrays.copyOfRange(window.ys, window.from, window.to),
+                Arrays.copyOfRange(window.zs, window.from, window.to)
+        };
+        int sampleSize = Math.max(3, Math.min(n - 1, (int) (n * options.minSamplesRatio)));
+        Random random = new Random(RANDOM_SEED);
+        AxisFit[] fits = new AxisFit[3];
+        for (int axis = 0; axis < 3; axis++) {
+            CurveModel model = axis == 2 ? options.model : CurveModel.LINE;
+            fits[axis] = AxisFit.ransac(t, values[axis], model, sampleSize, options, random);
+            if (fits[axis] == null) {
+                log.debug("段 {} 子段 {} 的 RANSAC 拟合失败", window.segment.segmentId, window.subsegmentId);
+                return null;
+            }
+        }
+
+        int inliers = 0;
+        for (int i = 0; i < n; i++) {
+            if (fits[0].inliers[i] && fits[1].inliers[i] && fits[2].inliers[i]) inliers++;
+        }
+        double rmse = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            double sse = 0;
+            for (int i = 0; i < n; i++) {
+                double r = values[axis][i] - fits[axis].curve.evaluate(t[i]);
+                sse += r * r;
+            }
+            rmse += Math.sqrt(sse / n) / 3;
+        }
+
+        int curvePoints = Math.min(CURVE_POINTS, Math.max(2, n));
+        double[][] points = new double[curvePoints][];
+        for (int i = 0; i < curvePoints; i++) {
+            double ti = t[0] + (t[n - 1] - t[0]) * i / (curvePoints - 1);
+            points[i] = new double[]{fits[0].curve.evaluate(ti), fits[1].curve.evaluate(ti), fits[2].curve.evaluate(ti)};
+        }
+        return new Curve(window.segment.segmentId, window.subsegmentId, window.segment.classification,
+                (double) inliers / n, rmse, fits[0].curve, fits[1].curve, fits[2].curve, points, n,
+                fits[0].trials + fits[1].trials + fits[2].trials);
+    }
+
+    /**
+     * 单个坐标分量的 RANSAC 回归
+     * 多项式在 u = (t - center) / scale ∈ [-1, 1] 上求解以保证法方程的条件数，输出时再换回 t 的系数。
+     */
+    private static final class AxisFit {
+        final AxisCurve curve;
+        final boolean[] inliers;
+        final int trials;
+
+        private AxisFit(AxisCurve curve, boolean[] inliers, int trials) {
+            this.curve = curve;
+            this.inliers = inliers;
+            this.trials = trials;
+        }
+
+        static AxisFit ransac(double[] t, double[] v, CurveModel model, int sampleSize, Options options, Random random) {
+            int n = t.length;
+            int terms = model.getDegree() + 1;
+            double center = (t[0] + t[n - 1]) / 2;
+            double scale = Math.max((t[n - 1] - t[0]) / 2, 1e-9);
+            double[] u = new double[n];
+            for (int i = 0; i < n; i++) {
+                u[i] = (t[i] - center) / scale;
+            }
+
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            int[] sample = new int[sampleSize];
+            double[] coef = new double[terms], bestCoef = null;
+            boolean[] mask = new boolean[n], bestMask = new boolean[n];
+            int bestCount = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            long maxTrials = options.maxTrials;
+            int trials = 0;
+
+            while (trials < maxTrials) {
+                trials++;
+                // 不放回抽样：部分 Fisher-Yates 洗牌
+                for (int i = 0; i < sampleSize; i++) {
+                    int j = i + random.nextInt(n - i);
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    sample[i] = order[i];
+                }
+                if (!leastSquares(u, v, sample, sampleSize, terms, coef)) {
+                    continue;
+                }
+                int count = 0;
+                for (int i = 0; i < n; i++) {
+                    mask[i] = Math.abs(v[i] - polynomial(coef, u[i])) <= options.ransacThreshold;
+                    if (mask[i]) count++;
+                }
+                if (count == 0 || count < bestCount) {
+                    continue;
+                }
+                double score = rSquared(u, v, mask, coef);
+                if (count == bestCount && score < bestScore) {
+                    continue;
+                }
+                bestCount = count;
+                bestScore = score;
+                bestCoef = coef.clone();
+                System.arraycopy(mask, 0, bestMask, 0, n);
+                maxTrials = Math.min(maxTrials, dynamicMaxTrials(bestCount, n, sampleSize));
+            }
+            if (bestCoef == null) {
+                return null;
+            }
+
+            // 在最优一致集上重新最小二乘
+            int[] inlierIndices = new int[bestCount];
+            for (int i = 0, p = 0; i < n; i++) {
+                if (bestMask[i]) inlierIndices[p++] = i;
+            }
+            double[] refit = new double[terms];
+            if (!leastSquares(u, v, inlierIndices, bestCount, terms, refit)) {
+                refit = bestCoef;
+            }
+            AxisCurve curve = toCurve(refit, terms, center, scale);
+            if (model == CurveModel.CATENARY) {
+                AxisCurve catenary = refineCatenary(curve, t, v, inlierIndices);
+                if (catenary != null) curve = catenary;
+            }
+            return new AxisFit(curve, bestMask, trials);
+        }
+
+        /**
+         * 达到给定置信度所需的迭代次数（sklearn _dynamic_max_trials）
+         */
+        static long dynamicMaxTrials(int inliers, int n, int sampleSize) {
+            double denominator = 1 - Math.pow((double) inliers / n, sampleSize);
+            if (denominator == 0) {
+                return 0;
+            }
+            if (denominator == 1) {
+                return Long.MAX_VALUE;
+            }
+            double trials = Math.ceil(Math.log(1 - STOP_PROBABILITY) / Math.log(denominator));
+            return trials >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) Math.abs(trials);
+        }
+
+        private static double polynomial(double[] coef, double u) {
+            double r = 0;
+            for (int k = coef.length - 1; k >= 0; k--) {
+                r = r * u + coef[k];
+            }
+            return r;
+        }
+
+        private static double rSquared(double[] u, double[] v, boolean[] mask, double[] coef) {
+            double mean = 0;
+            int count = 0;
+            for (int i = 0; i < u.length; i++) {
+                if (mask[i]) {
+                    mean += v[i];
+                    count++;
+                }
+            }
+            mean /= count;
+            double ssRes = 0, ssTot = 0;
+            for (int i = 0; i < u.length; i++) {
+                if (mask[i]) {
+                    double r = v[i] - polynomial(coef, u[i]);
+                    double d = v[i] - mean;
+                    ssRes += r * r;
+                    ssTot += d * d;
+                }
+            }
+            return ssTot == 0 ? (ssRes == 0 ? 1 : 0) : 1 - ssRes / ssTot;
+        }
+
+        /**
+         * 对 indices 中的前 count 个点做 terms 项多项式最小二乘，法方程奇异时返回 false
+         */
+        private static boolean leastSquares(double[] u, double[] v, int[] indices, int count, int terms, double[] coef) {
+            double[] a = new double[terms * terms];
+            double[] b = new double[terms];
+            double[] powers = new double[2 * terms - 1];
+            for (int s = 0; s < count; s++) {
+                int i = indices[s];
+                double p = 1;
+                for (int k = 0; k < powers.length; k++) {
+                    powers[k] = p;
+                    p *= u[i];
+                }
+                for (int r = 0; r < terms; r++) {
+                    b[r] += powers[r] * v[i];
+                    for (int c = 0; c < terms; c++) {
+                        a[r * terms + c] += powers[r + c];
+                    }
+                }
+            }
+            return solve(a, b, terms, coef);
+        }
+
+        private static AxisCurve toCurve(double[] c, int terms, double center, double scale) {
+            double c0 = c[0], c1 = c[1], c2 = terms > 2 ? c[2] : 0;
+            double quadratic = c2 / (scale * scale);
+            double slope = c1 / scale - 2 * c2 * center / (scale * scale);
+            double intercept = c0 - c1 * center / scale + c2 * center * center / (scale * scale);
+            CurveModel model = terms > 2 ? CurveModel.PARABOLA : CurveModel.LINE;
+            return new AxisCurve(model, intercept, slope, quadratic, Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        /**
+         * 以抛物线的顶点和曲率为初值，在一致集上用 Gauss-Newton 拟合悬链线；
+         * 开口向下、近似直线或不收敛时返回 null，保留抛物线
+         */
+        private static AxisCurve refineCatenary(AxisCurve parabola, double[] t, double[] v, int[] indices) {
+            if (!(parabola.quadratic > 1e-9)) {
+                return null;
+            }
+            double a = 1 / (2 * parabola.quadratic);
+            double vertex = -parabola.slope / (2 * parabola.quadratic);
+            double offset = parabola.intercept - parabola.slope * parabola.slope / (4 * parabola.quadratic);
+            double sse = catenarySse(a, vertex, offset, t, v, indices);
+            if (!Double.isFinite(sse)) {
+                return null;
+            }
+
+            double[] jtj = new double[9], jtr = new double[3], step = new double[3];
+            for (int iter = 0; iter < CATENARY_ITERATIONS; iter++) {
+                Arrays.fill(jtj, 0);
+                Arrays.fill(jtr, 0);
+                for (int i : indices) {
+                    double w = (t[i] - vertex) / a;
+                    double ch = Math.cosh(w), sh = Math.sinh(w);
+                    double r = v[i] - (offset + a * (ch - 1));
+                    double[] j = {ch - 1 - w * sh, -sh, 1};
+                    for (int p = 0; p < 3; p++) {
+                        jtr[p] += j[p] * r;
+                        for (int q = 0; q < 3; q++) {
+                            jtj[p * 3 + q] += j[p] * j[q];
+                        }
+                    }
+                }
+                if (!solve(jtj, jtr, 3, step)) {
+                    break;
+                }
+                // 步长减半直到残差下降
+                double lambda = 1;
+                double next = Double.NaN;
+                for (int half = 0; half < 10; half++, lambda /= 2) {
+                    double na = a + lambda * step[0];
+                    if (na <= 0) continue;
+                    next = catenarySse(na, vertex + lambda * step[1], offset + lambda * step[2], t, v, indices);
+                    if (next <= sse) break;
+                }
+                if (!(next <= sse)) {
+                    break;
+                }
+                a += lambda * step[0];
+                vertex += lambda * step[1];
+                offset += lambda * step[2];
+                boolean converged = sse - next <= 1e-12 * Math.max(1, sse);
+                sse = next;
+                if (converged) {
+                    break;
+                }
+            }
+            if (!(a > 0) || !Double.isFinite(sse)) {
+                return null;
+            }
+            return new AxisCurve(CurveModel.CATENARY, parabola.intercept, parabola.slope, parabola.quadratic,
+                    a, vertex, offset);
+        }
+
+        private static double catenarySse(double a, double vertex, double offset, double[] t, double[] v, int[] indices) {
+            double sse = 0;
+            for (int i : indices) {
+                double r = v[i] - (offset + a * (Math.cosh((t[i] - vertex) / a) - 1));
+                sse += r * r;
+            }
+            return sse;
+        }
+
+        /**
+         * 列主元高斯消元解 size×size 线性方程组，a 与 b 会被改写
+         */
+        private static boolean solve(double[] a, double[] b, int size, double[] x) {
+            double norm = 0;
+            for (double value : a) norm = Math.max(norm, Math.abs(value));
+            if (!(norm > 0) || !Double.isFinite(norm)) {
+                return false;
+            }
+            for (int col = 0; col < size; col++) {
+                int pivot = col;
+                for (int r = col + 1; r < size; r++) {
+                    if (Math.abs(a[r * size + col]) > Math.abs(a[pivot * size + col])) pivot = r;
+                }
+                if (Math.abs(a[pivot * size + col]) <= norm * 1e-12) {
+                    return false;
+                }
+                if (pivot != col) {
+                    for (int c = 0; c < size; c++) {
+                        double tmp = a[col * size + c];
+                        a[col * size + c] = a[pivot * size + c];
+                        a[pivot * size + c] = tmp;
+                    }
+                    double tmp = b[col];
+                    b[col] = b[pivot];
+                    b[pivot] = tmp;
+                }
+                for (int r = col + 1; r < size; r++) {
+                    double f = a[r * size + col] / a[col * size + col];
+                    for (int c = col; c < size; c++) {
+                        a[r * size + c] -= f * a[col * size + c];
+                    }
+                    b[r] -= f * b[col];
+                }
+            }
+            for (int r = size - 1; r >= 0; r--) {
+                double s = b[r];
+                for (int c = r + 1; c < size; c++) {
+                    s -= a[r * size + c] * x[c];
+                }
+                x[r] = s / a[r * size + r];
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 把 [from, to) 二分成不少于 threshold 个元素的区间并行执行
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+        private final int from, to, threshold;
+        private final IntConsumer body;
+
+        RangeTask(int from, int to, int threshold, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, threshold, body), new RangeTask(mid, to, threshold, body));
+        }
+    }
+}
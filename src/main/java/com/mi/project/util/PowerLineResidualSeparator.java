@@ -0,0 +1,393 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 基于模型残差聚类的单根电力线分离（3-powerline_extractor.py 中 extract_powerlines_by_residual_clustering
+ * 与 save_results 前两步过滤的 Java 实现）：
+ * <ol>
+ *   <li>对候选点的 XY 做主成分分析，按主方向用最小二乘拟合水平直线 y = kx + b（或 x = ky + b）；</li>
+ *   <li>把点投影到直线上得到沿线坐标 s，拟合铅垂抛物线 z = As² + Bs + C；</li>
+ *   <li>每个点的 [水平残差 H, 垂直残差 V] 构成二维残差空间，同一根导线的点在残差空间中聚成一团，
+ *       用 {@link DBSCANCluster} 聚类后每个聚类即为一根导线。</li>
+ * </ol>
+ * 全部计算在基本类型数组上完成，输出为每根导线在候选点中的下标及模型参数，不复制点坐标。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class PowerLineResidualSeparator {
+
+    /** 候选点少于该值时不做拟合，全部视为噪声 */
+    private static final int MIN_FIT_POINTS = 10;
+
+    /**
+     * 分离参数，默认值与 Python 脚本一致
+     */
+    public static class Options {
+        private double eps = 10.0;                 // 残差空间 DBSCAN 邻域半径（米）
+        private int minSamples = 15;               // DBSCAN 最小样本数，也是保留导线的最少点数
+        private double densityRadius = 2.0;        // 密度过滤半径（米）
+        private int densityMinNeighbors = 5;       // 密度过滤的最少邻居数（含自身）
+        private int outlierNeighbors = 20;         // 统计离群点过滤的近邻数
+        private double outlierStdRatio = 2.0;      // 统计离群点过滤的标准差倍数
+
+        public double getEps() { return eps; }
+        public void setEps(double eps) { this.eps = eps; }
+
+        public int getMinSamples() { return minSamples; }
+        public void setMinSamples(int minSamples) { this.minSamples = minSamples; }
+
+        public double getDensityRadius() { return densityRadius; }
+        public void setDensityRadius(double densityRadius) { this.densityRadius = densityRadius; }
+
+        public int getDensityMinNeighbors() { return densityMinNeighbors; }
+        public void setDensityMinNeighbors(int densityMinNeighbors) { this.densityMinNeighbors = densityMinNeighbors; }
+
+        public int getOutlierNeighbors() { return outlierNeighbors; }
+        public void setOutlierNeighbors(int outlierNeighbors) { this.outlierNeighbors = outlierNeighbors; }
+
+        public double getOutlierStdRatio() { return outlierStdRatio; }
+        public void setOutlierStdRatio(double outlierStdRatio) { this.outlierStdRatio = outlierStdRatio; }
+
+        public static Options getDefault() {
+            return new Options();
+        }
+    }
+
+    /**
+     * 水平直线与铅垂抛物线模型（同一区域内的所有导线共用）
+     */
+    public static class Model {
+        /** true 时水平直线为 y = kx + b，否则为 x = ky + b */
+        public final boolean xDominant;
+        public final double k, b;
+        /** 铅垂抛物线 z = As² + Bs + C 的系数 */
+        public final double a, linear, constant;
+
+        Model(boolean xDominant, double k, double b, double a, double linear, double constant) {
+            this.xDominant = xDominant;
+            this.k = k;
+            this.b = b;
+            this.a = a;
+            this.linear = linear;
+            this.constant = constant;
+        }
+
+        /**
+         * 点在水平直线上的投影坐标 s
+         */
+        public double project(double x, double y) {
+            return xDominant ? (x + k * (y - b)) / (1 + k * k) : (y + k * (x - b)) / (1 + k * k);
+        }
+
+        /**
+         * 点到水平直线的有符号距离 H
+         */
+        public double horizontalResidual(double x, double y) {
+            double d = xDominant ? k * x - y + b : x - k * y - b;
+            return d / Math.sqrt(1 + k * k);
+        }
+    }
+
+    /**
+     * 一根导线：候选点下标（升序）及其沿线坐标
+     */
+    public static class Conductor {
+        public final int[] indices;
+        public final double[] s;
+
+        Conductor(int[] indices, double[] s) {
+            this.indices = indices;
+            this.s = s;
+        }
+
+        public int size() {
+            return indices.length;
+        }
+    }
+
+    /**
+     * 分离结果；点数不足以拟合时 model 为 null，全部候选点都在 noise 中
+     */
+    public static class Result {
+        public final Model model;
+        public final List<Conductor> conductors;
+        public final int[] noise;
+        /** 每个候选点的水平 / 垂直残差，未拟合时为空数组 */
+        public final double[] horizontalResiduals;
+        public final double[] verticalResiduals;
+
+        Result(Model model, List<Conductor> conductors, int[] noise,
+               double[] horizontalResiduals, double[] verticalResiduals) {
+            this.model = model;
+            this.conductors = conductors;
+            this.noise = noise;
+            this.horizontalResiduals = horizontalResiduals;
+            this.verticalResiduals = verticalResiduals;
+        }
+    }
+
+    private PowerLineResidualSeparator() {
+    }
+
+    public static Result separate(PointColumns candidates) {
+        return separate(candidates, Options.getDefault(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在残差空间中把候选点分离为单根导线
+     */
+    public static Result separate(PointColumns candidates, Options options, ForkJoinPool pool) {
+        int n = candidates.size();
+        if (n < MIN_FIT_POINTS) {
+            int[] all = new int[n];
+            Arrays.setAll(all, i -> i);
+            return new Result(null, List.of(), all, new double[0], new double[0]);
+        }
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = candidates.getX(i);
+            ys[i] = candidates.getY(i);
+            zs[i] = candidates.getZ(i);
+        }
+
+        // 1. 水平投影按主方向拟合直线
+        boolean xDominant = isXDominant(xs, ys);
+        double[] line = xDominant ? fitLine(xs, ys) : fitLine(ys, xs);
+        double k = line[0], b = line[1];
+
+        // 2. 沿线坐标 s；3. 拟合 z = As² + Bs + C
+        double[] s = new double[n];
+        double norm = 1 + k * k;
+        if (xDominant) {
+            for (int i = 0; i < n; i++) s[i] = (xs[i] + k * (ys[i] - b)) / norm;
+        } else {
+            for (int i = 0; i < n; i++) s[i] = (ys[i] + k * (xs[i] - b)) / norm;
+        }
+        double[] parabola = fitParabola(s, zs);
+
+        // 4. 残差；垂直残差用中心化后的 s 计算，避免 s² 在投影坐标量级下丢失精度
+        double center = parabola[3], a2 = parabola[0], a1 = parabola[1], a0 = parabola[2];
+        double sqrtNorm = Math.sqrt(norm);
+        double[][] residuals = new double[n][2];
+        double[] h = new double[n], v = new double[n];
+        for (int i = 0; i < n; i++) {
+            double d = xDominant ? k * xs[i] - ys[i] + b : xs[i] - k * ys[i] - b;
+            double u = s[i] - center;
+            h[i] = d / sqrtNorm;
+            v[i] = (a2 * u + a1) * u + a0 - zs[i];
+            residuals[i][0] = h[i];
+            residuals[i][1] = v[i];
+        }
+        Model model = new Model(xDominant, k, b, a2, a1 - 2 * a2 * center,
+                a2 * center * center - a1 * center + a0);
+
+        // 5. 残差空间密度聚类
+        DBSCANCluster.ClusterResult clusters = DBSCANCluster.fitParallel(residuals, options.eps, options.minSamples, pool);
+        int[] labels = clusters.labels;
+        int[] sizes = new int[clusters.clusterCount + 1];
+        int noiseCount = 0;
+        for (int label : labels) {
+            if (label > 0) sizes[label]++;
+            else noiseCount++;
+        }
+
+        // 6. 按聚类编号输出点数足够的导线
+        int[][] members = new int[sizes.length][];
+        for (int c = 1; c < sizes.length; c++) {
+            if (sizes[c] >= options.minSamples) members[c] = new int[sizes[c]];
+        }
+        int[] fill = new int[sizes.length];
+        int[] noise = new int[noiseCount];
+        int noiseFill = 0;
+        for (int i = 0; i < n; i++) {
+            int label = labels[i];
+            if (label <= 0) {
+                noise[noiseFill++] = i;
+            } else if (members[label] != null) {
+                members[label][fill[label]++] = i;
+            }
+        }
+        List<Conductor> conductors = new ArrayList<>();
+        for (int c = 1; c < sizes.length; c++) {
+            if (members[c] == null) continue;
+            int[] indices = members[c];
+            double[] cs = new double[indices.length];
+            for (int i = 0; i < indices.length; i++) cs[i] = s[indices[i]];
+            conductors.add(new Conductor(indices, cs));
+        }
+        log.debug("残差聚类: 候选点={}, 导线={}, 噪声点={}", n, conductors.size(), noiseCount);
+        return new Result(model, conductors, noise, h, v);
+    }
+
+    /**
+     * 二维 PCA 第一主成分的 x 分量绝对值是否大于 y 分量
+     */
+    static boolean isXDominant(double[] xs, double[] ys) {
+        int n = xs.length;
+        double mx = 0, my = 0;
+        for (int i = 0; i < n; i++) {
+            mx += xs[i];
+            my += ys[i];
+        }
+        mx /= n;
+        my /= n;
+        double sxx = 0, syy = 0, sxy = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = xs[i] - mx, dy = ys[i] - my;
+            sxx += dx * dx;
+            syy += dy * dy;
+            sxy += dx * dy;
+        }
+        // 2×2 对称矩阵最大特征值对应的特征向量 (sxy, λ - sxx) 或 (λ - syy, sxy)
+        double lambda = 0.5 * (sxx + syy + Math.sqrt((sxx - syy) * (sxx - syy) + 4 * sxy * sxy));
+        double vx, vy;
+        if (Math.abs(lambda - sxx) > Math.abs(lambda - syy)) {
+            vx = sxy;
+            vy = lambda - sxx;
+        } else {
+            vx = lambda - syy;
+            vy = sxy;
+        }
+        return Math.abs(vx) > Math.abs(vy);
+    }
+
+    /**
+     * 最小二乘拟合 v = k·u + b，返回 {k, b}；u 没有变化时 k 为 0（与 LinearRegression 的最小范数解一致）
+     */
+    static double[] fitLine(double[] us, double[] vs) {
+        int n = us.length;
+        double mu = 0, mv = 0;
+        for (int i = 0; i < n; i++) {
+            mu += us[i];
+            mv += vs[i];
+        }
+        mu /= n;
+        mv /= n;
+        double suu = 0, suv = 0;
+        for (int i = 0; i < n; i++) {
+            double du = us[i] - mu;
+            suu += du * du;
+            suv += du * (vs[i] - mv);
+        }
+        double k = suu > 0 ? suv / suu : 0;
+        return new double[]{k, mv - k * mu};
+    }
+
+    /**
+     * 最小二乘拟合 z = a2·u² + a1·u + a0，u = s - center，center 为 s 的均值
+     * 返回 {a2, a1, a0, center}；在中心化并缩放后的坐标上解正规方程，s 为几十万量级的投影坐标时也不会病态
+     */
+    static double[] fitParabola(double[] s, double[] zs) {
+        int n = s.length;
+        double center = 0;
+        for (double value : s) center += value;
+        center /= n;
+        double range = 0;
+        for (double value : s) range = Math.max(range, Math.abs(value - center));
+        if (!(range > 0)) {
+            double mz = 0;
+            for (double z : zs) mz += z;
+            return new double[]{0, 0, mz / n, center};
+        }
+        // 缩放坐标 t = u / range ∈ [-1, 1] 上的矩
+        double m1 = 0, m2 = 0, m3 = 0, m4 = 0, z0 = 0, z1 = 0, z2 = 0;
+        for (int i = 0; i < n; i++) {
+            double t = (s[i] - center) / range, t2 = t * t;
+            m1 += t;
+            m2 += t2;
+            m3 += t2 * t;
+            m4 += t2 * t2;
+            z0 += zs[i];
+            z1 += zs[i] * t;
+            z2 += zs[i] * t2;
+        }
+        // 正规方程 [[m4 m3 m2] [m3 m2 m1] [m2 m1 n]] · [c2 c1 c0] = [z2 z1 z0]，Cramer 法则求解
+        double det = det3(m4, m3, m2, m3, m2, m1, m2, m1, n);
+        double c2, c1, c0;
+        if (Math.abs(det) > 1e-12 * Math.max(1, m4 * m2 * n)) {
+            c2 = det3(z2, m3, m2, z1, m2, m1, z0, m1, n) / det;
+            c1 = det3(m4, z2, m2, m3, z1, m1, m2, z0, n) / det;
+            c0 = det3(m4, m3, z2, m3, m2, z1, m2, m1, z0) / det;
+        } else {
+            // s 只有两个不同取值时退化为直线
+            double denom = n * m2 - m1 * m1;
+            c2 = 0;
+            c1 = denom != 0 ? (n * z1 - m1 * z0) / denom : 0;
+            c0 = (z0 - c1 * m1) / n;
+        }
+        return new double[]{c2 / (range * range), c1 / range, c0, center};
+    }
+
+    private static double det3(double a, double b, double c, double d, double e, double f, double g, double h, double i) {
+        return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+    }
+
+    /**
+     * 移除半径 densityRadius 内邻居（含自身）少于 densityMinNeighbors 的孤立点（filter_low_density_points）
+     * 少于 10 个点的导线原样保留；过滤后不足 5 个点时保留原导线
+     */
+    public static PointColumns filterLowDensity(PointColumns line, Options options) {
+        int n = line.size();
+        if (n < 10) {
+            return line;
+        }
+        PointGrid grid = gridOf(line, options.densityRadius);
+        PointGrid.Neighbors neighbors = new PointGrid.Neighbors();
+        int[] kept = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            grid.within(line.getX(i), line.getY(i), line.getZ(i), options.densityRadius, neighbors);
+            if (neighbors.count >= options.densityMinNeighbors) kept[count++] = i;
+        }
+        return count >= 5 ? line.select(kept, count) : line;
+    }
+
+    /**
+     * 统计离群点过滤（statistical_outlier_removal）：到最近 outlierNeighbors 个点的平均距离
+     * 不小于 均值 + outlierStdRatio × 标准差 的点视为离群点；点数不超过 outlierNeighbors 时跳过，
+     * 过滤后不足 10 个点时保留原导线
+     */
+    public static PointColumns removeStatisticalOutliers(PointColumns line, Options options) {
+        int n = line.size();
+        int k = options.outlierNeighbors;
+        if (n < k + 1) {
+            return line;
+        }
+        PointGrid grid = gridOf(line, options.densityRadius);
+        double[] mean = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            mean[i] = grid.meanNearestDistance(i, k);
+            sum += mean[i];
+        }
+        double average = sum / n;
+        double variance = 0;
+        for (double d : mean) variance += (d - average) * (d - average);
+        double threshold = average + options.outlierStdRatio * Math.sqrt(variance / n);
+        int[] kept = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (mean[i] < threshold) kept[count++] = i;
+        }
+        return count >= 10 ? line.select(kept, count) : line;
+    }
+
+    private static PointGrid gridOf(PointColumns line, double cellSize) {
+        int n = line.size();
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = line.getX(i);
+            ys[i] = line.getY(i);
+            zs[i] = line.getZ(i);
+        }
+        return new PointGrid(xs, ys, zs, cellSize);
+    }
+}
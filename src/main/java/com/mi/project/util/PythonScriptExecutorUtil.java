@@ -1,43 +1,159 @@
 package com.mi.project.util;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.io.File;
 
 @Slf4j
 @Component
 public class PythonScriptExecutorUtil {
-    private final String pythonScriptPath = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\python\\check.py";
+    private String pythonScriptPath;
 
     private final String pythonExecutable = "python";
 
     private final Long timeoutSeconds = 300L;
 
-    public String executeFileAnalysis(String postParams, String absolutePath, String outPath) {
-        try {
-            // 构建Python命令
-            List<String> command = new ArrayList<>();
-            command.add(pythonExecutable);
-            command.add(pythonScriptPath);// Python脚本路径
-            command.add(absolutePath);
-            command.add(outPath);// 文件路径参数
-            // 增加 --classes 参数支持
+    /** 电力线提取的绝对高程阈值（与 2-process_tiles.py 的默认值相同） */
+    private static final double MIN_Z_THRESHOLD = 20.0;
 
-            log.info("执行Python命令: {}", String.join(" ", command));
+    private String pointToJsonScript;
 
-            // 创建进程
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.redirectErrorStream(true); // 合并错误流和输出流
+    /** 6-point_to_json.py 的内容哈希，启动时计算一次，作为点坐标导出缓存键的一部分 */
+    private String pointToJsonScriptHash;
 
-            Process process = processBuilder.start();
+    /** 6-point_to_json.py 输出文件路径所在行的前缀 */
+    private static final String POINT_JSON_OUTPUT_PREFIX = "保存JSON文件: ";
+
+    private String workerScriptPath;
+
+    /** Python 脚本目录（check.py、6-point_to_json.py、worker.py），为空时启动时把 classpath:python/*.py 解压到临时目录 */
+    @Value("${pointcloud.python-worker.scripts-dir:}")
+    private String scriptsDir;
+
+    /** 常驻工作进程的入口脚本，为空时使用脚本目录下的 worker.py */
+    @Value("${pointcloud.python-worker.script:}")
+    private String workerScript;
+
+    /** 常驻 Python 工作进程数 */
+    @Value("${pointcloud.python-worker.pool-size:2}")
+    private int workerPoolSize;
+
+    /** 单个工作进程执行多少个脚本后回收 */
+    @Value("${pointcloud.python-worker.max-jobs-per-worker:50}")
+    private int workerMaxJobs;
+
+    private PythonWorkerPool workerPool;
+
+    /** 作业工作区的基础目录，每个作业在其下独占一个子目录，作业结束后删除 */
+    @Value("${pointcloud.workspace.base-dir:${java.io.tmpdir}/pointcloud-jobs}")
+    private String workspaceBaseDir;
+
+    /** 作业输出 JSON 的提升目录，每个作业一个子目录 */
+    @Value("${pointcloud.workspace.results-dir:data/results}")
+    private String workspaceResultsDir;
+
+    @Resource
+    private AnalysisExecutor analysisExecutor;
+
+    @Resource
+    private ResultCache resultCache;
+
+    /**
+     * 确定脚本目录和各脚本路径
+     */
+    @PostConstruct
+    public void resolveScripts() throws IOException {
+        Path dir = scriptsDir == null || scriptsDir.isBlank() ? extractBundledScripts() : Path.of(scriptsDir);
+        pythonScriptPath = dir.resolve("check.py").toString();
+        pointToJsonScript = dir.resolve("6-point_to_json.py").toString();
+        workerScriptPath = workerScript == null || workerScript.isBlank()
+                ? dir.resolve("worker.py").toString() : workerScript;
+        if (Files.isRegularFile(Path.of(pointToJsonScript))) {
+            pointToJsonScriptHash = ResultCache.hash(Path.of(pointToJsonScript));
+        } else {
+            log.warn("点坐标导出脚本不存在: {}", pointToJsonScript);
+            pointToJsonScriptHash = "missing";
+        }
+        log.info("Python脚本目录: {}，工作进程脚本: {}", dir, workerScriptPath);
+    }
+
+    /**
+     * 把 classpath 中 python/ 下的脚本复制到临时目录，进程退出时删除
+     */
+    private static Path extractBundledScripts() throws IOException {
+        Path dir = Files.createTempDirectory("pointcloud-python-");
+        dir.toFile().deleteOnExit();
+        org.springframework.core.io.Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath*:python/*.py");
+        for (org.springframework.core.io.Resource script : scripts) {
+            Path target = dir.resolve(script.getFilename());
+            try (InputStream in = script.getInputStream()) {
+                Files.copy(in, target);
+            }
+            target.toFile().deleteOnExit();
+        }
+        if (scripts.length == 0) {
+            log.warn("classpath 中没有找到 python/*.py，请配置 pointcloud.python-worker.scripts-dir");
+        }
+        return dir;
+    }
+
+    /**
+     * 首次使用时创建工作进程池，进程按需启动
+     */
+    private synchronized PythonWorkerPool workerPool() {
+        if (workerPool == null) {
+            PythonWorkerPool.Options options = PythonWorkerPool.Options.getDefault();
+            options.setPythonExecutable(pythonExecutable);
+            options.setWorkerScript(workerScriptPath);
+            options.setPoolSize(workerPoolSize);
+            options.setMaxJobsPerWorker(workerMaxJobs);
+            options.setJobTimeoutSeconds(timeoutSeconds);
+            workerPool = new PythonWorkerPool(options);
+        }
+        return workerPool;
+    }
+
+    @PreDestroy
+    public synchronized void shutdownWorkers() {
+        if (workerPool != null) {
+            workerPool.close();
+            workerPool = null;
+        }
+    }
+
+    public String executeFileAnalysis(String postParams, String absolutePath, String outPath) {
+        return executeFileAnalysis(postParams, absolutePath, outPath, CancellationToken.current());
+    }
+
+    /**
+     * 在常驻 Python 工作进程中执行 check.py（原先每次调用启动一个 python 进程），返回脚本输出
+     * token 被取消时结束执行脚本的进程树，并抛出 CancellationException。
+     */
+    public String executeFileAnalysis(String postParams, String absolutePath, String outPath, CancellationToken token) {
+        try {
+            List<String> args = List.of(absolutePath, outPath);
+            log.info("执行Python脚本: {} {}", pythonScriptPath, String.join(" ", args));
 
             LocalDateTime localDateTime = LocalDateTime.now();
             String json = "{\n" +
@@ -49,35 +165,26 @@ public class PythonScriptExecutorUtil {
                     "}";
             WebSocketSenderUtil.sendJsonToAll(json);
 
-            // 读取Python脚本的输出（指定UTF-8编码，防止中文乱码）
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                    log.debug("Python输出: {}", line);
-                }
-            }
-
-            // 等待进程完成
-            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-
-            if (!finished) {
-                process.destroyForcibly();
+            PythonWorkerPool.JobResult job;
+            try {
+                job = workerPool().execute(pythonScriptPath, args, timeoutSeconds, TimeUnit.SECONDS, token);
+            } catch (TimeoutException e) {
                 throw new RuntimeException("Python脚本执行超时");
             }
+            job.output.lines().forEach(line -> log.debug("Python输出: {}", line));
 
-            int exitCode = process.exitValue();
-            if (exitCode != 0) {
-                throw new RuntimeException("Python脚本执行失败，退出码: " + exitCode + ", 输出: " + output.toString());
+            if (job.exitCode != 0) {
+                throw new RuntimeException("Python脚本执行失败，退出码: " + job.exitCode + ", 输出: " + job.output);
             }
 
-            String result = output.toString().trim();
-            log.info("Python脚本执行成功，结果长度: {}", result.length());
+            String result = job.output.trim();
+            log.info("Python脚本执行成功，结果长度: {}，耗时: {}ms", result.length(), job.elapsedMillis);
 
             return result;
 
+        } catch (CancellationException e) {
+            log.info("Python脚本已取消: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("执行Python脚本失败: {}", e.getMessage(), e);
             throw new RuntimeException("Python脚本执行失败: " + e.getMessage());
@@ -103,220 +210,364 @@ public class PythonScriptExecutorUtil {
         }
     }
 
-    public List<String> runLastile(String inputLas, String outputDir, String outputPrefix) {
+    /**
+     * 为一个分析作业创建独立工作区，分块、处理结果和输出 JSON 都写在其中
+     *
+     * @param contentHash 输入文件的内容哈希，各阶段结果按它缓存；为 null 时每次重新计算
+     */
+    public JobWorkspace openWorkspace(String jobId, String contentHash) throws IOException {
+        return JobWorkspace.create(Path.of(workspaceBaseDir), jobId, contentHash);
+    }
+
+    /**
+     * 把作业的输出 JSON 提升到结果目录 {results-dir}/{jobId}，返回该目录
+     */
+    public Path promoteResults(JobWorkspace workspace) throws IOException {
+        return workspace.promote(Path.of(workspaceResultsDir));
+    }
+
+    public List<String> runLastile(String inputLas, JobWorkspace workspace) {
+        return runLastile(inputLas, workspace, tilePath -> { });
+    }
+
+    /**
+     * 把输入 LAS/LAZ 按 1000m 瓦片（20m 缓冲带）分块，写入工作区的分块目录，并生成归一化参数文件
+     * 分块在进程内由 {@link LASTiler} 流式完成（原先调用 1-lastile_wrapper.py → lastile64.exe，只能在 Windows 上运行）。
+     * 同一内容、同一分块参数的结果已缓存时直接从缓存链接到工作区。
+     *
+     * @param onTile 每个瓦片封口后立即回调其绝对路径
+     * @return 本次生成的瓦片文件绝对路径
+     */
+    public List<String> runLastile(String inputLas, JobWorkspace workspace, Consumer<String> onTile) {
         List<String> lasPaths = new ArrayList<>();
+        LASTiler.Options options = LASTiler.Options.getDefault();
+        String cacheKey = tilesKey(workspace, options);
         try {
-            // 构建Python命令
-            List<String> command = new ArrayList<>();
-            command.add("python");
-            command.add("C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\python\\1-lastile_wrapper.py");
-            command.add("--input");
-            command.add(inputLas);
-            command.add("--output_dir");
-            command.add(outputDir);
-            command.add("--prefix");
-            command.add(outputPrefix);
-            command.add("--generate_threejs_params");
-
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-
-            // 读取输出
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    log.info("[lastile_wrapper.py] {}", line);
+            if (cacheKey != null) {
+                try (ResultCache.Lease lease = resultCache.get(cacheKey)) {
+                    if (lease != null) {
+                        log.info("分块结果命中缓存: {}", inputLas);
+                        linkTiles(lease.getPath(), workspace, tilePath -> {
+                            lasPaths.add(tilePath);
+                            onTile.accept(tilePath);
+                        });
+                        return lasPaths;
+                    }
                 }
             }
-
-            boolean finished = process.waitFor(300, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                throw new RuntimeException("lastile_wrapper.py 执行超时");
-            }
-            if (process.exitValue() != 0) {
-                throw new RuntimeException("lastile_wrapper.py 执行失败，退出码: " + process.exitValue());
-            }
-
-            // 收集分段文件路径
-            java.io.File outDir = new java.io.File(outputDir);
-            java.io.File[] lasFiles = outDir.listFiles((dir1, name) -> name.endsWith(".las"));
-            if (lasFiles != null) {
-                for (java.io.File f : lasFiles) {
-                    lasPaths.add(f.getAbsolutePath());
-                }
+            LASTiler.tile(Path.of(inputLas), workspace.getTileDir(), JobWorkspace.TILE_PREFIX, options, tile -> {
+                String tilePath = tile.path.toAbsolutePath().toString();
+                lasPaths.add(tilePath);
+                onTile.accept(tilePath);
+            });
+            if (cacheKey != null) {
+                cacheFiles(cacheKey, workspace.getTileDir());
             }
             return lasPaths;
+        } catch (CancellationException e) {
+            log.info("las文件分块已停止: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
-            log.error("lastile_wrapper.py 执行失败: {}", e.getMessage(), e);
+            log.error("las文件分块失败: {}", e.getMessage(), e);
             throw new RuntimeException("las文件分段失败: " + e.getMessage());
         }
     }
 
     /**
-     * 批量处理分段 las 文件，依次调用 2-process_tiles.py 和 3-powerline_extractor.py，将结果输出到指定目录
-     * 
+     * 批量处理分段 las 文件，提取电力线并将结果输出到工作区的处理目录
+     * 每个分块在进程内由 {@link PowerLineExtractor} 完成候选点提取和残差聚类
+     * （原先每个分块启动 2-process_tiles.py → 3-powerline_extractor.py 两级 Python 进程），输出文件与脚本相同。
+     *
      * @param tileLasFiles 分段 las 文件的绝对路径列表
-     * @param processDir   处理后 las 文件的输出目录
      * @return 处理后 las 文件的绝对路径列表
      */
-    public List<String> processTilesAndExtractPowerlines(List<String> tileLasFiles, String processDir) {
-        // 多线程处理，线程数不超过10
-        int threadCount = Math.min(5, Math.max(2, Runtime.getRuntime().availableProcessors()));
-        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(threadCount);
-        List<java.util.concurrent.Future<List<String>>> futures = new ArrayList<>();
-        String processTilesPy = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\python\\2-process_tiles.py";
-        String powerlinePy = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\python\\3-powerline_extractor.py";
-
-        for (String tileLas : tileLasFiles) {
-            futures.add(executor.submit(() -> {
-                List<String> processedLasFiles = new ArrayList<>();
-                try {
-                    String tileName = new File(tileLas).getName().replace(".las", "");
-                    String tileOutputDir = processDir + File.separator + tileName;
-                    new File(tileOutputDir).mkdirs();
-
-                    List<String> command = new ArrayList<>();
-                    command.add("python");
-                    command.add(processTilesPy);
-                    command.add("--input");
-                    command.add(tileLas);
-                    command.add("--output");
-                    command.add(tileOutputDir);
-                    command.add("--script");
-                    command.add(powerlinePy);
-
-                    ProcessBuilder pb = new ProcessBuilder(command);
-                    pb.redirectErrorStream(true);
-                    Process process = pb.start();
-
-                    // 读取输出日志
-                    try (BufferedReader reader = new BufferedReader(
-                            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            log.info("[process_tiles] {}", line);
-                        }
-                    }
-                    int exitCode = process.waitFor();
-                    if (exitCode != 0) {
-                        log.error("处理分段文件失败: {}，退出码: {}", tileLas, exitCode);
-                        return processedLasFiles;
-                    }
-                    // 收集本次处理后生成的 las 文件
-                    java.io.File outDir = new java.io.File(tileOutputDir);
-                    java.io.File[] lasFiles = outDir.listFiles((dir, name) -> name.endsWith(".las"));
-                    if (lasFiles != null) {
-                        for (java.io.File f : lasFiles) {
-                            processedLasFiles.add(f.getAbsolutePath());
-                        }
+    public List<String> processTilesAndExtractPowerlines(List<String> tileLasFiles, JobWorkspace workspace) {
+        return processTilesAndExtractPowerlines(tileLasFiles, workspace, CancellationToken.current());
+    }
+
+    /**
+     * 同上；token 被取消时排队的分块直接丢弃，正在提取的分块在区域之间停止
+     */
+    public List<String> processTilesAndExtractPowerlines(List<String> tileLasFiles, JobWorkspace workspace,
+                                                         CancellationToken token) {
+        // 在共享的分析执行器上按分块并行，并发受 CPU 核数和内存预算限制；单个分块内部的计算另在 ForkJoinPool 上并行
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        try (AnalysisExecutor.Job job = analysisExecutor.openJob(null, workspace.getJobId(), 1.0, token)) {
+            for (String tileLas : tileLasFiles) {
+                futures.add(job.submit(PowerLineExtractor.estimateMemoryBytes(Path.of(tileLas)), () -> {
+                    try (Stream<Path> files = Files.list(extractPowerlines(tileLas, workspace))) {
+                        return files.map(file -> file.toAbsolutePath().toString()).toList();
+                    } catch (CancellationException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        log.error("处理分段文件异常: {}", tileLas, e);
+                        return List.<String>of();
                     }
-                } catch (Exception e) {
-                    log.error("处理分段文件异常: {}", tileLas, e);
-                }
-                return processedLasFiles;
-            }));
+                }));
+            }
         }
 
         List<String> allProcessedLasFiles = new ArrayList<>();
-        for (java.util.concurrent.Future<List<String>> future : futures) {
+        for (CompletableFuture<List<String>> future : futures) {
             try {
-                allProcessedLasFiles.addAll(future.get());
+                allProcessedLasFiles.addAll(future.join());
+            } catch (CancellationException e) {
+                log.info("分段文件处理已取消: {}", e.getMessage());
             } catch (Exception e) {
                 log.error("多线程处理分段文件异常", e);
             }
         }
-        executor.shutdown();
         return allProcessedLasFiles;
     }
 
-    public void runRansacFitToJsonOnProcessFolders(String processDir, String normJsonPath, String ransacJsonDir) {
-        String ransacPy = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\python\\5-ransac_fit_to_json.py";
-        File processRoot = new File(processDir);
-        File[] subDirs = processRoot.listFiles(File::isDirectory);
-        if (subDirs == null)
-            return;
+    /**
+     * 提取单个分块的电力线，结果写入工作区处理目录下以分块命名的子目录，返回该目录
+     * 缓存键由分块结果的键、分块名和提取参数决定，命中时直接链接缓存的结果。
+     */
+    public Path extractPowerlines(String tileLas, JobWorkspace workspace) throws IOException {
+        String tileName = new File(tileLas).getName().replace(".las", "");
+        Path tileOutputDir = workspace.getProcessDir().resolve(tileName);
+        PowerLineCandidateExtractor.Options candidateOptions = PowerLineCandidateExtractor.Options.getDefault();
+        candidateOptions.setMinZ(MIN_Z_THRESHOLD);
+        PowerLineResidualSeparator.Options separatorOptions = PowerLineResidualSeparator.Options.getDefault();
+        log.info("[process_tiles] 处理分块: {}", tileLas);
+
+        String tilesKey = tilesKey(workspace, LASTiler.Options.getDefault());
+        if (tilesKey == null) {
+            PowerLineExtractor.extract(Path.of(tileLas), tileOutputDir, candidateOptions, separatorOptions);
+            return tileOutputDir;
+        }
+        String cacheKey = ResultCache.key(tilesKey, tileName, "extract",
+                ResultCache.fingerprint(candidateOptions, separatorOptions));
+        try (ResultCache.Lease lease = resultCache.computeIfAbsent(cacheKey,
+                dir -> PowerLineExtractor.extract(Path.of(tileLas), dir, candidateOptions, separatorOptions))) {
+            if (lease.isHit()) {
+                log.info("[process_tiles] 分块提取结果命中缓存: {}", tileName);
+            }
+            linkAll(lease.getPath(), tileOutputDir);
+        }
+        return tileOutputDir;
+    }
 
-        for (File subDir : subDirs) {
-            File allPowerLines = new File(subDir, "all_power_lines.las");
-            if (allPowerLines.exists()) {
+    /**
+     * 分块提取出的 all_power_lines.las 及其输入摘要，拟合和导出两个阶段共用，摘要每个分块只计算一次
+     */
+    public static final class PowerLines {
+        public final File file;
+        /** 见 {@link #powerLinesDigest}，不使用缓存时为 null */
+        public final String digest;
+
+        public PowerLines(File file, String digest) {
+            this.file = file;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * 拟合和导出结果缓存键的输入部分：all_power_lines.las 与归一化参数文件的内容哈希；
+     * 工作区没有内容哈希（不使用缓存）时为 null
+     */
+    public String powerLinesDigest(File allPowerLines, JobWorkspace workspace) throws IOException {
+        if (workspace.getContentHash() == null) {
+            return null;
+        }
+        return ResultCache.key(ResultCache.hash(allPowerLines.toPath()), hashIfExists(workspace.getNormalizationFile()));
+    }
+
+    /**
+     * 对工作区每个处理子目录中的 all_power_lines.las 做 RANSAC 分段拟合，结果写入工作区的 ransac_json 目录
+     * 拟合在进程内由 {@link PowerLineRansacFitter} 完成（原先每个子目录启动一次 5-ransac_fit_to_json.py），
+     * 输出的 powerline_curves*.json 与脚本格式相同。
+     */
+    public void runRansacFitToJsonOnProcessFolders(JobWorkspace workspace) {
+        for (File allPowerLines : listAllPowerLines(workspace)) {
+            try {
+                runRansacFitToJson(allPowerLines, workspace);
+            } catch (Exception e) {
+                log.error("ransac_fit_to_json 处理异常: {}", allPowerLines.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * 拟合单个 all_power_lines.las，返回写出的 powerline_curves*.json
+     * 缓存键由输入文件、归一化参数文件的内容和拟合参数决定。
+     */
+    public Path runRansacFitToJson(File allPowerLines, JobWorkspace workspace) throws IOException {
+        return runRansacFitToJson(allPowerLines, powerLinesDigest(allPowerLines, workspace), workspace);
+    }
+
+    /**
+     * 同上，digest 为已计算的 {@link #powerLinesDigest}，为 null 时不使用缓存
+     */
+    public Path runRansacFitToJson(File allPowerLines, String digest, JobWorkspace workspace) throws IOException {
+        Path normalizationFile = workspace.getNormalizationFile();
+        PowerLineRansacFitter.Options options = PowerLineRansacFitter.Options.getDefault();
+        if (digest == null) {
+            return fitToJson(allPowerLines.toPath(), normalizationFile, options, workspace.getRansacJsonDir());
+        }
+        String cacheKey = ResultCache.key(digest, "ransac", ResultCache.fingerprint(options));
+        try (ResultCache.Lease lease = resultCache.computeIfAbsent(cacheKey,
+                dir -> fitToJson(allPowerLines.toPath(), normalizationFile, options, dir))) {
+            return linkFirstJson(lease.getPath(), workspace.getRansacJsonDir());
+        }
+    }
+
+    /**
+     * 对工作区每个处理子目录中的 all_power_lines.las 执行 6-point_to_json.py，脚本在常驻 Python 工作进程中运行
+     */
+    public void runPointToJsonOnProcessFolders(JobWorkspace workspace) {
+        for (File allPowerLines : listAllPowerLines(workspace)) {
+            try {
+                runPointToJson(allPowerLines, workspace);
+            } catch (Exception e) {
+                log.error("point_to_json 处理异常: {}", allPowerLines.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * 对单个 all_power_lines.las 执行 6-point_to_json.py，结果写入工作区的 point_json 目录
+     * 缓存键由输入文件、归一化参数文件和脚本的内容决定；脚本失败或未输出文件时抛出 IOException。
+     */
+    public Path runPointToJson(File allPowerLines, JobWorkspace workspace) throws Exception {
+        return runPointToJson(allPowerLines, powerLinesDigest(allPowerLines, workspace), workspace);
+    }
+
+    /**
+     * 同上，digest 为已计算的 {@link #powerLinesDigest}，为 null 时不使用缓存
+     */
+    public Path runPointToJson(File allPowerLines, String digest, JobWorkspace workspace) throws Exception {
+        Path normalizationFile = workspace.getNormalizationFile();
+        if (digest == null) {
+            return pointToJson(allPowerLines, normalizationFile, workspace.getPointJsonDir());
+        }
+        String cacheKey = ResultCache.key(digest, "point_to_json", pointToJsonScriptHash);
+        try (ResultCache.Lease lease = resultCache.computeIfAbsent(cacheKey,
+                dir -> pointToJson(allPowerLines, normalizationFile, dir))) {
+            return linkFirstJson(lease.getPath(), workspace.getPointJsonDir());
+        }
+    }
+
+    private Path fitToJson(Path allPowerLines, Path normalizationFile, PowerLineRansacFitter.Options options,
+                           Path outputDir) throws IOException {
+        PowerLineCurveWriter.Normalization normalization = PowerLineCurveWriter.loadNormalization(normalizationFile);
+        PowerLineRansacFitter.Result result = PowerLineRansacFitter.fit(allPowerLines, options);
+        return PowerLineCurveWriter.write(result, options, normalization, outputDir);
+    }
+
+    private Path pointToJson(File allPowerLines, Path normalizationFile, Path outputDir) throws Exception {
+        List<String> args = List.of("--input", allPowerLines.getAbsolutePath(),
+                "--output", outputDir.toString(),
+                "--normalization_file", normalizationFile.toString());
+        PythonWorkerPool.JobResult job = workerPool().execute(pointToJsonScript, args);
+        Path output = null;
+        for (String line : job.output.lines().toList()) {
+            log.info("[point_to_json] {}", line);
+            if (line.startsWith(POINT_JSON_OUTPUT_PREFIX)) {
+                output = Path.of(line.substring(POINT_JSON_OUTPUT_PREFIX.length()).trim());
+            }
+        }
+        if (job.exitCode != 0) {
+            throw new IOException("point_to_json 处理失败: " + allPowerLines.getAbsolutePath() + "，退出码: " + job.exitCode);
+        }
+        if (output == null) {
+            throw new IOException("point_to_json 未生成结果: " + allPowerLines.getAbsolutePath());
+        }
+        return output;
+    }
+
+    /**
+     * 分块结果的缓存键：输入内容哈希 + 分块参数，工作区没有内容哈希时为 null
+     */
+    private static String tilesKey(JobWorkspace workspace, LASTiler.Options options) {
+        if (workspace.getContentHash() == null) {
+            return null;
+        }
+        return ResultCache.key(workspace.getContentHash(), "tiles", ResultCache.fingerprint(options));
+    }
+
+    /**
+     * 把缓存的分块链接到工作区：先链接归一化参数文件，再逐个链接瓦片并回调
+     */
+    private static void linkTiles(Path cached, JobWorkspace workspace, Consumer<String> onTile) throws IOException {
+        Path normalization = cached.resolve(workspace.getNormalizationFile().getFileName().toString());
+        if (Files.exists(normalization)) {
+            ResultCache.linkOrCopy(normalization, workspace.getNormalizationFile());
+        }
+        List<Path> tiles;
+        try (Stream<Path> files = Files.list(cached)) {
+            tiles = files.filter(file -> file.getFileName().toString().endsWith(".las")).sorted().toList();
+        }
+        for (Path tile : tiles) {
+            Path target = workspace.getTileDir().resolve(tile.getFileName().toString());
+            ResultCache.linkOrCopy(tile, target);
+            onTile.accept(target.toAbsolutePath().toString());
+        }
+    }
+
+    private void cacheFiles(String cacheKey, Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            resultCache.put(cacheKey, files.filter(Files::isRegularFile).toList()).close();
+        } catch (IOException e) {
+            log.warn("写入缓存失败: {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static void linkAll(Path source, Path targetDir) throws IOException {
+        Files.createDirectories(targetDir);
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                ResultCache.linkOrCopy(file, targetDir.resolve(file.getFileName().toString()));
+            }
+        }
+    }
+
+    /**
+     * 把缓存条目中的 json 链接到 targetDir，同名文件已存在时依次尝试 {name}-1.json、-2.json ...
+     */
+    private static Path linkFirstJson(Path source, Path targetDir) throws IOException {
+        Path json;
+        try (Stream<Path> files = Files.list(source)) {
+            json = files.filter(file -> file.getFileName().toString().endsWith(".json")).findFirst()
+                    .orElseThrow(() -> new IOException("缓存条目中没有json文件: " + source));
+        }
+        String name = json.getFileName().toString();
+        String base = name.substring(0, name.length() - ".json".length());
+        Files.createDirectories(targetDir);
+        Path target = targetDir.resolve(name);
+        for (int counter = 1; ; counter++) {
+            try {
+                Files.createLink(target, json);
+                return target;
+            } catch (FileAlreadyExistsException e) {
+                target = targetDir.resolve(base + "-" + counter + ".json");
+            } catch (UnsupportedOperationException | FileSystemException e) {
                 try {
-                    List<String> command = new ArrayList<>();
-                    command.add("python");
-                    command.add(ransacPy);
-                    command.add("-i");
-                    command.add(allPowerLines.getAbsolutePath());
-                    command.add("-o");
-                    command.add(ransacJsonDir);
-                    command.add("-nf");
-                    command.add(normJsonPath);
-                    // 可选：生成html报告
-                    // command.add("--visualize");
-
-                    ProcessBuilder pb = new ProcessBuilder(command);
-                    pb.redirectErrorStream(true);
-                    Process process = pb.start();
-
-                    try (BufferedReader reader = new BufferedReader(
-                            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            log.info("[ransac_fit_to_json] {}", line);
-                        }
-                    }
-                    int exitCode = process.waitFor();
-                    if (exitCode != 0) {
-                        log.error("ransac_fit_to_json 处理失败: {}，退出码: {}", allPowerLines.getAbsolutePath(), exitCode);
-                    }
-                } catch (Exception e) {
-                    log.error("ransac_fit_to_json 处理异常: {}", allPowerLines.getAbsolutePath(), e);
+                    Files.copy(json, target);
+                    return target;
+                } catch (FileAlreadyExistsException exists) {
+                    target = targetDir.resolve(base + "-" + counter + ".json");
                 }
             }
         }
     }
 
-    public void runPointToJsonOnProcessFolders(String processDir, String normJsonPath, String pointJsonDir) {
-        String pointPy = "C:\\Users\\31591\\Desktop\\project\\src\\main\\resources\\python\\6-point_to_json.py";
-        File processRoot = new File(processDir);
-        File[] subDirs = processRoot.listFiles(File::isDirectory);
-        if (subDirs == null)
-            return;
+    private static String hashIfExists(Path file) throws IOException {
+        return Files.exists(file) ? ResultCache.hash(file) : "";
+    }
 
+    private List<File> listAllPowerLines(JobWorkspace workspace) {
+        File[] subDirs = workspace.getProcessDir().toFile().listFiles(File::isDirectory);
+        List<File> files = new ArrayList<>();
+        if (subDirs == null)
+            return files;
         for (File subDir : subDirs) {
             File allPowerLines = new File(subDir, "all_power_lines.las");
             if (allPowerLines.exists()) {
-                try {
-                    List<String> command = new ArrayList<>();
-                    command.add("python");
-                    command.add(pointPy);
-                    command.add("--input");
-                    command.add(allPowerLines.getAbsolutePath());
-                    command.add("--output");
-                    command.add(pointJsonDir);
-                    command.add("--normalization_file");
-                    command.add(normJsonPath);
-
-                    ProcessBuilder pb = new ProcessBuilder(command);
-                    pb.redirectErrorStream(true);
-                    Process process = pb.start();
-
-                    try (BufferedReader reader = new BufferedReader(
-                            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            log.info("[point_to_json] {}", line);
-                        }
-                    }
-                    int exitCode = process.waitFor();
-                    if (exitCode != 0) {
-                        log.error("point_to_json 处理失败: {}，退出码: {}", allPowerLines.getAbsolutePath(), exitCode);
-                    }
-                } catch (Exception e) {
-                    log.error("point_to_json 处理异常: {}", allPowerLines.getAbsolutePath(), e);
-                }
+                files.add(allPowerLines);
             }
         }
+        return files;
     }
 }
@@ -0,0 +1,398 @@
+package com.mi.project.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 常驻 Python 工作进程池
+ * 每个工作进程运行 worker.py，启动时预加载 numpy / laspy 等依赖，之后通过 stdin / stdout 上的帧协议
+ * （4 字节大端长度 + UTF-8 JSON）逐个执行脚本的 main()，省去每次调用重新启动解释器和导入依赖的开销：
+ * <ul>
+ *   <li>同时执行的任务数不超过 poolSize，空闲进程后进先出复用；</li>
+ *   <li>空闲超过 healthCheckInterval 的进程在借出前先 ping，无响应或已退出的进程替换为新进程；</li>
+ *   <li>每个进程执行 maxJobsPerWorker 个任务后回收，避免脚本遗留的全局状态和内存累积；</li>
+ *   <li>任务超时时强制结束该进程及其子进程，抛出 TimeoutException；</li>
+ *   <li>任务的 {@link CancellationToken}（默认取当前线程绑定的令牌）被取消时同样结束进程树，
+ *       抛出 CancellationException，等待空闲进程期间也会响应取消。</li>
+ * </ul>
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class PythonWorkerPool implements Closeable {
+
+    /** 单帧最大长度，超过时视为协议错误 */
+    private static final int MAX_FRAME_BYTES = 256 << 20;
+
+    /** ping 的超时时间（毫秒） */
+    private static final long PING_TIMEOUT_MILLIS = 5_000;
+
+    /** 等待空闲进程时检查取消令牌的间隔（毫秒） */
+    private static final long ACQUIRE_POLL_MILLIS = 100;
+
+    /** 关闭工作进程时等待其自行退出的时间（毫秒） */
+    private static final long SHUTDOWN_WAIT_MILLIS = 2_000;
+
+    /**
+     * 进程池参数
+     */
+    public static class Options {
+        private String pythonExecutable = "python";
+        private String workerScript;
+        private int poolSize = 2;                      // 最大工作进程数
+        private int maxJobsPerWorker = 50;             // 单个进程执行多少个任务后回收
+        private long jobTimeoutSeconds = 300;          // 默认任务超时
+        private long startupTimeoutSeconds = 60;       // 进程启动（含预加载）超时
+        private long healthCheckIntervalSeconds = 60;  // 空闲超过该时间的进程借出前先 ping
+        private String preloadModules = "numpy,scipy,sklearn,laspy";
+
+        public String getPythonExecutable() { return pythonExecutable; }
+        public void setPythonExecutable(String pythonExecutable) { this.pythonExecutable = pythonExecutable; }
+
+        public String getWorkerScript() { return workerScript; }
+        public void setWorkerScript(String workerScript) { this.workerScript = workerScript; }
+
+        public int getPoolSize() { return poolSize; }
+        public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+
+        public int getMaxJobsPerWorker() { return maxJobsPerWorker; }
+        public void setMaxJobsPerWorker(int maxJobsPerWorker) { this.maxJobsPerWorker = maxJobsPerWorker; }
+
+        public long getJobTimeoutSeconds() { return jobTimeoutSeconds; }
+        public void setJobTimeoutSeconds(long jobTimeoutSeconds) { this.jobTimeoutSeconds = jobTimeoutSeconds; }
+
+        public long getStartupTimeoutSeconds() { return startupTimeoutSeconds; }
+        public void setStartupTimeoutSeconds(long startupTimeoutSeconds) { this.startupTimeoutSeconds = startupTimeoutSeconds; }
+
+        public long getHealthCheckIntervalSeconds() { return healthCheckIntervalSeconds; }
+        public void setHealthCheckIntervalSeconds(long healthCheckIntervalSeconds) { this.healthCheckIntervalSeconds = healthCheckIntervalSeconds; }
+
+        public String getPreloadModules() { return preloadModules; }
+        public void setPreloadModules(String preloadModules) { this.preloadModules = preloadModules; }
+
+        public static Options getDefault() {
+            return new Options();
+        }
+    }
+
+    /**
+     * 脚本执行结果，output 为脚本的 stdout 与 stderr
+     */
+    public static class JobResult {
+        public final int exitCode;
+        public final String output;
+        public final long elapsedMillis;
+
+        JobResult(int exitCode, String output, long elapsedMillis) {
+            this.exitCode = exitCode;
+            this.output = output;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    private final Options options;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<Worker> idle = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService watchdog;
+    private final AtomicLong jobIds = new AtomicLong();
+    private volatile boolean closed;
+
+    public PythonWorkerPool(Options options) {
+        if (options.workerScript == null) {
+            throw new IllegalArgumentException("未指定 worker.py 路径");
+        }
+        this.options = options;
+        this.permits = new Semaphore(Math.max(1, options.poolSize), true);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "python-worker-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public JobResult execute(String script, List<String> args)
+            throws IOException, TimeoutException, InterruptedException {
+        return execute(script, args, options.jobTimeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    public JobResult execute(String script, List<String> args, long timeout, TimeUnit unit)
+            throws IOException, TimeoutException, InterruptedException {
+        return execute(script, args, timeout, unit, CancellationToken.current());
+    }
+
+    /**
+     * 在空闲工作进程中执行脚本，没有空闲进程且未达到 poolSize 时启动新进程，否则等待
+     *
+     * @param token 取消时结束执行该脚本的进程树并抛出 CancellationException
+     */
+    public JobResult execute(String script, List<String> args, long timeout, TimeUnit unit, CancellationToken token)
+            throws IOException, TimeoutException, InterruptedException {
+        if (closed) {
+            throw new IOException("Python 进程池已关闭");
+        }
+        token.throwIfCancelled();
+        while (!permits.tryAcquire(ACQUIRE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            token.throwIfCancelled();
+        }
+        Worker worker = null;
+        boolean reusable = false;
+        try {
+            worker = borrow();
+            ObjectNode request = PointJsonWriter.sharedMapper().createObjectNode();
+            long id = jobIds.incrementAndGet();
+            request.put("type", "run");
+            request.put("id", id);
+            request.put("script", script);
+            ArrayNode argArray = request.putArray("args");
+            args.forEach(argArray::add);
+
+            long start = System.currentTimeMillis();
+            Worker current = worker;
+            JsonNode response;
+            Closeable registration = token.onCancel(() -> current.cancel(token.getReason()));
+            try {
+                response = worker.call(request, unit.toMillis(timeout));
+            } catch (IOException e) {
+                if (worker.cancelReason != null) {
+                    throw new CancellationException(worker.cancelReason);
+                }
+                throw e;
+            } finally {
+                registration.close();
+            }
+            if (!"result".equals(response.path("type").asText()) || response.path("id").asLong() != id) {
+                throw new IOException("Python 工作进程响应不匹配: " + response);
+            }
+            worker.jobs++;
+            reusable = worker.cancelReason == null && worker.jobs < options.maxJobsPerWorker;
+            return new JobResult(response.path("exitCode").asInt(1), response.path("output").asText(""),
+                    System.currentTimeMillis() - start);
+        } finally {
+            if (worker != null) {
+                if (reusable && !closed) {
+                    worker.lastUsed = System.currentTimeMillis();
+                    idle.offerFirst(worker);
+                } else {
+                    worker.close();
+                }
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * 取一个可用的空闲进程，已退出或健康检查失败的进程直接关闭，没有可用进程时启动新进程
+     */
+    private Worker borrow() throws IOException, InterruptedException {
+        Worker worker;
+        while ((worker = idle.pollFirst()) != null) {
+            long idleMillis = System.currentTimeMillis() - worker.lastUsed;
+            if (worker.process.isAlive()
+                    && (idleMillis < TimeUnit.SECONDS.toMillis(options.healthCheckIntervalSeconds) || worker.ping())) {
+                return worker;
+            }
+            log.warn("Python 工作进程不可用，替换为新进程: pid={}", worker.process.pid());
+            worker.close();
+        }
+        return new Worker();
+    }
+
+    /**
+     * 启动到 poolSize 个工作进程，使首个任务也不必等待预加载
+     */
+    public void warmUp() throws IOException, InterruptedException {
+        List<Worker> started = new ArrayList<>();
+        while (idle.size() + started.size() < options.poolSize && permits.tryAcquire()) {
+            try {
+                started.add(new Worker());
+            } finally {
+                permits.release();
+            }
+        }
+        started.forEach(idle::offerLast);
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Worker worker;
+        while ((worker = idle.pollFirst()) != null) {
+            worker.close();
+        }
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 一个 worker.py 进程
+     */
+    private final class Worker {
+        final Process process;
+        final DataOutputStream requests;
+        final DataInputStream responses;
+        int jobs;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile boolean killed;
+        /** 因令牌取消而结束时的原因 */
+        volatile String cancelReason;
+
+        Worker() throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(options.pythonExecutable);
+            command.add(options.workerScript);
+            if (options.preloadModules != null && !options.preloadModules.isBlank()) {
+                command.add("--preload");
+                command.add(options.preloadModules);
+            }
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.environment().put("PYTHONIOENCODING", "utf-8");
+            process = pb.start();
+            requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            drainStderr();
+
+            long start = System.currentTimeMillis();
+            try {
+                JsonNode ready = read(TimeUnit.SECONDS.toMillis(options.startupTimeoutSeconds));
+                if (!"ready".equals(ready.path("type").asText())) {
+                    throw new IOException("Python 工作进程启动响应异常: " + ready);
+                }
+            } catch (IOException | TimeoutException e) {
+                kill();
+                throw e instanceof IOException io ? io : new IOException("Python 工作进程启动超时", e);
+            }
+            log.info("Python 工作进程已启动: pid={}, 耗时={}ms", process.pid(), System.currentTimeMillis() - start);
+        }
+
+        JsonNode call(ObjectNode request, long timeoutMillis) throws IOException, TimeoutException {
+            byte[] payload = PointJsonWriter.sharedMapper().writeValueAsBytes(request);
+            requests.writeInt(payload.length);
+            requests.write(payload);
+            requests.flush();
+            return read(timeoutMillis);
+        }
+
+        /**
+         * 读取一帧，超时后由看门狗结束进程使读取中断
+         */
+        JsonNode read(long timeoutMillis) throws IOException, TimeoutException {
+            ScheduledFuture<?> timer = watchdog.schedule(this::kill, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                int length = responses.readInt();
+                if (length < 0 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("Python 工作进程帧长度异常: " + length);
+                }
+                byte[] payload = new byte[length];
+                responses.readFully(payload);
+                return PointJsonWriter.sharedMapper().readTree(payload);
+            } catch (IOException e) {
+                if (cancelReason != null) {
+                    throw new CancellationException(cancelReason);
+                }
+                if (killed) {
+                    throw new TimeoutException("Python 脚本执行超时（" + timeoutMillis + "ms）");
+                }
+                if (e instanceof EOFException) {
+                    throw new IOException("Python 工作进程已退出: pid=" + process.pid(), e);
+                }
+                throw e;
+            } finally {
+                timer.cancel(false);
+            }
+        }
+
+        boolean ping() {
+            try {
+                ObjectNode request = PointJsonWriter.sharedMapper().createObjectNode();
+                request.put("type", "ping");
+                return "pong".equals(call(request, PING_TIMEOUT_MILLIS).path("type").asText());
+            } catch (IOException | TimeoutException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 通知进程退出，等待片刻后强制结束（含子进程）
+         */
+        void close() {
+            if (process.isAlive() && !killed) {
+                try {
+                    byte[] payload = "{\"type\":\"shutdown\"}".getBytes(StandardCharsets.UTF_8);
+                    requests.writeInt(payload.length);
+                    requests.write(payload);
+                    requests.flush();
+                    process.waitFor(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (IOException e) {
+                    log.debug("通知 Python 工作进程退出失败: pid={}", process.pid());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            kill();
+        }
+
+        /**
+         * 任务被取消：结束进程树，正在等待的读取抛出 CancellationException
+         */
+        void cancel(String reason) {
+            cancelReason = reason;
+            log.info("取消 Python 任务，结束工作进程: pid={}, 原因={}", process.pid(), reason);
+            kill();
+        }
+
+        void kill() {
+            if (process.isAlive()) {
+                killed = true;
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        }
+
+        /**
+         * 工作进程的 stderr（预加载提示、子进程直接写出的内容）转入日志
+         */
+        private void drainStderr() {
+            Thread t = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        log.info("[python-worker {}] {}", process.pid(), line);
+                    }
+                } catch (IOException e) {
+                    log.debug("Python 工作进程 stderr 已关闭: pid={}", process.pid());
+                }
+            }, "python-worker-stderr-" + process.pid());
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+}
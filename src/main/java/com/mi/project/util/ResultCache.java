@@ -0,0 +1,404 @@
+package com.mi.project.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 按内容寻址的本地磁盘结果缓存
+ * 每个条目是缓存目录下以键命名的子目录，键由上游内容哈希、阶段名和参数指纹计算（{@link #key}），
+ * 上游或任一参数变化都会得到新的键，因此只有受影响的阶段及其下游需要重新计算。
+ * 总大小超过预算时按最近最少使用淘汰，正在读取（持有 {@link Lease}）的条目不会被淘汰。
+ * 条目先在临时目录中生成，完成后整体改名，读取方不会看到生成到一半的条目；同一个键同时只生成一次。
+ * <pre>
+ * String key = ResultCache.key(contentHash, "extract", ResultCache.fingerprint(options));
+ * try (ResultCache.Lease lease = cache.computeIfAbsent(key, dir -> extract(tile, dir))) {
+ *     ResultCache.linkOrCopy(lease.getPath().resolve("all_power_lines.las"), target);
+ * }
+ * </pre>
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class ResultCache {
+
+    /**
+     * 缓存配置
+     */
+    public static class Options {
+        private Path directory;
+        /** 磁盘预算（字节），超过后按最近最少使用淘汰 */
+        private long maxBytes = 10L * 1024 * 1024 * 1024;
+
+        public Path getDirectory() { return directory; }
+        public void setDirectory(Path directory) { this.directory = directory; }
+
+        public long getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+        public static Options getDefault() {
+            Options options = new Options();
+            options.setDirectory(Path.of(System.getProperty("java.io.tmpdir"), "pointcloud-cache"));
+            return options;
+        }
+    }
+
+    /**
+     * 在临时目录中生成条目内容
+     */
+    @FunctionalInterface
+    public interface Builder {
+        void build(Path directory) throws Exception;
+    }
+
+    /**
+     * 缓存统计
+     */
+    public static class Stats {
+        public final int entries;
+        public final long bytes;
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+
+        Stats(int entries, long bytes, long hits, long misses, long evictions) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+    }
+
+    /**
+     * 条目的使用凭证，关闭前条目不会被淘汰
+     */
+    public final class Lease implements Closeable {
+        private final Entry entry;
+        private final boolean hit;
+        private boolean closed;
+
+        private Lease(Entry entry, boolean hit) {
+            this.entry = entry;
+            this.hit = hit;
+        }
+
+        public Path getPath() { return entry.path; }
+
+        /** 是否命中已有条目（而不是本次生成） */
+        public boolean isHit() { return hit; }
+
+        @Override
+        public void close() {
+            synchronized (ResultCache.this) {
+                if (!closed) {
+                    closed = true;
+                    entry.pins--;
+                }
+            }
+            evict();
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final Path path;
+        final long bytes;
+        int pins;
+
+        Entry(String key, Path path, long bytes) {
+            this.key = key;
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final String TEMP_PREFIX = ".tmp-";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path directory;
+    private final long maxBytes;
+    /** 按访问顺序排列，最久未使用的在前 */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Void>> building = new ConcurrentHashMap<>();
+    private final AtomicLong tempCounter = new AtomicLong();
+    private long bytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 打开缓存目录，已有条目按修改时间恢复使用顺序，上次残留的临时目录直接删除
+     */
+    public ResultCache(Options options) throws IOException {
+        this.directory = options.getDirectory();
+        this.maxBytes = options.getMaxBytes();
+        Files.createDirectories(directory);
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(Files::isDirectory).forEach(existing::add);
+        }
+        existing.sort(Comparator.comparing(ResultCache::lastModified));
+        for (Path path : existing) {
+            String name = path.getFileName().toString();
+            if (name.startsWith(TEMP_PREFIX)) {
+                FileTrees.deleteRecursively(path);
+                continue;
+            }
+            Entry entry = new Entry(name, path, sizeOf(path));
+            entries.put(name, entry);
+            bytes += entry.bytes;
+        }
+        log.info("结果缓存: {}，已有条目={}，大小={}MB，预算={}MB", directory, entries.size(),
+                bytes / (1024 * 1024), maxBytes / (1024 * 1024));
+        evict();
+    }
+
+    /**
+     * 由各部分拼接计算缓存键（SHA-256 十六进制），null 按空串处理
+     */
+    public static String key(Object... parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    /**
+     * 参数指纹：各参数对象按 getter 序列化为 JSON
+     */
+    public static String fingerprint(Object... options) {
+        try {
+            return PointJsonWriter.sharedMapper().writeValueAsString(options);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("参数无法序列化: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 文件内容的 SHA-256
+     */
+    public static String hash(Path file) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), sha256())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HEX.formatHex(in.getMessageDigest().digest());
+        }
+    }
+
+    /**
+     * 边复制边计算 SHA-256，用于上传文件落盘时顺带得到内容哈希
+     */
+    public static String copyAndHash(InputStream in, Path target) throws IOException {
+        DigestInputStream digesting = new DigestInputStream(in, sha256());
+        Files.copy(digesting, target, StandardCopyOption.REPLACE_EXISTING);
+        return HEX.formatHex(digesting.getMessageDigest().digest());
+    }
+
+    /**
+     * 把文件放到 target：优先建硬链接（同一文件系统时不复制数据），否则复制
+     */
+    public static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 查找条目，未命中时返回 null
+     */
+    public Lease get(String key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                entry.pins++;
+                touch(entry.path);
+                return new Lease(entry, true);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找条目，未命中时在临时目录中生成后加入缓存；同一个键并发调用时只生成一次，其余调用等待结果
+     */
+    public Lease computeIfAbsent(String key, Builder builder) throws IOException {
+        while (true) {
+            Lease lease = get(key);
+            if (lease != null) {
+                return lease;
+            }
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> other = building.putIfAbsent(key, mine);
+            if (other != null) {
+                try {
+                    other.join();
+                } catch (Exception e) {
+                    // 其他调用生成失败时由本次调用重试
+                }
+                continue;
+            }
+            try {
+                Lease built = build(key, builder);
+                mine.complete(null);
+                return built;
+            } catch (IOException | RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                building.remove(key, mine);
+            }
+        }
+    }
+
+    /**
+     * 把已生成的文件（链接或复制）加入缓存，键已存在时保留原条目
+     */
+    public Lease put(String key, List<Path> files) throws IOException {
+        return computeIfAbsent(key, dir -> {
+            for (Path file : files) {
+                linkOrCopy(file, dir.resolve(file.getFileName().toString()));
+            }
+        });
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), bytes, hits.get(), misses.get(), evictions.get());
+    }
+
+    private Lease build(String key, Builder builder) throws IOException {
+        synchronized (this) {
+            // 等待期间可能已由其他调用生成
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                entry.pins++;
+                return new Lease(entry, true);
+            }
+        }
+        misses.incrementAndGet();
+        Path temp = directory.resolve(TEMP_PREFIX + key + "-" + tempCounter.incrementAndGet());
+        Path target = directory.resolve(key);
+        try {
+            Files.createDirectories(temp);
+            builder.build(temp);
+            long size = sizeOf(temp);
+            FileTrees.deleteRecursively(target);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            Entry entry = new Entry(key, target, size);
+            synchronized (this) {
+                entry.pins++;
+                entries.put(key, entry);
+                bytes += size;
+            }
+            evict();
+            return new Lease(entry, false);
+        } catch (IOException | RuntimeException e) {
+            FileTrees.deleteRecursively(temp);
+            throw e;
+        } catch (Exception e) {
+            FileTrees.deleteRecursively(temp);
+            throw new IOException("缓存条目生成失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 淘汰最久未使用且未被持有的条目直到不超过预算；条目先改名为临时目录再删除，不影响同名新条目的生成
+     */
+    private void evict() {
+        List<Path> victims = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.pins > 0) {
+                    continue;
+                }
+                it.remove();
+                bytes -= entry.bytes;
+                evictions.incrementAndGet();
+                Path victim = directory.resolve(TEMP_PREFIX + entry.key + "-" + tempCounter.incrementAndGet());
+                try {
+                    Files.move(entry.path, victim, StandardCopyOption.ATOMIC_MOVE);
+                    victims.add(victim);
+                } catch (IOException e) {
+                    victims.add(entry.path);
+                }
+            }
+        }
+        for (Path victim : victims) {
+            try {
+                FileTrees.deleteRecursively(victim);
+            } catch (IOException e) {
+                log.warn("删除缓存条目失败: {}: {}", victim, e.getMessage());
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignore) {
+            // 只影响重启后的淘汰顺序
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.mi.project.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 流式采样器，作为 {@link LASFileReader.PointVisitor} 直接挂在记录解码循环上，
+ * 单遍读取即可得到样本，内存只与样本容量有关，不需要先把过滤后的全部点加载到内存。
+ * <ul>
+ *   <li>RANDOM：蓄水池采样（Algorithm L），按几何分布直接跳到下一个被替换的点，跳过的点不生成随机数；</li>
+ *   <li>INTENSITY：以强度为键的有界最小堆，保留强度最高的 capacity 个点；</li>
+ *   <li>UNIFORM：按固定步长取点，需要预先知道输入点数（未压缩文件可只扫描分类字节得到）。</li>
+ * </ul>
+ * 输入点数不超过容量时样本即全部输入点，顺序与输入一致。
+ * 网格采样需要全部点，不支持流式采样。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+abstract class StreamingSampler implements LASFileReader.PointVisitor {
+
+    /** 样本缓冲区，按槽位存放 */
+    final PointColumns sample;
+
+    /** 每个槽位中的点在输入中的序号 */
+    final long[] sequence;
+
+    final int capacity;
+
+    /** 所有输入点（采样前）的分类直方图 */
+    private final long[] classificationCounts = new long[256];
+
+    /** 已看到的点数 */
+    private long seen;
+
+    private StreamingSampler(int capacity, PointColumns sample) {
+        this.capacity = capacity;
+        this.sample = sample;
+        this.sequence = new long[capacity];
+    }
+
+    static boolean supports(LASToJsonUtil.SamplingStrategy strategy) {
+        return strategy == LASToJsonUtil.SamplingStrategy.RANDOM
+                || strategy == LASToJsonUtil.SamplingStrategy.INTENSITY
+                || strategy == LASToJsonUtil.SamplingStrategy.UNIFORM;
+    }
+
+    /**
+     * 按采样策略创建流式采样器，样本坐标按 LAS 头部参数量化
+     *
+     * @param expectedCount 输入点数，仅 UNIFORM 使用
+     */
+    static StreamingSampler create(LASToJsonUtil.SamplingStrategy strategy, int capacity, long expectedCount,
+                                   LASToJsonUtil.LASHeader header) {
+        return create(strategy, capacity, expectedCount, new PointColumns(capacity,
+                header.xScaleFactor, header.yScaleFactor, header.zScaleFactor,
+                header.xOffset, header.yOffset, header.zOffset, false));
+    }
+
+    /**
+     * 按采样策略创建对 points 采样的流式采样器，样本坐标按 points 的参数量化
+     */
+    static StreamingSampler createFor(LASToJsonUtil.SamplingStrategy strategy, int capacity, PointColumns points) {
+        return create(strategy, capacity, points.size(), PointColumns.like(points, capacity));
+    }
+
+    private static StreamingSampler create(LASToJsonUtil.SamplingStrategy strategy, int capacity, long expectedCount,
+                                           PointColumns sample) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("样本容量必须大于0: " + capacity);
+        }
+        return switch (strategy) {
+            case RANDOM -> new Reservoir(capacity, sample, new Random());
+            case INTENSITY -> new TopIntensity(capacity, sample);
+            case UNIFORM -> new Stride(capacity, sample, expectedCount);
+            default -> throw new IllegalArgumentException("采样策略不支持流式采样: " + strategy);
+        };
+    }
+
+    /**
+     * 依次喂入 points 中的全部点
+     */
+    StreamingSampler offerAll(PointColumns points) {
+        for (int i = 0, n = points.size(); i < n; i++) {
+            accept(points.getX(i), points.getY(i), points.getZ(i), points.getIntensity(i), points.getClassification(i));
+        }
+        return this;
+    }
+
+    @Override
+    public final void accept(double x, double y, double z, int intensity, int classification) {
+        classificationCounts[classification]++;
+        offer(seen++, x, y, z, intensity, classification);
+    }
+
+    /**
+     * 处理输入中第 index 个点
+     */
+    abstract void offer(long index, double x, double y, double z, int intensity, int classification);
+
+    /**
+     * 采样结果，顺序见各实现；未发生采样时直接返回样本缓冲区
+     */
+    abstract PointColumns result();
+
+    long getSeen() {
+        return seen;
+    }
+
+    /**
+     * 输入点数是否超过样本容量（即是否实际发生了采样）
+     */
+    boolean isSampled() {
+        return seen > capacity;
+    }
+
+    /**
+     * 输入点的分类统计（与 PointColumns.classificationStats 相同的格式）
+     */
+    Map<Integer, Integer> classificationStats() {
+        Map<Integer, Integer> stats = new HashMap<>();
+        for (int c = 0; c < classificationCounts.length; c++) {
+            if (classificationCounts[c] > 0) stats.put(c, (int) Math.min(Integer.MAX_VALUE, classificationCounts[c]));
+        }
+        return stats;
+    }
+
+    /**
+     * 蓄水池采样（Li 1994, Algorithm L）：前 capacity 个点直接入池，
+     * 之后按 W 的几何分布计算下一个入池点的序号，中间的点只比较序号。
+     * 结果按输入顺序排列
+     */
+    static final class Reservoir extends StreamingSampler {
+        private final Random random;
+        private double w;
+        private long next;
+
+        Reservoir(int capacity, PointColumns sample, Random random) {
+            super(capacity, sample);
+            this.random = random;
+        }
+
+        @Override
+        void offer(long index, double x, double y, double z, int intensity, int classification) {
+            if (index < capacity) {
+                sequence[(int) index] = index;
+                sample.add(x, y, z, intensity, classification);
+                if (index == capacity - 1) {
+                    w = Math.exp(Math.log(uniform()) / capacity);
+                    next = skip(index);
+                }
+                return;
+            }
+            if (index != next) {
+                return;
+            }
+            int slot = random.nextInt(capacity);
+            sample.set(slot, x, y, z, intensity, classification);
+            sequence[slot] = index;
+            w *= Math.exp(Math.log(uniform()) / capacity);
+            next = skip(index);
+        }
+
+        private long skip(long index) {
+            return index + (long) Math.floor(Math.log(uniform()) / Math.log(1 - w)) + 1;
+        }
+
+        /** (0, 1) 内的均匀随机数，排除 0 避免 log(0) */
+        private double uniform() {
+            double u;
+            do {
+                u = random.nextDouble();
+            } while (u == 0);
+            return u;
+        }
+
+        @Override
+        PointColumns result() {
+            int n = sample.size();
+            if (!isSampled()) {
+                return sample;
+            }
+            // 序号在高位、槽位在低 31 位打包后排序；序号超过 32 位时直接按槽位顺序输出
+            if (getSeen() >= (1L << 32)) {
+                return sample.range(0, n);
+            }
+            long[] packed = new long[n];
+            for (int slot = 0; slot < n; slot++) {
+                packed[slot] = (sequence[slot] << 31) | slot;
+            }
+            Arrays.sort(packed);
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = (int) (packed[i] & Integer.MAX_VALUE);
+            }
+            return sample.select(order, n);
+        }
+    }
+
+    /**
+     * 有界最小堆：堆顶为当前样本中强度最低（同强度时输入最晚）的点，
+     * 新点强度高于堆顶时替换堆顶并下沉，强度相同时保留先出现的点。
+     * 采样时结果按强度降序、同强度按输入顺序排列
+     */
+    static final class TopIntensity extends StreamingSampler {
+        private final int[] heap;
+
+        TopIntensity(int capacity, PointColumns sample) {
+            super(capacity, sample);
+            this.heap = new int[capacity];
+        }
+
+        @Override
+        void offer(long index, double x, double y, double z, int intensity, int classification) {
+            int n = sample.size();
+            if (n < capacity) {
+                sequence[n] = index;
+                sample.add(x, y, z, intensity, classification);
+                heap[n] = n;
+                siftUp(n);
+                return;
+            }
+            int root = heap[0];
+            if (intensity <= sample.getIntensity(root)) {
+                return;
+            }
+            sample.set(root, x, y, z, intensity, classification);
+            sequence[root] = index;
+            siftDown(heap, 0, n);
+        }
+
+        /** 槽位 a 是否排在 b 之前出堆（强度更低，或强度相同但输入更晚） */
+        private boolean less(int a, int b) {
+            int ia = sample.getIntensity(a), ib = sample.getIntensity(b);
+            return ia < ib || (ia == ib && sequence[a] > sequence[b]);
+        }
+
+        private void siftUp(int i) {
+            int slot = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!less(slot, heap[parent])) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = slot;
+        }
+
+        private void siftDown(int[] h, int i, int n) {
+            int slot = h[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) break;
+                if (child + 1 < n && less(h[child + 1], h[child])) child++;
+                if (!less(h[child], slot)) break;
+                h[i] = h[child];
+                i = child;
+            }
+            h[i] = slot;
+        }
+
+        @Override
+        PointColumns result() {
+            int n = sample.size();
+            if (!isSampled()) {
+                return sample;
+            }
+            // 在堆的副本上依次弹出堆顶放到末尾（堆排序），得到降序排列
+            int[] order = Arrays.copyOf(heap, n);
+            for (int end = n - 1; end > 0; end--) {
+                int top = order[0];
+                order[0] = order[end];
+                siftDown(order, 0, end);
+                order[end] = top;
+            }
+            return sample.select(order, n);
+        }
+    }
+
+    /**
+     * 等步长采样：第 k 个样本取输入中第 floor(k × 输入点数 / capacity) 个点，与按下标均匀采样结果相同
+     */
+    static final class Stride extends StreamingSampler {
+        private final double step;
+        private long next;
+
+        Stride(int capacity, PointColumns sample, long expectedCount) {
+            super(capacity, sample);
+            this.step = Math.max(1.0, (double) expectedCount / capacity);
+        }
+
+        @Override
+        void offer(long index, double x, double y, double z, int intensity, int classification) {
+            int k = sample.size();
+            if (index != next || k == capacity) {
+                return;
+            }
+            sample.add(x, y, z, intensity, classification);
+            next = (long) ((k + 1) * step);
+        }
+
+        @Override
+        PointColumns result() {
+            return sample;
+        }
+    }
+}
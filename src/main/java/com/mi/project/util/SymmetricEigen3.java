@@ -0,0 +1,90 @@
+package com.mi.project.util;
+
+/**
+ * 3×3 实对称矩阵的特征分解（循环 Jacobi 旋转）
+ * 用于邻域协方差矩阵的维度特征计算，结果与 numpy.linalg.eigh 一致（特征向量符号可能不同）。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+final class SymmetricEigen3 {
+
+    /** 最大扫描轮数，3×3 矩阵通常 4–6 轮即收敛到机器精度 */
+    private static final int MAX_SWEEPS = 32;
+
+    private SymmetricEigen3() {
+    }
+
+    /**
+     * 分解对称矩阵 [[a00, a01, a02], [a01, a11, a12], [a02, a12, a22]]
+     *
+     * @param values  输出特征值，按降序排列，长度 3
+     * @param vectors 输出特征向量，vectors[3k..3k+2] 为 values[k] 对应的单位向量，长度 9
+     */
+    static void decompose(double a00, double a01, double a02, double a11, double a12, double a22,
+                          double[] values, double[] vectors) {
+        double[][] a = {{a00, a01, a02}, {a01, a11, a12}, {a02, a12, a22}};
+        double[][] v = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            double off = Math.abs(a[0][1]) + Math.abs(a[0][2]) + Math.abs(a[1][2]);
+            double diag = Math.abs(a[0][0]) + Math.abs(a[1][1]) + Math.abs(a[2][2]);
+            if (off == 0 || off <= diag * 1e-15) {
+                break;
+            }
+            rotate(a, v, 0, 1);
+            rotate(a, v, 0, 2);
+            rotate(a, v, 1, 2);
+        }
+
+        // 按特征值降序排列（3 个元素的插入排序）
+        int[] order = {0, 1, 2};
+        for (int i = 1; i < 3; i++) {
+            for (int j = i; j > 0 && a[order[j]][order[j]] > a[order[j - 1]][order[j - 1]]; j--) {
+                int t = order[j];
+                order[j] = order[j - 1];
+                order[j - 1] = t;
+            }
+        }
+        for (int k = 0; k < 3; k++) {
+            int c = order[k];
+            values[k] = a[c][c];
+            vectors[3 * k] = v[0][c];
+            vectors[3 * k + 1] = v[1][c];
+            vectors[3 * k + 2] = v[2][c];
+        }
+    }
+
+    /**
+     * 一次 Jacobi 旋转，消去 a[p][q]，并把旋转累积到特征向量矩阵的列上
+     */
+    private static void rotate(double[][] a, double[][] v, int p, int q) {
+        double apq = a[p][q];
+        if (apq == 0) {
+            return;
+        }
+        double theta = (a[q][q] - a[p][p]) / (2 * apq);
+        double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+        if (theta == 0) {
+            t = 1;
+        }
+        double c = 1 / Math.sqrt(t * t + 1);
+        double s = t * c;
+
+        for (int k = 0; k < 3; k++) {
+            double akp = a[k][p], akq = a[k][q];
+            a[k][p] = c * akp - s * akq;
+            a[k][q] = s * akp + c * akq;
+        }
+        for (int k = 0; k < 3; k++) {
+            double apk = a[p][k], aqk = a[q][k];
+            a[p][k] = c * apk - s * aqk;
+            a[q][k] = s * apk + c * aqk;
+        }
+        for (int k = 0; k < 3; k++) {
+            double vkp = v[k][p], vkq = v[k][q];
+            v[k][p] = c * vkp - s * vkq;
+            v[k][q] = s * vkp + c * vkq;
+        }
+    }
+}
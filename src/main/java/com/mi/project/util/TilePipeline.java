@@ -0,0 +1,262 @@
+package com.mi.project.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分块级流水线：按分块组织的有向无环任务图
+ * 每个阶段有独立的并发上限，任务在其上游结果就绪后立即进入本阶段排队，
+ * 不同分块在各阶段之间互不等待，某个分块较慢只拖慢它自己的下游任务。
+ * 任务最终提交到 {@link AnalysisExecutor} 的同一个作业中执行，与其他上传共享线程和内存预算。
+ * 上游失败时下游任务不执行，异常沿 CompletableFuture 传递。
+ * 阶段可以设置截止时间：每个任务开始执行时从作业令牌派生一个带截止时间的子令牌并绑定到执行线程，
+ * 超时后进程内计算在下一个检查点停止、正在运行的 Python 脚本被结束，任务以 CancellationException 失败。
+ * <pre>
+ * TilePipeline pipeline = new TilePipeline(job).stage("extract", 2).stage("fit", 2);
+ * CompletableFuture&lt;String&gt; dir = pipeline.start("extract", () -> extract(tile));
+ * CompletableFuture&lt;Path&gt; json = pipeline.then("fit", dir, d -> fit(d));
+ * </pre>
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+@Slf4j
+public final class TilePipeline implements Closeable {
+
+    /**
+     * 带受检异常的阶段任务
+     */
+    @FunctionalInterface
+    public interface StageTask<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    /**
+     * 阶段统计
+     */
+    public static class StageMetrics {
+        public final String name;
+        public final int concurrency;
+        public final long completed;
+        public final long failed;
+        /** 因作业取消或超过阶段截止时间而停止的任务数（不计入 failed） */
+        public final long cancelled;
+        /** 任务执行时间之和（毫秒） */
+        public final long busyMillis;
+        /** 任务从可执行到开始执行的最长等待（毫秒） */
+        public final long maxQueueMillis;
+
+        StageMetrics(String name, int concurrency, long completed, long failed, long cancelled,
+                     long busyMillis, long maxQueueMillis) {
+            this.name = name;
+            this.concurrency = concurrency;
+            this.completed = completed;
+            this.failed = failed;
+            this.cancelled = cancelled;
+            this.busyMillis = busyMillis;
+            this.maxQueueMillis = maxQueueMillis;
+        }
+    }
+
+    private final AnalysisExecutor.Job job;
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private final long createdAt = System.currentTimeMillis();
+
+    public TilePipeline(AnalysisExecutor.Job job) {
+        this.job = job;
+    }
+
+    /**
+     * 注册一个阶段，concurrency 为该阶段同时执行的任务数上限
+     */
+    public TilePipeline stage(String name, int concurrency) {
+        return stage(name, concurrency, null);
+    }
+
+    /**
+     * 注册一个阶段，deadline 为单个任务的执行时间上限，为 null 或 0 时不限制
+     */
+    public TilePipeline stage(String name, int concurrency, Duration deadline) {
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("阶段已存在: " + name);
+        }
+        stages.put(name, new Stage(job, name, Math.max(1, concurrency), deadline));
+        return this;
+    }
+
+    /**
+     * 提交没有上游依赖的任务
+     */
+    public <O> CompletableFuture<O> start(String stageName, Callable<O> task) {
+        return start(stageName, 0, task);
+    }
+
+    /**
+     * 提交没有上游依赖的任务，memoryBytes 为预计占用的内存
+     */
+    public <O> CompletableFuture<O> start(String stageName, long memoryBytes, Callable<O> task) {
+        return stage(stageName).submit(memoryBytes, task);
+    }
+
+    /**
+     * 提交依赖 upstream 结果的任务，upstream 完成后立即在本阶段排队
+     */
+    public <I, O> CompletableFuture<O> then(String stageName, CompletableFuture<I> upstream, StageTask<I, O> task) {
+        Stage stage = stage(stageName);
+        return upstream.thenCompose(input -> stage.submit(0, () -> task.apply(input)));
+    }
+
+    public List<StageMetrics> getMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>();
+        for (Stage stage : stages.values()) {
+            metrics.add(new StageMetrics(stage.name, stage.concurrency, stage.completed.get(), stage.failed.get(),
+                    stage.cancelled.get(), stage.busyMillis.get(), stage.maxQueueMillis.get()));
+        }
+        return metrics;
+    }
+
+    /**
+     * 输出阶段统计；调用前应先等待全部末端任务完成
+     */
+    @Override
+    public void close() {
+        for (StageMetrics m : getMetrics()) {
+            log.info("流水线阶段 {}: 并发={}, 完成={}, 失败={}, 取消={}, 执行={}ms, 最长排队={}ms",
+                    m.name, m.concurrency, m.completed, m.failed, m.cancelled, m.busyMillis, m.maxQueueMillis);
+        }
+        log.info("流水线总耗时: {}ms", System.currentTimeMillis() - createdAt);
+    }
+
+    private Stage stage(String name) {
+        Stage stage = stages.get(name);
+        if (stage == null) {
+            throw new IllegalArgumentException("未注册的阶段: " + name);
+        }
+        return stage;
+    }
+
+    /**
+     * 阶段：超过并发上限的任务在本阶段排队，有任务结束时再提交下一个
+     */
+    private static final class Stage {
+        final AnalysisExecutor.Job job;
+        final String name;
+        final int concurrency;
+        final Duration deadline;
+        final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        int running;
+        /** 有线程正在 drain() 中提交排队任务 */
+        boolean draining;
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong cancelled = new AtomicLong();
+        final AtomicLong busyMillis = new AtomicLong();
+        final AtomicLong maxQueueMillis = new AtomicLong();
+
+        Stage(AnalysisExecutor.Job job, String name, int concurrency, Duration deadline) {
+            this.job = job;
+            this.name = name;
+            this.concurrency = concurrency;
+            this.deadline = deadline;
+        }
+
+        <O> CompletableFuture<O> submit(long memoryBytes, Callable<O> task) {
+            long ready = System.currentTimeMillis();
+            CompletableFuture<O> result = new CompletableFuture<>();
+            Runnable dispatch = () -> {
+                CompletableFuture<O> submitted;
+                try {
+                    submitted = job.submit(memoryBytes, () -> run(ready, task));
+                } catch (RuntimeException e) {
+                    // 执行器已关闭等情况：释放名额，任务直接失败，不让等待它的调用方挂起
+                    release();
+                    result.completeExceptionally(e);
+                    return;
+                }
+                submitted.whenComplete((value, error) -> {
+                    release();
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            };
+            synchronized (this) {
+                waiting.addLast(dispatch);
+                if (draining) {
+                    return result;
+                }
+                draining = true;
+            }
+            drain();
+            return result;
+        }
+
+        private void release() {
+            synchronized (this) {
+                running--;
+                if (draining) {
+                    // 正在排空队列的线程会接着提交下一个
+                    return;
+                }
+                draining = true;
+            }
+            drain();
+        }
+
+        /**
+         * 在并发上限内依次提交排队的任务。任务被拒绝或立即完成（如作业已取消）时会在本线程内释放名额，
+         * 由这里的循环继续提交，而不是递归调用，大量任务同时取消也不会加深调用栈
+         */
+        private void drain() {
+            while (true) {
+                Runnable next;
+                synchronized (this) {
+                    if (running >= concurrency || waiting.isEmpty()) {
+                        draining = false;
+                        return;
+                    }
+                    next = waiting.pollFirst();
+                    running++;
+                }
+                next.run();
+            }
+        }
+
+        <O> O run(long ready, Callable<O> task) throws Exception {
+            long start = System.currentTimeMillis();
+            maxQueueMillis.accumulateAndGet(start - ready, Math::max);
+            try (CancellationToken token = job.getToken().child(deadline)) {
+                CancellationToken.Scope scope = token.attach();
+                try {
+                    O result = task.call();
+                    completed.incrementAndGet();
+                    return result;
+                } finally {
+                    scope.close();
+                }
+            } catch (CancellationException e) {
+                cancelled.incrementAndGet();
+                log.warn("流水线阶段 {} 的任务已停止: {}", name, e.getMessage());
+                throw e;
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                throw e;
+            } finally {
+                busyMillis.addAndGet(System.currentTimeMillis() - start);
+            }
+        }
+    }
+}
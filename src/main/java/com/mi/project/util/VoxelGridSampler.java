@@ -0,0 +1,220 @@
+package com.mi.project.util;
+
+import java.util.Arrays;
+
+/**
+ * 三维体素网格采样
+ * 体素坐标 (ix, iy, iz) 各占 21 位打包成一个 long 作为键，存放在开放寻址（线性探测）的原始类型哈希表中，
+ * 采样过程不为每个点创建对象，内存只与体素数有关。每个体素输出一个代表点，取法见 {@link Representative}。
+ * <p>
+ * 按目标点数采样时自动选择体素边长：在 log(边长)–log(体素数) 上做割线迭代，
+ * 通常 3–5 次计数即可得到不超过目标点数、且不少于目标 90% 的边长。
+ *
+ * @author MI Project Team
+ * @since 2.1.0
+ */
+public final class VoxelGridSampler {
+
+    /**
+     * 体素代表点的取法
+     */
+    public enum Representative {
+        /** 体素内强度最高的点 */
+        MAX_INTENSITY,
+        /** 体素内所有点的坐标均值和强度均值，分类取体素内第一个点 */
+        CENTROID,
+        /** 按文件顺序最先落入体素的点 */
+        FIRST
+    }
+
+    /** 每个轴的体素下标位数 */
+    private static final int AXIS_BITS = 21;
+
+    private static final int MAX_AXIS_CELLS = 1 << AXIS_BITS;
+
+    /** 自动选择边长时，体素数达到目标的该比例即停止迭代 */
+    private static final double ACCEPT_RATIO = 0.9;
+
+    /** 自动选择边长的最大计数次数（已找到不超过目标的边长之后） */
+    private static final int MAX_ITERATIONS = 8;
+
+    /** 计数时体素数超过目标的倍数即提前结束，限制哈希表大小 */
+    private static final int COUNT_LIMIT_FACTOR = 8;
+
+    private VoxelGridSampler() {
+    }
+
+    /**
+     * 自动选择体素边长，使输出点数不超过 maxPoints 且尽量接近
+     */
+    public static PointColumns sample(PointColumns points, int maxPoints, Representative representative) {
+        if (points.size() <= maxPoints) {
+            return points;
+        }
+        if (maxPoints <= 0) {
+            return PointColumns.like(points, 0);
+        }
+        LASToJsonUtil.BoundingBox bounds = new LASToJsonUtil.BoundingBox(points);
+        double cellSize = chooseCellSize(points, bounds, maxPoints);
+        return sample(points, bounds, cellSize, representative, maxPoints);
+    }
+
+    /**
+     * 按固定体素边长采样
+     */
+    public static PointColumns sample(PointColumns points, double cellSize, Representative representative) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("体素边长必须大于0: " + cellSize);
+        }
+        if (points.isEmpty()) {
+            return PointColumns.like(points, 0);
+        }
+        return sample(points, new LASToJsonUtil.BoundingBox(points), cellSize, representative, points.size());
+    }
+
+    /**
+     * 选择体素边长：体素数随边长增大而减少，在 log–log 坐标上用割线逼近目标
+     */
+    static double chooseCellSize(PointColumns points, LASToJsonUtil.BoundingBox bounds, int target) {
+        double minCell = minCellSize(bounds);
+        // 电力巡检点云近似二维分布，以水平面积估计初值
+        double area = (bounds.maxX - bounds.minX) * (bounds.maxY - bounds.minY);
+        double cell = area > 0 ? Math.sqrt(area / target) : maxExtent(bounds) / target;
+        cell = Math.max(cell, minCell);
+
+        int limit = (int) Math.min(points.size(), (long) target * COUNT_LIMIT_FACTOR);
+        LongSlotTable table = new LongSlotTable(Math.min(limit, target));
+        double overCell = 0, underCell = 0;
+        int overCount = 0, underCount = 0;
+        for (int iteration = 0; ; ) {
+            int count = countVoxels(points, bounds, cell, table, limit);
+            if (count <= target) {
+                underCell = cell;
+                underCount = count;
+                if (count >= target * ACCEPT_RATIO || ++iteration >= MAX_ITERATIONS) {
+                    return cell;
+                }
+            } else {
+                overCell = cell;
+                overCount = count;
+                if (underCell > 0 && ++iteration >= MAX_ITERATIONS) {
+                    return underCell;
+                }
+            }
+
+            double next;
+            if (overCell > 0 && underCell > 0) {
+                // 两侧都有：按两点估计的幂律指数插值，落在区间外时取几何中点
+                double dimension = Math.log((double) overCount / underCount) / Math.log(underCell / overCell);
+                next = overCell * Math.pow((double) overCount / target, 1 / dimension);
+                if (!(next > overCell && next < underCell)) {
+                    next = Math.sqrt(overCell * underCell);
+                }
+            } else {
+                // 只有一侧：按二维分布（体素数与边长平方成反比）外推
+                next = cell * Math.sqrt((double) count / target);
+                if (count > target && next <= cell) {
+                    next = cell * 2;
+                }
+            }
+            cell = Math.max(next, minCell);
+        }
+    }
+
+    /**
+     * 每个轴的体素数不超过 2^21，边长不能小于 最大跨度 / 2^21
+     */
+    private static double minCellSize(LASToJsonUtil.BoundingBox bounds) {
+        double extent = maxExtent(bounds);
+        return extent > 0 ? extent / (MAX_AXIS_CELLS - 1) : 1;
+    }
+
+    private static double maxExtent(LASToJsonUtil.BoundingBox bounds) {
+        return Math.max(bounds.maxX - bounds.minX, Math.max(bounds.maxY - bounds.minY, bounds.maxZ - bounds.minZ));
+    }
+
+    /**
+     * 统计非空体素数，超过 limit 后提前返回 limit + 1
+     */
+    private static int countVoxels(PointColumns points, LASToJsonUtil.BoundingBox bounds, double cellSize,
+                                   LongSlotTable table, int limit) {
+        table.clear();
+        double inv = 1 / cellSize;
+        double minX = bounds.minX, minY = bounds.minY, minZ = bounds.minZ;
+        for (int i = 0, n = points.size(); i < n; i++) {
+            long key = key(points.getX(i), points.getY(i), points.getZ(i), minX, minY, minZ, inv);
+            if (table.insert(key) < 0 && table.size() > limit) {
+                return limit + 1;
+            }
+        }
+        return table.size();
+    }
+
+    private static PointColumns sample(PointColumns points, LASToJsonUtil.BoundingBox bounds, double cellSize,
+                                       Representative representative, int expectedCells) {
+        int n = points.size();
+        LongSlotTable table = new LongSlotTable(Math.min(n, expectedCells));
+        double inv = 1 / cellSize;
+        double minX = bounds.minX, minY = bounds.minY, minZ = bounds.minZ;
+
+        // 体素按首个点出现的顺序编号，输出顺序与文件顺序一致
+        int[] chosen = new int[Math.min(n, expectedCells)];
+        double[] sums = representative == Representative.CENTROID ? new double[chosen.length * 3] : null;
+        long[] intensitySums = representative == Representative.CENTROID ? new long[chosen.length] : null;
+        int[] counts = representative == Representative.CENTROID ? new int[chosen.length] : null;
+
+        for (int i = 0; i < n; i++) {
+            double x = points.getX(i), y = points.getY(i), z = points.getZ(i);
+            int slot = table.insert(key(x, y, z, minX, minY, minZ, inv));
+            boolean created = slot < 0;
+            if (created) {
+                slot = ~slot;
+                if (slot == chosen.length) {
+                    int capacity = (int) Math.min(n, (long) chosen.length * 2);
+                    chosen = Arrays.copyOf(chosen, capacity);
+                    if (sums != null) {
+                        sums = Arrays.copyOf(sums, capacity * 3);
+                        intensitySums = Arrays.copyOf(intensitySums, capacity);
+                        counts = Arrays.copyOf(counts, capacity);
+                    }
+                }
+                chosen[slot] = i;
+            }
+            switch (representative) {
+                case MAX_INTENSITY -> {
+                    if (!created && points.getIntensity(i) > points.getIntensity(chosen[slot])) {
+                        chosen[slot] = i;
+                    }
+                }
+                case CENTROID -> {
+                    sums[slot * 3] += x;
+                    sums[slot * 3 + 1] += y;
+                    sums[slot * 3 + 2] += z;
+                    intensitySums[slot] += points.getIntensity(i);
+                    counts[slot]++;
+                }
+                case FIRST -> {
+                }
+            }
+        }
+
+        int cells = table.size();
+        if (representative != Representative.CENTROID) {
+            return points.select(chosen, cells);
+        }
+        PointColumns result = PointColumns.like(points, cells);
+        for (int c = 0; c < cells; c++) {
+            int count = counts[c];
+            result.add(sums[c * 3] / count, sums[c * 3 + 1] / count, sums[c * 3 + 2] / count,
+                    (int) (intensitySums[c] / count), points.getClassification(chosen[c]));
+        }
+        return result;
+    }
+
+    private static long key(double x, double y, double z, double minX, double minY, double minZ, double inv) {
+        long ix = Math.min((long) ((x - minX) * inv), MAX_AXIS_CELLS - 1);
+        long iy = Math.min((long) ((y - minY) * inv), MAX_AXIS_CELLS - 1);
+        long iz = Math.min((long) ((z - minZ) * inv), MAX_AXIS_CELLS - 1);
+        return (ix << (2 * AXIS_BITS)) | (iy << AXIS_BITS) | iz;
+    }
+}
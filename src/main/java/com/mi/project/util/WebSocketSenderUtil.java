@@ -2,6 +2,7 @@ package com.mi.project.util;
 
 import com.mi.project.common.MyWebSocketHandler;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
@@ -29,6 +30,21 @@ public class WebSocketSenderUtil {
         }
     }
 
+    // 向所有前端发送二进制帧（点云二进制格式见 PointBinaryWriter）
+    public static void sendBinaryToAll(byte[] data) {
+        log.info("sendBinaryToAll called, {} bytes, session count: {}", data.length, MyWebSocketHandler.getSessions().size());
+        for (Map.Entry<String, WebSocketSession> entry : MyWebSocketHandler.getSessions().entrySet()) {
+            WebSocketSession session = entry.getValue();
+            if (session.isOpen()) {
+                try {
+                    session.sendMessage(new BinaryMessage(data));
+                } catch (IOException e) {
+                    log.warn("二进制消息发送失败, session: {}", session.getId(), e);
+                }
+            }
+        }
+    }
+
     // 读取 JSON 文件并发送给所有前端
     public static void sendJsonFileToAll(String jsonFilePath) {
         try {
@@ -8,7 +8,7 @@ import java.util.zip.ZipInputStream;
 
 class ZipLasExtractorUtil {
     /**
-     * 解压zip文件中的第一个las文件到指定目录，并返回该las文件的路径。
+     * 解压zip文件中的第一个las（或laz）文件到指定目录，并返回该文件的路径。
      * @param zipFile zip文件路径
      * @param destDir 解压目标目录
      * @return 第一个las文件的路径，如果没有则返回null
@@ -19,7 +19,7 @@ class ZipLasExtractorUtil {
              ZipInputStream zis = new ZipInputStream(fis)) {
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
-                if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".las")) {
+                if (!entry.isDirectory() && isLasEntry(entry.getName())) {
                     Path outPath = destDir.resolve(entry.getName());
                     Files.createDirectories(outPath.getParent());
                     Files.copy(zis, outPath, StandardCopyOption.REPLACE_EXISTING);
@@ -29,4 +29,9 @@ class ZipLasExtractorUtil {
         }
         return null;
     }
+
+    private static boolean isLasEntry(String name) {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".las") || lower.endsWith(".laz");
+    }
 }
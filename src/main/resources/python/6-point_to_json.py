@@ -50,11 +50,19 @@ def generate_unique_filename(input_file, output_dir):
     # 添加时间戳确保唯一性
     timestamp = datetime.datetime.now().strftime("%Y%m%d_%H%M%S")
     
-    # 生成唯一文件名
-    filename = f"{base_name}_{timestamp}.json"
+    # 生成唯一文件名；多个分块在同一秒内完成时追加序号，以独占方式创建避免互相覆盖
+    path = os.path.join(output_dir, f"{base_name}_{timestamp}.json")
+    counter = 1
+    while True:
+        try:
+            open(path, 'x').close()
+            break
+        except FileExistsError:
+            path = os.path.join(output_dir, f"{base_name}_{timestamp}-{counter}.json")
+            counter += 1
     
     # 返回完整路径
-    return os.path.join(output_dir, filename)
+    return path
 
 
 def main():
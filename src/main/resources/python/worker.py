@@ -0,0 +1,136 @@
+import ast
+import contextlib
+import importlib.util
+import io
+import json
+import os
+import runpy
+import struct
+import sys
+import traceback
+
+# 常驻 Python 工作进程，由 PythonWorkerPool 启动
+# 协议：stdin / stdout 上的帧，每帧为 4 字节大端长度 + UTF-8 JSON
+#   请求 {"type": "run", "id": 1, "script": "脚本路径", "args": [...]}
+#   响应 {"type": "result", "id": 1, "exitCode": 0, "output": "脚本输出"}
+#   请求 {"type": "ping"}      响应 {"type": "pong", "jobs": 已执行任务数}
+#   请求 {"type": "shutdown"}  进程退出
+# 脚本只加载一次，之后每次调用其 main()；numpy / laspy 等依赖在进程内常驻，省去每次启动的导入开销
+# python worker.py --preload numpy,scipy,sklearn,laspy
+
+_modules = {}
+
+
+def read_frame(stream):
+    header = stream.read(4)
+    if len(header) < 4:
+        return None
+    (length,) = struct.unpack(">I", header)
+    payload = stream.read(length)
+    if len(payload) < length:
+        return None
+    return json.loads(payload.decode("utf-8"))
+
+
+def write_frame(stream, message):
+    payload = json.dumps(message, ensure_ascii=False).encode("utf-8")
+    stream.write(struct.pack(">I", len(payload)))
+    stream.write(payload)
+    stream.flush()
+
+
+def preload(names):
+    for name in names:
+        name = name.strip()
+        if not name:
+            continue
+        try:
+            importlib.import_module(name)
+        except ImportError as e:
+            print(f"预加载模块失败: {name}: {e}", file=sys.stderr)
+
+
+def load_script(path):
+    """
+    按路径加载定义了 main() 的脚本模块并缓存，文件修改后重新加载；没有 main() 的脚本返回 None
+    """
+    mtime = os.path.getmtime(path)
+    cached = _modules.get(path)
+    if cached is not None and cached[0] == mtime:
+        return cached[1]
+    with open(path, "rb") as f:
+        tree = ast.parse(f.read(), filename=path)
+    has_main = any(isinstance(node, ast.FunctionDef) and node.name == "main" for node in tree.body)
+    module = None
+    if has_main:
+        spec = importlib.util.spec_from_file_location("worker_script_%d" % len(_modules), path)
+        module = importlib.util.module_from_spec(spec)
+        spec.loader.exec_module(module)
+    _modules[path] = (mtime, module)
+    return module
+
+
+def run(script, args):
+    """
+    以 sys.argv = [script] + args 调用脚本的 main()，返回 (退出码, 输出)
+    """
+    output = io.StringIO()
+    exit_code = 0
+    old_argv = sys.argv
+    sys.argv = [script] + list(args)
+    try:
+        with contextlib.redirect_stdout(output), contextlib.redirect_stderr(output):
+            try:
+                module = load_script(script)
+                if module is not None:
+                    result = module.main()
+                    if isinstance(result, int):
+                        exit_code = result
+                else:
+                    # 没有 main() 的脚本按 __main__ 整体执行，已导入的依赖仍然复用
+                    runpy.run_path(script, run_name="__main__")
+            except SystemExit as e:
+                if e.code is None:
+                    exit_code = 0
+                elif isinstance(e.code, int):
+                    exit_code = e.code
+                else:
+                    print(e.code)
+                    exit_code = 1
+            except Exception:
+                traceback.print_exc()
+                exit_code = 1
+    finally:
+        sys.argv = old_argv
+    return exit_code, output.getvalue()
+
+
+def main():
+    preload_names = []
+    if len(sys.argv) >= 3 and sys.argv[1] == "--preload":
+        preload_names = sys.argv[2].split(",")
+
+    # 协议独占原始 stdout；脚本或其子进程直接写 fd 1 的内容改为进入 stderr，不会破坏帧
+    protocol_out = os.fdopen(os.dup(1), "wb")
+    os.dup2(2, 1)
+    sys.stdout = io.TextIOWrapper(os.fdopen(1, "wb", closefd=False), encoding="utf-8", line_buffering=True)
+    protocol_in = sys.stdin.buffer
+
+    preload(preload_names)
+    write_frame(protocol_out, {"type": "ready", "pid": os.getpid()})
+
+    jobs = 0
+    while True:
+        request = read_frame(protocol_in)
+        if request is None or request.get("type") == "shutdown":
+            break
+        if request.get("type") == "ping":
+            write_frame(protocol_out, {"type": "pong", "jobs": jobs})
+            continue
+        exit_code, output = run(request["script"], request.get("args", []))
+        jobs += 1
+        write_frame(protocol_out, {"type": "result", "id": request.get("id"), "exitCode": exit_code, "output": output})
+
+
+if __name__ == "__main__":
+    main()
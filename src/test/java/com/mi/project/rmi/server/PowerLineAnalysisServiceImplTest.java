@@ -0,0 +1,75 @@
+package com.mi.project.rmi.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * performRansacFitting 返回由拟合得到的 RMSE 和内点比例（不依赖 Python 脚本）
+ */
+class PowerLineAnalysisServiceImplTest {
+
+    private final PowerLineAnalysisServiceImpl service = new PowerLineAnalysisServiceImpl(null);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ransacFittingReportsMeasuredRmseAndInliers() throws Exception {
+        Random random = new Random(8);
+        double noise = 0.05;
+        // 第一条线 20% 的点向上偏移 5 米，第二条线没有离群点，第三条线点数不足
+        List<Map<String, Object>> lines = List.of(
+                line(random, 300, noise, 5),
+                line(random, 300, noise, 0),
+                line(random, 4, noise, 0));
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("threshold", 0.5);
+        parameters.put("min_samples_ratio", 0.02);
+
+        Map<String, Object> result = service.performRansacFitting(lines, parameters);
+
+        assertEquals(3, result.get("total_lines"));
+        assertEquals(2, result.get("fitted_lines"));
+        List<Map<String, Object>> fitted = (List<Map<String, Object>>) result.get("fitted_lines_data");
+        Map<String, Object> withOutliers = fitted.get(0);
+        Map<String, Object> clean = fitted.get(1);
+
+        assertEquals(0.8, (double) withOutliers.get("inlier_ratio"), 0.01);
+        assertEquals(1.0, (double) clean.get("inlier_ratio"), 0.01);
+        // RMSE 按全部点计算：干净的线约等于噪声，带离群点的线明显更大
+        assertEquals(noise, (double) clean.get("rmse"), 0.02);
+        assertTrue((double) withOutliers.get("rmse") > 0.5, "rmse " + withOutliers.get("rmse"));
+        assertEquals(50, (double) clean.get("total_length"), 1.0);
+        assertFalse((boolean) fitted.get(2).get("fitted"));
+
+        double accuracy = (double) result.get("fitting_accuracy");
+        assertEquals(0.9, accuracy, 0.01);
+        assertFalse(fitted.get(0).containsKey("points"));
+    }
+
+    /**
+     * 沿 x 轴 50 米长、坡度 0.1 的直线，每 outlierEvery 个点有一个向上偏移 5 米（0 为没有离群点）
+     */
+    private static Map<String, Object> line(Random random, int n, double noise, int outlierEvery) {
+        List<List<Double>> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double x = 50.0 * i / (n - 1);
+            double z = 30 + 0.1 * x + random.nextGaussian() * noise;
+            if (outlierEvery > 0 && i % outlierEvery == 0) {
+                z += 5;
+            }
+            points.add(List.of(x + random.nextGaussian() * noise, random.nextGaussian() * noise, z));
+        }
+        Map<String, Object> line = new HashMap<>();
+        line.put("points", points);
+        line.put("classification", 14);
+        return line;
+    }
+}
@@ -0,0 +1,175 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 取消令牌：主动取消、截止时间、父令牌向子令牌传播，以及经执行器作业传播到运行中的任务
+ */
+class CancellationTokenTest {
+
+    @Test
+    void cancelRunsCallbacksOnce() throws Exception {
+        CancellationToken token = CancellationToken.create();
+        AtomicInteger calls = new AtomicInteger();
+        token.onCancel(calls::incrementAndGet);
+        Closeable removed = token.onCancel(() -> { throw new AssertionError("已注销的回调"); });
+        removed.close();
+        token.throwIfCancelled();
+        assertNull(token.getReason());
+
+        token.cancel("第一次");
+        token.cancel("第二次");
+
+        assertTrue(token.isCancelled());
+        assertEquals("第一次", token.getReason());
+        assertEquals(1, calls.get());
+        CancellationException e = assertThrows(CancellationException.class, token::throwIfCancelled);
+        assertEquals("第一次", e.getMessage());
+        // 取消后注册的回调立即执行
+        token.onCancel(calls::incrementAndGet);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void noneIsNeverCancelled() {
+        CancellationToken.NONE.cancel("无效");
+        assertFalse(CancellationToken.NONE.isCancelled());
+        assertSame(CancellationToken.NONE, CancellationToken.current());
+        CancellationToken.checkCurrent();
+    }
+
+    @Test
+    void deadlineCancelsToken() throws Exception {
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(50));
+        CountDownLatch cancelled = new CountDownLatch(1);
+        token.onCancel(cancelled::countDown);
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        assertTrue(token.getReason().contains("截止时间"), token.getReason());
+    }
+
+    @Test
+    void closedTokenDoesNotExpire() throws Exception {
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(50));
+        token.close();
+        Thread.sleep(200);
+        assertFalse(token.isCancelled());
+        // 没有截止时间的令牌
+        assertFalse(CancellationToken.withTimeout(Duration.ZERO).isCancelled());
+    }
+
+    @Test
+    void parentCancellationPropagatesToDescendants() {
+        CancellationToken parent = CancellationToken.create();
+        CancellationToken child = parent.child();
+        CancellationToken grandchild = child.child();
+        CancellationToken sibling = parent.child();
+
+        // 子令牌取消不影响父令牌和兄弟令牌
+        sibling.cancel("兄弟");
+        assertFalse(parent.isCancelled());
+        assertFalse(child.isCancelled());
+
+        parent.cancel("父令牌取消");
+        assertEquals("父令牌取消", child.getReason());
+        assertEquals("父令牌取消", grandchild.getReason());
+        assertEquals("兄弟", sibling.getReason());
+
+        // 父令牌已取消时创建的子令牌立即取消
+        assertTrue(parent.child().isCancelled());
+    }
+
+    @Test
+    void childDeadlineDoesNotCancelParent() throws Exception {
+        CancellationToken parent = CancellationToken.withTimeout(Duration.ofMinutes(10));
+        CancellationToken child = parent.child(Duration.ofMillis(50));
+        CountDownLatch cancelled = new CountDownLatch(1);
+        child.onCancel(cancelled::countDown);
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        assertFalse(parent.isCancelled());
+        parent.close();
+    }
+
+    @Test
+    void closedChildIsUnregistered() {
+        CancellationToken parent = CancellationToken.create();
+        CancellationToken child = parent.child();
+        child.close();
+
+        parent.cancel("取消");
+        assertFalse(child.isCancelled());
+    }
+
+    @Test
+    void attachRestoresPreviousBinding() {
+        CancellationToken outer = CancellationToken.create();
+        CancellationToken inner = outer.child();
+        CancellationToken.Scope outerScope = outer.attach();
+        try {
+            assertSame(outer, CancellationToken.current());
+            CancellationToken.Scope innerScope = inner.attach();
+            try {
+                assertSame(inner, CancellationToken.current());
+                outer.cancel("取消");
+                assertThrows(CancellationException.class, CancellationToken::checkCurrent);
+            } finally {
+                innerScope.close();
+            }
+            assertSame(outer, CancellationToken.current());
+        } finally {
+            outerScope.close();
+        }
+        assertSame(CancellationToken.NONE, CancellationToken.current());
+    }
+
+    /**
+     * 作业令牌是调用方令牌的子令牌并绑定到任务线程：调用方取消时运行中的任务在检查点停止，排队的任务直接失败
+     */
+    @Test
+    void jobTasksObserveParentCancellation() throws Exception {
+        AnalysisExecutor.Options options = AnalysisExecutor.Options.getDefault();
+        options.setThreads(1);
+        try (AnalysisExecutor executor = new AnalysisExecutor(options)) {
+            CancellationToken parent = CancellationToken.create();
+            AnalysisExecutor.Job job = executor.openJob("u", "job", 1, parent);
+            AtomicReference<CancellationToken> seen = new AtomicReference<>();
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<Void> running = job.submit(() -> {
+                seen.set(CancellationToken.current());
+                started.countDown();
+                while (true) {
+                    CancellationToken.checkCurrent();
+                    Thread.sleep(1);
+                }
+            });
+            CompletableFuture<String> queued = job.submit(() -> "不应执行");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertSame(job.getToken(), seen.get());
+
+            parent.cancel("用户取消");
+
+            assertThrows(CancellationException.class, () -> running.get(5, TimeUnit.SECONDS));
+            assertThrows(CancellationException.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertEquals("用户取消", job.getToken().getReason());
+            assertTrue(job.submit(() -> "取消后提交").isCompletedExceptionally());
+            job.close();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * fitParallel 与 fit 的一致性：条带切分、核心点合并和边界点归属后，噪声点和聚类划分应与顺序算法完全相同
+ * 条带至少 8192 个点，测试数据需要数万个点才会真正切分。
+ * 网格索引的 fit 与逐点扫描全部点的原始算法（{@link #bruteForce}）得到完全相同的标签。
+ */
+class DBSCANClusterTest {
+
+    private static final int PARALLELISM = 4;
+
+    @Test
+    void randomClustersIn2D() {
+        Random random = new Random(7);
+        double[][] data = blobs(random, 40_000, 2, 30, 500.0, 4.0);
+        assertSameClustering(data, 1.5, 5);
+    }
+
+    @Test
+    void randomClustersIn3D() {
+        Random random = new Random(11);
+        double[][] data = blobs(random, 40_000, 3, 40, 300.0, 3.0);
+        assertSameClustering(data, 2.0, 6);
+    }
+
+    /**
+     * 整数格点：条带分界点落在大量点共享的坐标上，相邻点距离恰好等于 eps
+     */
+    @Test
+    void pointsOnSlabBoundaries() {
+        Random random = new Random(3);
+        double[][] data = new double[50_000][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new double[]{random.nextInt(400), random.nextInt(400)};
+        }
+        assertSameClustering(data, 1.0, 4);
+        assertSameClustering(data, 1.0, 2);
+    }
+
+    /**
+     * 沿切分轴等距排成一条线，相邻点距离恰好为 eps，整条线须经各条带缓冲区中的核心点连成一个聚类
+     */
+    @Test
+    void chainAcrossSlabs() {
+        double[][] data = new double[40_000][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new double[]{i * 0.5, 0};
+        }
+        DBSCANCluster.ClusterResult parallel = DBSCANCluster.fitParallel(data, 0.5, 3, PARALLELISM);
+        assertEquals(1, parallel.clusterCount);
+        assertSameClustering(data, 0.5, 3);
+    }
+
+    @Test
+    void parallelismGreaterThanPointCount() {
+        Random random = new Random(5);
+        double[][] data = blobs(random, 10, 2, 2, 10.0, 0.5);
+        for (int parallelism : new int[]{16, 64}) {
+            assertSameClustering(data, 1.0, 2, parallelism);
+        }
+    }
+
+    /**
+     * 网格索引只用前三维，第四维只参与距离计算；重复点、整数格点上恰好等于 eps 的距离和单点聚类都覆盖到
+     */
+    @Test
+    void gridIndexMatchesBruteForce() {
+        for (int dims : new int[]{1, 2, 3, 4}) {
+            double[][] data = blobs(new Random(dims), 3000, dims, 6, 60.0, 1.5);
+            assertArrayEquals(bruteForce(data, 1.0, 5), DBSCANCluster.fit(data, 1.0, 5).labels, dims + " 维");
+        }
+
+        Random random = new Random(17);
+        double[][] lattice = new double[3000][];
+        for (int i = 0; i < lattice.length; i++) {
+            lattice[i] = new double[]{random.nextInt(60), random.nextInt(60)};
+        }
+        assertArrayEquals(bruteForce(lattice, 1.0, 3), DBSCANCluster.fit(lattice, 1.0, 3).labels);
+        assertArrayEquals(bruteForce(lattice, 1.0, 1), DBSCANCluster.fit(lattice, 1.0, 1).labels);
+        assertArrayEquals(bruteForce(lattice, 0.0, 2), DBSCANCluster.fit(lattice, 0.0, 2).labels);
+    }
+
+    /**
+     * 引入网格索引之前的实现：邻居查询逐一比较全部点，出队时标记聚类
+     */
+    private static int[] bruteForce(double[][] data, double eps, int minPoints) {
+        int[] labels = new int[data.length];
+        boolean[] visited = new boolean[data.length];
+        int clusterId = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (visited[i]) continue;
+            visited[i] = true;
+            List<Integer> neighbors = neighbors(data, i, eps);
+            if (neighbors.size() < minPoints) {
+                labels[i] = -1;
+                continue;
+            }
+            labels[i] = ++clusterId;
+            Queue<Integer> queue = new ArrayDeque<>(neighbors);
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                if (!visited[current]) {
+                    visited[current] = true;
+                    List<Integer> currentNeighbors = neighbors(data, current, eps);
+                    if (currentNeighbors.size() >= minPoints) queue.addAll(currentNeighbors);
+                }
+                if (labels[current] <= 0) labels[current] = clusterId;
+            }
+        }
+        return labels;
+    }
+
+    private static List<Integer> neighbors(double[][] data, int p, double eps) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < data.length; i++) {
+            double sum = 0;
+            for (int d = 0; d < data[p].length; d++) {
+                double diff = data[p][d] - data[i][d];
+                sum += diff * diff;
+            }
+            if (Math.sqrt(sum) <= eps) result.add(i);
+        }
+        return result;
+    }
+
+    private static double[][] blobs(Random random, int n, int dims, int centers, double extent, double spread) {
+        double[][] center = new double[centers][dims];
+        for (double[] c : center) {
+            for (int d = 0; d < dims; d++) c[d] = random.nextDouble() * extent;
+        }
+        double[][] data = new double[n][dims];
+        for (int i = 0; i < n; i++) {
+            // 十分之一为均匀分布的噪声
+            if (i % 10 == 0) {
+                for (int d = 0; d < dims; d++) data[i][d] = random.nextDouble() * extent;
+            } else {
+                double[] c = center[random.nextInt(centers)];
+                for (int d = 0; d < dims; d++) data[i][d] = c[d] + random.nextGaussian() * spread;
+            }
+        }
+        return data;
+    }
+
+    private static void assertSameClustering(double[][] data, double eps, int minPoints) {
+        assertSameClustering(data, eps, minPoints, PARALLELISM);
+    }
+
+    private static void assertSameClustering(double[][] data, double eps, int minPoints, int parallelism) {
+        DBSCANCluster.ClusterResult expected = DBSCANCluster.fit(data, eps, minPoints);
+        DBSCANCluster.ClusterResult actual = DBSCANCluster.fitParallel(data, eps, minPoints, parallelism);
+
+        assertEquals(new HashSet<>(expected.getNoisePoints()), new HashSet<>(actual.getNoisePoints()), "噪声点不同");
+        assertEquals(expected.clusterCount, actual.clusterCount, "聚类数不同");
+        assertEquals(expected.noiseCount, actual.noiseCount, "噪声点数不同");
+
+        // 两边的聚类编号一一对应
+        Map<Integer, Integer> forward = new HashMap<>();
+        Map<Integer, Integer> backward = new HashMap<>();
+        for (int i = 0; i < data.length; i++) {
+            int e = expected.labels[i];
+            int a = actual.labels[i];
+            assertEquals(a, (int) forward.computeIfAbsent(e, k -> a), "点 " + i + " 的聚类划分不同");
+            assertEquals(e, (int) backward.computeIfAbsent(a, k -> e), "点 " + i + " 的聚类划分不同");
+        }
+        assertTrue(expected.clusterCount > 0 || data.length < 100, "测试数据没有形成聚类");
+    }
+}
@@ -0,0 +1,82 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 上传时按文件头检查点格式：可解码的 LAS/LAZ 通过，压缩的 PDRF 6–10、未知格式和非 LAS 文件被拒绝
+ */
+class FileStorageUtilTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"format0-fixed.laz", "format1-variable.laz", "format3-fixed.las",
+            "format6-14.las", "format7-14.las", "format10-14.las"})
+    void decodableFilesAreAccepted(String name) {
+        assertDoesNotThrow(() -> validate(fixture(name), name));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {6, 7, 8, 9, 10})
+    void compressedExtendedFormatsAreRejected(int format) throws Exception {
+        byte[] header = fixture("format" + format + "-14.las");
+        header[104] |= (byte) 0x80;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validate(header, "upload.laz"));
+        assertTrue(e.getMessage().contains("点格式 " + format), e.getMessage());
+        assertTrue(e.getMessage().contains("PDRF 6–10"), e.getMessage());
+    }
+
+    /**
+     * 扩展名为 .laz 但头部没有压缩标志时同样按压缩文件处理
+     */
+    @Test
+    void lazExtensionCountsAsCompressed() throws Exception {
+        byte[] header = fixture("format6-14.las");
+        assertThrows(IllegalArgumentException.class, () -> validate(header, "UPLOAD.LAZ"));
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws Exception {
+        byte[] header = fixture("format1-fixed.las");
+        header[104] = 11;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> validate(header, "a.las"));
+        assertTrue(e.getMessage().contains("不支持的点数据记录格式: 11"), e.getMessage());
+    }
+
+    @Test
+    void shortRecordIsRejected() throws Exception {
+        byte[] header = fixture("format3-fixed.las");
+        header[105] = 20;
+        header[106] = 0;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> validate(header, "a.las"));
+        assertTrue(e.getMessage().contains("小于格式 3 的标准长度"), e.getMessage());
+    }
+
+    @Test
+    void nonLasFilesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> validate("not a point cloud".getBytes(), "a.las"));
+        assertThrows(IllegalArgumentException.class, () -> validate(new byte[0], "a.laz"));
+    }
+
+    private static void validate(byte[] bytes, String name) throws IOException {
+        FileStorageUtil.validatePointFormat(new ByteArrayInputStream(bytes), name);
+    }
+
+    private static byte[] fixture(String name) throws IOException, URISyntaxException {
+        return Files.readAllBytes(Path.of(FileStorageUtilTest.class.getResource("/laz/" + name).toURI()));
+    }
+}
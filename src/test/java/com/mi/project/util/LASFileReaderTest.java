@@ -0,0 +1,127 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LAS 1.4 读取：测试资源 laz/format{6..10}-14.las 为未压缩的 LAS 1.4 文件，各 200 点，
+ * 旧的 32 位点数字段为 0，点数只写在第 247 字节的 64 位字段；format7 的每条记录带 4 个额外字节。
+ * 第 i 个点的原始坐标为 (1000 + 50i, 2000 + 30i, 100 + 7i mod 3000)，强度 257i mod 65536，
+ * 分类 (13i + 1) mod 256 位于第 16 字节，第 15 字节为分类的按位取反（低 5 位总与分类不同），
+ * 按 PDRF 0–5 的偏移读取会得到错误的分类。
+ */
+class LASFileReaderTest {
+
+    private static final int POINTS = 200;
+
+    @ParameterizedTest
+    @ValueSource(ints = {6, 7, 8, 9, 10})
+    void extendedFormatsReadClassificationFromByte16(int format) throws Exception {
+        try (LASFileReader reader = new LASFileReader(fixture(format))) {
+            LASToJsonUtil.LASHeader h = reader.getHeader();
+            assertEquals(4, h.versionMinor);
+            assertEquals(format, h.pointDataRecordFormat);
+            assertFalse(h.compressed);
+            assertEquals(reader.getPointFormat().minRecordLength + (format == 7 ? 4 : 0), h.pointDataRecordLength);
+            assertEquals(POINTS, h.numberOfPointRecords);
+            assertEquals(POINTS, reader.getPointCount());
+
+            int[] next = {0};
+            reader.forEachPoint((x, y, z, intensity, classification) -> {
+                int i = next[0]++;
+                assertEquals(500_000 + (1000 + 50 * i) * 0.01, x, 1e-6);
+                assertEquals(3_000_000 + (2000 + 30 * i) * 0.01, y, 1e-6);
+                assertEquals((100 + (7 * i) % 3000) * 0.001, z, 1e-9);
+                assertEquals((257 * i) & 0xFFFF, intensity);
+                assertEquals(classification(i), classification, "点 " + i);
+            });
+            assertEquals(POINTS, next[0]);
+
+            // 分类直方图、按分类过滤和列式解码使用同一偏移
+            long[] expectedCounts = new long[256];
+            long expectedSelected = 0;
+            for (int i = 0; i < POINTS; i++) {
+                expectedCounts[classification(i)]++;
+                if (classification(i) == 40 || classification(i) == 200) expectedSelected++;
+            }
+            assertArrayEquals(expectedCounts, reader.countClassifications());
+            long[] matched = {0};
+            reader.forEachPoint(ClassificationMask.of(new int[]{40, 200}), (x, y, z, intensity, classification) -> {
+                assertTrue(classification == 40 || classification == 200, "分类 " + classification);
+                matched[0]++;
+            });
+            assertEquals(expectedSelected, matched[0]);
+
+            PointColumns columns = LASParallelDecoder.decode(reader, false).points;
+            for (int i = 0; i < POINTS; i++) {
+                assertEquals(classification(i), columns.getClassification(i));
+            }
+        }
+    }
+
+    /**
+     * 64 位点数超过 32 位范围时按 64 位读取；文件实际只有 200 点，可读点数截断为 200
+     */
+    @Test
+    void pointCountIsReadFrom64BitField(@TempDir Path dir) throws Exception {
+        ByteBuffer bytes = fixtureBytes(6);
+        bytes.putLong(247, 5_000_000_000L);
+        Path file = write(dir, "large.las", bytes);
+
+        try (LASFileReader reader = new LASFileReader(file)) {
+            assertEquals(5_000_000_000L, reader.getHeader().numberOfPointRecords);
+            assertEquals(POINTS, reader.getPointCount());
+        }
+    }
+
+    /**
+     * 64 位字段为 0 时保留旧字段的点数；1.4 之前的版本没有 64 位字段，不读取第 247 字节
+     */
+    @Test
+    void legacyPointCountIsKept(@TempDir Path dir) throws Exception {
+        ByteBuffer legacy = fixtureBytes(6);
+        legacy.putLong(247, 0).putInt(107, 150);
+        try (LASFileReader reader = new LASFileReader(write(dir, "legacy.las", legacy))) {
+            assertEquals(150, reader.getHeader().numberOfPointRecords);
+            assertEquals(150, reader.getPointCount());
+        }
+
+        ByteBuffer v13 = fixtureBytes(6);
+        v13.put(25, (byte) 3).putInt(107, 120);
+        try (LASFileReader reader = new LASFileReader(write(dir, "v13.las", v13))) {
+            assertEquals(120, reader.getHeader().numberOfPointRecords);
+        }
+    }
+
+    private static int classification(int i) {
+        return (13 * i + 1) & 0xFF;
+    }
+
+    private static Path fixture(int format) throws URISyntaxException {
+        return Path.of(LASFileReaderTest.class.getResource("/laz/format" + format + "-14.las").toURI());
+    }
+
+    private static ByteBuffer fixtureBytes(int format) throws IOException, URISyntaxException {
+        return ByteBuffer.wrap(Files.readAllBytes(fixture(format))).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static Path write(Path dir, String name, ByteBuffer bytes) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, bytes.array());
+        return file;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 写出的 LAS 1.2 格式 0 文件由 {@link LASFileReader} 读回：头部字段、包围盒和逐点的量化坐标、强度、分类一致
+ */
+class LASPointWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pointsRoundTripThroughReader() throws IOException {
+        Random random = new Random(5);
+        // 大坐标和非零偏移，点数超过一次批量写出（避免正好整批）
+        PointColumns points = new PointColumns(70_001, 0.01, 0.001, 0.005, 500_000, 3_000_000, 100, false);
+        for (int i = 0; i < 70_001; i++) {
+            points.add(500_000 + random.nextDouble() * 1000, 3_000_000 + random.nextDouble() * 1000,
+                    100 + random.nextDouble() * 80, random.nextInt(65536), random.nextInt(32));
+        }
+        Path file = dir.resolve("points.las");
+        LASPointWriter.write(file, points);
+
+        assertEquals(227 + 20L * points.size(), Files.size(file));
+        try (LASFileReader reader = new LASFileReader(file)) {
+            LASToJsonUtil.LASHeader h = reader.getHeader();
+            assertEquals("LASF", h.fileSignature);
+            assertEquals(1, h.versionMajor);
+            assertEquals(2, h.versionMinor);
+            assertEquals(227, h.headerSize);
+            assertEquals(227, h.offsetToPointData);
+            assertEquals(0, h.numberOfVariableLengthRecords);
+            assertEquals(0, h.pointDataRecordFormat);
+            assertEquals(20, h.pointDataRecordLength);
+            assertFalse(reader.isCompressed());
+            assertEquals(points.size(), h.numberOfPointRecords);
+            assertEquals(points.size(), reader.getPointCount());
+            assertEquals(0.01, h.xScaleFactor);
+            assertEquals(0.001, h.yScaleFactor);
+            assertEquals(0.005, h.zScaleFactor);
+            assertEquals(500_000, h.xOffset);
+            assertEquals(3_000_000, h.yOffset);
+            assertEquals(100, h.zOffset);
+
+            LASToJsonUtil.BoundingBox bounds = new LASToJsonUtil.BoundingBox(points);
+            assertEquals(bounds.minX, h.minX);
+            assertEquals(bounds.maxX, h.maxX);
+            assertEquals(bounds.minY, h.minY);
+            assertEquals(bounds.maxY, h.maxY);
+            assertEquals(bounds.minZ, h.minZ);
+            assertEquals(bounds.maxZ, h.maxZ);
+
+            PointColumns actual = PointColumns.like(points, points.size());
+            reader.forEachPoint(actual::add);
+            assertEquals(points.size(), actual.size());
+            for (int i = 0; i < points.size(); i++) {
+                assertEquals(points.getRawX(i), actual.getRawX(i));
+                assertEquals(points.getRawY(i), actual.getRawY(i));
+                assertEquals(points.getRawZ(i), actual.getRawZ(i));
+                assertEquals(points.getIntensity(i), actual.getIntensity(i));
+                assertEquals(points.getClassification(i), actual.getClassification(i));
+            }
+        }
+    }
+
+    @Test
+    void emptyPointsWriteHeaderOnly() throws IOException {
+        Path file = dir.resolve("empty.las");
+        LASPointWriter.write(file, new PointColumns(0, 0.01, 0.01, 0.01, 0, 0, 0, false));
+
+        assertEquals(227, Files.size(file));
+        try (LASFileReader reader = new LASFileReader(file)) {
+            assertEquals(0, reader.getPointCount());
+            reader.forEachPoint((x, y, z, intensity, classification) -> {
+                throw new AssertionError("不应有点");
+            });
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.mi.project.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式分块：在 30×20 米的合成点云上按 10 米瓦片、1 米缓冲带分块，
+ * 每个瓦片的点数、核心点数、头部范围和记录内容与逐点计算的结果一致。
+ * 每个瓦片一万多个点，超过写出缓冲区容量（256KB / 20 字节），覆盖缓冲区写出；
+ * 限制同时打开 2 个瓦片时，挂起和重新打开后的输出与不限制时逐字节相同。
+ */
+class LASTilerTest {
+
+    private static final double TILE = 10.0;
+    private static final double BUFFER = 1.0;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pointsAreRoutedToTilesWithPatchedHeaders() throws IOException {
+        PointColumns points = syntheticPoints(new Random(1), 80_000);
+        Path input = dir.resolve("input.las");
+        LASPointWriter.write(input, points);
+
+        List<LASTiler.Tile> sealed = new ArrayList<>();
+        LASTiler.Result result = LASTiler.tile(input, dir.resolve("tiles"), "t", options(128), sealed::add);
+
+        assertEquals(points.size(), result.pointCount);
+        assertEquals(6, result.tiles.size());
+        assertEquals(result.tiles, sealed);
+        JsonNode params = PointJsonWriter.sharedMapper().readTree(result.paramsFile.toFile());
+        assertEquals(points.size(), params.get("point_count").asLong());
+
+        for (LASTiler.Tile tile : result.tiles) {
+            long i = Math.round(tile.minX / TILE), j = Math.round(tile.minY / TILE);
+            assertEquals("t_" + Math.round(tile.minX) + "_" + Math.round(tile.minY) + ".las",
+                    tile.path.getFileName().toString());
+            PointColumns expected = PointColumns.like(points, 0);
+            long core = 0;
+            for (int p = 0; p < points.size(); p++) {
+                double x = points.getX(p), y = points.getY(p);
+                boolean inX = Math.floor((x - BUFFER) / TILE) <= i && i <= Math.floor((x + BUFFER) / TILE);
+                boolean inY = Math.floor((y - BUFFER) / TILE) <= j && j <= Math.floor((y + BUFFER) / TILE);
+                if (inX && inY) {
+                    expected.add(points, p);
+                    if (Math.floor(x / TILE) == i && Math.floor(y / TILE) == j) core++;
+                }
+            }
+            assertTrue(expected.size() > 13_108, "瓦片点数 " + expected.size());
+            assertEquals(expected.size(), tile.pointCount);
+            assertEquals(core, tile.corePointCount);
+
+            try (LASFileReader reader = new LASFileReader(tile.path)) {
+                LASToJsonUtil.LASHeader h = reader.getHeader();
+                assertEquals(expected.size(), h.numberOfPointRecords);
+                assertEquals(expected.size(), reader.getPointCount());
+                LASToJsonUtil.BoundingBox bounds = new LASToJsonUtil.BoundingBox(expected);
+                assertEquals(bounds.minX, h.minX, 1e-9);
+                assertEquals(bounds.maxX, h.maxX, 1e-9);
+                assertEquals(bounds.minY, h.minY, 1e-9);
+                assertEquals(bounds.maxY, h.maxY, 1e-9);
+                assertEquals(bounds.minZ, h.minZ, 1e-9);
+                assertEquals(bounds.maxZ, h.maxZ, 1e-9);
+
+                // 记录按输入顺序原样复制
+                PointColumns actual = PointColumns.like(points, expected.size());
+                reader.forEachPoint(actual::add);
+                for (int p = 0; p < expected.size(); p++) {
+                    assertEquals(expected.getRawX(p), actual.getRawX(p));
+                    assertEquals(expected.getRawY(p), actual.getRawY(p));
+                    assertEquals(expected.getRawZ(p), actual.getRawZ(p));
+                    assertEquals(expected.getIntensity(p), actual.getIntensity(p));
+                    assertEquals(expected.getClassification(p), actual.getClassification(p));
+                }
+            }
+        }
+    }
+
+    @Test
+    void boundedOpenTilesProduceIdenticalOutput() throws IOException {
+        Path input = dir.resolve("input.las");
+        LASPointWriter.write(input, syntheticPoints(new Random(2), 60_000));
+
+        LASTiler.Result unbounded = LASTiler.tile(input, dir.resolve("all"), "t", options(128), tile -> { });
+        LASTiler.Result bounded = LASTiler.tile(input, dir.resolve("two"), "t", options(2), tile -> { });
+
+        assertEquals(unbounded.tiles.size(), bounded.tiles.size());
+        Map<Path, byte[]> expected = new HashMap<>();
+        for (LASTiler.Tile tile : unbounded.tiles) {
+            expected.put(tile.path.getFileName(), Files.readAllBytes(tile.path));
+        }
+        for (LASTiler.Tile tile : bounded.tiles) {
+            assertArrayEquals(expected.get(tile.path.getFileName()), Files.readAllBytes(tile.path),
+                    tile.path.getFileName().toString());
+        }
+    }
+
+    /**
+     * 30×20 米范围内的点，每次在随机位置附近连续生成 20 个点，使瓦片的写入交替进行
+     */
+    private static PointColumns syntheticPoints(Random random, int n) {
+        PointColumns points = new PointColumns(n, 0.01, 0.01, 0.01, 0, 0, 0, false);
+        while (points.size() < n) {
+            double cx = random.nextDouble() * 30, cy = random.nextDouble() * 20;
+            for (int k = 0; k < 20 && points.size() < n; k++) {
+                double x = Math.min(29.99, Math.max(0, cx + random.nextGaussian()));
+                double y = Math.min(19.99, Math.max(0, cy + random.nextGaussian()));
+                points.add(x, y, 5 + random.nextDouble() * 10, random.nextInt(65536), random.nextInt(20));
+            }
+        }
+        return points;
+    }
+
+    private static LASTiler.Options options(int maxOpenTiles) {
+        LASTiler.Options options = LASTiler.Options.getDefault();
+        options.setTileSize(TILE);
+        options.setBufferSize(BUFFER);
+        options.setMaxOpenTiles(maxOpenTiles);
+        return options;
+    }
+}
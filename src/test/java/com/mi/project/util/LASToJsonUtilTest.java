@@ -0,0 +1,170 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 二进制帧输出：整文件单遍输出、分页输出与直接解码的点一致；
+ * LAZ 固定块文件每 200 点一个窗口，稀疏分类的分页从中间窗口开始解码
+ */
+class LASToJsonUtilTest {
+
+    private static final PointBinaryWriter.PositionEncoding ENCODING = PointBinaryWriter.PositionEncoding.INT32;
+
+    private final LASToJsonUtil util = new LASToJsonUtil();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"format1-fixed.las", "format1-fixed.laz", "format3-variable.laz"})
+    void binaryStreamMatchesDecodedPoints(String name) throws Exception {
+        Path file = fixture(name);
+        for (int[] classes : new int[][]{null, {2}, {14, 18, 19}}) {
+            ParsedFrame expected = expectedFrame(file, classes);
+            ParsedFrame actual = stream(file, classes);
+            actual.assertSamePoints(expected);
+            assertArrayEquals(expected.frameHeader, actual.frameHeader);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"format1-fixed.las", "format1-fixed.laz", "format0-pointwise.laz"})
+    void pagesConcatenateToStream(String name) throws Exception {
+        Path file = fixture(name);
+        for (int[] classes : new int[][]{null, {14, 18, 19}}) {
+            ParsedFrame whole = stream(file, classes);
+            List<ParsedFrame> pages = new ArrayList<>();
+            for (int page = 0; ; page++) {
+                ParsedFrame frame = page(file, page, 7, classes);
+                // 各页与整文件共用中心点、缩放因子和包围盒
+                assertArrayEquals(whole.frameHeader, frame.frameHeader);
+                if (frame.count == 0) break;
+                pages.add(frame);
+            }
+            ParsedFrame.concat(pages).assertSamePoints(whole);
+        }
+    }
+
+    @Test
+    void pageBeyondLastPointIsEmpty() throws Exception {
+        assertEquals(0, page(fixture("format1-fixed.laz"), 1000, 50, new int[]{14}).count);
+    }
+
+    @Test
+    void pageSizeAboveMaximumIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> util.lasBinaryPageToOutput(
+                fixture("format1-fixed.las").toString(), 0, LASToJsonUtil.MAX_PAGE_SIZE + 1, ENCODING, null,
+                new ByteArrayOutputStream()));
+    }
+
+    private ParsedFrame stream(Path file, int[] classes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = util.lasBinaryStreamToOutput(file.toString(), ENCODING, classes, out);
+        ParsedFrame frame = ParsedFrame.parse(out.toByteArray());
+        assertEquals(count, frame.count);
+        return frame;
+    }
+
+    private ParsedFrame page(Path file, int page, int pageSize, int[] classes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int count = util.lasBinaryPageToOutput(file.toString(), page, pageSize, ENCODING, classes, out);
+        ParsedFrame frame = ParsedFrame.parse(out.toByteArray());
+        assertEquals(count, frame.count);
+        return frame;
+    }
+
+    /**
+     * 直接解码全部匹配的点，无过滤时用头部范围，否则用匹配点的实际范围
+     */
+    private static ParsedFrame expectedFrame(Path file, int[] classes) throws IOException {
+        try (LASFileReader reader = new LASFileReader(file)) {
+            LASToJsonUtil.LASHeader h = reader.getHeader();
+            PointColumns points = new PointColumns(16, h.xScaleFactor, h.yScaleFactor, h.zScaleFactor,
+                    h.xOffset, h.yOffset, h.zOffset, false);
+            reader.forEachPoint(ClassificationMask.of(classes), points::add);
+            LASToJsonUtil.BoundingBox bounds = classes == null
+                    ? new LASToJsonUtil.BoundingBox(h.minX, h.minY, h.minZ, h.maxX, h.maxY, h.maxZ)
+                    : new LASToJsonUtil.BoundingBox(points);
+            assertTrue(points.size() > 0);
+            return ParsedFrame.parse(PointBinaryWriter.encode(points, ENCODING, bounds));
+        }
+    }
+
+    private static Path fixture(String name) throws URISyntaxException {
+        return Path.of(LASToJsonUtilTest.class.getResource("/laz/" + name).toURI());
+    }
+
+    /**
+     * INT32 编码、全部属性的帧：帧头中心点/缩放/包围盒，以及按列解出的点
+     */
+    private static final class ParsedFrame {
+        final byte[] frameHeader;
+        final int count;
+        final int[] positions;
+        final int[] intensities;
+        final int[] classifications;
+
+        private ParsedFrame(byte[] frameHeader, int count, int[] positions, int[] intensities, int[] classifications) {
+            this.frameHeader = frameHeader;
+            this.count = count;
+            this.positions = positions;
+            this.intensities = intensities;
+            this.classifications = classifications;
+        }
+
+        static ParsedFrame parse(byte[] bytes) {
+            ByteBuffer b = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(ENCODING.getCode(), b.get(5));
+            int count = b.getInt(12);
+            assertEquals(PointBinaryWriter.HEADER_BYTES + count * 15L, bytes.length);
+            byte[] frameHeader = new byte[PointBinaryWriter.HEADER_BYTES - 16];
+            b.get(16, frameHeader);
+            b.position(PointBinaryWriter.HEADER_BYTES);
+            int[] positions = new int[count * 3];
+            for (int i = 0; i < positions.length; i++) positions[i] = b.getInt();
+            int[] intensities = new int[count];
+            for (int i = 0; i < count; i++) intensities[i] = Short.toUnsignedInt(b.getShort());
+            int[] classifications = new int[count];
+            for (int i = 0; i < count; i++) classifications[i] = Byte.toUnsignedInt(b.get());
+            return new ParsedFrame(frameHeader, count, positions, intensities, classifications);
+        }
+
+        static ParsedFrame concat(List<ParsedFrame> frames) {
+            int count = frames.stream().mapToInt(f -> f.count).sum();
+            int[] positions = new int[count * 3], intensities = new int[count], classifications = new int[count];
+            int n = 0;
+            for (ParsedFrame f : frames) {
+                System.arraycopy(f.positions, 0, positions, n * 3, f.count * 3);
+                System.arraycopy(f.intensities, 0, intensities, n, f.count);
+                System.arraycopy(f.classifications, 0, classifications, n, f.count);
+                n += f.count;
+            }
+            return new ParsedFrame(frames.get(0).frameHeader, count, positions, intensities, classifications);
+        }
+
+        /**
+         * 坐标按量化单位比较，允许浮点重建带来的 1 个单位舍入差
+         */
+        void assertSamePoints(ParsedFrame expected) {
+            assertEquals(expected.count, count);
+            for (int i = 0; i < positions.length; i++) {
+                assertTrue(Math.abs(expected.positions[i] - positions[i]) <= 1, "坐标 " + i);
+            }
+            assertArrayEquals(expected.intensities, intensities);
+            assertArrayEquals(expected.classifications, classifications);
+        }
+    }
+}
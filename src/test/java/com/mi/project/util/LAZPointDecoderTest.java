@@ -0,0 +1,113 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LAZ 解码：测试资源 laz/ 下每组 {name}.laz 与 {name}.las 记录相同（500 点，LASzip 逐点压缩 v2），
+ * 解码出的记录应与未压缩文件逐字节相同。
+ * fixed 为固定块大小（200 / 150 点），variable 为可变块大小并带额外字节，pointwise 为不分块（compressor 1）。
+ */
+class LAZPointDecoderTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"format0-fixed", "format0-pointwise", "format1-fixed", "format1-variable",
+            "format3-fixed", "format3-variable"})
+    void decodedRecordsEqualUncompressed(String name) throws Exception {
+        try (LASFileReader las = new LASFileReader(fixture(name + ".las"));
+             LASFileReader laz = new LASFileReader(fixture(name + ".laz"))) {
+            assertTrue(laz.isCompressed());
+            assertEquals(las.getHeader().pointDataRecordFormat, laz.getHeader().pointDataRecordFormat);
+            assertEquals(las.getRecordLength(), laz.getRecordLength());
+            assertEquals(las.getPointCount(), laz.getPointCount());
+
+            int count = (int) las.getPointCount();
+            assertEquals(las.mapRecords(0, count), laz.mapRecords(0, count));
+            // 跨块边界、从块中间开始的区间
+            assertEquals(las.mapRecords(170, 250), laz.mapRecords(170, 250));
+            assertEquals(las.mapRecords(count - 1, 1), laz.mapRecords(count - 1, 1));
+        }
+    }
+
+    /**
+     * PDRF 6–10 使用 LASzip 分层压缩（compressor 3），尚未实现，应明确拒绝而不是输出错误的点
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {6, 7, 8, 9, 10})
+    void layeredCompressionIsRejected(int format, @TempDir Path dir) throws IOException {
+        Path file = dir.resolve("layered-" + format + ".laz");
+        Files.write(file, layeredLazHeader(format));
+
+        IOException e = assertThrows(IOException.class, () -> new LASFileReader(file).close());
+        assertTrue(e.getMessage().contains("compressor=3"), e.getMessage());
+    }
+
+    @Test
+    void missingLaszipVlrIsRejected(@TempDir Path dir) throws Exception {
+        byte[] bytes = Files.readAllBytes(fixture("format0-fixed.laz"));
+        // 把 VLR 的 user id 改掉，LASzip 记录就找不到了
+        bytes[227 + 2] = 'X';
+        Path file = dir.resolve("no-vlr.laz");
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> new LASFileReader(file).close());
+        assertTrue(e.getMessage().contains("VLR"), e.getMessage());
+    }
+
+    private static Path fixture(String name) throws URISyntaxException {
+        return Path.of(LAZPointDecoderTest.class.getResource("/laz/" + name).toURI());
+    }
+
+    /**
+     * LAS 1.4 头部 + LASzip VLR（compressor 3，POINT14 等 v3 数据项）+ 空的块表指针，共 10 个点
+     */
+    private static byte[] layeredLazHeader(int format) {
+        int[][] items = switch (format) {
+            case 6 -> new int[][]{{22, 30}};
+            case 7 -> new int[][]{{22, 30}, {23, 6}};
+            case 8 -> new int[][]{{22, 30}, {24, 8}};
+            case 9 -> new int[][]{{22, 30}, {25, 29}};
+            default -> new int[][]{{22, 30}, {24, 8}, {25, 29}};
+        };
+        int recordLength = 0;
+        for (int[] item : items) recordLength += item[1];
+        int headerSize = 375;
+        int payload = 34 + items.length * 6;
+        int offsetToPoints = headerSize + 54 + payload;
+
+        ByteBuffer b = ByteBuffer.allocate(offsetToPoints + 8).order(ByteOrder.LITTLE_ENDIAN);
+        b.put("LASF".getBytes(StandardCharsets.US_ASCII));
+        b.put(24, (byte) 1).put(25, (byte) 4);
+        b.putShort(94, (short) headerSize).putInt(96, offsetToPoints).putInt(100, 1);
+        b.put(104, (byte) (format | 0x80)).putShort(105, (short) recordLength);
+        b.putDouble(131, 0.01).putDouble(139, 0.01).putDouble(147, 0.01);
+        b.putLong(247, 10);
+
+        b.position(headerSize);
+        b.putShort((short) 0).put("laszip encoded".getBytes(StandardCharsets.US_ASCII));
+        b.position(headerSize + 18);
+        b.putShort((short) 22204).putShort((short) payload);
+        b.position(headerSize + 54);
+        b.putShort((short) 3).putShort((short) 0).put((byte) 3).put((byte) 4).putShort((short) 0)
+                .putInt(0).putInt(50000).putLong(-1).putLong(-1).putShort((short) items.length);
+        for (int[] item : items) {
+            b.putShort((short) item[0]).putShort((short) item[1]).putShort((short) 3);
+        }
+        b.putLong(-1);
+        return b.array();
+    }
+}
@@ -0,0 +1,78 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * long 键哈希表：编号按插入顺序递增，多次扩容后编号不变；同一初始槽位的键沿探测链存取，
+ * 查询不存在的键在链尾的空槽处结束
+ */
+class LongSlotTableTest {
+
+    @Test
+    void slotsSurviveGrowth() {
+        LongSlotTable table = new LongSlotTable(1);
+        Random random = new Random(1);
+        long[] keys = new long[100_000];
+        for (int i = 0; i < keys.length; i++) {
+            // 相邻的打包坐标和大范围随机键混合
+            keys[i] = i % 2 == 0 ? (long) i << 21 | 7 : random.nextLong() & Long.MAX_VALUE;
+            assertEquals(~i, table.insert(keys[i]), "第 " + i + " 个键");
+        }
+
+        assertEquals(keys.length, table.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i, table.insert(keys[i]));
+            assertEquals(i, table.get(keys[i]));
+        }
+        assertEquals(keys.length, table.size());
+        assertEquals(-1, table.get(1L << 62));
+    }
+
+    @Test
+    void collidingKeysShareProbeChain() {
+        // 初始容量 32，插入 16 个键后才扩容
+        LongSlotTable table = new LongSlotTable(16);
+        long[] colliding = new long[8];
+        int found = 0;
+        for (long key = 0; found < colliding.length; key++) {
+            if ((LongSlotTable.hash(key) & 31) == 5) colliding[found++] = key;
+        }
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(~i, table.insert(colliding[i]));
+        }
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, table.get(colliding[i]));
+        }
+        assertEquals(-1, table.get(colliding[6]));
+        assertEquals(~6, table.insert(colliding[6]));
+
+        // 扩容后冲突键分散到新位置，编号不变
+        for (long key = 1L << 40; table.size() < 40; key++) {
+            table.insert(key);
+        }
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i, table.get(colliding[i]));
+        }
+        assertEquals(-1, table.get(colliding[7]));
+    }
+
+    @Test
+    void clearRestartsNumbering() {
+        LongSlotTable table = new LongSlotTable(4);
+        for (long key = 0; key < 100; key++) {
+            table.insert(key);
+        }
+        table.clear();
+
+        assertEquals(0, table.size());
+        assertEquals(-1, table.get(0));
+        assertEquals(~0, table.insert(99));
+        assertEquals(~1, table.insert(0));
+        assertEquals(0, table.get(99));
+    }
+}
@@ -0,0 +1,57 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 列式缓冲区：容量上限校验、扩容后数据保持不变、分类过滤与 ClassificationMask 语义一致
+ */
+class PointColumnsTest {
+
+    @Test
+    void initialCapacityAboveLimitIsRejected() {
+        // 堆外 int 列按 capacity * 4 字节分配，超过上限会溢出 int
+        for (boolean offHeap : new boolean[]{false, true}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new PointColumns(Integer.MAX_VALUE, 0.01, 0.01, 0.01, 0, 0, 0, offHeap));
+            assertThrows(IllegalArgumentException.class,
+                    () -> new PointColumns(-1, 0.01, 0.01, 0.01, 0, 0, 0, offHeap));
+        }
+    }
+
+    @Test
+    void growKeepsPointsOnAndOffHeap() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            PointColumns points = new PointColumns(0, 0.01, 0.01, 0.01, 100, 200, 300, offHeap);
+            for (int i = 0; i < 1000; i++) {
+                points.add(100 + i * 0.01, 200 - i * 0.01, 300 + i, i, i % 7);
+            }
+            assertEquals(1000, points.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(100 + i * 0.01, points.getX(i), 1e-9);
+                assertEquals(200 - i * 0.01, points.getY(i), 1e-9);
+                assertEquals(300 + i, points.getZ(i), 1e-9);
+                assertEquals(i, points.getIntensity(i));
+                assertEquals(i % 7, points.getClassification(i));
+            }
+        }
+    }
+
+    @Test
+    void nullOrEmptyClassesKeepAllPoints() {
+        PointColumns points = new PointColumns(4, 0.01, 0.01, 0.01, 0, 0, 0, false);
+        for (int i = 0; i < 10; i++) {
+            points.add(i, i, i, i, i % 3);
+        }
+        assertEquals(10, points.filterByClassification(null).size());
+        assertEquals(10, points.filterByClassification(new int[0]).size());
+
+        PointColumns twos = points.filterByClassification(new int[]{2});
+        assertEquals(3, twos.size());
+        for (int i = 0; i < twos.size(); i++) {
+            assertEquals(2, twos.getClassification(i));
+        }
+    }
+}
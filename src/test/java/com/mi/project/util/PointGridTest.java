@@ -0,0 +1,115 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 网格索引的最近邻和半径查询与暴力计算一致：成团的点、远处的孤立点、重复点，以及各种网格边长
+ */
+class PointGridTest {
+
+    @Test
+    void nearestMatchesBruteForce() {
+        double[][] points = syntheticPoints(new Random(3), 1500);
+        double[] xs = points[0], ys = points[1], zs = points[2];
+        for (double cellSize : new double[]{0.05, 0.5, 2.0, 50.0}) {
+            PointGrid grid = new PointGrid(xs, ys, zs, cellSize);
+            for (int i = 0; i < xs.length; i++) {
+                double[] sorted = bruteForceDistances(xs, ys, zs, i);
+                assertEquals(sorted[0], grid.nearestDistance(i), 1e-12, "cellSize=" + cellSize + " i=" + i);
+                for (int k : new int[]{1, 2, 5, 16}) {
+                    assertEquals(sorted[k - 1], grid.kthNearestDistance(i, k), 1e-12);
+                    double mean = 0;
+                    for (int j = 0; j < k; j++) mean += sorted[j];
+                    assertEquals(mean / k, grid.meanNearestDistance(i, k), 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    void withinMatchesBruteForce() {
+        double[][] points = syntheticPoints(new Random(4), 1500);
+        double[] xs = points[0], ys = points[1], zs = points[2];
+        PointGrid.Neighbors neighbors = new PointGrid.Neighbors();
+        for (double cellSize : new double[]{0.3, 1.0}) {
+            PointGrid grid = new PointGrid(xs, ys, zs, cellSize);
+            for (double radius : new double[]{0, 0.3, 1.0, 2.5}) {
+                for (int i = 0; i < xs.length; i += 7) {
+                    grid.within(xs[i], ys[i], zs[i], radius, neighbors);
+                    int[] actual = Arrays.copyOf(neighbors.indices, neighbors.count);
+                    Arrays.sort(actual);
+                    assertArrayEquals(bruteForceWithin(xs, ys, zs, i, radius), actual,
+                            "cellSize=" + cellSize + " radius=" + radius + " i=" + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void tooFewPointsGiveNaN() {
+        PointGrid single = new PointGrid(new double[]{1}, new double[]{2}, new double[]{3}, 1.0);
+        assertTrue(Double.isNaN(single.nearestDistance(0)));
+
+        PointGrid three = new PointGrid(new double[]{0, 1, 3}, new double[]{0, 0, 0}, new double[]{0, 0, 0}, 1.0);
+        assertEquals(2.0, three.kthNearestDistance(1, 2));
+        assertTrue(Double.isNaN(three.kthNearestDistance(1, 3)));
+        assertTrue(Double.isNaN(three.meanNearestDistance(1, 0)));
+    }
+
+    /**
+     * 5 个半径约 1 米的点团，加上 1% 分布在 1 公里范围内的孤立点和 1% 的重复点
+     */
+    private static double[][] syntheticPoints(Random random, int n) {
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        double[][] centers = new double[5][];
+        for (int c = 0; c < centers.length; c++) {
+            centers[c] = new double[]{random.nextDouble() * 20, random.nextDouble() * 20, random.nextDouble() * 5};
+        }
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && i % 100 == 0) {
+                int j = random.nextInt(i);
+                xs[i] = xs[j];
+                ys[i] = ys[j];
+                zs[i] = zs[j];
+            } else if (i % 100 == 1) {
+                xs[i] = random.nextDouble() * 1000;
+                ys[i] = random.nextDouble() * 1000;
+                zs[i] = random.nextDouble() * 100;
+            } else {
+                double[] center = centers[random.nextInt(centers.length)];
+                xs[i] = center[0] + random.nextGaussian();
+                ys[i] = center[1] + random.nextGaussian();
+                zs[i] = center[2] + random.nextGaussian() * 0.3;
+            }
+        }
+        return new double[][]{xs, ys, zs};
+    }
+
+    private static double[] bruteForceDistances(double[] xs, double[] ys, double[] zs, int index) {
+        double[] d = new double[xs.length - 1];
+        int n = 0;
+        for (int j = 0; j < xs.length; j++) {
+            if (j != index) d[n++] = distance(xs, ys, zs, index, j);
+        }
+        Arrays.sort(d);
+        return d;
+    }
+
+    private static int[] bruteForceWithin(double[] xs, double[] ys, double[] zs, int index, double radius) {
+        return IntStream.range(0, xs.length)
+                .filter(j -> distance(xs, ys, zs, index, j) <= radius).toArray();
+    }
+
+    private static double distance(double[] xs, double[] ys, double[] zs, int i, int j) {
+        double dx = xs[i] - xs[j], dy = ys[i] - ys[j], dz = zs[i] - zs[j];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
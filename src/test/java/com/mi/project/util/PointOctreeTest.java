@@ -0,0 +1,89 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 八叉树构建：每个点恰好写入一个节点；在已取消的令牌下构建时抛出 CancellationException，不留下目录
+ */
+class PointOctreeTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyPointIsWrittenToOneNode() throws IOException {
+        Path las = input(20_000);
+        Path octree = PointOctree.defaultDirectory(las);
+
+        PointOctree.Hierarchy hierarchy = PointOctree.build(las, octree, 1000, ForkJoinPool.commonPool());
+
+        assertTrue(PointOctree.exists(octree));
+        assertEquals(20_000, hierarchy.getPointCount());
+        assertTrue(hierarchy.getNodeCount() > 1);
+        long total = 0;
+        int visited = 0;
+        Deque<String> pending = new ArrayDeque<>(List.of("r"));
+        while (!pending.isEmpty()) {
+            PointOctree.Node node = hierarchy.getNode(pending.pop());
+            assertTrue(Files.isRegularFile(PointOctree.nodePath(octree, node.getKey())));
+            total += node.getPointCount();
+            visited++;
+            for (int c = 0; c < 8; c++) {
+                if ((node.getChildMask() & (1 << c)) != 0) pending.push(node.getKey() + c);
+            }
+        }
+        assertEquals(20_000, total);
+        assertEquals(hierarchy.getNodeCount(), visited);
+        assertEquals(hierarchy.getNodeCount(), PointOctree.load(octree).getNodeCount());
+    }
+
+    @Test
+    void cancelledBuildLeavesNoDirectory() throws IOException {
+        Path las = input(20_000);
+        Path octree = PointOctree.defaultDirectory(las);
+        CancellationToken token = CancellationToken.create();
+        token.cancel("用户取消");
+
+        CancellationToken.Scope scope = token.attach();
+        try {
+            assertThrows(CancellationException.class,
+                    () -> PointOctree.build(las, octree, 1000, ForkJoinPool.commonPool()));
+        } finally {
+            scope.close();
+        }
+
+        assertFalse(Files.exists(octree));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(las), files.toList());
+        }
+    }
+
+    private Path input(int n) throws IOException {
+        Random random = new Random(9);
+        PointColumns points = new PointColumns(n, 0.01, 0.01, 0.01, 0, 0, 0, false);
+        for (int i = 0; i < n; i++) {
+            points.add(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 30,
+                    random.nextInt(65536), random.nextInt(20));
+        }
+        Path las = dir.resolve("input.las");
+        LASPointWriter.write(las, points);
+        return las;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 候选点提取：地面上方三根平行导线的点成为候选点，地面点、竖直的杆塔和空中零散点不是候选点。
+ * 合成场景用分类号标记每个点的来源（2 地面、5 杆塔、7 零散点、14–16 导线），候选点保留分类号。
+ */
+class PowerLineCandidateExtractorTest {
+
+    static final int GROUND = 2, POLE = 5, NOISE = 7, FIRST_WIRE = 14;
+    static final double[] WIRE_Y = {22, 30, 38};
+
+    @Test
+    void wiresAreCandidatesAndOtherPointsAreNot() {
+        PointColumns scene = scene(new Random(11));
+
+        List<PowerLineCandidateExtractor.Region> regions = PowerLineCandidateExtractor.extract(scene,
+                PowerLineCandidateExtractor.Options.getDefault(), ForkJoinPool.commonPool());
+
+        assertEquals(1, regions.size());
+        PowerLineCandidateExtractor.Region region = regions.get(0);
+        assertEquals(scene.size(), region.pointCount);
+        // 地面起伏不到 1 米，归一化高程直方图在第 1 个区间骤降，阈值取下限 8 米
+        assertEquals(8.0, region.heightThreshold);
+        assertTrue(region.averageSpacing > 0.1 && region.averageSpacing < 0.5, "平均间距 " + region.averageSpacing);
+
+        int[] counts = countByClass(scene);
+        int[] candidates = countByClass(region.candidates);
+        assertEquals(0, candidates[GROUND]);
+        assertEquals(0, candidates[POLE]);
+        assertEquals(0, candidates[NOISE]);
+        for (int w = 0; w < WIRE_Y.length; w++) {
+            int c = FIRST_WIRE + w;
+            assertTrue(candidates[c] >= counts[c] * 0.95, "导线 " + w + ": " + candidates[c] + " / " + counts[c]);
+        }
+    }
+
+    @Test
+    void pointsBelowMinZAreIgnored() {
+        PointColumns scene = scene(new Random(12));
+        PowerLineCandidateExtractor.Options options = PowerLineCandidateExtractor.Options.getDefault();
+        options.setMinZ(100);
+
+        assertTrue(PowerLineCandidateExtractor.extract(scene, options, ForkJoinPool.commonPool()).isEmpty());
+    }
+
+    /**
+     * 100×60 米范围：高程约 50 米的地面，沿 x 方向、间距 8 米的三根导线（挂点 75 米、弧垂 5 米），
+     * 一根 25 米高的竖直杆塔，以及 30 个空中零散点
+     */
+    static PointColumns scene(Random random) {
+        PointColumns points = new PointColumns(40_000, 0.001, 0.001, 0.001, 0, 0, 0, false);
+        for (int i = 0; i < 24_000; i++) {
+            double x = random.nextDouble() * 100, y = random.nextDouble() * 60;
+            points.add(x, y, 50 + 0.3 * Math.sin(x / 7) + random.nextDouble() * 0.2, 100, GROUND);
+        }
+        for (int w = 0; w < WIRE_Y.length; w++) {
+            for (double x = 0; x <= 100; x += 0.25) {
+                points.add(x + random.nextGaussian() * 0.02, WIRE_Y[w] + random.nextGaussian() * 0.02,
+                        wireZ(x) + random.nextGaussian() * 0.02, 200, FIRST_WIRE + w);
+            }
+        }
+        for (double z = 50; z <= 75; z += 0.1) {
+            points.add(60 + random.nextGaussian() * 0.05, 10 + random.nextGaussian() * 0.05, z, 150, POLE);
+        }
+        for (int i = 0; i < 30; i++) {
+            points.add(random.nextDouble() * 100, random.nextDouble() * 60, 62 + random.nextDouble() * 25, 50, NOISE);
+        }
+        return points;
+    }
+
+    static double wireZ(double x) {
+        return 70 + 0.002 * (x - 50) * (x - 50);
+    }
+
+    static int[] countByClass(PointColumns points) {
+        int[] counts = new int[32];
+        for (int i = 0; i < points.size(); i++) counts[points.getClassification(i)]++;
+        return counts;
+    }
+}
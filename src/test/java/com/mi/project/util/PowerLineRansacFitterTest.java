@@ -0,0 +1,217 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RANSAC 分段拟合：在生成的电力线段（直线、抛物线、悬链线，带高斯噪声和离群点）上恢复曲线参数
+ */
+class PowerLineRansacFitterTest {
+
+    private static final double NOISE = 0.03;
+
+    @Test
+    void straightWireWithOutliers() {
+        Random random = new Random(1);
+        // 沿 (0.8, 0.6) 方向、坡度 0.05 的直线，15% 的点向上偏移 3–8 米
+        int n = 400;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        int outliers = 0;
+        for (int i = 0; i < n; i++) {
+            double s = 50.0 * i / n;
+            xs[i] = 1000 + 0.8 * s + random.nextGaussian() * NOISE;
+            ys[i] = 2000 + 0.6 * s + random.nextGaussian() * NOISE;
+            zs[i] = 30 + 0.05 * s + random.nextGaussian() * NOISE;
+            if (random.nextDouble() < 0.15) {
+                zs[i] += 3 + random.nextDouble() * 5;
+                outliers++;
+            }
+        }
+
+        PowerLineRansacFitter.Curve curve = fitSingle(new PowerLineRansacFitter.Segment(1, 14, xs, ys, zs),
+                PowerLineRansacFitter.Options.getDefault());
+
+        assertEquals(PowerLineRansacFitter.CurveModel.LINE, curve.z.model);
+        assertEquals(0.6 / 0.8, curve.y.slope / curve.x.slope, 1e-3);
+        assertEquals(0.05 / 0.8, curve.z.slope / curve.x.slope, 2e-3);
+        // 拟合曲线上的点都落在真实直线上，不被离群点拉高
+        for (double[] p : curve.points) {
+            double s = (p[0] - 1000) / 0.8;
+            assertEquals(2000 + 0.6 * s, p[1], 0.05);
+            assertEquals(30 + 0.05 * s, p[2], 0.05);
+        }
+        assertEquals(1.0 - (double) outliers / n, curve.inlierRatio, 0.02);
+        assertEquals(14, curve.classification);
+        assertEquals(n, curve.originalPointsCount);
+    }
+
+    @Test
+    void parabolicWireRecoversSag() {
+        Random random = new Random(2);
+        // 沿 x 轴对称下垂的导线 z = 40 + 0.004·(x - 25)²，10% 离群点
+        int n = 500;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double x = 50.0 * i / (n - 1);
+            xs[i] = x + random.nextGaussian() * NOISE;
+            ys[i] = random.nextGaussian() * NOISE;
+            zs[i] = 40 + 0.004 * (x - 25) * (x - 25) + random.nextGaussian() * NOISE;
+            if (i % 10 == 5) {
+                zs[i] -= 4 + random.nextDouble() * 4;
+            }
+        }
+        PowerLineRansacFitter.Options options = PowerLineRansacFitter.Options.getDefault();
+        options.setModel(PowerLineRansacFitter.CurveModel.PARABOLA);
+        options.setRansacThreshold(0.3);
+        // 默认每次采样一半的点，样本里总混有离群点；取 10 个点的小样本才能得到不含离群点的假设
+        options.setMinSamplesRatio(0.02);
+
+        PowerLineRansacFitter.Curve curve = fitSingle(new PowerLineRansacFitter.Segment(1, 14, xs, ys, zs), options);
+
+        PowerLineRansacFitter.AxisCurve z = curve.z;
+        assertEquals(PowerLineRansacFitter.CurveModel.PARABOLA, z.model);
+        assertEquals(0.004, z.quadratic, 2e-4);
+        // t 从最小投影处开始，顶点在段中间
+        assertEquals(25, -z.slope / (2 * z.quadratic) + xMinOf(xs), 0.5);
+        assertEquals(40, z.evaluate(-z.slope / (2 * z.quadratic)), 0.05);
+        assertEquals(0.9, curve.inlierRatio, 0.02);
+    }
+
+    @Test
+    void catenaryWireRecoversParameter() {
+        Random random = new Random(3);
+        // 悬链线 z = 35 + 150·(cosh((x - 50) / 150) - 1)，跨度 100 米，弧垂约 8.4 米
+        double a = 150;
+        int n = 800;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double x = 100.0 * i / (n - 1);
+            xs[i] = x + random.nextGaussian() * NOISE;
+            ys[i] = random.nextGaussian() * NOISE;
+            zs[i] = 35 + a * (Math.cosh((x - 50) / a) - 1) + random.nextGaussian() * NOISE;
+            if (i % 20 == 7) {
+                zs[i] += 5;
+            }
+        }
+        PowerLineRansacFitter.Options options = PowerLineRansacFitter.Options.getDefault();
+        options.setModel(PowerLineRansacFitter.CurveModel.CATENARY);
+        options.setSegmentLength(200);
+        options.setRansacThreshold(0.3);
+        options.setMinSamplesRatio(0.0125);
+
+        PowerLineRansacFitter.Curve curve = fitSingle(new PowerLineRansacFitter.Segment(1, 14, xs, ys, zs), options);
+
+        PowerLineRansacFitter.AxisCurve z = curve.z;
+        assertEquals(PowerLineRansacFitter.CurveModel.CATENARY, z.model);
+        assertEquals(a, z.catenaryA, a * 0.02);
+        assertEquals(50, z.vertex + xMinOf(xs), 0.5);
+        assertEquals(35, z.offset, 0.05);
+    }
+
+    /**
+     * 没有离群点时第一次采样的一致集就是全部点，自适应迭代次数降为 0，每个坐标分量只迭代一次
+     */
+    @Test
+    void adaptiveTrialsStopOnCleanData() {
+        Random random = new Random(4);
+        int n = 300;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double s = 40.0 * i / n;
+            xs[i] = s + random.nextGaussian() * NOISE;
+            ys[i] = 0.5 * s + random.nextGaussian() * NOISE;
+            zs[i] = 20 + random.nextGaussian() * NOISE;
+        }
+        PowerLineRansacFitter.Options options = PowerLineRansacFitter.Options.getDefault();
+        options.setMaxTrials(1000);
+
+        PowerLineRansacFitter.Curve curve = fitSingle(new PowerLineRansacFitter.Segment(1, 14, xs, ys, zs), options);
+
+        assertEquals(3, curve.trials);
+        assertEquals(1.0, curve.inlierRatio);
+    }
+
+    /**
+     * 采样 3 个点、20% 离群点时，99% 置信度只需约 7 次迭代，远少于 maxTrials
+     */
+    @Test
+    void adaptiveTrialsStopEarlyWithOutliers() {
+        Random random = new Random(5);
+        int n = 300;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double s = 40.0 * i / n;
+            xs[i] = s + random.nextGaussian() * NOISE;
+            ys[i] = random.nextGaussian() * NOISE;
+            zs[i] = 20 + 0.1 * s + random.nextGaussian() * NOISE + (i % 5 == 0 ? 10 : 0);
+        }
+        PowerLineRansacFitter.Options options = PowerLineRansacFitter.Options.getDefault();
+        options.setMaxTrials(1000);
+        options.setMinSamplesRatio(0.01);
+
+        PowerLineRansacFitter.Curve curve = fitSingle(new PowerLineRansacFitter.Segment(1, 14, xs, ys, zs), options);
+
+        assertTrue(curve.trials < 60, "迭代次数 " + curve.trials);
+        assertEquals(0.8, curve.inlierRatio, 0.01);
+        assertEquals(0.1, curve.z.slope, 0.005);
+    }
+
+    @Test
+    void longWireIsSplitIntoOverlappingSubsegments() {
+        Random random = new Random(6);
+        int n = 2000;
+        double[] xs = new double[n], ys = new double[n], zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double x = 200.0 * i / (n - 1);
+            xs[i] = x + random.nextGaussian() * NOISE;
+            ys[i] = random.nextGaussian() * NOISE;
+            zs[i] = 25 + 0.02 * x + random.nextGaussian() * NOISE;
+        }
+        PowerLineRansacFitter.Segment tooSmall = new PowerLineRansacFitter.Segment(2, 14,
+                new double[]{0, 1, 2}, new double[]{0, 0, 0}, new double[]{0, 0, 0});
+
+        PowerLineRansacFitter.Result result = PowerLineRansacFitter.fitSegments(
+                List.of(new PowerLineRansacFitter.Segment(1, 14, xs, ys, zs), tooSmall),
+                PowerLineRansacFitter.Options.getDefault(), ForkJoinPool.commonPool());
+
+        // ceil(200 / 60) = 4 个子段，第 i 段从前一段末尾的 10% 处开始
+        assertEquals(2, result.segments.size());
+        assertEquals(4, result.segments.get(0).fittedSegments);
+        assertEquals(200, result.segments.get(0).totalLength, 0.5);
+        assertEquals(0, result.segments.get(1).fittedSegments);
+        assertEquals(4, result.curves.size());
+        for (int i = 0; i < 4; i++) {
+            PowerLineRansacFitter.Curve curve = result.curves.get(i);
+            assertEquals(i + 1, curve.subsegmentId);
+            assertEquals(0.02, Math.abs(curve.z.slope / curve.x.slope), 1e-3);
+            assertEquals(NOISE, curve.rmse, 0.015);
+        }
+        assertTrue(result.curves.get(1).getStartPoint()[0] < result.curves.get(0).getEndPoint()[0]);
+    }
+
+    private static PowerLineRansacFitter.Curve fitSingle(PowerLineRansacFitter.Segment segment,
+                                                        PowerLineRansacFitter.Options options) {
+        PowerLineRansacFitter.Result result = PowerLineRansacFitter.fitSegments(List.of(segment), options,
+                ForkJoinPool.commonPool());
+        assertEquals(1, result.curves.size());
+        PowerLineRansacFitter.Curve curve = result.curves.get(0);
+        assertNotNull(curve);
+        return curve;
+    }
+
+    /**
+     * 沿线距离 t 从投影最小的点开始；导线沿 x 轴时即为最小的 x
+     */
+    private static double xMinOf(double[] xs) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double x : xs) min = Math.min(min, x);
+        return min;
+    }
+}
@@ -0,0 +1,76 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 残差聚类：{@link PowerLineCandidateExtractorTest} 场景中提取出的候选点分离为三根导线，
+ * 每根导线只含同一根线的点，模型恢复导线走向和弧垂
+ */
+class PowerLineResidualSeparatorTest {
+
+    @Test
+    void parallelWiresAreSeparated() {
+        PointColumns candidates = PowerLineCandidateExtractor.merge(
+                PowerLineCandidateExtractor.extract(PowerLineCandidateExtractorTest.scene(new Random(21)),
+                        PowerLineCandidateExtractor.Options.getDefault(), ForkJoinPool.commonPool()),
+                new PointColumns(0, 0.001, 0.001, 0.001, 0, 0, 0, false));
+        // 导线水平间距 8 米，残差空间邻域半径需小于间距
+        PowerLineResidualSeparator.Options options = PowerLineResidualSeparator.Options.getDefault();
+        options.setEps(2.0);
+
+        PowerLineResidualSeparator.Result result = PowerLineResidualSeparator.separate(candidates, options,
+                ForkJoinPool.commonPool());
+
+        // 三根线关于中间一根对称：拟合直线为 y = 30，抛物线即导线本身
+        PowerLineResidualSeparator.Model model = result.model;
+        assertEquals(0, model.horizontalResidual(50, 30), 0.01);
+        assertEquals(8, Math.abs(model.horizontalResidual(50, 22)), 0.01);
+        assertEquals(0, model.project(50, 30) - model.project(0, 30) - 50, 0.01);
+
+        List<PowerLineResidualSeparator.Conductor> conductors = result.conductors;
+        assertEquals(3, conductors.size());
+        boolean[] seen = new boolean[3];
+        int assigned = 0;
+        for (PowerLineResidualSeparator.Conductor conductor : conductors) {
+            int wire = candidates.getClassification(conductor.indices[0]) - PowerLineCandidateExtractorTest.FIRST_WIRE;
+            assertTrue(!seen[wire], "导线 " + wire + " 被拆分");
+            seen[wire] = true;
+            double minS = Double.POSITIVE_INFINITY, maxS = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < conductor.size(); i++) {
+                int index = conductor.indices[i];
+                assertEquals(wire + PowerLineCandidateExtractorTest.FIRST_WIRE, candidates.getClassification(index));
+                assertEquals(PowerLineCandidateExtractorTest.WIRE_Y[wire], candidates.getY(index), 0.2);
+                assertEquals(0, result.verticalResiduals[index], 0.2);
+                assertEquals(model.project(candidates.getX(index), candidates.getY(index)), conductor.s[i], 1e-9);
+                if (i > 0) assertTrue(index > conductor.indices[i - 1]);
+                minS = Math.min(minS, conductor.s[i]);
+                maxS = Math.max(maxS, conductor.s[i]);
+            }
+            // 导线贯穿整个 100 米范围
+            assertEquals(100, maxS - minS, 1.0);
+            assigned += conductor.size();
+        }
+        assertEquals(candidates.size(), assigned + result.noise.length);
+        assertTrue(result.noise.length < candidates.size() * 0.01, "噪声点 " + result.noise.length);
+    }
+
+    @Test
+    void tooFewCandidatesAreNoise() {
+        PointColumns candidates = new PointColumns(4, 0.01, 0.01, 0.01, 0, 0, 0, false);
+        for (int i = 0; i < 4; i++) candidates.add(i, 0, 30, 0, 14);
+
+        PowerLineResidualSeparator.Result result = PowerLineResidualSeparator.separate(candidates);
+
+        assertNull(result.model);
+        assertTrue(result.conductors.isEmpty());
+        assertEquals(4, result.noise.length);
+    }
+}
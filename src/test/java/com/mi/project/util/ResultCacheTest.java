@@ -0,0 +1,188 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 结果缓存：同一个键并发生成只执行一次，超过预算时按最近最少使用淘汰且跳过被持有的条目，
+ * 硬链接不可用时退回复制
+ */
+class ResultCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentComputeBuildsOnce() throws Exception {
+        ResultCache cache = cache(1L << 20);
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    try (ResultCache.Lease lease = cache.computeIfAbsent("k", out -> {
+                        builds.incrementAndGet();
+                        started.countDown();
+                        // 生成期间其余调用都已到达并等待
+                        release.await();
+                        Files.writeString(out.resolve("result.txt"), "ok");
+                    })) {
+                        assertEquals("ok", Files.readString(lease.getPath().resolve("result.txt")));
+                        return lease.isHit();
+                    }
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+            int hits = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(5, TimeUnit.SECONDS)) hits++;
+            }
+            assertEquals(1, builds.get());
+            assertEquals(threads - 1, hits);
+        } finally {
+            pool.shutdownNow();
+        }
+        ResultCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.entries);
+        assertEquals(1, stats.misses);
+        assertEquals(threads - 1, stats.hits);
+    }
+
+    @Test
+    void failedBuildLeavesNoEntryAndIsRetried() throws Exception {
+        ResultCache cache = cache(1L << 20);
+        assertThrows(IOException.class, () -> cache.computeIfAbsent("k", out -> {
+            Files.writeString(out.resolve("partial.txt"), "x");
+            throw new IOException("生成失败");
+        }));
+        assertNull(cache.get("k"));
+        assertEquals(List.of(), names(dir));
+        try (ResultCache.Lease lease = cache.computeIfAbsent("k", out -> Files.writeString(out.resolve("r.txt"), "ok"))) {
+            assertFalse(lease.isHit());
+        }
+        assertEquals(1, cache.getStats().entries);
+    }
+
+    @Test
+    void evictionSkipsLeasedEntries() throws Exception {
+        // 每个条目 100 字节，预算 350 字节，最多保留 3 个
+        ResultCache cache = cache(350);
+        ResultCache.Lease pinned = entry(cache, "a");
+        entry(cache, "b").close();
+        entry(cache, "c").close();
+        // a 最久未使用但仍被持有，淘汰其后的 b
+        entry(cache, "d").close();
+        assertEquals(3, cache.getStats().entries);
+        assertEquals(1, cache.getStats().evictions);
+        assertFalse(Files.exists(dir.resolve("b")));
+        assertTrue(Files.exists(pinned.getPath().resolve("data.bin")));
+        assertNull(cache.get("b"));
+
+        // 释放后 a 仍是最久未使用的，下一次超出预算时被淘汰
+        pinned.close();
+        entry(cache, "e").close();
+        assertNull(cache.get("a"));
+        assertFalse(Files.exists(dir.resolve("a")));
+        for (String key : new String[]{"c", "d", "e"}) {
+            try (ResultCache.Lease lease = cache.get(key)) {
+                assertNotNull(lease, key);
+            }
+        }
+        assertEquals(300, cache.getStats().bytes);
+    }
+
+    @Test
+    void reopenedCacheRestoresEntries() throws Exception {
+        ResultCache cache = cache(1L << 20);
+        entry(cache, "a").close();
+        Files.createDirectories(dir.resolve(".tmp-left-over"));
+
+        ResultCache reopened = cache(1L << 20);
+        assertEquals(1, reopened.getStats().entries);
+        assertEquals(100, reopened.getStats().bytes);
+        assertFalse(Files.exists(dir.resolve(".tmp-left-over")));
+    }
+
+    @Test
+    void linkOrCopyLinksOnSameFileSystem() throws Exception {
+        Path source = dir.resolve("source.bin");
+        Files.write(source, new byte[]{1, 2, 3});
+        Path target = dir.resolve("out/nested/target.bin");
+        Files.writeString(createParent(target), "旧内容");
+
+        ResultCache.linkOrCopy(source, target);
+
+        assertTrue(Files.isSameFile(source, target));
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target));
+    }
+
+    @Test
+    void linkOrCopyFallsBackToCopy() throws Exception {
+        Path source = dir.resolve("source.bin");
+        Files.write(source, new byte[]{4, 5, 6});
+        // zip 文件系统不支持硬链接，跨文件系统时只能复制
+        URI uri = URI.create("jar:" + dir.resolve("out.zip").toUri());
+        try (FileSystem zip = FileSystems.newFileSystem(uri, Map.of("create", "true"))) {
+            Path target = zip.getPath("/nested/target.bin");
+            ResultCache.linkOrCopy(source, target);
+            assertArrayEquals(new byte[]{4, 5, 6}, Files.readAllBytes(target));
+
+            // 复制得到独立的文件，修改源文件不影响目标
+            Files.write(source, new byte[]{7});
+            assertArrayEquals(new byte[]{4, 5, 6}, Files.readAllBytes(target));
+        }
+    }
+
+    private ResultCache cache(long maxBytes) throws IOException {
+        ResultCache.Options options = ResultCache.Options.getDefault();
+        options.setDirectory(dir);
+        options.setMaxBytes(maxBytes);
+        return new ResultCache(options);
+    }
+
+    private static ResultCache.Lease entry(ResultCache cache, String key) throws IOException {
+        return cache.computeIfAbsent(key, out -> Files.write(out.resolve("data.bin"), new byte[100]));
+    }
+
+    private static Path createParent(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        return path;
+    }
+
+    private static List<String> names(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths.map(p -> p.getFileName().toString()).toList();
+        }
+    }
+}
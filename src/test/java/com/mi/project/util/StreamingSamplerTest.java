@@ -0,0 +1,153 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式采样：蓄水池样本大小、顺序和各输入点的入样概率，强度 Top-K 的排序，等步长采样的下标，
+ * 以及输入不超过容量时原样返回。测试点的 x 坐标（比例 1）即输入序号
+ */
+class StreamingSamplerTest {
+
+    @Test
+    void reservoirKeepsCapacityDistinctPointsInInputOrder() {
+        PointColumns points = indexed(100_000, new Random(1));
+        StreamingSampler sampler = reservoir(1000, points, new Random(2));
+
+        PointColumns sample = sampler.result();
+        assertTrue(sampler.isSampled());
+        assertEquals(100_000, sampler.getSeen());
+        assertEquals(1000, sample.size());
+        for (int i = 1; i < sample.size(); i++) {
+            assertTrue(sample.getRawX(i - 1) < sample.getRawX(i), "样本未按输入顺序排列");
+        }
+        for (int i = 0; i < sample.size(); i++) {
+            int index = sample.getRawX(i);
+            assertEquals(points.getIntensity(index), sample.getIntensity(i));
+            assertEquals(points.getClassification(index), sample.getClassification(i));
+        }
+    }
+
+    /**
+     * 每个输入点入样概率均为 capacity / n：按输入序号分成 10 段，重复采样后各段命中数接近期望值
+     */
+    @Test
+    void reservoirIsUniform() {
+        int n = 2000, capacity = 100, trials = 4000, buckets = 10;
+        PointColumns points = indexed(n, new Random(3));
+        Random random = new Random(4);
+        long[] hits = new long[buckets];
+        for (int t = 0; t < trials; t++) {
+            PointColumns sample = reservoir(capacity, points, random).result();
+            assertEquals(capacity, sample.size());
+            for (int i = 0; i < capacity; i++) {
+                hits[sample.getRawX(i) * buckets / n]++;
+            }
+        }
+
+        double expected = (double) trials * capacity / buckets;
+        for (int b = 0; b < buckets; b++) {
+            assertEquals(expected, hits[b], expected * 0.03, "第 " + b + " 段命中数");
+        }
+    }
+
+    /**
+     * 强度最高的 K 个点按强度降序、同强度按输入顺序输出，与对全部点稳定排序后取前 K 个相同
+     */
+    @Test
+    void topIntensityMatchesStableSort() {
+        Random random = new Random(5);
+        PointColumns points = new PointColumns(50_000, 1, 1, 1, 0, 0, 0, false);
+        for (int i = 0; i < 50_000; i++) {
+            // 强度取值少，大量并列
+            points.add(i, 0, 0, random.nextInt(500), random.nextInt(20));
+        }
+
+        for (int k : new int[]{1, 7, 1000, 49_999}) {
+            PointColumns sample = StreamingSampler.createFor(LASToJsonUtil.SamplingStrategy.INTENSITY, k, points)
+                    .offerAll(points).result();
+            int[] expected = IntStream.range(0, points.size()).boxed()
+                    .sorted(Comparator.comparingInt((Integer i) -> -points.getIntensity(i)))
+                    .limit(k).mapToInt(Integer::intValue).toArray();
+            int[] actual = IntStream.range(0, sample.size()).map(sample::getRawX).toArray();
+            assertArrayEquals(expected, actual, "K = " + k);
+        }
+    }
+
+    @Test
+    void strideTakesEvenlySpacedIndices() {
+        PointColumns points = indexed(10_007, new Random(6));
+        PointColumns sample = StreamingSampler.createFor(LASToJsonUtil.SamplingStrategy.UNIFORM, 1000, points)
+                .offerAll(points).result();
+
+        assertEquals(1000, sample.size());
+        for (int k = 0; k < 1000; k++) {
+            assertEquals((long) (k * (10_007 / 1000.0)), sample.getRawX(k));
+        }
+    }
+
+    @Test
+    void smallInputIsReturnedUnchanged() {
+        PointColumns points = indexed(50, new Random(7));
+        for (LASToJsonUtil.SamplingStrategy strategy : new LASToJsonUtil.SamplingStrategy[]{
+                LASToJsonUtil.SamplingStrategy.RANDOM, LASToJsonUtil.SamplingStrategy.INTENSITY,
+                LASToJsonUtil.SamplingStrategy.UNIFORM}) {
+            StreamingSampler sampler = StreamingSampler.createFor(strategy, 100, points).offerAll(points);
+            PointColumns sample = sampler.result();
+
+            assertFalse(sampler.isSampled());
+            assertSame(sampler.sample, sample);
+            assertEquals(50, sample.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, sample.getRawX(i), strategy.name());
+            }
+            // 分类统计覆盖全部输入点
+            assertEquals(points.classificationStats(), sampler.classificationStats());
+        }
+    }
+
+    @Test
+    void classificationStatsCountAllInput() {
+        PointColumns points = indexed(20_000, new Random(8));
+        StreamingSampler sampler = reservoir(10, points, new Random(9));
+
+        Map<Integer, Integer> stats = sampler.classificationStats();
+        assertEquals(points.classificationStats(), stats);
+        assertEquals(20_000, stats.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        PointColumns points = indexed(10, new Random(10));
+        assertThrows(IllegalArgumentException.class,
+                () -> StreamingSampler.createFor(LASToJsonUtil.SamplingStrategy.RANDOM, 0, points));
+        assertThrows(IllegalArgumentException.class,
+                () -> StreamingSampler.createFor(LASToJsonUtil.SamplingStrategy.GRID_BASED, 5, points));
+    }
+
+    private static StreamingSampler reservoir(int capacity, PointColumns points, Random random) {
+        return new StreamingSampler.Reservoir(capacity, PointColumns.like(points, capacity), random).offerAll(points);
+    }
+
+    /**
+     * 第 i 个点的 x 坐标为 i，强度和分类随机
+     */
+    private static PointColumns indexed(int n, Random random) {
+        PointColumns points = new PointColumns(n, 1, 1, 1, 0, 0, 0, false);
+        for (int i = 0; i < n; i++) {
+            points.add(i, 0, 0, random.nextInt(65536), random.nextInt(32));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,153 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 3×3 对称矩阵特征分解：由已知正交矩阵和特征值构造 A = Q·diag(λ)·Qᵀ，恢复特征值（降序）和特征向量（允许符号不同）
+ */
+class SymmetricEigen3Test {
+
+    private static final double EPS = 1e-10;
+
+    @Test
+    void recoversKnownEigenpairs() {
+        // 绕 z 轴 30°、再绕 x 轴 45° 的旋转矩阵，列为特征向量
+        double c1 = Math.cos(Math.PI / 6), s1 = Math.sin(Math.PI / 6);
+        double c2 = Math.cos(Math.PI / 4), s2 = Math.sin(Math.PI / 4);
+        double[][] q = multiply(
+                new double[][]{{1, 0, 0}, {0, c2, -s2}, {0, s2, c2}},
+                new double[][]{{c1, -s1, 0}, {s1, c1, 0}, {0, 0, 1}});
+        double[] lambda = {-1.5, 7.0, 2.25};
+        double[][] a = compose(q, lambda);
+
+        double[] values = new double[3], vectors = new double[9];
+        SymmetricEigen3.decompose(a[0][0], a[0][1], a[0][2], a[1][1], a[1][2], a[2][2], values, vectors);
+
+        assertArrayEquals(new double[]{7.0, 2.25, -1.5}, values, EPS);
+        int[] column = {1, 2, 0};
+        for (int k = 0; k < 3; k++) {
+            double[] expected = {q[0][column[k]], q[1][column[k]], q[2][column[k]]};
+            double[] actual = {vectors[3 * k], vectors[3 * k + 1], vectors[3 * k + 2]};
+            double sign = Math.signum(dot(expected, actual));
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected[i], sign * actual[i], EPS, "特征向量 " + k);
+            }
+        }
+    }
+
+    @Test
+    void diagonalMatrixIsSortedDescending() {
+        double[] values = new double[3], vectors = new double[9];
+        SymmetricEigen3.decompose(1, 0, 0, 3, 0, 2, values, vectors);
+
+        assertArrayEquals(new double[]{3, 2, 1}, values);
+        assertArrayEquals(new double[]{0, 1, 0, 0, 0, 1, 1, 0, 0}, vectors);
+    }
+
+    /**
+     * 二重特征值时特征向量不唯一，只检查 A·v = λ·v 和正交归一
+     */
+    @Test
+    void repeatedEigenvalues() {
+        double[][] q = multiply(
+                new double[][]{{1, 0, 0}, {0, 0.6, -0.8}, {0, 0.8, 0.6}},
+                new double[][]{{0.28, -0.96, 0}, {0.96, 0.28, 0}, {0, 0, 1}});
+        double[][] a = compose(q, new double[]{4, 4, 1});
+        double[] values = new double[3], vectors = new double[9];
+        SymmetricEigen3.decompose(a[0][0], a[0][1], a[0][2], a[1][1], a[1][2], a[2][2], values, vectors);
+
+        assertArrayEquals(new double[]{4, 4, 1}, values, EPS);
+        assertEigenpairs(a, values, vectors);
+    }
+
+    /**
+     * 线状邻域的协方差：与直线方向一致的主特征向量
+     */
+    @Test
+    void linearCovarianceHasDominantDirection() {
+        double[] d = {0.8, 0.6, 0};
+        double[][] a = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                a[i][j] = 25 * d[i] * d[j] + (i == j ? 1e-4 : 0);
+            }
+        }
+        double[] values = new double[3], vectors = new double[9];
+        SymmetricEigen3.decompose(a[0][0], a[0][1], a[0][2], a[1][1], a[1][2], a[2][2], values, vectors);
+
+        assertEquals(25 + 1e-4, values[0], EPS);
+        assertEquals(1e-4, values[1], EPS);
+        assertEquals(1e-4, values[2], EPS);
+        assertEquals(1.0, Math.abs(dot(d, new double[]{vectors[0], vectors[1], vectors[2]})), EPS);
+    }
+
+    @Test
+    void randomSymmetricMatrices() {
+        Random random = new Random(7);
+        for (int t = 0; t < 1000; t++) {
+            double[][] a = new double[3][3];
+            for (int i = 0; i < 3; i++) {
+                for (int j = i; j < 3; j++) {
+                    a[i][j] = a[j][i] = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(7) - 3);
+                }
+            }
+            double[] values = new double[3], vectors = new double[9];
+            SymmetricEigen3.decompose(a[0][0], a[0][1], a[0][2], a[1][1], a[1][2], a[2][2], values, vectors);
+
+            assertTrue(values[0] >= values[1] && values[1] >= values[2]);
+            // 特征值之和等于迹
+            double scale = Math.max(1e-300, Math.abs(values[0]) + Math.abs(values[2]));
+            assertEquals(a[0][0] + a[1][1] + a[2][2], values[0] + values[1] + values[2], 1e-12 * scale);
+            assertEigenpairs(a, values, vectors);
+        }
+    }
+
+    private static void assertEigenpairs(double[][] a, double[] values, double[] vectors) {
+        double scale = Math.max(Math.abs(values[0]), Math.abs(values[2]));
+        for (int k = 0; k < 3; k++) {
+            double[] v = {vectors[3 * k], vectors[3 * k + 1], vectors[3 * k + 2]};
+            assertEquals(1.0, dot(v, v), EPS);
+            for (int i = 0; i < 3; i++) {
+                double av = a[i][0] * v[0] + a[i][1] * v[1] + a[i][2] * v[2];
+                assertEquals(values[k] * v[i], av, 1e-12 * scale, "A·v = λ·v");
+            }
+            for (int l = k + 1; l < 3; l++) {
+                assertEquals(0, dot(v, new double[]{vectors[3 * l], vectors[3 * l + 1], vectors[3 * l + 2]}), EPS);
+            }
+        }
+    }
+
+    private static double[][] compose(double[][] q, double[] lambda) {
+        double[][] a = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    a[i][j] += q[i][k] * lambda[k] * q[j][k];
+                }
+            }
+        }
+        return a;
+    }
+
+    private static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+}
@@ -0,0 +1,129 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 阶段排队任务在执行器拒绝或作业取消时也必须结束，不能让等待末端结果的调用方挂起
+ */
+class TilePipelineTest {
+
+    private final AnalysisExecutor executor = new AnalysisExecutor(options());
+
+    @AfterEach
+    void closeExecutor() {
+        executor.close();
+    }
+
+    @Test
+    void queuedTasksFailWhenExecutorIsClosed() throws Exception {
+        AnalysisExecutor.Job job = executor.openJob("u", "closed", 1);
+        TilePipeline pipeline = new TilePipeline(job).stage("s", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = pipeline.start("s", () -> {
+            release.await();
+            return "first";
+        });
+        List<CompletableFuture<String>> queued = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queued.add(pipeline.start("s", () -> "queued"));
+        }
+
+        // 关闭会等待运行中的任务，放到后台线程；执行器拒绝新作业后再放行第一个任务
+        Thread closer = new Thread(executor::close);
+        closer.start();
+        awaitClosed();
+        release.countDown();
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<String> f : queued) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        }
+        closer.join(5000);
+    }
+
+    @Test
+    void massCancellationCompletesEveryQueuedTask() throws Exception {
+        AnalysisExecutor.Job job = executor.openJob("u", "cancelled", 1);
+        TilePipeline pipeline = new TilePipeline(job).stage("s", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.start("s", () -> {
+            release.await();
+            return null;
+        });
+        // 取消后每个排队任务提交即完成，逐个递归释放名额会耗尽调用栈
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            int n = i;
+            queued.add(pipeline.start("s", () -> n));
+        }
+        job.cancel("test");
+        release.countDown();
+
+        CompletableFuture.allOf(queued.toArray(CompletableFuture<?>[]::new))
+                .handle((v, e) -> null).get(30, TimeUnit.SECONDS);
+        for (CompletableFuture<Integer> f : queued) {
+            assertThrows(CancellationException.class, f::get);
+        }
+        TilePipeline.StageMetrics metrics = pipeline.getMetrics().get(0);
+        assertEquals(0, metrics.failed);
+    }
+
+    @Test
+    void concurrencyLimitIsRespected() throws Exception {
+        AnalysisExecutor.Job job = executor.openJob("u", "limit", 1);
+        TilePipeline pipeline = new TilePipeline(job).stage("s", 2);
+        int[] active = {0, 0};
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            tasks.add(pipeline.start("s", () -> {
+                synchronized (active) {
+                    active[1] = Math.max(active[1], ++active[0]);
+                }
+                Thread.sleep(2);
+                synchronized (active) {
+                    active[0]--;
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture<?>[]::new)).get(30, TimeUnit.SECONDS);
+        assertTrue(active[1] <= 2, "同时运行 " + active[1]);
+        assertEquals(40, pipeline.getMetrics().get(0).completed);
+    }
+
+    private void awaitClosed() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                executor.openJob("probe", "probe", 1).close();
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("执行器没有关闭");
+    }
+
+    private static AnalysisExecutor.Options options() {
+        AnalysisExecutor.Options options = AnalysisExecutor.Options.getDefault();
+        options.setThreads(4);
+        options.setMemoryBudgetBytes(64L << 20);
+        return options;
+    }
+}
@@ -0,0 +1,126 @@
+package com.mi.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 体素采样：已知网格上每个体素恰好输出一个代表点，代表点取法与输出顺序符合约定；
+ * 按目标点数采样时输出不超过目标点数
+ */
+class VoxelGridSamplerTest {
+
+    /** 网格尺寸，体素边长为 1 */
+    private static final int NX = 12, NY = 10, NZ = 4;
+
+    /** 每个体素内三个点相对体素角点的偏移，远离体素边界 */
+    private static final double[] JITTER = {0.0, 0.3, 0.6};
+
+    @Test
+    void firstPointOfEachVoxel() {
+        PointColumns points = grid();
+        PointColumns sample = VoxelGridSampler.sample(points, 1.0, VoxelGridSampler.Representative.FIRST);
+
+        assertEquals(NX * NY * NZ, sample.size());
+        // 每个体素的第一个点偏移为 0，输出顺序与体素首次出现的顺序一致
+        int v = 0;
+        for (int ix = 0; ix < NX; ix++) {
+            for (int iy = 0; iy < NY; iy++) {
+                for (int iz = 0; iz < NZ; iz++, v++) {
+                    assertEquals(ix, sample.getX(v), 1e-9);
+                    assertEquals(iy, sample.getY(v), 1e-9);
+                    assertEquals(iz, sample.getZ(v), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void maxIntensityOfEachVoxel() {
+        PointColumns points = grid();
+        PointColumns sample = VoxelGridSampler.sample(points, 1.0, VoxelGridSampler.Representative.MAX_INTENSITY);
+
+        assertEquals(NX * NY * NZ, sample.size());
+        for (int v = 0; v < sample.size(); v++) {
+            // 强度最高的是偏移 0.3 的点
+            assertEquals(Math.floor(sample.getX(v)) + 0.3, sample.getX(v), 1e-9);
+            assertEquals(intensity(v, 1), sample.getIntensity(v));
+        }
+    }
+
+    @Test
+    void centroidOfEachVoxel() {
+        PointColumns points = grid();
+        PointColumns sample = VoxelGridSampler.sample(points, 1.0, VoxelGridSampler.Representative.CENTROID);
+
+        assertEquals(NX * NY * NZ, sample.size());
+        for (int v = 0; v < sample.size(); v++) {
+            assertEquals(Math.floor(sample.getX(v)) + 0.3, sample.getX(v), 1e-3);
+            assertEquals(Math.floor(sample.getY(v)) + 0.3, sample.getY(v), 1e-3);
+            assertEquals(Math.floor(sample.getZ(v)) + 0.3, sample.getZ(v), 1e-3);
+            assertEquals((intensity(v, 0) + intensity(v, 1) + intensity(v, 2)) / 3, sample.getIntensity(v));
+            assertEquals(v % 20, sample.getClassification(v));
+        }
+    }
+
+    /**
+     * 边长为 2 时相邻的 2×2×2 个体素合并
+     */
+    @Test
+    void largerCellsMergeVoxels() {
+        PointColumns sample = VoxelGridSampler.sample(grid(), 2.0, VoxelGridSampler.Representative.FIRST);
+        assertEquals((NX / 2) * (NY / 2) * (NZ / 2), sample.size());
+    }
+
+    @Test
+    void targetCountIsNotExceeded() {
+        Random random = new Random(13);
+        PointColumns points = new PointColumns(200_000, 0.01, 0.01, 0.01, 0, 0, 0, false);
+        for (int i = 0; i < 200_000; i++) {
+            points.add(random.nextDouble() * 2000, random.nextDouble() * 500, random.nextDouble() * 40,
+                    random.nextInt(65536), random.nextInt(20));
+        }
+
+        for (int target : new int[]{1000, 20_000, 150_000}) {
+            PointColumns sample = VoxelGridSampler.sample(points, target, VoxelGridSampler.Representative.FIRST);
+            assertTrue(sample.size() <= target, target + " → " + sample.size());
+            assertTrue(sample.size() >= target / 2, target + " → " + sample.size());
+        }
+        assertSame(points, VoxelGridSampler.sample(points, 200_000, VoxelGridSampler.Representative.FIRST));
+        assertEquals(0, VoxelGridSampler.sample(points, 0, VoxelGridSampler.Representative.FIRST).size());
+    }
+
+    @Test
+    void invalidCellSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> VoxelGridSampler.sample(grid(), 0.0, VoxelGridSampler.Representative.FIRST));
+    }
+
+    /**
+     * 先按偏移、再按体素顺序写入，同一体素的三个点分散在输入中；第 v 个体素第 j 个点的强度见 {@link #intensity}
+     */
+    private static PointColumns grid() {
+        PointColumns points = new PointColumns(NX * NY * NZ * JITTER.length, 0.001, 0.001, 0.001, 0, 0, 0, false);
+        for (int j = 0; j < JITTER.length; j++) {
+            int v = 0;
+            for (int ix = 0; ix < NX; ix++) {
+                for (int iy = 0; iy < NY; iy++) {
+                    for (int iz = 0; iz < NZ; iz++, v++) {
+                        points.add(ix + JITTER[j], iy + JITTER[j], iz + JITTER[j], intensity(v, j), v % 20);
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    /** 偏移 0.3 的点强度最高 */
+    private static int intensity(int voxel, int j) {
+        return voxel * 10 + (j == 1 ? 5 : j);
+    }
+}